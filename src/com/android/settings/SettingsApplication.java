@@ -28,11 +28,14 @@ import androidx.annotation.NonNull;
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
 import com.android.settings.core.instrumentation.ElapsedTimeUtils;
+import com.android.settings.core.instrumentation.StartupTracer;
 import com.android.settings.fuelgauge.BatterySettingsStorage;
+import com.android.settings.fuelgauge.batteryusage.BatteryDiffEntry;
 import com.android.settings.homepage.SettingsHomepageActivity;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.overlay.FeatureFactoryImpl;
 import com.android.settings.spa.SettingsSpaEnvironment;
+import com.android.settings.users.UserAvatarCache;
 import com.android.settingslib.applications.AppIconCacheManager;
 import com.android.settingslib.datastore.BackupRestoreStorageManager;
 import com.android.settingslib.spa.framework.common.SpaEnvironmentFactory;
@@ -49,14 +52,35 @@ public class SettingsApplication extends Application {
     @Override
     protected void attachBaseContext(Context base) {
         super.attachBaseContext(base);
-        FeatureFactory.setFactory(this, getFeatureFactory());
+        final StartupTracer.Span span =
+                StartupTracer.beginPhase(StartupTracer.PHASE_FEATURE_FACTORY);
+        try {
+            FeatureFactory.setFactory(this, getFeatureFactory());
+        } finally {
+            span.end();
+        }
     }
 
     @Override
     public void onCreate() {
-        super.onCreate();
+        final StartupTracer.Span span =
+                StartupTracer.beginPhase(StartupTracer.PHASE_APPLICATION_CREATE);
+        try {
+            super.onCreate();
+            initApplication();
+        } finally {
+            span.end();
+        }
+    }
 
-        BackupRestoreStorageManager.getInstance(this).add(new BatterySettingsStorage(this));
+    private void initApplication() {
+        final StartupTracer.Span storageSpan =
+                StartupTracer.beginPhase(StartupTracer.PHASE_BACKUP_RESTORE_STORAGE);
+        try {
+            BackupRestoreStorageManager.getInstance(this).add(new BatterySettingsStorage(this));
+        } finally {
+            storageSpan.end();
+        }
 
         // Add null checking to avoid test case failed.
         if (getApplicationContext() != null) {
@@ -66,11 +90,20 @@ public class SettingsApplication extends Application {
         // Set Spa environment.
         setSpaEnvironment();
 
+        // Let the profile helpers of Utils answer from a cached user topology.
+        UserProfileTopology.startTracking(this);
+
         if (ActivityEmbeddingUtils.isSettingsSplitEnabled(this)
                 && FeatureFlagUtils.isEnabled(this,
                         FeatureFlagUtils.SETTINGS_SUPPORT_LARGE_SCREEN)) {
             if (WizardManagerHelper.isUserSetupComplete(this)) {
-                new ActivityEmbeddingRulesController(this).initRules();
+                final StartupTracer.Span rulesSpan =
+                        StartupTracer.beginPhase(StartupTracer.PHASE_EMBEDDING_RULES);
+                try {
+                    new ActivityEmbeddingRulesController(this).initRules();
+                } finally {
+                    rulesSpan.end();
+                }
             } else {
                 new DeviceProvisionedObserver().registerContentObserver();
             }
@@ -108,6 +141,8 @@ public class SettingsApplication extends Application {
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
         AppIconCacheManager.getInstance().trimMemory(level);
+        BatteryDiffEntry.onTrimMemory(level);
+        UserAvatarCache.onTrimMemory(level);
     }
 
     private class DeviceProvisionedObserver extends ContentObserver {
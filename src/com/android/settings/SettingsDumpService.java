@@ -26,17 +26,20 @@ import android.content.pm.ResolveInfo;
 import android.net.NetworkTemplate;
 import android.net.Uri;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.os.storage.StorageManager;
 import android.os.storage.VolumeInfo;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.util.IndentingPrintWriter;
+import android.util.JsonWriter;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
+import com.android.settings.core.instrumentation.StartupTracer;
 import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.network.MobileNetworkRepository;
 import com.android.settingslib.net.DataUsageController;
@@ -47,7 +50,20 @@ import org.json.JSONObject;
 
 import java.io.File;
 import java.io.FileDescriptor;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class SettingsDumpService extends Service {
 
@@ -67,9 +83,23 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_SECTION_TIMING = "section_timing_ms";
+    @VisibleForTesting
+    static final String KEY_STARTUP = "startup";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
+    /**
+     * Time given to every section to be collected, measured from the start of the dump, in
+     * milliseconds. Sections which take longer are reported as timed out.
+     */
+    @VisibleForTesting
+    static final long SECTION_TIMEOUT_MS = 3000L;
+
+    private static final String SECTION_TIMEOUT = "timeout";
+    private static final String SECTION_ERROR = "error";
+
     private boolean mShouldShowNetworkDump = false;
 
     @Override
@@ -89,19 +119,14 @@ public class SettingsDumpService extends Service {
     protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
         IndentingPrintWriter pw = new IndentingPrintWriter(writer, "  ");
         if (!mShouldShowNetworkDump) {
-            JSONObject dump = new JSONObject();
             pw.println(TAG + ": ");
             pw.increaseIndent();
             try {
-                dump.put(KEY_SERVICE, "Settings State");
-                dump.put(KEY_STORAGE, dumpStorage());
-                dump.put(KEY_DATAUSAGE, dumpDataUsage());
-                dump.put(KEY_MEMORY, dumpMemory());
-                dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
+                dumpSections(pw);
             } catch (Exception e) {
                 Log.w(TAG, "exception in dump: ", e);
             }
-            pw.println(dump);
+            pw.println();
             pw.flush();
             pw.decreaseIndent();
         } else {
@@ -109,6 +134,115 @@ public class SettingsDumpService extends Service {
         }
     }
 
+    /**
+     * Collects the independent sections of the dump concurrently, and streams every section to
+     * {@code out} as soon as it is available, in a fixed order. Each section gets until
+     * {@link #SECTION_TIMEOUT_MS} after the start of the dump, and the time taken by each section
+     * is written at the end.
+     */
+    @VisibleForTesting
+    void dumpSections(Writer out) throws IOException {
+        final Map<String, Callable<Object>> sections = new LinkedHashMap<>();
+        sections.put(KEY_STORAGE, this::dumpStorage);
+        sections.put(KEY_DATAUSAGE, this::dumpDataUsage);
+        sections.put(KEY_MEMORY, this::dumpMemory);
+        sections.put(KEY_DEFAULT_BROWSER_APP, this::dumpDefaultBrowser);
+        sections.put(KEY_STARTUP, StartupTracer::dumpToJson);
+
+        final long startTime = SystemClock.elapsedRealtime();
+        final Map<String, Long> durations = new ConcurrentHashMap<>();
+        final Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(sections.size());
+        try {
+            for (Map.Entry<String, Callable<Object>> section : sections.entrySet()) {
+                final String key = section.getKey();
+                final Callable<Object> callable = section.getValue();
+                futures.put(key, executor.submit(() -> {
+                    final long sectionStartTime = SystemClock.elapsedRealtime();
+                    try {
+                        return callable.call();
+                    } finally {
+                        durations.put(key, SystemClock.elapsedRealtime() - sectionStartTime);
+                    }
+                }));
+            }
+
+            final JsonWriter jsonWriter = new JsonWriter(out);
+            jsonWriter.beginObject();
+            jsonWriter.name(KEY_SERVICE).value("Settings State");
+            jsonWriter.flush();
+            for (Map.Entry<String, Future<Object>> future : futures.entrySet()) {
+                final String key = future.getKey();
+                final long remaining = startTime + SECTION_TIMEOUT_MS
+                        - SystemClock.elapsedRealtime();
+                jsonWriter.name(key);
+                try {
+                    writeJsonValue(jsonWriter,
+                            future.getValue().get(Math.max(0L, remaining), TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    Log.w(TAG, "Timed out collecting " + key);
+                    future.getValue().cancel(true /* mayInterruptIfRunning */);
+                    jsonWriter.value(SECTION_TIMEOUT);
+                } catch (ExecutionException | JSONException e) {
+                    Log.w(TAG, "exception in dump section " + key + ": ", e);
+                    jsonWriter.value(SECTION_ERROR);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    jsonWriter.value(SECTION_ERROR);
+                }
+                // Make each section reach the output as soon as it is written.
+                jsonWriter.flush();
+            }
+
+            jsonWriter.name(KEY_SECTION_TIMING);
+            jsonWriter.beginObject();
+            for (String key : sections.keySet()) {
+                final Long duration = durations.get(key);
+                jsonWriter.name(key);
+                if (duration == null) {
+                    jsonWriter.value(SECTION_TIMEOUT);
+                } else {
+                    jsonWriter.value(duration);
+                }
+            }
+            jsonWriter.endObject();
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void writeJsonValue(JsonWriter writer, Object value)
+            throws IOException, JSONException {
+        if (value == null || value == JSONObject.NULL) {
+            writer.nullValue();
+        } else if (value instanceof JSONObject) {
+            final JSONObject object = (JSONObject) value;
+            writer.beginObject();
+            final Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                final String key = keys.next();
+                writer.name(key);
+                writeJsonValue(writer, object.get(key));
+            }
+            writer.endObject();
+        } else if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            writer.beginArray();
+            for (int i = 0; i < array.length(); i++) {
+                writeJsonValue(writer, array.get(i));
+            }
+            writer.endArray();
+        } else if (value instanceof Boolean) {
+            writer.value((Boolean) value);
+        } else if (value instanceof Number) {
+            writer.value((Number) value);
+        } else {
+            writer.value(String.valueOf(value));
+        }
+    }
+
     private JSONObject dumpMemory() throws JSONException {
         JSONObject obj = new JSONObject();
         ProcStatsData statsManager = new ProcStatsData(this, false);
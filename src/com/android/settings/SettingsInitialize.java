@@ -16,11 +16,6 @@
 
 package com.android.settings;
 
-import static android.content.pm.PackageManager.GET_ACTIVITIES;
-import static android.content.pm.PackageManager.GET_META_DATA;
-import static android.content.pm.PackageManager.GET_RESOLVED_FILTER;
-import static android.content.pm.PackageManager.MATCH_DISABLED_COMPONENTS;
-
 import static com.android.settings.Utils.SETTINGS_PACKAGE_NAME;
 
 import android.content.BroadcastReceiver;
@@ -28,7 +23,6 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
 import android.content.pm.ShortcutInfo;
 import android.content.pm.ShortcutManager;
 import android.content.pm.UserInfo;
@@ -38,6 +32,7 @@ import android.os.UserManager;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 
 import com.android.settings.Settings.CreateShortcutActivity;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
@@ -54,105 +49,100 @@ import java.util.List;
  * adds cross-profile intent filters for the appropriate Settings activities), disables the
  * webview setting for non-admin users, updates the intent flags for any existing shortcuts and
  * enables DeepLinkHomepageActivity for large screen devices.
+ *
+ * <p>The setup runs in the background with {@link #goAsync()}, and the component states are
+ * applied in one batch, see {@link SettingsInitializeBatch}.
  */
 public class SettingsInitialize extends BroadcastReceiver {
     private static final String TAG = "Settings";
-    private static final String PRIMARY_PROFILE_SETTING =
-            "com.android.settings.PRIMARY_PROFILE_CONTROLLED";
     private static final String WEBVIEW_IMPLEMENTATION_ACTIVITY = ".WebViewImplementation";
 
     @Override
     public void onReceive(Context context, Intent broadcast) {
+        final PendingResult pendingResult = goAsync();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            try {
+                initialize(context, broadcast);
+            } finally {
+                if (pendingResult != null) {
+                    pendingResult.finish();
+                }
+            }
+        });
+    }
+
+    @VisibleForTesting
+    @WorkerThread
+    void initialize(Context context, Intent broadcast) {
         final UserManager um = (UserManager) context.getSystemService(Context.USER_SERVICE);
         UserInfo userInfo = um.getUserInfo(UserHandle.myUserId());
-        final PackageManager pm = context.getPackageManager();
-        managedProfileSetup(context, pm, broadcast, userInfo);
-        cloneProfileSetup(context, pm, userInfo);
-        privateProfileSetup(context, pm, userInfo);
-        webviewSettingSetup(context, pm, userInfo);
-        ThreadUtils.postOnBackgroundThread(() -> refreshExistingShortcuts(context));
-        enableTwoPaneDeepLinkActivityIfNecessary(pm, context);
+        final SettingsInitializeBatch batch = new SettingsInitializeBatch(context);
+        managedProfileSetup(context, batch, broadcast, userInfo);
+        cloneProfileSetup(context, batch, userInfo);
+        privateProfileSetup(context, batch, userInfo);
+        webviewSettingSetup(batch, userInfo);
+        enableTwoPaneDeepLinkActivityIfNecessary(batch, context);
+        batch.apply();
+        refreshExistingShortcuts(context);
     }
 
-    private void managedProfileSetup(Context context, final PackageManager pm, Intent broadcast,
-            UserInfo userInfo) {
+    private void managedProfileSetup(Context context, SettingsInitializeBatch batch,
+            Intent broadcast, UserInfo userInfo) {
         if (userInfo == null || !userInfo.isManagedProfile()) {
             return;
         }
         Log.i(TAG, "Received broadcast: " + broadcast.getAction()
                 + ". Setting up intent forwarding for managed profile.");
-        // Clear any previous intent forwarding we set up
-        pm.clearCrossProfileIntentFilters(userInfo.id);
-
-        // Set up intent forwarding for implicit intents
-        Intent intent = new Intent();
-        intent.addCategory(Intent.CATEGORY_DEFAULT);
-        intent.setPackage(context.getPackageName());
-
-        // Resolves activities for the managed profile (which we're running as)
-        List<ResolveInfo> resolvedIntents = pm.queryIntentActivities(intent,
-                GET_ACTIVITIES | GET_META_DATA | GET_RESOLVED_FILTER | MATCH_DISABLED_COMPONENTS);
-        final int count = resolvedIntents.size();
-        for (int i = 0; i < count; i++) {
-            ResolveInfo info = resolvedIntents.get(i);
-            if (info.filter != null && info.activityInfo != null
-                    && info.activityInfo.metaData != null) {
-                boolean shouldForward = info.activityInfo.metaData.getBoolean(
-                        PRIMARY_PROFILE_SETTING);
-                if (shouldForward) {
-                    pm.addCrossProfileIntentFilter(info.filter, userInfo.id,
-                            userInfo.profileGroupId, PackageManager.SKIP_CURRENT_PROFILE);
-                }
-            }
-        }
+        batch.setUpCrossProfileIntentForwarding(userInfo);
 
-        disableComponentsToHideSettings(context, pm);
+        disableComponentsToHideSettings(context, batch);
     }
 
-    private void cloneProfileSetup(Context context, PackageManager pm, UserInfo userInfo) {
+    private void cloneProfileSetup(Context context, SettingsInitializeBatch batch,
+            UserInfo userInfo) {
         if (userInfo == null || !userInfo.isCloneProfile()) {
             return;
         }
 
-        disableComponentsToHideSettings(context, pm);
+        disableComponentsToHideSettings(context, batch);
     }
 
-    private void privateProfileSetup(Context context, PackageManager pm, UserInfo userInfo) {
+    private void privateProfileSetup(Context context, SettingsInitializeBatch batch,
+            UserInfo userInfo) {
         if (Flags.allowPrivateProfile()) {
             if (userInfo == null || !userInfo.isPrivateProfile()) {
                 return;
             }
 
-            disableComponentsToHideSettings(context, pm);
+            disableComponentsToHideSettings(context, batch);
         }
     }
 
-    private void disableComponentsToHideSettings(Context context, PackageManager pm) {
+    private void disableComponentsToHideSettings(Context context, SettingsInitializeBatch batch) {
         // Disable settings app launcher icon
-        disableComponent(pm, new ComponentName(context, Settings.class));
+        disableComponent(batch, new ComponentName(context, Settings.class));
 
         //Disable Shortcut picker
-        disableComponent(pm, new ComponentName(context, CreateShortcutActivity.class));
+        disableComponent(batch, new ComponentName(context, CreateShortcutActivity.class));
     }
 
-    private void disableComponent(PackageManager pm, ComponentName componentName) {
-        pm.setComponentEnabledSetting(componentName,
-                PackageManager.COMPONENT_ENABLED_STATE_DISABLED, PackageManager.DONT_KILL_APP);
+    private void disableComponent(SettingsInitializeBatch batch, ComponentName componentName) {
+        batch.setComponentEnabledSetting(componentName,
+                PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
     }
 
     // Disable WebView Setting if the current user is not an admin
-    private void webviewSettingSetup(Context context, PackageManager pm, UserInfo userInfo) {
+    private void webviewSettingSetup(SettingsInitializeBatch batch, UserInfo userInfo) {
         if (userInfo == null) {
             return;
         }
         ComponentName settingsComponentName =
                 new ComponentName(SETTINGS_PACKAGE_NAME,
                         SETTINGS_PACKAGE_NAME + WEBVIEW_IMPLEMENTATION_ACTIVITY);
-        pm.setComponentEnabledSetting(settingsComponentName,
+        batch.setComponentEnabledSetting(settingsComponentName,
                 userInfo.isAdmin() ?
                         PackageManager.COMPONENT_ENABLED_STATE_ENABLED :
-                        PackageManager.COMPONENT_ENABLED_STATE_DISABLED,
-                PackageManager.DONT_KILL_APP);
+                        PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
     }
 
     // Refresh settings shortcuts to have correct intent flags
@@ -175,7 +165,8 @@ public class SettingsInitialize extends BroadcastReceiver {
         shortcutManager.updateShortcuts(updates);
     }
 
-    private void enableTwoPaneDeepLinkActivityIfNecessary(PackageManager pm, Context context) {
+    private void enableTwoPaneDeepLinkActivityIfNecessary(SettingsInitializeBatch batch,
+            Context context) {
         final ComponentName deepLinkHome = new ComponentName(context,
                 DeepLinkHomepageActivity.class);
         final ComponentName searchStateReceiver = new ComponentName(context,
@@ -183,8 +174,7 @@ public class SettingsInitialize extends BroadcastReceiver {
         final int enableState = ActivityEmbeddingUtils.isSettingsSplitEnabled(context)
                 ? PackageManager.COMPONENT_ENABLED_STATE_ENABLED
                 : PackageManager.COMPONENT_ENABLED_STATE_DISABLED;
-        pm.setComponentEnabledSetting(deepLinkHome, enableState, PackageManager.DONT_KILL_APP);
-        pm.setComponentEnabledSetting(searchStateReceiver, enableState,
-                PackageManager.DONT_KILL_APP);
+        batch.setComponentEnabledSetting(deepLinkHome, enableState);
+        batch.setComponentEnabledSetting(searchStateReceiver, enableState);
     }
 }
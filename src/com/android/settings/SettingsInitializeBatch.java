@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static android.content.pm.PackageManager.GET_ACTIVITIES;
+import static android.content.pm.PackageManager.GET_META_DATA;
+import static android.content.pm.PackageManager.GET_RESOLVED_FILTER;
+import static android.content.pm.PackageManager.MATCH_DISABLED_COMPONENTS;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.pm.UserInfo;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the component states and the cross-profile intent forwarding wanted by
+ * {@link SettingsInitialize}, and applies them at once, so that all the component states are
+ * set with a single call to {@link PackageManager#setComponentEnabledSettings}.
+ */
+final class SettingsInitializeBatch {
+    private static final String PRIMARY_PROFILE_SETTING =
+            "com.android.settings.PRIMARY_PROFILE_CONTROLLED";
+
+    private final Context mContext;
+    private final PackageManager mPackageManager;
+    private final ArrayMap<ComponentName, Integer> mComponentStates = new ArrayMap<>();
+    private UserInfo mCrossProfileUserInfo;
+
+    SettingsInitializeBatch(@NonNull Context context) {
+        mContext = context;
+        mPackageManager = context.getPackageManager();
+    }
+
+    /** Sets the wanted enabled state of a component. */
+    void setComponentEnabledSetting(@NonNull ComponentName componentName, int state) {
+        mComponentStates.put(componentName, state);
+    }
+
+    /**
+     * Forwards the Settings activities marked with {@link #PRIMARY_PROFILE_SETTING} from the
+     * managed profile of {@code userInfo} to its parent.
+     */
+    void setUpCrossProfileIntentForwarding(@NonNull UserInfo userInfo) {
+        mCrossProfileUserInfo = userInfo;
+    }
+
+    /** Applies the cross-profile intent forwarding and the component states. */
+    @WorkerThread
+    void apply() {
+        if (mCrossProfileUserInfo != null) {
+            applyCrossProfileIntentForwarding(mCrossProfileUserInfo);
+        }
+
+        final List<PackageManager.ComponentEnabledSetting> settings =
+                new ArrayList<>(mComponentStates.size());
+        for (int i = 0; i < mComponentStates.size(); i++) {
+            settings.add(new PackageManager.ComponentEnabledSetting(mComponentStates.keyAt(i),
+                    mComponentStates.valueAt(i), PackageManager.DONT_KILL_APP));
+        }
+        if (!settings.isEmpty()) {
+            mPackageManager.setComponentEnabledSettings(settings);
+        }
+    }
+
+    private void applyCrossProfileIntentForwarding(UserInfo userInfo) {
+        // Clear any previous intent forwarding we set up
+        mPackageManager.clearCrossProfileIntentFilters(userInfo.id);
+
+        // Set up intent forwarding for implicit intents
+        final Intent intent = new Intent();
+        intent.addCategory(Intent.CATEGORY_DEFAULT);
+        intent.setPackage(mContext.getPackageName());
+
+        // Resolves activities for the managed profile (which we're running as)
+        final List<ResolveInfo> resolvedIntents = mPackageManager.queryIntentActivities(intent,
+                GET_ACTIVITIES | GET_META_DATA | GET_RESOLVED_FILTER | MATCH_DISABLED_COMPONENTS);
+        final int count = resolvedIntents.size();
+        for (int i = 0; i < count; i++) {
+            final ResolveInfo info = resolvedIntents.get(i);
+            if (info.filter != null && info.activityInfo != null
+                    && info.activityInfo.metaData != null) {
+                final boolean shouldForward = info.activityInfo.metaData.getBoolean(
+                        PRIMARY_PROFILE_SETTING);
+                if (shouldForward) {
+                    mPackageManager.addCrossProfileIntentFilter(info.filter, userInfo.id,
+                            userInfo.profileGroupId, PackageManager.SKIP_CURRENT_PROFILE);
+                }
+            }
+        }
+    }
+}
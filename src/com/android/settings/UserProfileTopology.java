@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.UserInfo;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable snapshot of the users and profiles seen by the current user: its enabled profiles,
+ * all of its profiles including disabled ones, their types, quiet mode state and parents, and
+ * the number of users on the device.
+ *
+ * <p>Once {@link #startTracking} has been called, the snapshot is cached process wide and is
+ * only rebuilt after a profile or user broadcast, so the profile helpers of {@link Utils} can
+ * answer from memory instead of querying {@link UserManager} on every call. Code that creates
+ * or removes users or profiles, or changes their quiet mode, calls {@link #invalidate} right
+ * away since the broadcasts are delivered later.
+ */
+public final class UserProfileTopology {
+    private static final String TAG = "UserProfileTopology";
+
+    private static final AtomicInteger sGeneration = new AtomicInteger();
+    private static volatile boolean sTracking;
+    private static volatile UserProfileTopology sTopology;
+
+    private final int mGeneration;
+    private final int mUserId;
+    private final List<UserHandle> mEnabledProfiles;
+    private final List<UserInfo> mProfiles;
+    private final SparseArray<UserInfo> mProfilesById;
+    private final int mUserCount;
+
+    @VisibleForTesting
+    UserProfileTopology(int generation, int userId, List<UserHandle> enabledProfiles,
+            List<UserInfo> profiles, int userCount) {
+        mGeneration = generation;
+        mUserId = userId;
+        mEnabledProfiles = Collections.unmodifiableList(new ArrayList<>(enabledProfiles));
+        mProfiles = Collections.unmodifiableList(new ArrayList<>(profiles));
+        mProfilesById = new SparseArray<>(profiles.size());
+        for (UserInfo profile : profiles) {
+            mProfilesById.put(profile.id, profile);
+        }
+        mUserCount = userCount;
+    }
+
+    /**
+     * Starts caching the topology, which is refreshed on profile and user broadcasts received
+     * by {@code context}. Called once by the application.
+     */
+    public static void startTracking(@NonNull Context context) {
+        if (sTracking) {
+            return;
+        }
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PROFILE_ADDED);
+        filter.addAction(Intent.ACTION_PROFILE_REMOVED);
+        filter.addAction(Intent.ACTION_PROFILE_AVAILABLE);
+        filter.addAction(Intent.ACTION_PROFILE_UNAVAILABLE);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_AVAILABLE);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_UNAVAILABLE);
+        filter.addAction(Intent.ACTION_USER_ADDED);
+        filter.addAction(Intent.ACTION_USER_REMOVED);
+        filter.addAction(Intent.ACTION_USER_SWITCHED);
+        filter.addAction(Intent.ACTION_USER_INFO_CHANGED);
+        try {
+            context.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    invalidate();
+                }
+            }, filter, Context.RECEIVER_NOT_EXPORTED);
+            sTracking = true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to track profile changes, topology is not cached", e);
+        }
+    }
+
+    /** Drops the cached topology, the next {@link #get} builds it again. */
+    public static void invalidate() {
+        sGeneration.incrementAndGet();
+    }
+
+    @VisibleForTesting
+    static void stopTrackingForTesting() {
+        sTracking = false;
+        sTopology = null;
+    }
+
+    @VisibleForTesting
+    static void setTrackingForTesting() {
+        sTracking = true;
+        invalidate();
+    }
+
+    /**
+     * Returns the topology of the user of {@code userManager}, or {@code null} if it is not
+     * cached and callers should query {@code userManager} directly.
+     */
+    @Nullable
+    public static UserProfileTopology get(@NonNull UserManager userManager) {
+        // Only the process user is tracked, user managers of other users are not cached.
+        if (!sTracking || userManager.getProcessUserId() != UserHandle.myUserId()) {
+            return null;
+        }
+        final int generation = sGeneration.get();
+        UserProfileTopology topology = sTopology;
+        if (topology == null || topology.mGeneration != generation) {
+            topology = create(userManager, generation);
+            sTopology = topology;
+        }
+        return topology;
+    }
+
+    private static UserProfileTopology create(UserManager userManager, int generation) {
+        final int userId = UserHandle.myUserId();
+        return new UserProfileTopology(generation, userId, userManager.getUserProfiles(),
+                userManager.getProfiles(userId), userManager.getUsers().size());
+    }
+
+    /** Returns the id of the user this topology was built for. */
+    public int getUserId() {
+        return mUserId;
+    }
+
+    /** Returns the enabled profiles of the user, including the user itself. */
+    @NonNull
+    public List<UserHandle> getEnabledProfiles() {
+        return mEnabledProfiles;
+    }
+
+    /**
+     * Returns copies of all the profiles of the user, including disabled ones and the user
+     * itself. {@link UserInfo} is mutable, so the cached ones are never handed out.
+     */
+    @NonNull
+    public List<UserInfo> getProfiles() {
+        final List<UserInfo> profiles = new ArrayList<>(mProfiles.size());
+        for (UserInfo profile : mProfiles) {
+            profiles.add(new UserInfo(profile));
+        }
+        return profiles;
+    }
+
+    /**
+     * Returns a copy of the profile with {@code userId}, or {@code null} if it is not a
+     * profile.
+     */
+    @Nullable
+    public UserInfo getProfile(int userId) {
+        final UserInfo profile = mProfilesById.get(userId);
+        return profile != null ? new UserInfo(profile) : null;
+    }
+
+    /** Returns whether the profile with {@code userId} is in quiet mode. */
+    public boolean isQuietModeEnabled(int userId) {
+        final UserInfo profile = mProfilesById.get(userId);
+        return profile != null && profile.isQuietModeEnabled();
+    }
+
+    /**
+     * Returns the id of the parent of the profile with {@code userId}, or
+     * {@link UserHandle#USER_NULL} if it is not a profile.
+     */
+    public int getProfileParentId(int userId) {
+        final UserInfo profile = mProfilesById.get(userId);
+        if (profile == null || profile.profileGroupId == UserInfo.NO_PROFILE_GROUP_ID
+                || profile.profileGroupId == userId) {
+            return UserHandle.USER_NULL;
+        }
+        return profile.profileGroupId;
+    }
+
+    /** Returns the number of users on the device. */
+    public int getUserCount() {
+        return mUserCount;
+    }
+}
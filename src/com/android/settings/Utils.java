@@ -368,8 +368,12 @@ public final class Utils extends com.android.settingslib.Utils {
     }
 
     public static boolean hasMultipleUsers(Context context) {
-        return context.getSystemService(UserManager.class)
-                .getUsers().size() > 1;
+        final UserManager userManager = context.getSystemService(UserManager.class);
+        final UserProfileTopology topology = UserProfileTopology.get(userManager);
+        if (topology != null) {
+            return topology.getUserCount() > 1;
+        }
+        return userManager.getUsers().size() > 1;
     }
 
     /**
@@ -377,12 +381,14 @@ public final class Utils extends com.android.settingslib.Utils {
      * exists but it is disabled.
      */
     public static UserHandle getManagedProfile(UserManager userManager) {
-        final List<UserHandle> userProfiles = userManager.getUserProfiles();
+        final UserProfileTopology topology = UserProfileTopology.get(userManager);
+        final List<UserHandle> userProfiles = topology != null
+                ? topology.getEnabledProfiles() : userManager.getUserProfiles();
         for (UserHandle profile : userProfiles) {
             if (profile.getIdentifier() == userManager.getProcessUserId()) {
                 continue;
             }
-            final UserInfo userInfo = userManager.getUserInfo(profile.getIdentifier());
+            final UserInfo userInfo = getUserInfo(userManager, topology, profile);
             if (userInfo.isManagedProfile()) {
                 return profile;
             }
@@ -397,13 +403,15 @@ public final class Utils extends com.android.settingslib.Utils {
     @Nullable
     public static UserHandle getProfileOfType(
             @NonNull UserManager userManager, @ProfileType int userType) {
-        final List<UserHandle> userProfiles = userManager.getUserProfiles();
+        final UserProfileTopology topology = UserProfileTopology.get(userManager);
+        final List<UserHandle> userProfiles = topology != null
+                ? topology.getEnabledProfiles() : userManager.getUserProfiles();
         String umUserType = getUmUserType(userType);
         for (UserHandle profile : userProfiles) {
             if (profile.getIdentifier() == UserHandle.myUserId()) {
                 continue;
             }
-            final UserInfo userInfo = userManager.getUserInfo(profile.getIdentifier());
+            final UserInfo userInfo = getUserInfo(userManager, topology, profile);
             if (Objects.equals(umUserType, userInfo.userType)) {
                 return profile;
             }
@@ -417,7 +425,7 @@ public final class Utils extends com.android.settingslib.Utils {
      */
     public static boolean doesProfileOfTypeExists(
             @NonNull UserManager userManager, @ProfileType int userType) {
-        final List<UserInfo> userProfiles = userManager.getProfiles(UserHandle.myUserId());
+        final List<UserInfo> userProfiles = getProfiles(userManager, UserHandle.myUserId());
         String umUserType = getUmUserType(userType);
         for (UserInfo profile : userProfiles) {
             if (Objects.equals(umUserType, profile.userType)) {
@@ -427,6 +435,25 @@ public final class Utils extends com.android.settingslib.Utils {
         return false;
     }
 
+    /**
+     * Returns all profiles of {@code userId}, from the {@link UserProfileTopology} when it is
+     * tracked for that user.
+     */
+    private static List<UserInfo> getProfiles(UserManager userManager, int userId) {
+        final UserProfileTopology topology = UserProfileTopology.get(userManager);
+        if (topology != null && topology.getUserId() == userId) {
+            return topology.getProfiles();
+        }
+        return userManager.getProfiles(userId);
+    }
+
+    private static UserInfo getUserInfo(UserManager userManager,
+            @Nullable UserProfileTopology topology, UserHandle profile) {
+        final UserInfo userInfo =
+                topology != null ? topology.getProfile(profile.getIdentifier()) : null;
+        return userInfo != null ? userInfo : userManager.getUserInfo(profile.getIdentifier());
+    }
+
     private static String getUmUserType(@ProfileType int userType) throws IllegalArgumentException {
         if (userType == ProfileType.WORK) {
             return USER_TYPE_PROFILE_MANAGED;
@@ -451,7 +478,7 @@ public final class Utils extends com.android.settingslib.Utils {
      * {@link #getManagedProfile} this method returns enabled and disabled managed profiles.
      */
     private static UserHandle getManagedProfileWithDisabled(UserManager um, int parentUserId) {
-        final List<UserInfo> profiles = um.getProfiles(parentUserId);
+        final List<UserInfo> profiles = getProfiles(um, parentUserId);
         final int count = profiles.size();
         for (int i = 0; i < count; i++) {
             final UserInfo profile = profiles.get(i);
@@ -1313,8 +1340,11 @@ public final class Utils extends com.android.settingslib.Utils {
      */
     public static int getCloneUserId(Context context) {
         UserManager userManager = (UserManager) context.getSystemService(Context.USER_SERVICE);
-        for (UserHandle userHandle : userManager.getUserProfiles()) {
-            if (userManager.getUserInfo(userHandle.getIdentifier()).isCloneProfile()) {
+        final UserProfileTopology topology = UserProfileTopology.get(userManager);
+        final List<UserHandle> userProfiles = topology != null
+                ? topology.getEnabledProfiles() : userManager.getUserProfiles();
+        for (UserHandle userHandle : userProfiles) {
+            if (getUserInfo(userManager, topology, userHandle).isCloneProfile()) {
                 return userHandle.getIdentifier();
             }
         }
@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.accessibilityservice.AccessibilityShortcutInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.pm.ServiceInfo;
+import android.graphics.drawable.Drawable;
+import android.os.LocaleList;
+import android.os.UserHandle;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.view.accessibility.AccessibilityManager;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.content.ContextCompat;
+
+import com.android.settings.R;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Catalog of the installed accessibility services and accessibility shortcut activities.
+ *
+ * <p>Labels, icons and descriptions are loaded on a worker thread and cached per component, so
+ * they are only loaded again when the package of the component changes or the locale changes.
+ * The last loaded {@link Snapshot} is kept so that screens can show it immediately while a fresh
+ * one is loaded.
+ */
+public class AccessibilityServiceCatalog {
+    private static final String TAG = "AccessibilityServiceCatalog";
+
+    private static AccessibilityServiceCatalog sInstance;
+
+    private final Context mContext;
+    private final PackageManager mPackageManager;
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private final Map<ComponentName, Entry> mServiceEntries = new ArrayMap<>();
+    @GuardedBy("mLock")
+    private final Map<ComponentName, Entry> mShortcutEntries = new ArrayMap<>();
+    @GuardedBy("mLock")
+    private LocaleList mLocales;
+
+    // Only accessed on the main thread.
+    private final List<Consumer<Snapshot>> mPendingCallbacks = new ArrayList<>();
+    private Snapshot mSnapshot;
+    private int mGeneration;
+
+    /** Returns the catalog shared by the accessibility screens. */
+    public static synchronized AccessibilityServiceCatalog getInstance(Context context) {
+        final Context appContext = context.getApplicationContext();
+        if (sInstance == null || sInstance.mContext != appContext) {
+            sInstance = new AccessibilityServiceCatalog(appContext);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AccessibilityServiceCatalog(Context context) {
+        mContext = context;
+        mPackageManager = context.getPackageManager();
+    }
+
+    /** Returns the last loaded snapshot, or {@code null} if none was loaded yet. */
+    @MainThread
+    @Nullable
+    public Snapshot getCachedSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Loads a fresh snapshot on a worker thread and delivers it to {@code callback} on the main
+     * thread. Concurrent loads share one query.
+     */
+    @MainThread
+    public void loadAsync(@NonNull Consumer<Snapshot> callback) {
+        mPendingCallbacks.add(callback);
+        if (mPendingCallbacks.size() == 1) {
+            startLoading();
+        }
+    }
+
+    /** Drops the cached metadata of the components of {@code packageName}. */
+    @MainThread
+    public void invalidatePackage(@Nullable String packageName) {
+        synchronized (mLock) {
+            mServiceEntries.keySet().removeIf(
+                    component -> TextUtils.equals(component.getPackageName(), packageName));
+            mShortcutEntries.keySet().removeIf(
+                    component -> TextUtils.equals(component.getPackageName(), packageName));
+        }
+        mGeneration++;
+    }
+
+    /**
+     * Returns the cached metadata of an accessibility service if it is still up to date, or
+     * {@code null}. Can be called on any thread.
+     */
+    @Nullable
+    public Entry getCachedServiceEntry(@NonNull AccessibilityServiceInfo service) {
+        final LocaleList locales = mContext.getResources().getConfiguration().getLocales();
+        synchronized (mLock) {
+            if (!locales.equals(mLocales)) {
+                return null;
+            }
+        }
+        return getCachedEntry(mServiceEntries, getComponentName(service),
+                service.getResolveInfo().serviceInfo.applicationInfo);
+    }
+
+    /** Queries the installed services and shortcuts and loads their metadata. */
+    @WorkerThread
+    @NonNull
+    public Snapshot load() {
+        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(mContext);
+        final List<AccessibilityShortcutInfo> shortcuts =
+                new ArrayList<>(a11yManager.getInstalledAccessibilityShortcutListAsUser(
+                        mContext, UserHandle.myUserId()));
+        // Copy the unmodifiable list to remove the services which are also shortcuts.
+        final List<AccessibilityServiceInfo> services =
+                new ArrayList<>(a11yManager.getInstalledAccessibilityServiceList());
+
+        synchronized (mLock) {
+            final LocaleList locales = mContext.getResources().getConfiguration().getLocales();
+            if (!locales.equals(mLocales)) {
+                mServiceEntries.clear();
+                mShortcutEntries.clear();
+                mLocales = locales;
+            }
+        }
+        final Map<ComponentName, Entry> shortcutEntries = new ArrayMap<>();
+        for (AccessibilityShortcutInfo shortcut : shortcuts) {
+            shortcutEntries.put(shortcut.getComponentName(), getOrLoadEntry(shortcut));
+        }
+        final Map<ComponentName, Entry> serviceEntries = new ArrayMap<>();
+        for (AccessibilityServiceInfo service : services) {
+            final ComponentName componentName = getComponentName(service);
+            serviceEntries.put(componentName, getOrLoadEntry(componentName, service));
+        }
+        synchronized (mLock) {
+            // Forget uninstalled components.
+            mShortcutEntries.keySet().retainAll(shortcutEntries.keySet());
+            mServiceEntries.keySet().retainAll(serviceEntries.keySet());
+        }
+
+        services.removeIf(service -> isProvidedAsShortcut(service, shortcuts, shortcutEntries));
+        return new Snapshot(shortcuts, services, shortcutEntries, serviceEntries);
+    }
+
+    private void startLoading() {
+        final int generation = mGeneration;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            Snapshot snapshot = null;
+            try {
+                snapshot = load();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to load the accessibility services", e);
+            }
+            final Snapshot result = snapshot;
+            ThreadUtils.postOnMainThread(() -> onLoaded(generation, result));
+        });
+    }
+
+    private void onLoaded(int generation, @Nullable Snapshot snapshot) {
+        if (snapshot == null) {
+            // Let the next loadAsync() start a new load, the screens keep what they show.
+            mPendingCallbacks.clear();
+            return;
+        }
+        if (generation != mGeneration) {
+            // A package changed while loading, its metadata may be outdated.
+            startLoading();
+            return;
+        }
+        mSnapshot = snapshot;
+        final List<Consumer<Snapshot>> callbacks = new ArrayList<>(mPendingCallbacks);
+        mPendingCallbacks.clear();
+        for (Consumer<Snapshot> callback : callbacks) {
+            callback.accept(snapshot);
+        }
+    }
+
+    private Entry getOrLoadEntry(AccessibilityShortcutInfo shortcut) {
+        final ActivityInfo activityInfo = shortcut.getActivityInfo();
+        final ComponentName componentName = shortcut.getComponentName();
+        Entry entry = getCachedEntry(mShortcutEntries, componentName, activityInfo.applicationInfo);
+        if (entry == null) {
+            final Drawable icon = activityInfo.getIconResource() == 0
+                    ? null : activityInfo.loadIcon(mPackageManager);
+            entry = new Entry(activityInfo.applicationInfo, activityInfo.loadLabel(mPackageManager),
+                    loadIcon(icon), shortcut.loadIntro(mPackageManager),
+                    shortcut.loadHtmlDescription(mPackageManager),
+                    shortcut.loadSummary(mPackageManager),
+                    shortcut.loadDescription(mPackageManager));
+            putEntry(mShortcutEntries, componentName, entry);
+        }
+        return entry;
+    }
+
+    private Entry getOrLoadEntry(ComponentName componentName, AccessibilityServiceInfo service) {
+        final ResolveInfo resolveInfo = service.getResolveInfo();
+        final ApplicationInfo applicationInfo = resolveInfo.serviceInfo.applicationInfo;
+        Entry entry = getCachedEntry(mServiceEntries, componentName, applicationInfo);
+        if (entry == null) {
+            final Drawable icon = resolveInfo.getIconResource() == 0
+                    ? null : resolveInfo.loadIcon(mPackageManager);
+            entry = new Entry(applicationInfo, resolveInfo.loadLabel(mPackageManager),
+                    loadIcon(icon), service.loadIntro(mPackageManager),
+                    service.loadHtmlDescription(mPackageManager),
+                    /* summary= */ null, /* description= */ null);
+            putEntry(mServiceEntries, componentName, entry);
+        }
+        return entry;
+    }
+
+    private Drawable loadIcon(@Nullable Drawable icon) {
+        return icon != null
+                ? icon : ContextCompat.getDrawable(mContext, R.drawable.ic_accessibility_generic);
+    }
+
+    @Nullable
+    private Entry getCachedEntry(Map<ComponentName, Entry> entries, ComponentName componentName,
+            ApplicationInfo applicationInfo) {
+        synchronized (mLock) {
+            final Entry entry = entries.get(componentName);
+            return entry != null && entry.isFrom(applicationInfo) ? entry : null;
+        }
+    }
+
+    private void putEntry(Map<ComponentName, Entry> entries, ComponentName componentName,
+            Entry entry) {
+        synchronized (mLock) {
+            entries.put(componentName, entry);
+        }
+    }
+
+    private boolean isProvidedAsShortcut(AccessibilityServiceInfo service,
+            List<AccessibilityShortcutInfo> shortcuts, Map<ComponentName, Entry> shortcutEntries) {
+        final ServiceInfo serviceInfo = service.getResolveInfo().serviceInfo;
+        CharSequence serviceLabel = null;
+        for (AccessibilityShortcutInfo shortcut : shortcuts) {
+            if (!serviceInfo.packageName.equals(shortcut.getActivityInfo().packageName)) {
+                continue;
+            }
+            if (serviceLabel == null) {
+                // The label of the service itself, not of its resolve info, as the shortcut does.
+                serviceLabel = serviceInfo.loadLabel(mPackageManager);
+            }
+            final Entry shortcutEntry = shortcutEntries.get(shortcut.getComponentName());
+            if (TextUtils.equals(serviceLabel, shortcutEntry.getLabel())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ComponentName getComponentName(AccessibilityServiceInfo service) {
+        final ResolveInfo resolveInfo = service.getResolveInfo();
+        return new ComponentName(resolveInfo.serviceInfo.packageName,
+                resolveInfo.serviceInfo.name);
+    }
+
+    /** Installed accessibility services and shortcuts with their preloaded metadata. */
+    public static final class Snapshot {
+        private final List<AccessibilityShortcutInfo> mShortcuts;
+        private final List<AccessibilityServiceInfo> mServices;
+        private final Map<ComponentName, Entry> mShortcutEntries;
+        private final Map<ComponentName, Entry> mServiceEntries;
+
+        Snapshot(List<AccessibilityShortcutInfo> shortcuts,
+                List<AccessibilityServiceInfo> services,
+                Map<ComponentName, Entry> shortcutEntries,
+                Map<ComponentName, Entry> serviceEntries) {
+            mShortcuts = Collections.unmodifiableList(shortcuts);
+            mServices = Collections.unmodifiableList(services);
+            mShortcutEntries = shortcutEntries;
+            mServiceEntries = serviceEntries;
+        }
+
+        /** Returns the installed accessibility shortcut activities. */
+        @NonNull
+        public List<AccessibilityShortcutInfo> getShortcuts() {
+            return mShortcuts;
+        }
+
+        /**
+         * Returns the installed accessibility services, except those whose package provides a
+         * shortcut activity with the same label.
+         */
+        @NonNull
+        public List<AccessibilityServiceInfo> getServices() {
+            return mServices;
+        }
+
+        /** Returns the metadata of a shortcut activity, or {@code null} if not installed. */
+        @Nullable
+        public Entry getShortcutEntry(@Nullable ComponentName componentName) {
+            return mShortcutEntries.get(componentName);
+        }
+
+        /** Returns the metadata of a service, or {@code null} if not installed. */
+        @Nullable
+        public Entry getServiceEntry(@Nullable ComponentName componentName) {
+            return mServiceEntries.get(componentName);
+        }
+    }
+
+    /** Metadata of an accessibility service or shortcut activity. */
+    public static final class Entry {
+        private final String mSourceDir;
+        private final long mVersionCode;
+        private final CharSequence mLabel;
+        private final Drawable mIcon;
+        private final CharSequence mIntro;
+        private final String mHtmlDescription;
+        private final String mSummary;
+        private final String mDescription;
+
+        Entry(ApplicationInfo applicationInfo, CharSequence label, Drawable icon,
+                CharSequence intro, String htmlDescription, String summary, String description) {
+            mSourceDir = applicationInfo != null ? applicationInfo.sourceDir : null;
+            mVersionCode = applicationInfo != null ? applicationInfo.longVersionCode : 0;
+            mLabel = label;
+            mIcon = icon;
+            mIntro = intro;
+            mHtmlDescription = htmlDescription;
+            mSummary = summary;
+            mDescription = description;
+        }
+
+        boolean isFrom(ApplicationInfo applicationInfo) {
+            return applicationInfo != null
+                    && Objects.equals(mSourceDir, applicationInfo.sourceDir)
+                    && mVersionCode == applicationInfo.longVersionCode;
+        }
+
+        public CharSequence getLabel() {
+            return mLabel;
+        }
+
+        /** Returns a new copy of the icon, which can be mutated by its user. */
+        public Drawable getIcon() {
+            final Drawable.ConstantState state = mIcon != null ? mIcon.getConstantState() : null;
+            return state != null ? state.newDrawable() : mIcon;
+        }
+
+        public CharSequence getIntro() {
+            return mIntro;
+        }
+
+        public String getHtmlDescription() {
+            return mHtmlDescription;
+        }
+
+        /** Returns the summary of a shortcut activity, {@code null} for services. */
+        public String getSummary() {
+            return mSummary;
+        }
+
+        /** Returns the description of a shortcut activity, {@code null} for services. */
+        public String getDescription() {
+            return mDescription;
+        }
+    }
+}
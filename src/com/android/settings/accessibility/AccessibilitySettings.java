@@ -17,21 +17,16 @@
 package com.android.settings.accessibility;
 
 import android.accessibilityservice.AccessibilityServiceInfo;
-import android.accessibilityservice.AccessibilityShortcutInfo;
 import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
 import android.content.Context;
-import android.content.pm.ActivityInfo;
-import android.content.pm.ServiceInfo;
 import android.hardware.input.InputManager;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.view.InputDevice;
-import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
@@ -118,30 +113,32 @@ public class AccessibilitySettings extends DashboardFragment implements
     private final PackageMonitor mSettingsPackageMonitor = new PackageMonitor() {
         @Override
         public void onPackageAdded(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageModified(@NonNull String packageName) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageAppeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageDisappeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageRemoved(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
-        private void sendUpdate() {
+        private void sendUpdate(String packageName) {
+            AccessibilityServiceCatalog.getInstance(AccessibilitySettings.this.getContext())
+                    .invalidatePackage(packageName);
             mHandler.postDelayed(mUpdateRunnable, DELAY_UPDATE_SERVICES_MILLIS);
         }
     };
@@ -156,6 +153,9 @@ public class AccessibilitySettings extends DashboardFragment implements
             new ArrayMap<>();
     private final Map<ComponentName, PreferenceCategory> mPreBundledServiceComponentToCategoryMap =
             new ArrayMap<>();
+    // Catalog entries the service preferences were created from, by preference key.
+    private final Map<String, AccessibilityServiceCatalog.Entry> mServicePreferenceEntries =
+            new ArrayMap<>();
 
     private boolean mNeedPreferencesUpdate = false;
     private boolean mIsForeground = true;
@@ -359,17 +359,22 @@ public class AccessibilitySettings extends DashboardFragment implements
     }
 
     protected void updateServicePreferences() {
-        // Since services category is auto generated we have to do a pass
-        // to generate it since services can come and go and then based on
-        // the global accessibility state to decided whether it is enabled.
-        final ArrayList<Preference> servicePreferences =
-                new ArrayList<>(mServicePreferenceToPreferenceCategoryMap.keySet());
-        for (int i = 0; i < servicePreferences.size(); i++) {
-            Preference service = servicePreferences.get(i);
-            PreferenceCategory category = mServicePreferenceToPreferenceCategoryMap.get(service);
-            category.removePreference(service);
+        // The labels and icons of the services are loaded by the catalog in the background.
+        // Show the last loaded services right away, then update them once reloaded.
+        final AccessibilityServiceCatalog catalog =
+                AccessibilityServiceCatalog.getInstance(getPrefContext());
+        final AccessibilityServiceCatalog.Snapshot cachedSnapshot = catalog.getCachedSnapshot();
+        if (cachedSnapshot != null) {
+            applyServicePreferences(cachedSnapshot);
         }
+        catalog.loadAsync(snapshot -> {
+            if (getActivity() != null) {
+                applyServicePreferences(snapshot);
+            }
+        });
+    }
 
+    private void applyServicePreferences(AccessibilityServiceCatalog.Snapshot snapshot) {
         initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
                 R.array.config_preinstalled_screen_reader_services);
         initializePreBundledServicesMapFromArray(CATEGORY_CAPTIONS,
@@ -389,23 +394,65 @@ public class AccessibilitySettings extends DashboardFragment implements
                 AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
                 mCategoryToPrefCategoryMap.get(CATEGORY_INTERACTION_CONTROL));
 
-        final List<RestrictedPreference> preferenceList = getInstalledAccessibilityList(
-                getPrefContext());
+        final RestrictedPreferenceHelper preferenceHelper =
+                new RestrictedPreferenceHelper(getPrefContext(), snapshot);
+        final List<RestrictedPreference> preferenceList = new ArrayList<>();
+        preferenceList.addAll(
+                preferenceHelper.createAccessibilityActivityPreferenceList(snapshot.getShortcuts()));
+        final int shortcutCount = preferenceList.size();
+        preferenceList.addAll(
+                preferenceHelper.createAccessibilityServicePreferenceList(snapshot.getServices()));
 
         final PreferenceCategory downloadedServicesCategory =
                 mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
 
+        // Since services category is auto generated we have to do a pass
+        // to generate it since services can come and go and then based on
+        // the global accessibility state to decided whether it is enabled.
+        // Rows which did not change are kept, so that they are not rebound.
+        final Map<String, Preference> previousPreferences = new ArrayMap<>();
+        for (Preference preference : mServicePreferenceToPreferenceCategoryMap.keySet()) {
+            previousPreferences.put(preference.getKey(), preference);
+        }
+        final Map<Preference, PreferenceCategory> previousCategories =
+                new ArrayMap<>(mServicePreferenceToPreferenceCategoryMap);
+        final Map<String, AccessibilityServiceCatalog.Entry> previousEntries =
+                new ArrayMap<>(mServicePreferenceEntries);
+        mServicePreferenceToPreferenceCategoryMap.clear();
+        mServicePreferenceEntries.clear();
+
         for (int i = 0, count = preferenceList.size(); i < count; ++i) {
             final RestrictedPreference preference = preferenceList.get(i);
+            final String key = preference.getKey();
             final ComponentName componentName = preference.getExtras().getParcelable(
                     EXTRA_COMPONENT_NAME);
+            final AccessibilityServiceCatalog.Entry entry = i < shortcutCount
+                    ? snapshot.getShortcutEntry(componentName)
+                    : snapshot.getServiceEntry(componentName);
             PreferenceCategory prefCategory = downloadedServicesCategory;
             // Set the appropriate category if the service comes pre-installed.
             if (mPreBundledServiceComponentToCategoryMap.containsKey(componentName)) {
                 prefCategory = mPreBundledServiceComponentToCategoryMap.get(componentName);
             }
+
+            final Preference previous = previousPreferences.remove(key);
+            if (previous != null) {
+                final PreferenceCategory previousCategory = previousCategories.get(previous);
+                if (previousCategory == prefCategory && previousEntries.get(key) == entry
+                        && isSameServicePreference(previous, preference)) {
+                    mServicePreferenceToPreferenceCategoryMap.put(previous, prefCategory);
+                    mServicePreferenceEntries.put(key, entry);
+                    continue;
+                }
+                previousCategory.removePreference(previous);
+            }
             prefCategory.addPreference(preference);
             mServicePreferenceToPreferenceCategoryMap.put(preference, prefCategory);
+            mServicePreferenceEntries.put(key, entry);
+        }
+        // Remove the services which are not installed anymore.
+        for (Preference preference : previousPreferences.values()) {
+            previousCategories.get(preference).removePreference(preference);
         }
 
         // Update the order of all the category according to the order defined in xml file.
@@ -435,50 +482,21 @@ public class AccessibilitySettings extends DashboardFragment implements
         updatePreferenceCategoryVisibility(CATEGORY_KEYBOARD_OPTIONS);
     }
 
-    private List<RestrictedPreference> getInstalledAccessibilityList(Context context) {
-        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
-        final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context);
-
-        final List<AccessibilityShortcutInfo> installedShortcutList =
-                a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
-                        UserHandle.myUserId());
-
-        // Remove duplicate item here, new a ArrayList to copy unmodifiable list result
-        // (getInstalledAccessibilityServiceList).
-        final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
-                a11yManager.getInstalledAccessibilityServiceList());
-        installedServiceList.removeIf(
-                target -> containsTargetNameInList(installedShortcutList, target));
-
-        final List<RestrictedPreference> activityList =
-                preferenceHelper.createAccessibilityActivityPreferenceList(installedShortcutList);
-
-        final List<RestrictedPreference> serviceList =
-                preferenceHelper.createAccessibilityServicePreferenceList(installedServiceList);
-
-        final List<RestrictedPreference> preferenceList = new ArrayList<>();
-        preferenceList.addAll(activityList);
-        preferenceList.addAll(serviceList);
-
-        return preferenceList;
-    }
-
-    private boolean containsTargetNameInList(List<AccessibilityShortcutInfo> shortcutInfos,
-            AccessibilityServiceInfo targetServiceInfo) {
-        final ServiceInfo serviceInfo = targetServiceInfo.getResolveInfo().serviceInfo;
-        final String servicePackageName = serviceInfo.packageName;
-        final CharSequence serviceLabel = serviceInfo.loadLabel(getPackageManager());
-
-        for (int i = 0, count = shortcutInfos.size(); i < count; ++i) {
-            final ActivityInfo activityInfo = shortcutInfos.get(i).getActivityInfo();
-            final String activityPackageName = activityInfo.packageName;
-            final CharSequence activityLabel = activityInfo.loadLabel(getPackageManager());
-            if (servicePackageName.equals(activityPackageName)
-                    && serviceLabel.equals(activityLabel)) {
-                return true;
-            }
+    private static boolean isSameServicePreference(Preference previous,
+            RestrictedPreference preference) {
+        if (!(previous instanceof RestrictedPreference)) {
+            return false;
         }
-        return false;
+        final RestrictedPreference restrictedPrevious = (RestrictedPreference) previous;
+        final Bundle previousExtras = previous.getExtras();
+        final Bundle extras = preference.getExtras();
+        return TextUtils.equals(previous.getTitle(), preference.getTitle())
+                && TextUtils.equals(previous.getSummary(), preference.getSummary())
+                && previous.isEnabled() == preference.isEnabled()
+                && restrictedPrevious.isDisabledByAdmin() == preference.isDisabledByAdmin()
+                && previousExtras.getBoolean(EXTRA_CHECKED) == extras.getBoolean(EXTRA_CHECKED)
+                && TextUtils.equals(previousExtras.getCharSequence(EXTRA_SUMMARY),
+                        extras.getCharSequence(EXTRA_SUMMARY));
     }
 
     private void initializePreBundledServicesMapFromArray(String categoryKey, int key) {
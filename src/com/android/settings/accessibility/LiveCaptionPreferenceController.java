@@ -28,7 +28,12 @@ import com.android.settings.core.BasePreferenceController;
 
 import java.util.List;
 
-public class LiveCaptionPreferenceController extends BasePreferenceController {
+/**
+ * Shows the Live Caption entry if an activity handles it. The availability only queries the
+ * {@link PackageManager}, so it is computed off the UI thread.
+ */
+public class LiveCaptionPreferenceController extends BasePreferenceController implements
+        BasePreferenceController.ThreadSafeAvailability {
 
     @VisibleForTesting
     static final Intent LIVE_CAPTION_INTENT = new Intent(
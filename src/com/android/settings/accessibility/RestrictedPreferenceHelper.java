@@ -33,6 +33,7 @@ import android.os.Bundle;
 import android.os.UserHandle;
 import android.text.TextUtils;
 
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
 import com.android.settings.R;
@@ -58,12 +59,24 @@ public class RestrictedPreferenceHelper {
     private final DevicePolicyManager mDpm;
     private final PackageManager mPm;
     private final AppOpsManager mAppOps;
+    @Nullable
+    private final AccessibilityServiceCatalog.Snapshot mSnapshot;
 
     public RestrictedPreferenceHelper(Context context) {
+        this(context, /* snapshot= */ null);
+    }
+
+    /**
+     * Creates a helper which takes labels, icons and descriptions from {@code snapshot} instead
+     * of loading them, for the components it contains.
+     */
+    public RestrictedPreferenceHelper(Context context,
+            @Nullable AccessibilityServiceCatalog.Snapshot snapshot) {
         mContext = context;
         mDpm = context.getSystemService(DevicePolicyManager.class);
         mPm = context.getPackageManager();
         mAppOps = context.getSystemService(AppOpsManager.class);
+        mSnapshot = snapshot;
     }
 
     /**
@@ -92,17 +105,25 @@ public class RestrictedPreferenceHelper {
             final ComponentName componentName = new ComponentName(packageName,
                     resolveInfo.serviceInfo.name);
 
+            final AccessibilityServiceCatalog.Entry entry =
+                    mSnapshot != null ? mSnapshot.getServiceEntry(componentName) : null;
             final String key = componentName.flattenToString();
-            final CharSequence title = resolveInfo.loadLabel(mPm);
+            final CharSequence title =
+                    entry != null ? entry.getLabel() : resolveInfo.loadLabel(mPm);
             final boolean serviceEnabled = enabledServices.contains(componentName);
             final CharSequence summary = AccessibilitySettings.getServiceSummary(
                     mContext, info, serviceEnabled);
             final String fragment = getAccessibilityServiceFragmentTypeName(info);
 
-            Drawable icon = resolveInfo.loadIcon(mPm);
-            if (resolveInfo.getIconResource() == 0) {
-                icon = ContextCompat.getDrawable(mContext,
-                        R.drawable.ic_accessibility_generic);
+            Drawable icon;
+            if (entry != null) {
+                icon = entry.getIcon();
+            } else {
+                icon = resolveInfo.loadIcon(mPm);
+                if (resolveInfo.getIconResource() == 0) {
+                    icon = ContextCompat.getDrawable(mContext,
+                            R.drawable.ic_accessibility_generic);
+                }
             }
 
             final RestrictedPreference preference = createRestrictedPreference(key, title,
@@ -113,10 +134,11 @@ public class RestrictedPreferenceHelper {
 
             final String prefKey = preference.getKey();
             final int imageRes = info.getAnimatedImageRes();
-            final CharSequence intro = info.loadIntro(mPm);
+            final CharSequence intro = entry != null ? entry.getIntro() : info.loadIntro(mPm);
             final CharSequence description = AccessibilitySettings.getServiceDescription(
                     mContext, info, serviceEnabled);
-            final String htmlDescription = info.loadHtmlDescription(mPm);
+            final String htmlDescription =
+                    entry != null ? entry.getHtmlDescription() : info.loadHtmlDescription(mPm);
             final String settingsClassName = info.getSettingsActivityName();
             final String tileServiceClassName = info.getTileServiceName();
             final int metricsCategory = FeatureFactory.getFeatureFactory()
@@ -157,15 +179,24 @@ public class RestrictedPreferenceHelper {
             final ActivityInfo activityInfo = info.getActivityInfo();
             final ComponentName componentName = info.getComponentName();
 
+            final AccessibilityServiceCatalog.Entry entry =
+                    mSnapshot != null ? mSnapshot.getShortcutEntry(componentName) : null;
             final String key = componentName.flattenToString();
-            final CharSequence title = activityInfo.loadLabel(mPm);
-            final String summary = info.loadSummary(mPm);
+            final CharSequence title =
+                    entry != null ? entry.getLabel() : activityInfo.loadLabel(mPm);
+            final String summary = entry != null ? entry.getSummary() : info.loadSummary(mPm);
             final String fragment =
                     LaunchAccessibilityActivityPreferenceFragment.class.getName();
 
-            Drawable icon = activityInfo.loadIcon(mPm);
-            if (activityInfo.getIconResource() == 0) {
-                icon = ContextCompat.getDrawable(mContext, R.drawable.ic_accessibility_generic);
+            Drawable icon;
+            if (entry != null) {
+                icon = entry.getIcon();
+            } else {
+                icon = activityInfo.loadIcon(mPm);
+                if (activityInfo.getIconResource() == 0) {
+                    icon = ContextCompat.getDrawable(mContext,
+                            R.drawable.ic_accessibility_generic);
+                }
             }
 
             final RestrictedPreference preference = createRestrictedPreference(key, title,
@@ -176,10 +207,12 @@ public class RestrictedPreferenceHelper {
             setRestrictedPreferenceEnabled(preference, permittedServices, serviceEnabled);
 
             final String prefKey = preference.getKey();
-            final CharSequence intro = info.loadIntro(mPm);
-            final String description = info.loadDescription(mPm);
+            final CharSequence intro = entry != null ? entry.getIntro() : info.loadIntro(mPm);
+            final String description =
+                    entry != null ? entry.getDescription() : info.loadDescription(mPm);
             final int imageRes = info.getAnimatedImageRes();
-            final String htmlDescription = info.loadHtmlDescription(mPm);
+            final String htmlDescription =
+                    entry != null ? entry.getHtmlDescription() : info.loadHtmlDescription(mPm);
             final String settingsClassName = info.getSettingsActivityName();
             final String tileServiceClassName = info.getTileServiceName();
             final int metricsCategory = FeatureFactory.getFeatureFactory()
@@ -30,6 +30,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.DefaultLifecycleObserver;
 import androidx.lifecycle.LifecycleOwner;
 
+import com.android.settings.UserProfileTopology;
 import com.android.settings.Utils;
 
 import javax.annotation.Nullable;
@@ -69,6 +70,7 @@ final class ManagedProfileQuietModeEnabler implements DefaultLifecycleObserver {
         } else {
             mUserManager.requestQuietModeEnabled(enabled, mManagedProfile);
         }
+        UserProfileTopology.invalidate();
     }
 
     public boolean isQuietModeEnabled() {
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.icu.text.Transliterator;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Search index over a list of apps, matching queries against their labels and package names.
+ *
+ * <p>Labels are normalized once when the index is built: lower cased, stripped of accents, and
+ * additionally transliterated to Latin when they use another script. A query which extends the
+ * previous one is only matched against the previous results. Results are ranked by label prefix
+ * matches, then word start matches, then any other label match, then package name matches, and
+ * keep the order of the indexed list within each rank.
+ *
+ * @param <T> type of the indexed apps
+ */
+public class AppSearchIndex<T> {
+
+    @VisibleForTesting
+    static final int MATCH_NONE = -1;
+    @VisibleForTesting
+    static final int MATCH_PREFIX = 0;
+    @VisibleForTesting
+    static final int MATCH_WORD_START = 1;
+    @VisibleForTesting
+    static final int MATCH_LABEL = 2;
+    @VisibleForTesting
+    static final int MATCH_PACKAGE_NAME = 3;
+    private static final int MATCH_RANK_COUNT = 4;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final String TRANSLITERATOR_ID = "Any-Latin; Latin-ASCII";
+
+    private static Transliterator sTransliterator;
+
+    private final List<T> mItems;
+    private final String[] mLabels;
+    // Latin spelling of labels written in another script, null if the label is Latin already.
+    private final String[] mTransliteratedLabels;
+    private final String[] mPackageNames;
+
+    private String mLastQuery;
+    private int[] mLastMatches;
+
+    /**
+     * Builds the index, which normalizes every label, so should not be called on the main thread.
+     */
+    @WorkerThread
+    public AppSearchIndex(@NonNull List<T> items,
+            @NonNull Function<T, CharSequence> labelFunction,
+            @NonNull Function<T, String> packageNameFunction) {
+        mItems = new ArrayList<>(items);
+        final int size = mItems.size();
+        mLabels = new String[size];
+        mTransliteratedLabels = new String[size];
+        mPackageNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            final T item = mItems.get(i);
+            mLabels[i] = normalize(labelFunction.apply(item));
+            if (!isAscii(mLabels[i])) {
+                final String transliterated = normalize(transliterate(mLabels[i]));
+                mTransliteratedLabels[i] =
+                        transliterated.equals(mLabels[i]) ? null : transliterated;
+            }
+            final String packageName = packageNameFunction.apply(item);
+            mPackageNames[i] = packageName == null ? "" : packageName.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** Returns the number of indexed apps. */
+    public int size() {
+        return mItems.size();
+    }
+
+    /**
+     * Returns the apps matching {@code query} in ranked order. An empty query matches all apps in
+     * the order they were indexed.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> search(@Nullable CharSequence query) {
+        final String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty()) {
+            mLastQuery = null;
+            mLastMatches = null;
+            return new ArrayList<>(mItems);
+        }
+
+        final int[] candidates;
+        if (mLastQuery != null && normalizedQuery.startsWith(mLastQuery)) {
+            // Anything matching the longer query also matched the previous one.
+            candidates = mLastMatches;
+        } else {
+            candidates = null;
+        }
+        final int candidateCount = candidates == null ? mItems.size() : candidates.length;
+
+        final int[] matches = new int[candidateCount];
+        final int[] ranks = new int[candidateCount];
+        final int[] rankCounts = new int[MATCH_RANK_COUNT];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            final int index = candidates == null ? i : candidates[i];
+            final int rank = match(index, normalizedQuery);
+            if (rank != MATCH_NONE) {
+                matches[matchCount] = index;
+                ranks[matchCount] = rank;
+                rankCounts[rank]++;
+                matchCount++;
+            }
+        }
+
+        // Candidates are kept in index order, so the previous result can be narrowed again.
+        mLastQuery = normalizedQuery;
+        mLastMatches = Arrays.copyOf(matches, matchCount);
+
+        // Bucket the matches by rank, which keeps the indexed order within each rank.
+        final int[] offsets = new int[MATCH_RANK_COUNT];
+        for (int rank = 1; rank < MATCH_RANK_COUNT; rank++) {
+            offsets[rank] = offsets[rank - 1] + rankCounts[rank - 1];
+        }
+        final Object[] ranked = new Object[matchCount];
+        for (int i = 0; i < matchCount; i++) {
+            ranked[offsets[ranks[i]]++] = mItems.get(matches[i]);
+        }
+        final List<T> results = new ArrayList<>(matchCount);
+        for (Object item : ranked) {
+            results.add((T) item);
+        }
+        return results;
+    }
+
+    @VisibleForTesting
+    int match(int index, String normalizedQuery) {
+        int rank = matchLabel(mLabels[index], normalizedQuery);
+        if (mTransliteratedLabels[index] != null) {
+            final int transliteratedRank =
+                    matchLabel(mTransliteratedLabels[index], normalizedQuery);
+            if (transliteratedRank != MATCH_NONE
+                    && (rank == MATCH_NONE || transliteratedRank < rank)) {
+                rank = transliteratedRank;
+            }
+        }
+        if (rank == MATCH_NONE && mPackageNames[index].contains(normalizedQuery)) {
+            rank = MATCH_PACKAGE_NAME;
+        }
+        return rank;
+    }
+
+    private static int matchLabel(String label, String query) {
+        int start = label.indexOf(query);
+        if (start < 0) {
+            return MATCH_NONE;
+        }
+        if (start == 0) {
+            return MATCH_PREFIX;
+        }
+        while (start > 0) {
+            if (!Character.isLetterOrDigit(label.charAt(start - 1))) {
+                return MATCH_WORD_START;
+            }
+            start = label.indexOf(query, start + 1);
+        }
+        return MATCH_LABEL;
+    }
+
+    /** Lower cases {@code text} and strips accents and surrounding white space from it. */
+    @VisibleForTesting
+    @NonNull
+    static String normalize(@Nullable CharSequence text) {
+        if (TextUtils.isEmpty(text)) {
+            return "";
+        }
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static boolean isAscii(String text) {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String transliterate(String text) {
+        synchronized (AppSearchIndex.class) {
+            if (sTransliterator == null) {
+                sTransliterator = Transliterator.getInstance(TRANSLITERATOR_ID);
+            }
+            return sTransliterator.transliterate(text);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import android.util.Log;
 
 import androidx.fragment.app.FragmentActivity;
 
+import com.android.settings.UserProfileTopology;
 import com.android.settings.Utils;
 
 import java.util.HashSet;
@@ -110,6 +111,7 @@ public class CloneBackend {
             }
 
             if (cloneUserHandle != null) {
+                UserProfileTopology.invalidate();
                 mCloneUserId = cloneUserHandle.getIdentifier();
                 newlyCreated = true;
                 if (ManageApplications.DEBUG) {
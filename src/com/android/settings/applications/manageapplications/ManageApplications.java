@@ -64,6 +64,7 @@ import android.preference.PreferenceFrameLayout;
 import android.provider.DeviceConfig;
 import android.provider.Settings;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.IconDrawableFactory;
 import android.util.Log;
@@ -111,8 +112,10 @@ import com.android.settings.Settings.TurnScreenOnSettingsActivity;
 import com.android.settings.Settings.UsageAccessSettingsActivity;
 import com.android.settings.Settings.WriteSettingsActivity;
 import com.android.settings.SettingsActivity;
+import com.android.settings.UserProfileTopology;
 import com.android.settings.Utils;
 import com.android.settings.applications.AppInfoBase;
+import com.android.settings.applications.AppSearchIndex;
 import com.android.settings.applications.AppStateAlarmsAndRemindersBridge;
 import com.android.settings.applications.AppStateAppBatteryUsageBridge;
 import com.android.settings.applications.AppStateAppOpsBridge.PermissionState;
@@ -177,8 +180,10 @@ import com.google.android.material.appbar.AppBarLayout;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -937,6 +942,7 @@ public class ManageApplications extends InstrumentedFragment
             try {
                 // Warning: This removes all the data, media & images present in cloned user.
                 if (um.removeUser(clonedUserId)) {
+                    UserProfileTopology.invalidate();
                     cloneBackend.resetCloneUserId();
                     mApplications.rebuild();
                 } else if (ManageApplications.DEBUG) {
@@ -1215,6 +1221,8 @@ public class ManageApplications extends InstrumentedFragment
         private static final int VIEW_TYPE_EXTRA_VIEW = 1;
         private static final int VIEW_TYPE_APP_HEADER = 2;
         private static final int VIEW_TYPE_TWO_TARGET = 3;
+        @VisibleForTesting
+        static final String PAYLOAD_SIZE_CHANGED = "size_changed";
 
         private final ApplicationsState mState;
         private final ApplicationsState.Session mSession;
@@ -1227,6 +1235,8 @@ public class ManageApplications extends InstrumentedFragment
         private AppFilterItem mAppFilter;
         private ArrayList<ApplicationsState.AppEntry> mEntries;
         private ArrayList<ApplicationsState.AppEntry> mOriginalEntries;
+        // Adapter positions of the rows of each package, one row per user that has it installed.
+        private final ArrayMap<String, List<Integer>> mPackagePositions = new ArrayMap<>();
         private boolean mResumed;
         private int mLastSortMode = -1;
         private int mWhichSize = SIZE_TOTAL;
@@ -1577,7 +1587,7 @@ public class ManageApplications extends InstrumentedFragment
                     || filterType == FILTER_APPS_POWER_ALLOWLIST_ALL) {
                 entries = removeDuplicateIgnoringUser(entries);
             }
-            mEntries = entries;
+            setEntries(entries);
             mOriginalEntries = entries;
             notifyDataSetChanged();
             if (getItemCount() == 0) {
@@ -1609,6 +1619,36 @@ public class ManageApplications extends InstrumentedFragment
             mManageApplications.setHasInstant(mState.haveInstantApps());
         }
 
+        private void setEntries(ArrayList<ApplicationsState.AppEntry> entries) {
+            mEntries = entries;
+            mPackagePositions.clear();
+            if (mOnScrollListener != null) {
+                // Pending positions refer to the previous list.
+                mOnScrollListener.clearPendingItemChanges();
+            }
+            if (entries == null) {
+                return;
+            }
+            final int size = entries.size();
+            for (int i = 0; i < size; i++) {
+                final ApplicationInfo info = entries.get(i).info;
+                if (info == null || info.packageName == null) {
+                    continue;
+                }
+                List<Integer> positions = mPackagePositions.get(info.packageName);
+                if (positions == null) {
+                    positions = new ArrayList<>(1);
+                    mPackagePositions.put(info.packageName, positions);
+                }
+                positions.add(getAdapterPosition(mManageApplications.mListType, i));
+            }
+        }
+
+        @VisibleForTesting
+        List<Integer> getPackagePositions(String packageName) {
+            return mPackagePositions.getOrDefault(packageName, Collections.emptyList());
+        }
+
         @VisibleForTesting
         void updateLoading() {
             final boolean appLoaded = mHasReceivedLoadEntries && mSession.getAllApps().size() != 0;
@@ -1653,23 +1693,23 @@ public class ManageApplications extends InstrumentedFragment
             if (mEntries == null) {
                 return;
             }
-            final int size = mEntries.size();
-            for (int i = 0; i < size; i++) {
-                final AppEntry entry = mEntries.get(i);
-                final ApplicationInfo info = entry.info;
-                if (info == null && !TextUtils.equals(packageName, info.packageName)) {
-                    continue;
-                }
-                if (TextUtils.equals(mManageApplications.mCurrentPkgName, info.packageName)) {
-                    // We got the size information for the last app the
-                    // user viewed, and are sorting by size...  they may
-                    // have cleared data, so we immediately want to resort
-                    // the list with the new size to reflect it to the user.
-                    rebuild();
-                    return;
-                } else {
-                    mOnScrollListener.postNotifyItemChange(i);
-                }
+            final List<Integer> positions = mPackagePositions.get(packageName);
+            if (positions == null) {
+                return;
+            }
+            if (TextUtils.equals(mManageApplications.mCurrentPkgName, packageName)) {
+                // We got the size information for the last app the
+                // user viewed, and are sorting by size...  they may
+                // have cleared data, so we immediately want to resort
+                // the list with the new size to reflect it to the user.
+                rebuild();
+                return;
+            }
+            if (mOnScrollListener == null) {
+                return;
+            }
+            for (int position : positions) {
+                mOnScrollListener.postNotifyItemChange(position);
             }
         }
 
@@ -1777,6 +1817,31 @@ public class ManageApplications extends InstrumentedFragment
             holder.itemView.setOnClickListener(mManageApplications);
         }
 
+        @Override
+        public void onBindViewHolder(@NonNull ApplicationViewHolder holder, int position,
+                @NonNull List<Object> payloads) {
+            if (payloads.isEmpty() || getItemViewType(position) == VIEW_TYPE_APP_HEADER) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+            for (Object payload : payloads) {
+                if (!PAYLOAD_SIZE_CHANGED.equals(payload)) {
+                    onBindViewHolder(holder, position);
+                    return;
+                }
+            }
+            final int applicationPosition =
+                    getApplicationPosition(mManageApplications.mListType, position);
+            if (applicationPosition == RecyclerView.NO_POSITION) {
+                return;
+            }
+            // Only the size changed, so leave the title, icon and switch alone.
+            final ApplicationsState.AppEntry entry = mEntries.get(applicationPosition);
+            synchronized (entry) {
+                updateSummary(holder, entry);
+            }
+        }
+
         private void updateIcon(ApplicationViewHolder holder, AppEntry entry) {
             final Drawable cachedIcon = AppUtils.getIconFromCache(entry);
             if (cachedIcon != null && entry.mounted) {
@@ -1900,9 +1965,26 @@ public class ManageApplications extends InstrumentedFragment
             return applicationPosition;
         }
 
+        /**
+         * Reverse of {@link #getApplicationPosition}, converts an index into the app entries to
+         * an adapter position.
+         */
+        static int getAdapterPosition(int listType, int applicationPosition) {
+            if (listType == LIST_TYPE_APPS_LOCALE || listType == LIST_TYPE_CLONED_APPS) {
+                return applicationPosition + 1;
+            }
+            return applicationPosition;
+        }
+
         public static class OnScrollListener extends RecyclerView.OnScrollListener {
             private int mScrollState = SCROLL_STATE_IDLE;
-            private boolean mDelayNotifyDataChange;
+            // Rows changed since the last flush, notified together once the list is idle.
+            private final BitSet mPendingItemChanges = new BitSet();
+            private boolean mFlushScheduled;
+            private final Runnable mFlushRunnable = () -> {
+                mFlushScheduled = false;
+                flushPendingItemChanges();
+            };
             private ApplicationsAdapter mAdapter;
             private InputMethodManager mInputMethodManager;
             private InteractionJankMonitor mMonitor;
@@ -1919,9 +2001,8 @@ public class ManageApplications extends InstrumentedFragment
             @Override
             public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
                 mScrollState = newState;
-                if (mScrollState == SCROLL_STATE_IDLE && mDelayNotifyDataChange) {
-                    mDelayNotifyDataChange = false;
-                    mAdapter.notifyDataSetChanged();
+                if (mScrollState == SCROLL_STATE_IDLE && !mPendingItemChanges.isEmpty()) {
+                    flushPendingItemChanges();
                 } else if (mScrollState == SCROLL_STATE_DRAGGING) {
                     // Hide keyboard when user start scrolling
                     if (mInputMethodManager != null && mInputMethodManager.isActive()) {
@@ -1940,13 +2021,36 @@ public class ManageApplications extends InstrumentedFragment
                 }
             }
 
+            /**
+             * Marks the size of the row at {@code index} as changed. Changes posted in the same
+             * frame are notified as ranges, and changes posted while scrolling are held back
+             * until the list is idle.
+             */
             public void postNotifyItemChange(int index) {
-                if (mScrollState == SCROLL_STATE_IDLE) {
-                    mAdapter.notifyItemChanged(index);
-                } else {
-                    mDelayNotifyDataChange = true;
+                mPendingItemChanges.set(index);
+                if (mScrollState == SCROLL_STATE_IDLE && !mFlushScheduled) {
+                    mFlushScheduled = true;
+                    ThreadUtils.postOnMainThread(mFlushRunnable);
                 }
             }
+
+            @VisibleForTesting
+            void flushPendingItemChanges() {
+                if (mScrollState != SCROLL_STATE_IDLE) {
+                    return;
+                }
+                int start = mPendingItemChanges.nextSetBit(0);
+                while (start >= 0) {
+                    final int end = mPendingItemChanges.nextClearBit(start);
+                    mAdapter.notifyItemRangeChanged(start, end - start, PAYLOAD_SIZE_CHANGED);
+                    start = mPendingItemChanges.nextSetBit(end);
+                }
+                mPendingItemChanges.clear();
+            }
+
+            void clearPendingItemChanges() {
+                mPendingItemChanges.clear();
+            }
         }
 
         /**
@@ -1954,19 +2058,25 @@ public class ManageApplications extends InstrumentedFragment
          * Item that does not contains the specified substring will be removed from the list.</p>
          */
         private class SearchFilter extends Filter {
+            // Index of the entries it was built for, rebuilt after the app list is rebuilt.
+            private AppSearchIndex<ApplicationsState.AppEntry> mSearchIndex;
+            private ArrayList<ApplicationsState.AppEntry> mIndexedEntries;
+
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
+                final ArrayList<ApplicationsState.AppEntry> originalEntries = mOriginalEntries;
                 final ArrayList<ApplicationsState.AppEntry> matchedEntries;
                 if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
+                    matchedEntries = originalEntries;
                 } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
+                    if (mSearchIndex == null || mIndexedEntries != originalEntries) {
+                        mSearchIndex = new AppSearchIndex<>(originalEntries,
+                                entry -> entry.label,
+                                entry -> entry.info != null ? entry.info.packageName : null);
+                        mIndexedEntries = originalEntries;
                     }
+                    matchedEntries = new ArrayList<>(mSearchIndex.search(query));
                 }
                 final FilterResults results = new FilterResults();
                 results.values = matchedEntries;
@@ -1976,7 +2086,7 @@ public class ManageApplications extends InstrumentedFragment
 
             @Override
             protected void publishResults(CharSequence constraint, FilterResults results) {
-                mEntries = (ArrayList<ApplicationsState.AppEntry>) results.values;
+                setEntries((ArrayList<ApplicationsState.AppEntry>) results.values);
                 notifyDataSetChanged();
             }
         }
@@ -415,6 +415,19 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * Used for {@link BasePreferenceController} to declare that {@link #getAvailabilityStatus()}
+     * is safe to call on a background thread. If it is, DashboardFragment computes the
+     * availability off the UI thread, and updates the preference once it is known.
+     *
+     * Only implement it if the availability doesn't touch views or other state confined to the
+     * UI thread. It is never queried by two threads at once.
+     *
+     * This must be used in {@link BasePreferenceController}
+     */
+    public interface ThreadSafeAvailability {
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
@@ -18,6 +18,7 @@ package com.android.settings.core;
 
 import android.content.Context;
 
+import com.android.settings.core.instrumentation.StatsLogWriter;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.survey.SurveyMixin;
 import com.android.settingslib.core.instrumentation.Instrumentable;
@@ -47,4 +48,10 @@ public abstract class InstrumentedFragment extends ObservableFragment implements
         mVisibilityLoggerMixin.setSourceMetricsCategory(getActivity());
         super.onResume();
     }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        StatsLogWriter.flush();
+    }
 }
@@ -43,6 +43,7 @@ import com.android.settings.R;
 import com.android.settings.SetupWizardUtils;
 import com.android.settings.SubSettings;
 import com.android.settings.core.CategoryMixin.CategoryHandler;
+import com.android.settings.core.instrumentation.StatsLogWriter;
 import com.android.settingslib.core.lifecycle.HideNonSystemOverlayMixin;
 import com.android.settingslib.transition.SettingsTransitionHelper.TransitionType;
 
@@ -181,6 +182,14 @@ public class SettingsBaseActivity extends FragmentActivity implements CategoryHa
         super.onPause();
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Have the page visibility events logged while pausing written in the background without
+        // waiting for a batch.
+        StatsLogWriter.flush();
+    }
+
     @Override
     public void setContentView(@LayoutRes int layoutResID) {
         final ViewGroup parent = findViewById(R.id.content_frame);
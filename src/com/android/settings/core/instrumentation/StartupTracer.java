@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Measures the phases of the Settings cold start, until the first page reports it's fully drawn.
+ *
+ * <p>Every phase is emitted as a {@link Trace} section, and its time is recorded, together with
+ * the startup counters and the time the main thread spent in phases. Nested phases are counted
+ * once in that time, and the main thread work outside of any phase isn't counted, so it's a lower
+ * bound of the time the main thread was busy, not of the time it was blocked. The record is
+ * dumped by {@code SettingsDumpService} and can be read with {@link #getSnapshot()} in tests.
+ *
+ * <p>A span must be ended even if the phase throws, or the nesting of the main thread phases is
+ * off for the rest of the startup:
+ *
+ * <pre>
+ * final StartupTracer.Span span = StartupTracer.beginPhase(StartupTracer.PHASE_XXX);
+ * try {
+ *     ...
+ * } finally {
+ *     span.end();
+ * }
+ * </pre>
+ */
+public final class StartupTracer {
+    private static final String TAG = "StartupTracer";
+    private static final String TRACE_PREFIX = "Settings:";
+
+    public static final String PHASE_FEATURE_FACTORY = "FeatureFactory.setFactory";
+    public static final String PHASE_APPLICATION_CREATE = "SettingsApplication.onCreate";
+    public static final String PHASE_BACKUP_RESTORE_STORAGE = "BackupRestoreStorageManager.add";
+    public static final String PHASE_EMBEDDING_RULES = "ActivityEmbeddingRulesController.initRules";
+    public static final String PHASE_HOMEPAGE_CREATE = "SettingsHomepageActivity.onCreate";
+    public static final String PHASE_HOMEPAGE_CONTAINER =
+            "SettingsHomepageActivity.initHomepageContainer";
+    public static final String PHASE_TOP_LEVEL_PREFERENCES =
+            "TopLevelSettings.onCreatePreferences";
+    public static final String PHASE_REFRESH_ALL_PREFERENCES =
+            "DashboardFragment.refreshAllPreferences";
+
+    public static final String COUNTER_CONTROLLERS_CREATED = "controllers_created";
+    public static final String COUNTER_TILES_BOUND = "tiles_bound";
+
+    @VisibleForTesting
+    static final String KEY_PHASES = "phases_ms";
+    @VisibleForTesting
+    static final String KEY_COUNTERS = "counters";
+    @VisibleForTesting
+    static final String KEY_MAIN_THREAD_IN_PHASES = "main_thread_in_phases_ms";
+    @VisibleForTesting
+    static final String KEY_FULLY_DRAWN = "fully_drawn_ms";
+
+    private static final Object sLock = new Object();
+
+    @GuardedBy("sLock")
+    private static final ArrayMap<String, Long> sPhaseNanos = new ArrayMap<>();
+
+    @GuardedBy("sLock")
+    private static final ArrayMap<String, Long> sCounters = new ArrayMap<>();
+
+    @GuardedBy("sLock")
+    private static long sMainThreadInPhasesNanos;
+
+    @GuardedBy("sLock")
+    private static long sFullyDrawnMillis = -1L;
+
+    // Nesting of the spans on the main thread, only accessed on the main thread.
+    private static int sMainThreadDepth;
+
+    private StartupTracer() {}
+
+    /** Begins a phase on the calling thread, which is ended with {@link Span#end()}. */
+    @NonNull
+    public static Span beginPhase(@NonNull String name) {
+        final boolean traced = Trace.isEnabled();
+        if (traced) {
+            Trace.beginSection(TRACE_PREFIX + name);
+        }
+        final boolean mainThread = Looper.myLooper() == Looper.getMainLooper();
+        final boolean outermost = mainThread && sMainThreadDepth++ == 0;
+        return new Span(name, traced, mainThread, outermost, isStarting());
+    }
+
+    /** Adds {@code count} to a startup counter. */
+    public static void incrementCounter(@NonNull String name, int count) {
+        final long value;
+        synchronized (sLock) {
+            if (sFullyDrawnMillis >= 0) {
+                return;
+            }
+            final Long current = sCounters.get(name);
+            value = (current != null ? current : 0L) + count;
+            sCounters.put(name, value);
+        }
+        if (Trace.isEnabled()) {
+            Trace.setCounter(TRACE_PREFIX + name, value);
+        }
+    }
+
+    /** Marks the end of the startup, when the first page reports it's fully drawn. */
+    public static void markFullyDrawn() {
+        synchronized (sLock) {
+            if (sFullyDrawnMillis >= 0) {
+                return;
+            }
+            sFullyDrawnMillis =
+                    SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+            Log.i(TAG, "Fully drawn " + sFullyDrawnMillis + "ms after process start, main "
+                    + "thread in phases " + nanosToMillis(sMainThreadInPhasesNanos) + "ms");
+        }
+    }
+
+    /** Returns the startup record, for the dump. */
+    @NonNull
+    public static JSONObject dumpToJson() throws JSONException {
+        final Snapshot snapshot = getSnapshot();
+        final JSONObject phases = new JSONObject();
+        for (Map.Entry<String, Long> phase : snapshot.mPhaseMillis.entrySet()) {
+            phases.put(phase.getKey(), phase.getValue());
+        }
+        final JSONObject counters = new JSONObject();
+        for (Map.Entry<String, Long> counter : snapshot.mCounters.entrySet()) {
+            counters.put(counter.getKey(), counter.getValue());
+        }
+        final JSONObject result = new JSONObject();
+        result.put(KEY_PHASES, phases);
+        result.put(KEY_COUNTERS, counters);
+        result.put(KEY_MAIN_THREAD_IN_PHASES, snapshot.mMainThreadInPhasesMillis);
+        result.put(KEY_FULLY_DRAWN, snapshot.mFullyDrawnMillis);
+        return result;
+    }
+
+    /** Returns a copy of the startup record. */
+    @NonNull
+    public static Snapshot getSnapshot() {
+        synchronized (sLock) {
+            final ArrayMap<String, Long> phaseMillis = new ArrayMap<>(sPhaseNanos.size());
+            for (int i = 0; i < sPhaseNanos.size(); i++) {
+                phaseMillis.put(sPhaseNanos.keyAt(i), nanosToMillis(sPhaseNanos.valueAt(i)));
+            }
+            return new Snapshot(phaseMillis, new ArrayMap<>(sCounters),
+                    nanosToMillis(sMainThreadInPhasesNanos), sFullyDrawnMillis);
+        }
+    }
+
+    /** Clears the startup record, so that a test can measure another startup. */
+    @VisibleForTesting
+    public static void reset() {
+        synchronized (sLock) {
+            sPhaseNanos.clear();
+            sCounters.clear();
+            sMainThreadInPhasesNanos = 0L;
+            sFullyDrawnMillis = -1L;
+        }
+        sMainThreadDepth = 0;
+    }
+
+    private static boolean isStarting() {
+        synchronized (sLock) {
+            return sFullyDrawnMillis < 0;
+        }
+    }
+
+    private static void onPhaseEnded(Span span, long durationNanos) {
+        synchronized (sLock) {
+            final Long total = sPhaseNanos.get(span.mName);
+            sPhaseNanos.put(span.mName, (total != null ? total : 0L) + durationNanos);
+            if (span.mOutermost) {
+                sMainThreadInPhasesNanos += durationNanos;
+            }
+        }
+    }
+
+    private static long nanosToMillis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+    /** A running phase. */
+    public static final class Span {
+        private final String mName;
+        private final boolean mTraced;
+        private final boolean mMainThread;
+        private final boolean mOutermost;
+        private final boolean mRecorded;
+        private final long mStartNanos;
+        private boolean mEnded;
+
+        private Span(String name, boolean traced, boolean mainThread, boolean outermost,
+                boolean recorded) {
+            mName = name;
+            mTraced = traced;
+            mMainThread = mainThread;
+            mOutermost = outermost;
+            mRecorded = recorded;
+            mStartNanos = SystemClock.elapsedRealtimeNanos();
+        }
+
+        /** Ends the phase, on the thread which began it. Calling it again has no effect. */
+        public void end() {
+            if (mEnded) {
+                return;
+            }
+            mEnded = true;
+            if (mMainThread) {
+                sMainThreadDepth--;
+            }
+            if (mTraced) {
+                Trace.endSection();
+            }
+            if (mRecorded) {
+                onPhaseEnded(this, SystemClock.elapsedRealtimeNanos() - mStartNanos);
+            }
+        }
+    }
+
+    /** A copy of the startup record. */
+    public static final class Snapshot {
+        private final Map<String, Long> mPhaseMillis;
+        private final Map<String, Long> mCounters;
+        private final long mMainThreadInPhasesMillis;
+        private final long mFullyDrawnMillis;
+
+        private Snapshot(Map<String, Long> phaseMillis, Map<String, Long> counters,
+                long mainThreadInPhasesMillis, long fullyDrawnMillis) {
+            mPhaseMillis = phaseMillis;
+            mCounters = counters;
+            mMainThreadInPhasesMillis = mainThreadInPhasesMillis;
+            mFullyDrawnMillis = fullyDrawnMillis;
+        }
+
+        /** Returns whether the phase ran during the startup. */
+        public boolean hasPhase(@NonNull String name) {
+            return mPhaseMillis.containsKey(name);
+        }
+
+        /** Returns the total time of the phase during the startup, in milliseconds. */
+        public long getPhaseMillis(@NonNull String name) {
+            final Long millis = mPhaseMillis.get(name);
+            return millis != null ? millis : 0L;
+        }
+
+        /** Returns the value of a startup counter. */
+        public long getCounter(@NonNull String name) {
+            final Long value = mCounters.get(name);
+            return value != null ? value : 0L;
+        }
+
+        /**
+         * Returns the time the main thread spent in outermost phases, in milliseconds. The main
+         * thread work outside of any phase isn't included.
+         */
+        public long getMainThreadInPhasesMillis() {
+            return mMainThreadInPhasesMillis;
+        }
+
+        /** Returns the time from the process start to fully drawn, or -1 if not drawn yet. */
+        public long getFullyDrawnMillis() {
+            return mFullyDrawnMillis;
+        }
+    }
+}
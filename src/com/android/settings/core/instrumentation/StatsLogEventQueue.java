@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, lock-free ring buffer of {@code SETTINGS_UI_CHANGED} events.
+ * <p>
+ *     Any number of threads may {@link #offer} events, and a single thread may {@link #drain}
+ *     them. All slots are allocated up front, so offering an event never allocates. When the
+ *     buffer is full the event is dropped and counted in {@link #getDroppedCount()}.
+ */
+final class StatsLogEventQueue {
+
+    /** Receives the events drained from the queue. */
+    interface EventSink {
+        void write(int attribution, int action, int pageId, String key, int value,
+                long timestamp);
+    }
+
+    private static final class Slot {
+        // Sequence number telling producers and the consumer who owns the slot.
+        volatile long mSequence;
+        int mAttribution;
+        int mAction;
+        int mPageId;
+        String mKey;
+        int mValue;
+        long mTimestamp;
+    }
+
+    private final Slot[] mSlots;
+    private final int mMask;
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private volatile long mHead;
+
+    /**
+     * @param capacity the number of events the queue can hold, must be a power of two
+     */
+    StatsLogEventQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mSlots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mSlots[i] = new Slot();
+            mSlots[i].mSequence = i;
+        }
+        mMask = capacity - 1;
+    }
+
+    /**
+     * Adds an event to the queue.
+     *
+     * @return {@code false} if the queue is full and the event was dropped
+     */
+    boolean offer(int attribution, int action, int pageId, String key, int value,
+            long timestamp) {
+        long position = mTail.get();
+        Slot slot;
+        while (true) {
+            slot = mSlots[(int) (position & mMask)];
+            final long difference = slot.mSequence - position;
+            if (difference == 0) {
+                if (mTail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = mTail.get();
+            } else if (difference < 0) {
+                mDroppedCount.incrementAndGet();
+                return false;
+            } else {
+                position = mTail.get();
+            }
+        }
+        slot.mAttribution = attribution;
+        slot.mAction = action;
+        slot.mPageId = pageId;
+        slot.mKey = key;
+        slot.mValue = value;
+        slot.mTimestamp = timestamp;
+        slot.mSequence = position + 1;
+        return true;
+    }
+
+    /**
+     * Hands every published event to {@code sink} in insertion order. Must only be called from a
+     * single consumer thread.
+     *
+     * @return the number of drained events
+     */
+    int drain(EventSink sink) {
+        int count = 0;
+        long head = mHead;
+        while (true) {
+            final Slot slot = mSlots[(int) (head & mMask)];
+            if (slot.mSequence != head + 1) {
+                break;
+            }
+            sink.write(slot.mAttribution, slot.mAction, slot.mPageId, slot.mKey, slot.mValue,
+                    slot.mTimestamp);
+            slot.mKey = null;
+            slot.mSequence = head + mSlots.length;
+            head++;
+            mHead = head;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of events waiting to be drained
+     */
+    int size() {
+        return (int) Math.max(0L, mTail.get() - mHead);
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full
+     */
+    long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+}
@@ -18,54 +18,116 @@ package com.android.settings.core.instrumentation;
 
 import android.app.settings.SettingsEnums;
 import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.util.Log;
 import android.util.Pair;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.settingslib.core.instrumentation.LogWriter;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link LogWriter} writing {@code SETTINGS_UI_CHANGED} atoms.
+ * <p>
+ *     Events are queued in a preallocated {@link StatsLogEventQueue} without allocating on the
+ *     calling thread, and written in batches by a background thread. Call {@link #flush()} when a
+ *     page stops to write the pending events without waiting for a full batch.
+ */
 public class StatsLogWriter implements LogWriter {
 
+    private static final String TAG = "StatsLogWriter";
+
+    @VisibleForTesting
+    static final int QUEUE_CAPACITY = 256;
+
+    /** Number of pending events which triggers a write without waiting for more events. */
+    private static final int BATCH_SIZE = 32;
+
+    /** Time to wait for more events to batch after the first one arrives. */
+    private static final long BATCH_DELAY_MILLIS = 200L;
+
+    private static volatile Dispatcher sDispatcher;
+
+    /**
+     * Asks the background thread to write the pending events without waiting for a full batch.
+     * It doesn't wait for them to be written, so it can be called on the main thread.
+     */
+    public static void flush() {
+        final Dispatcher dispatcher = sDispatcher;
+        if (dispatcher != null) {
+            dispatcher.drainNow();
+        }
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full
+     */
+    public static long getDroppedEventCount() {
+        final Dispatcher dispatcher = sDispatcher;
+        return dispatcher == null ? 0L : dispatcher.mQueue.getDroppedCount();
+    }
+
+    private static Dispatcher getDispatcher() {
+        Dispatcher dispatcher = sDispatcher;
+        if (dispatcher == null) {
+            synchronized (StatsLogWriter.class) {
+                dispatcher = sDispatcher;
+                if (dispatcher == null) {
+                    final HandlerThread workerThread = new HandlerThread(TAG,
+                            Process.THREAD_PRIORITY_BACKGROUND);
+                    workerThread.start();
+                    dispatcher = new Dispatcher(workerThread.getLooper());
+                    sDispatcher = dispatcher;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
     @Override
     public void visible(Context context, int attribution, int pageId, int latency) {
-        SettingsStatsLog.write(SettingsStatsLog.SETTINGS_UI_CHANGED /* Atom name */,
-                attribution, /* from pageId */
+        enqueue(attribution, /* from pageId */
                 SettingsEnums.PAGE_VISIBLE /* action */,
                 pageId, /* target pageId */
                 "" /* changedPreferenceKey */,
                 latency /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                System.currentTimeMillis());
     }
 
     @Override
     public void hidden(Context context, int pageId, int visibleTime) {
-        SettingsStatsLog.write(SettingsStatsLog.SETTINGS_UI_CHANGED /* Atom name */,
-                SettingsEnums.PAGE_UNKNOWN /* attribution */,
+        enqueue(SettingsEnums.PAGE_UNKNOWN /* attribution */,
                 SettingsEnums.PAGE_HIDE /* action */,
                 pageId,
                 "" /* changedPreferenceKey */,
                 visibleTime /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                System.currentTimeMillis());
     }
 
     @Override
     public void clicked(int sourceCategory, String key) {
-        SettingsStatsLog.write(SettingsStatsLog.SETTINGS_UI_CHANGED /* Atom name */,
-                sourceCategory /* attribution */,
+        enqueue(sourceCategory /* attribution */,
                 SettingsEnums.ACTION_SETTINGS_TILE_CLICK /* action */,
                 SettingsEnums.PAGE_UNKNOWN /* pageId */,
                 key /* changedPreferenceKey */,
                 0 /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                System.currentTimeMillis());
     }
 
     @Override
     public void changed(int sourceCategory, String key, int value) {
-        SettingsStatsLog.write(SettingsStatsLog.SETTINGS_UI_CHANGED /* Atom name */,
-                sourceCategory /* attribution */,
+        enqueue(sourceCategory /* attribution */,
                 SettingsEnums.ACTION_SETTINGS_PREFERENCE_CHANGE /* action */,
                 SettingsEnums.PAGE_UNKNOWN /* pageId */,
                 key /* changedPreferenceKey */,
                 value /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                System.currentTimeMillis());
     }
 
     @Override
@@ -106,12 +168,94 @@ public class StatsLogWriter implements LogWriter {
 
     @Override
     public void action(int attribution, int action, int pageId, String key, int value) {
-        SettingsStatsLog.write(SettingsStatsLog.SETTINGS_UI_CHANGED /* atomName */,
-                attribution,
+        enqueue(attribution,
                 action,
                 pageId,
                 key,
                 value,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                System.currentTimeMillis());
+    }
+
+    private static void enqueue(int attribution, int action, int pageId, String key, int value,
+            long timestamp) {
+        getDispatcher().enqueue(attribution, action, pageId, key, value, timestamp);
+    }
+
+    /**
+     * Handler draining {@link StatsLogEventQueue} into {@link SettingsStatsLog} on a background
+     * thread.
+     */
+    private static class Dispatcher extends Handler implements StatsLogEventQueue.EventSink {
+
+        private static final int MSG_DRAIN = 1;
+        private static final int MSG_DRAIN_NOW = 2;
+
+        private final StatsLogEventQueue mQueue = new StatsLogEventQueue(QUEUE_CAPACITY);
+        // Whether a MSG_DRAIN is pending. It is cleared before draining, so an event published
+        // after the drain started always schedules another one.
+        private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+        // Only accessed on the handler thread.
+        private long mReportedDroppedCount;
+
+        Dispatcher(Looper looper) {
+            super(looper);
+        }
+
+        void enqueue(int attribution, int action, int pageId, String key, int value,
+                long timestamp) {
+            if (!mQueue.offer(attribution, action, pageId, key, value, timestamp)) {
+                // The queue counts the dropped event, it is reported by the next drain.
+                drainNow();
+                return;
+            }
+            if (mQueue.size() >= BATCH_SIZE) {
+                drainNow();
+            } else if (mDrainScheduled.compareAndSet(false, true)) {
+                // Give other events a chance to join the batch.
+                sendEmptyMessageDelayed(MSG_DRAIN, BATCH_DELAY_MILLIS);
+            }
+        }
+
+        void drainNow() {
+            if (!hasMessages(MSG_DRAIN_NOW)) {
+                sendEmptyMessage(MSG_DRAIN_NOW);
+            }
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            if (msg.what == MSG_DRAIN || msg.what == MSG_DRAIN_NOW) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            // Clear the flag after removing the message, so that a drain scheduled in between is
+            // not lost. Events published before the flag is cleared are drained below.
+            removeMessages(MSG_DRAIN);
+            mDrainScheduled.set(false);
+            final int count = mQueue.drain(this);
+            final long droppedCount = mQueue.getDroppedCount();
+            if (droppedCount > mReportedDroppedCount) {
+                Log.w(TAG, "Dropped " + (droppedCount - mReportedDroppedCount)
+                        + " events, the queue was full");
+                mReportedDroppedCount = droppedCount;
+            }
+            if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                Log.v(TAG, "Wrote " + count + " events, dropped so far: " + droppedCount);
+            }
+        }
+
+        @Override
+        public void write(int attribution, int action, int pageId, String key, int value,
+                long timestamp) {
+            SettingsStatsLog.write(SettingsStatsLog.SETTINGS_UI_CHANGED /* atomName */,
+                    attribution,
+                    action,
+                    pageId,
+                    key,
+                    value,
+                    ElapsedTimeUtils.getElapsedTime(timestamp));
+        }
     }
 }
@@ -21,9 +21,11 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 import android.view.View;
 
@@ -46,6 +48,7 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.CategoryMixin.CategoryHandler;
 import com.android.settings.core.CategoryMixin.CategoryListener;
 import com.android.settings.core.PreferenceControllerListHelper;
+import com.android.settings.core.instrumentation.StartupTracer;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -53,6 +56,7 @@ import com.android.settingslib.core.lifecycle.Lifecycle;
 import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.Indexable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,6 +79,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
     private static final long TIMEOUT_MILLIS = 50L;
+    private static final long SLOW_CONTROLLER_THRESHOLD_MILLIS = 16L;
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -88,6 +93,21 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    // Last availability computed for each ThreadSafeAvailability controller, used while the
+    // availability of the current pass is still computed in the background.
+    private final Map<AbstractPreferenceController, Boolean> mLastAvailability = new ArrayMap<>();
+    // Controllers whose availability is computed in the background.
+    private final Set<AbstractPreferenceController> mPendingAvailability = new ArraySet<>();
+    // Pending controllers whose availability is queried again once the current query is done.
+    private final Set<AbstractPreferenceController> mStaleAvailability = new ArraySet<>();
+    // Pending controllers whose preference state and visibility are updated once the query is
+    // done.
+    private final Set<AbstractPreferenceController> mDeferredStateUpdates = new ArraySet<>();
+    private final Set<AbstractPreferenceController> mDeferredVisibility = new ArraySet<>();
+    // Time spent on the main thread in isAvailable() and updateState() by each controller in the
+    // last update pass.
+    private final Map<AbstractPreferenceController, Long> mControllerCostNanos = new ArrayMap<>();
+    private final PreferenceKeyIndex mPreferenceIndex = new PreferenceKeyIndex();
 
     @Override
     public void onAttach(Context context) {
@@ -135,6 +155,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         for (AbstractPreferenceController controller : mControllers) {
             addPreferenceController(controller);
         }
+        StartupTracer.incrementCounter(
+                StartupTracer.COUNTER_CONTROLLERS_CREATED, mControllers.size());
     }
 
     @VisibleForTesting
@@ -204,7 +226,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         checkUiBlocker(mControllers);
         refreshAllPreferences(getLogTag());
         mControllers.stream()
-                .map(controller -> (Preference) findPreference(controller.getPreferenceKey()))
+                .map(controller -> mPreferenceIndex.find(
+                        getPreferenceScreen(), controller.getPreferenceKey()))
                 .filter(Objects::nonNull)
                 .forEach(preference -> {
                     // Give all controllers a chance to handle click.
@@ -261,6 +284,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onStop() {
         super.onStop();
+        mDeferredStateUpdates.clear();
+        mDeferredVisibility.clear();
         unregisterDynamicDataObservers(new ArrayList<>(mRegisteredObservers));
         if (mListeningToCategoryChange) {
             final Activity activity = getActivity();
@@ -367,6 +392,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         final PreferenceScreen screen = getPreferenceScreen();
         screen.setOnExpandButtonClickListener(this);
         displayResourceTilesToScreen(screen);
+        // Controllers may have added or removed preferences while displaying them.
+        mPreferenceIndex.rebuild(screen);
     }
 
     /**
@@ -387,33 +414,41 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
 
     /**
      * Update state of each preference managed by PreferenceController.
+     *
+     * <p>The availability of the {@link BasePreferenceController.ThreadSafeAvailability}
+     * controllers is computed in the background, and their state is updated on the main thread
+     * once it is known. The other controllers are queried and updated in a single pass on the main
+     * thread.
      */
     protected void updatePreferenceStates() {
         final PreferenceScreen screen = getPreferenceScreen();
-        Collection<List<AbstractPreferenceController>> controllerLists =
-                mPreferenceControllers.values();
-        for (List<AbstractPreferenceController> controllerList : controllerLists) {
-            for (AbstractPreferenceController controller : controllerList) {
-                if (!controller.isAvailable()) {
-                    continue;
-                }
+        final List<AbstractPreferenceController> controllers = getAllPreferenceControllers();
+        startUpdatePass(controllers);
+        for (AbstractPreferenceController controller : controllers) {
+            if (mPendingAvailability.contains(controller)) {
+                mDeferredStateUpdates.add(controller);
+                continue;
+            }
+            if (!isControllerAvailable(controller)) {
+                continue;
+            }
 
-                final String key = controller.getPreferenceKey();
-                if (TextUtils.isEmpty(key)) {
-                    Log.d(TAG, String.format("Preference key is %s in Controller %s",
-                            key, controller.getClass().getSimpleName()));
-                    continue;
-                }
+            final String key = controller.getPreferenceKey();
+            if (TextUtils.isEmpty(key)) {
+                Log.d(TAG, String.format("Preference key is %s in Controller %s",
+                        key, controller.getClass().getSimpleName()));
+                continue;
+            }
 
-                final Preference preference = screen.findPreference(key);
-                if (preference == null) {
-                    Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
-                            key, controller.getClass().getSimpleName()));
-                    continue;
-                }
-                controller.updateState(preference);
+            final Preference preference = mPreferenceIndex.find(screen, key);
+            if (preference == null) {
+                Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
+                        key, controller.getClass().getSimpleName()));
+                continue;
             }
+            updateControllerState(controller, preference);
         }
+        logSlowControllers();
     }
 
     /**
@@ -421,22 +456,30 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      * DashboardCategory.
      */
     private void refreshAllPreferences(final String tag) {
-        final PreferenceScreen screen = getPreferenceScreen();
-        // First remove old preferences.
-        if (screen != null) {
-            // Intentionally do not cache PreferenceScreen because it will be recreated later.
-            screen.removeAll();
-        }
+        final StartupTracer.Span span =
+                StartupTracer.beginPhase(StartupTracer.PHASE_REFRESH_ALL_PREFERENCES);
+        try {
+            final PreferenceScreen screen = getPreferenceScreen();
+            // First remove old preferences.
+            if (screen != null) {
+                // Intentionally do not cache PreferenceScreen because it will be recreated later.
+                screen.removeAll();
+            }
+            mPreferenceIndex.clear();
 
-        // Add resource based tiles.
-        displayResourceTiles();
+            // Add resource based tiles.
+            displayResourceTiles();
 
-        refreshDashboardTiles(tag);
+            refreshDashboardTiles(tag);
 
-        final Activity activity = getActivity();
-        if (activity != null) {
-            Log.d(tag, "All preferences added, reporting fully drawn");
-            activity.reportFullyDrawn();
+            final Activity activity = getActivity();
+            if (activity != null) {
+                Log.d(tag, "All preferences added, reporting fully drawn");
+                activity.reportFullyDrawn();
+                StartupTracer.markFullyDrawn();
+            }
+        } finally {
+            span.end();
         }
 
         updatePreferenceVisibility(mPreferenceControllers);
@@ -450,20 +493,26 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (screen == null || mPreferenceControllers == null) {
             return;
         }
-        for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
-            for (AbstractPreferenceController controller : controllerList) {
-                final String key = controller.getPreferenceKey();
-                final Preference preference = findPreference(key);
-                if (preference == null) {
-                    continue;
-                }
-                final boolean available = controller.isAvailable();
-                if (available) {
-                    controller.updateState(preference);
-                }
-                preference.setVisible(available);
+        final List<AbstractPreferenceController> controllers = getAllPreferenceControllers();
+        startUpdatePass(controllers);
+        for (AbstractPreferenceController controller : controllers) {
+            final String key = controller.getPreferenceKey();
+            final Preference preference = mPreferenceIndex.find(screen, key);
+            if (preference == null) {
+                continue;
+            }
+            if (mPendingAvailability.contains(controller)) {
+                mDeferredStateUpdates.add(controller);
+                mDeferredVisibility.add(controller);
+                continue;
             }
+            final boolean available = isControllerAvailable(controller);
+            if (available) {
+                updateControllerState(controller, preference);
+            }
+            preference.setVisible(available);
         }
+        logSlowControllers();
     }
 
     @VisibleForTesting
@@ -479,17 +528,157 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 preferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
                 final String key = controller.getPreferenceKey();
-                final Preference preference = findPreference(key);
+                final Preference preference = mPreferenceIndex.find(screen, key);
                 if (preference == null) {
                     continue;
                 }
-                if (controller instanceof BasePreferenceController.UiBlocker) {
-                    final boolean prefVisible =
-                            ((BasePreferenceController) controller).getSavedPrefVisibility();
-                    preference.setVisible(visible && controller.isAvailable() && prefVisible);
-                } else {
-                    preference.setVisible(visible && controller.isAvailable());
+                if (mPendingAvailability.contains(controller)) {
+                    mDeferredVisibility.add(controller);
+                    continue;
+                }
+                final boolean available = isControllerAvailable(controller);
+                preference.setVisible(visible && isPreferenceVisible(controller, available));
+            }
+        }
+    }
+
+    private static boolean isPreferenceVisible(AbstractPreferenceController controller,
+            boolean available) {
+        if (controller instanceof BasePreferenceController.UiBlocker) {
+            return available && ((BasePreferenceController) controller).getSavedPrefVisibility();
+        }
+        return available;
+    }
+
+    /**
+     * Returns whether {@code controller} is available. It is queried on every call, unless its
+     * availability is being computed in the background.
+     */
+    @VisibleForTesting
+    boolean isControllerAvailable(AbstractPreferenceController controller) {
+        if (mPendingAvailability.contains(controller)) {
+            // Never query a controller while its availability is computed in the background.
+            return mLastAvailability.getOrDefault(controller, false);
+        }
+        final long startTime = SystemClock.elapsedRealtimeNanos();
+        final boolean available = controller.isAvailable();
+        addControllerCost(controller, SystemClock.elapsedRealtimeNanos() - startTime);
+        return available;
+    }
+
+    /**
+     * Returns the time spent by {@code controller} in the last update pass, in nanoseconds.
+     */
+    @VisibleForTesting
+    long getControllerCostNanos(AbstractPreferenceController controller) {
+        return mControllerCostNanos.getOrDefault(controller, 0L);
+    }
+
+    private List<AbstractPreferenceController> getAllPreferenceControllers() {
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
+            controllers.addAll(controllerList);
+        }
+        return controllers;
+    }
+
+    /**
+     * Computes the availability in the background for the
+     * {@link BasePreferenceController.ThreadSafeAvailability} controllers. The main thread never
+     * waits for it: the result is applied by {@link #onAvailabilityComputed}.
+     */
+    private void startUpdatePass(List<AbstractPreferenceController> controllers) {
+        mControllerCostNanos.clear();
+        if (!ThreadUtils.isMainThread()) {
+            return;
+        }
+        for (AbstractPreferenceController controller : controllers) {
+            if (!(controller instanceof BasePreferenceController.ThreadSafeAvailability)) {
+                continue;
+            }
+            if (mPendingAvailability.contains(controller)) {
+                mStaleAvailability.add(controller);
+                continue;
+            }
+            queryAvailabilityInBackground(controller);
+        }
+    }
+
+    private void queryAvailabilityInBackground(AbstractPreferenceController controller) {
+        mPendingAvailability.add(controller);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            Boolean available = null;
+            try {
+                available = controller.isAvailable();
+            } catch (RuntimeException e) {
+                // Queried again on the main thread, where the failure is not swallowed.
+                Log.w(TAG, "Failed to compute availability of "
+                        + controller.getClass().getSimpleName(), e);
+            }
+            final Boolean result = available;
+            ThreadUtils.postOnMainThread(() -> onAvailabilityComputed(controller, result));
+        });
+    }
+
+    /**
+     * Applies the availability of {@code controller} computed in the background, or queries it
+     * on the main thread if the background query failed.
+     */
+    private void onAvailabilityComputed(AbstractPreferenceController controller,
+            @Nullable Boolean result) {
+        mPendingAvailability.remove(controller);
+        // A stale result is still applied, and applied again once queried again.
+        final boolean stale = mStaleAvailability.remove(controller);
+        final boolean updateState = mDeferredStateUpdates.contains(controller);
+        final boolean updateVisibility = mDeferredVisibility.contains(controller);
+        if (!stale) {
+            mDeferredStateUpdates.remove(controller);
+            mDeferredVisibility.remove(controller);
+        }
+        final boolean available =
+                result != null ? result : isControllerAvailable(controller);
+        mLastAvailability.put(controller, available);
+
+        final PreferenceScreen screen = getPreferenceScreen();
+        if (screen != null) {
+            final Preference preference =
+                    mPreferenceIndex.find(screen, controller.getPreferenceKey());
+            if (preference != null) {
+                if (updateState && available) {
+                    updateControllerState(controller, preference);
                 }
+                if (updateVisibility) {
+                    final boolean blockerFinished = mBlockerController == null
+                            || mBlockerController.isBlockerFinished();
+                    preference.setVisible(
+                            blockerFinished && isPreferenceVisible(controller, available));
+                }
+            }
+        }
+
+        if (stale) {
+            queryAvailabilityInBackground(controller);
+        }
+    }
+
+    private void updateControllerState(AbstractPreferenceController controller,
+            Preference preference) {
+        final long startTime = SystemClock.elapsedRealtimeNanos();
+        controller.updateState(preference);
+        addControllerCost(controller, SystemClock.elapsedRealtimeNanos() - startTime);
+    }
+
+    private void addControllerCost(AbstractPreferenceController controller, long costNanos) {
+        mControllerCostNanos.put(controller, getControllerCostNanos(controller) + costNanos);
+    }
+
+    private void logSlowControllers() {
+        for (Map.Entry<AbstractPreferenceController, Long> entry :
+                mControllerCostNanos.entrySet()) {
+            final long costMillis = TimeUnit.NANOSECONDS.toMillis(entry.getValue());
+            if (costMillis >= SLOW_CONTROLLER_THRESHOLD_MILLIS) {
+                Log.d(TAG, String.format("Controller %s took %d ms to update",
+                        entry.getKey().getClass().getSimpleName(), costMillis));
             }
         }
     }
@@ -521,6 +710,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         // Move group tiles to the beginning of the list to ensure they are created before the
         // other tiles.
         tiles.sort(Comparator.comparingInt(tile -> tile.getType() == Tile.Type.GROUP ? 0 : 1));
+        int tilesBound = 0;
         for (Tile tile : tiles) {
             final String key = mDashboardFeatureProvider.getDashboardKeyForTile(tile);
             if (TextUtils.isEmpty(key)) {
@@ -533,7 +723,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             final List<DynamicDataObserver> observers;
             if (mDashboardTilePrefKeys.containsKey(key)) {
                 // Have the key already, will rebind.
-                final Preference preference = screen.findPreference(key);
+                final Preference preference = mPreferenceIndex.find(screen, key);
                 observers = mDashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
                         getActivity(), this, forceRoundedIcons, preference, tile, key,
                         mPlaceholderPreferenceController.getOrder());
@@ -544,12 +734,14 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                         getActivity(), this, forceRoundedIcons, pref, tile, key,
                         mPlaceholderPreferenceController.getOrder());
                 if (tile.hasGroupKey() && mDashboardTilePrefKeys.containsKey(tile.getGroupKey())) {
-                    final Preference group = screen.findPreference(tile.getGroupKey());
+                    final Preference group = mPreferenceIndex.find(screen, tile.getGroupKey());
                     if (group instanceof PreferenceCategory) {
                         ((PreferenceCategory) group).addPreference(pref);
+                        mPreferenceIndex.add(pref);
                     }
                 } else {
                     screen.addPreference(pref);
+                    mPreferenceIndex.add(pref);
                 }
                 registerDynamicDataObservers(observers);
                 mDashboardTilePrefKeys.put(key, observers);
@@ -558,15 +750,18 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 pendingObservers.addAll(observers);
             }
             remove.remove(key);
+            tilesBound++;
         }
+        StartupTracer.incrementCounter(StartupTracer.COUNTER_TILES_BOUND, tilesBound);
 
         // Remove tiles that are gone.
         for (Map.Entry<String, List<DynamicDataObserver>> entry : remove.entrySet()) {
             final String key = entry.getKey();
             mDashboardTilePrefKeys.remove(key);
-            final Preference preference = screen.findPreference(key);
+            final Preference preference = mPreferenceIndex.find(screen, key);
             if (preference != null) {
                 screen.removePreference(preference);
+                mPreferenceIndex.remove(preference);
             }
             unregisterDynamicDataObservers(entry.getValue());
         }
@@ -576,11 +771,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             final CountDownLatch mainLatch = new CountDownLatch(1);
             new Thread(() -> {
                 pendingObservers.forEach(observer ->
-                        awaitObserverLatch(observer.getCountDownLatch()));
+                        awaitLatch(observer.getCountDownLatch(), TIMEOUT_MILLIS));
                 mainLatch.countDown();
             }).start();
             Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
+            awaitLatch(mainLatch, TIMEOUT_MILLIS);
             Log.d(tag, "Stop waiting observers");
             pendingObservers.forEach(DynamicDataObserver::updateUi);
         }
@@ -647,9 +842,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         });
     }
 
-    private void awaitObserverLatch(CountDownLatch latch) {
+    private void awaitLatch(CountDownLatch latch, long timeoutMillis) {
         try {
-            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             // Do nothing
         }
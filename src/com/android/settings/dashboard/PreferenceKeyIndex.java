@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceGroup;
+
+/**
+ * Index of the preferences of a {@link PreferenceGroup} by key, so that looking up the preference
+ * of every controller does not walk the whole preference tree each time.
+ *
+ * <p>The index is kept up to date by {@link DashboardFragment} when it adds or removes
+ * preferences. Preferences added by other code are found by walking the tree on a miss, and
+ * indexed preferences which have been removed or re-keyed since are detected and looked up again.
+ */
+class PreferenceKeyIndex {
+    private static final String TAG = "PreferenceKeyIndex";
+    private static final boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
+
+    private final ArrayMap<String, Preference> mPreferences = new ArrayMap<>();
+    private PreferenceGroup mRoot;
+
+    /**
+     * Returns the preference with {@code key} under {@code root}, or {@code null} if there is
+     * none. The index is rebuilt if {@code root} is not the indexed group.
+     */
+    @Nullable
+    Preference find(@Nullable PreferenceGroup root, @Nullable String key) {
+        if (root == null || TextUtils.isEmpty(key)) {
+            return null;
+        }
+        if (root != mRoot) {
+            rebuild(root);
+        }
+        Preference preference = mPreferences.get(key);
+        if (preference == null || !isIndexed(preference, key)) {
+            preference = root.findPreference(key);
+            if (preference != null) {
+                mPreferences.put(key, preference);
+            } else {
+                mPreferences.remove(key);
+            }
+        } else if (DEBUG) {
+            checkConsistency(root, key, preference);
+        }
+        return preference;
+    }
+
+    /** Indexes all the preferences under {@code root}, replacing the previous index. */
+    void rebuild(@Nullable PreferenceGroup root) {
+        mPreferences.clear();
+        mRoot = root;
+        if (root != null) {
+            addChildren(root);
+        }
+    }
+
+    /** Drops the whole index, for example after all preferences were removed. */
+    void clear() {
+        mPreferences.clear();
+    }
+
+    /**
+     * Indexes {@code preference} and, if it is a group, its descendants. Like
+     * {@link PreferenceGroup#findPreference}, the first indexed preference wins on duplicate keys.
+     */
+    void add(@Nullable Preference preference) {
+        if (preference == null) {
+            return;
+        }
+        final String key = preference.getKey();
+        if (!TextUtils.isEmpty(key)) {
+            mPreferences.putIfAbsent(key, preference);
+        }
+        if (preference instanceof PreferenceGroup) {
+            addChildren((PreferenceGroup) preference);
+        }
+    }
+
+    /** Removes {@code preference} and, if it is a group, its descendants from the index. */
+    void remove(@Nullable Preference preference) {
+        if (preference == null) {
+            return;
+        }
+        final String key = preference.getKey();
+        if (!TextUtils.isEmpty(key) && mPreferences.get(key) == preference) {
+            mPreferences.remove(key);
+        }
+        if (preference instanceof PreferenceGroup) {
+            final PreferenceGroup group = (PreferenceGroup) preference;
+            for (int i = 0; i < group.getPreferenceCount(); i++) {
+                remove(group.getPreference(i));
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return mPreferences.size();
+    }
+
+    private void addChildren(PreferenceGroup group) {
+        final int count = group.getPreferenceCount();
+        for (int i = 0; i < count; i++) {
+            add(group.getPreference(i));
+        }
+    }
+
+    /** Returns whether {@code preference} still has {@code key} and is still under the root. */
+    private boolean isIndexed(Preference preference, String key) {
+        if (!key.equals(preference.getKey())) {
+            return false;
+        }
+        for (PreferenceGroup parent = preference.getParent(); parent != null;
+                parent = parent.getParent()) {
+            if (parent == mRoot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkConsistency(PreferenceGroup root, String key,
+            Preference indexed) {
+        final Preference found = root.findPreference(key);
+        if (found != indexed) {
+            Log.e(TAG, "Index is stale for " + key + ", indexed " + indexed + " found " + found);
+        }
+    }
+}
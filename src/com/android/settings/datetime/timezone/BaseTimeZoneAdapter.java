@@ -16,7 +16,6 @@
 
 package com.android.settings.datetime.timezone;
 
-import android.icu.text.BreakIterator;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -57,6 +56,7 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
 
     private List<T> mItems;
     private ArrayFilter mFilter;
+    private volatile TimeZoneSearchIndex mSearchIndex;
 
     /**
      * @param headerText the text shown in the header, or null to show no header.
@@ -145,6 +145,30 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
         return mFilter;
     }
 
+    /**
+     * Builds the index used to filter the items, if it's not built yet. It's called in the
+     * background when the time zone data is loaded, so that the first search doesn't wait for it.
+     */
+    @WorkerThread
+    public void prepareSearchIndex() {
+        getSearchIndex();
+    }
+
+    @WorkerThread
+    private TimeZoneSearchIndex getSearchIndex() {
+        TimeZoneSearchIndex searchIndex = mSearchIndex;
+        if (searchIndex == null) {
+            synchronized (this) {
+                searchIndex = mSearchIndex;
+                if (searchIndex == null) {
+                    searchIndex = TimeZoneSearchIndex.build(mOriginalItems, mLocale);
+                    mSearchIndex = searchIndex;
+                }
+            }
+        }
+        return searchIndex;
+    }
+
     /**
      * @throws IndexOutOfBoundsException if the view type at the position is a header
      */
@@ -225,15 +249,12 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
      * a prefix. Each item that does not start with the supplied prefix
      * is removed from the list.</p>
      *
-     * The filtering operation is not optimized, due to small data size (~260 regions),
-     * require additional pre-processing. Potentially, a trie structure can be used to match
-     * prefixes of the search keys.
+     * The prefixes of the search keys are matched with a {@link TimeZoneSearchIndex}, so that
+     * filtering costs the number of matches rather than the number of items.
      */
     @VisibleForTesting
     public class ArrayFilter extends Filter {
 
-        private BreakIterator mBreakIterator = BreakIterator.getWordInstance(mLocale);
-
         @WorkerThread
         @Override
         protected FilterResults performFiltering(CharSequence prefix) {
@@ -241,31 +262,10 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
             if (TextUtils.isEmpty(prefix)) {
                 newItems = mOriginalItems;
             } else {
-                final String prefixString = prefix.toString().toLowerCase(mLocale);
-                newItems = new ArrayList<>();
-
-                for (T item : mOriginalItems) {
-                    outer:
-                    for (String searchKey : item.getSearchKeys()) {
-                        searchKey = searchKey.toLowerCase(mLocale);
-                        // First match against the whole, non-splitted value
-                        if (searchKey.startsWith(prefixString)) {
-                            newItems.add(item);
-                            break outer;
-                        } else {
-                            mBreakIterator.setText(searchKey);
-                            for (int wordStart = 0, wordLimit = mBreakIterator.next();
-                                    wordLimit != BreakIterator.DONE;
-                                    wordStart = wordLimit,
-                                            wordLimit = mBreakIterator.next()) {
-                                if (mBreakIterator.getRuleStatus() != BreakIterator.WORD_NONE
-                                        && searchKey.startsWith(prefixString, wordStart)) {
-                                    newItems.add(item);
-                                    break outer;
-                                }
-                            }
-                        }
-                    }
+                final int[] positions = getSearchIndex().search(prefix);
+                newItems = new ArrayList<>(positions.length);
+                for (int position : positions) {
+                    newItems.add(mOriginalItems.get(position));
                 }
             }
 
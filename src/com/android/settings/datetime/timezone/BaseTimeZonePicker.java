@@ -38,6 +38,7 @@ import com.android.settings.R;
 import com.android.settings.core.InstrumentedFragment;
 import com.android.settings.datetime.timezone.model.TimeZoneData;
 import com.android.settings.datetime.timezone.model.TimeZoneDataLoader;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.material.appbar.AppBarLayout;
 
@@ -114,6 +115,10 @@ public abstract class BaseTimeZonePicker extends InstrumentedFragment
             if (mRecyclerView != null) {
                 mRecyclerView.setAdapter(mAdapter);
             }
+            if (mSearchEnabled && mAdapter != null) {
+                // Builds the search index before the first query.
+                ThreadUtils.postOnBackgroundThread(mAdapter::prepareSearchIndex);
+            }
         }
     }
 
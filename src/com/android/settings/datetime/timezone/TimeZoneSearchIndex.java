@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datetime.timezone;
+
+import android.icu.text.BreakIterator;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A prefix index of the search keys of {@link BaseTimeZoneAdapter.AdapterItem}s.
+ *
+ * <p>Each search key is lower cased in the locale and split at word starts. The text from every
+ * word start to the end of the key is stored as a token, sorted, so that the tokens starting with
+ * a prefix are found with a binary search. Searching costs the number of matching tokens rather
+ * than the number of items.
+ */
+final class TimeZoneSearchIndex {
+
+    private final Locale mLocale;
+    private final int mItemCount;
+    private final String[] mTokens;
+    private final int[] mPositions;
+
+    private TimeZoneSearchIndex(Locale locale, int itemCount, String[] tokens, int[] positions) {
+        mLocale = locale;
+        mItemCount = itemCount;
+        mTokens = tokens;
+        mPositions = positions;
+    }
+
+    /** Builds the index of the search keys of {@code items}. */
+    @WorkerThread
+    @NonNull
+    static TimeZoneSearchIndex build(
+            @NonNull List<? extends BaseTimeZoneAdapter.AdapterItem> items,
+            @NonNull Locale locale) {
+        final BreakIterator breakIterator = BreakIterator.getWordInstance(locale);
+        final List<Token> tokens = new ArrayList<>();
+        for (int position = 0; position < items.size(); position++) {
+            final String[] searchKeys = items.get(position).getSearchKeys();
+            if (searchKeys == null) {
+                continue;
+            }
+            for (String searchKey : searchKeys) {
+                if (searchKey == null) {
+                    continue;
+                }
+                searchKey = searchKey.toLowerCase(locale);
+                // The whole value is matched first, whether or not it starts with a word.
+                tokens.add(new Token(searchKey, position));
+                breakIterator.setText(searchKey);
+                for (int wordStart = 0, wordLimit = breakIterator.next();
+                        wordLimit != BreakIterator.DONE;
+                        wordStart = wordLimit, wordLimit = breakIterator.next()) {
+                    if (wordStart > 0
+                            && breakIterator.getRuleStatus() != BreakIterator.WORD_NONE) {
+                        tokens.add(new Token(searchKey.substring(wordStart), position));
+                    }
+                }
+            }
+        }
+        Collections.sort(tokens);
+
+        final String[] sortedTokens = new String[tokens.size()];
+        final int[] positions = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            sortedTokens[i] = tokens.get(i).mText;
+            positions[i] = tokens.get(i).mPosition;
+        }
+        return new TimeZoneSearchIndex(locale, items.size(), sortedTokens, positions);
+    }
+
+    /**
+     * Returns the positions of the items having a search key, or a word of a search key, which
+     * starts with {@code prefix}, in ascending order.
+     */
+    @NonNull
+    int[] search(@NonNull CharSequence prefix) {
+        final String prefixString = prefix.toString().toLowerCase(mLocale);
+        final BitSet matches = new BitSet(mItemCount);
+        for (int i = lowerBound(prefixString);
+                i < mTokens.length && mTokens[i].startsWith(prefixString); i++) {
+            matches.set(mPositions[i]);
+        }
+        final int[] result = new int[matches.cardinality()];
+        for (int i = 0, position = matches.nextSetBit(0); position >= 0;
+                i++, position = matches.nextSetBit(position + 1)) {
+            result[i] = position;
+        }
+        return result;
+    }
+
+    /** Returns the index of the first token not less than {@code prefix}. */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = mTokens.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (mTokens[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class Token implements Comparable<Token> {
+        final String mText;
+        final int mPosition;
+
+        Token(String text, int position) {
+            mText = text;
+            mPosition = position;
+        }
+
+        @Override
+        public int compareTo(Token other) {
+            return mText.compareTo(other.mText);
+        }
+    }
+}
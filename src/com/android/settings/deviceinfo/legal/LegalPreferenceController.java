@@ -27,7 +27,13 @@ import com.android.settings.core.BasePreferenceController;
 
 import java.util.List;
 
-public abstract class LegalPreferenceController extends BasePreferenceController {
+/**
+ * Shows a legal document if a system activity handles its intent. The availability only queries
+ * the {@link PackageManager} with the fixed intent of the subclass, so it is computed off the UI
+ * thread.
+ */
+public abstract class LegalPreferenceController extends BasePreferenceController implements
+        BasePreferenceController.ThreadSafeAvailability {
     private final PackageManager mPackageManager;
     private Preference mPreference;
 
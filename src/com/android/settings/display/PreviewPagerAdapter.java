@@ -19,23 +19,30 @@ import android.animation.Animator;
 import android.animation.Animator.AnimatorListener;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.util.Log;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewStub;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.viewpager.widget.PagerAdapter;
 
+import com.android.settingslib.utils.ThreadUtils;
+
 /**
  * A PagerAdapter used by PreviewSeekBarPreferenceFragment that for showing multiple preview screen
  * regarding a single setting and allowing the user to swipe across them.
  */
 public class PreviewPagerAdapter extends PagerAdapter {
 
+    private static final String TAG = "PreviewPagerAdapter";
+
     /** Duration to use when cross-fading between previews. */
     private static final long CROSS_FADE_DURATION_MS = 400;
 
@@ -45,6 +52,18 @@ public class PreviewPagerAdapter extends PagerAdapter {
     /** Interpolator to use when cross-fading between previews. */
     private static final Interpolator FADE_OUT_INTERPOLATOR = new AccelerateInterpolator();
 
+    /** How many configurations on each side of the current one are kept materialized. */
+    private static final int NEIGHBOR_LAYER_COUNT = 1;
+
+    private final Context mContext;
+
+    private final int[] mPreviewSampleResIds;
+
+    private final Configuration[] mConfigurations;
+
+    /** The configuration contexts, created on demand and shared by all preview samples. */
+    private final Context[] mConfigurationContexts;
+
     private FrameLayout[] mPreviewFrames;
 
     private boolean mIsLayoutRtl;
@@ -53,38 +72,32 @@ public class PreviewPagerAdapter extends PagerAdapter {
 
     private int mAnimationCounter;
 
-    private boolean[][] mViewStubInflated;
+    /** The inflated layers of each frame, or null for the layers not materialized. */
+    private final View[][] mLayers;
+
+    /** Whether a layer of a frame is being inflated in the background. */
+    private final boolean[][] mLayerPrefetching;
+
+    private int mActiveLayerIndex = -1;
 
     public PreviewPagerAdapter(Context context, boolean isLayoutRtl,
             int[] previewSampleResIds, Configuration[] configurations) {
+        mContext = context;
         mIsLayoutRtl = isLayoutRtl;
+        mPreviewSampleResIds = previewSampleResIds;
+        mConfigurations = configurations;
+        mConfigurationContexts = new Context[configurations.length];
         mPreviewFrames = new FrameLayout[previewSampleResIds.length];
-        mViewStubInflated = new boolean[previewSampleResIds.length][configurations.length];
+        mLayers = new View[previewSampleResIds.length][configurations.length];
+        mLayerPrefetching = new boolean[previewSampleResIds.length][configurations.length];
 
-        for (int i = 0; i < previewSampleResIds.length; ++i) {
-            int p = mIsLayoutRtl ? previewSampleResIds.length - 1 - i : i;
+        for (int p = 0; p < previewSampleResIds.length; ++p) {
             mPreviewFrames[p] = new FrameLayout(context);
             mPreviewFrames[p].setLayoutParams(new LinearLayout.LayoutParams(
                     LinearLayout.LayoutParams.MATCH_PARENT,
                     LinearLayout.LayoutParams.MATCH_PARENT));
             mPreviewFrames[p].setClipToPadding(true);
             mPreviewFrames[p].setClipChildren(true);
-            for (int j = 0; j < configurations.length; ++j) {
-                // Create a new configuration for the specified value. It won't
-                // have any theme set, so manually apply the current theme.
-                final Context configContext = context.createConfigurationContext(configurations[j]);
-                configContext.getTheme().setTo(context.getTheme());
-
-                final ViewStub sampleViewStub = new ViewStub(configContext);
-                sampleViewStub.setLayoutResource(previewSampleResIds[i]);
-                final int fi = i, fj = j;
-                sampleViewStub.setOnInflateListener((stub, inflated) -> {
-                    inflated.setVisibility(stub.getVisibility());
-                    mViewStubInflated[fi][fj] = true;
-                });
-
-                mPreviewFrames[p].addView(sampleViewStub);
-            }
         }
     }
 
@@ -127,32 +140,130 @@ public class PreviewPagerAdapter extends PagerAdapter {
      */
     public void setPreviewLayer(int newLayerIndex, int currentLayerIndex, int currentFrameIndex,
             final boolean animate) {
-        for (FrameLayout previewFrame : mPreviewFrames) {
+        mActiveLayerIndex = newLayerIndex;
+        for (int p = 0; p < mPreviewFrames.length; ++p) {
+            final boolean isCurrentFrame = p == currentFrameIndex;
             if (currentLayerIndex >= 0) {
-                final View lastLayer = previewFrame.getChildAt(currentLayerIndex);
-                if (mViewStubInflated[currentFrameIndex][currentLayerIndex]) {
-                    // Explicitly set to INVISIBLE only when the stub has
-                    // already been inflated.
-                    if (previewFrame == mPreviewFrames[currentFrameIndex]) {
-                        setVisibility(lastLayer, View.INVISIBLE, animate);
-                    } else {
-                        setVisibility(lastLayer, View.INVISIBLE, false);
-                    }
+                final View lastLayer = mLayers[p][currentLayerIndex];
+                // Explicitly set to INVISIBLE only when the layer has already been inflated.
+                if (lastLayer != null) {
+                    setVisibility(lastLayer, View.INVISIBLE, isCurrentFrame && animate);
                 }
             }
 
-            // Set next layer visible, as well as inflate necessary views.
-            View nextLayer = previewFrame.getChildAt(newLayerIndex);
-            if (previewFrame == mPreviewFrames[currentFrameIndex]) {
-                // Inflate immediately if the stub has not yet been inflated.
-                if (!mViewStubInflated[currentFrameIndex][newLayerIndex]) {
-                    nextLayer = ((ViewStub) nextLayer).inflate();
-                    nextLayer.setAlpha(0.0f);
-                }
-                setVisibility(nextLayer, View.VISIBLE, animate);
+            // Set next layer visible. Only the current frame is inflated immediately, the
+            // other frames are inflated in the background and shown once they are ready.
+            final View nextLayer = isCurrentFrame
+                    ? getOrInflateLayer(p, newLayerIndex)
+                    : mLayers[p][newLayerIndex];
+            if (nextLayer != null) {
+                setVisibility(nextLayer, View.VISIBLE, isCurrentFrame && animate);
             } else {
-                setVisibility(nextLayer, View.VISIBLE, false);
+                prefetchLayer(p, newLayerIndex);
+            }
+
+            releaseLayers(p, newLayerIndex, currentLayerIndex);
+            if (isCurrentFrame) {
+                for (int offset = 1; offset <= NEIGHBOR_LAYER_COUNT; ++offset) {
+                    prefetchLayer(p, newLayerIndex - offset);
+                    prefetchLayer(p, newLayerIndex + offset);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    View getLayer(int frameIndex, int layerIndex) {
+        return mLayers[frameIndex][layerIndex];
+    }
+
+    private View getOrInflateLayer(int frameIndex, int layerIndex) {
+        View layer = mLayers[frameIndex][layerIndex];
+        if (layer == null) {
+            layer = inflateLayer(frameIndex, layerIndex);
+            addLayer(frameIndex, layerIndex, layer);
+        }
+        return layer;
+    }
+
+    /** Inflates a layer in the background, if it's not inflated yet. */
+    private void prefetchLayer(int frameIndex, int layerIndex) {
+        if (layerIndex < 0 || layerIndex >= mConfigurations.length
+                || mLayers[frameIndex][layerIndex] != null
+                || mLayerPrefetching[frameIndex][layerIndex]) {
+            return;
+        }
+        mLayerPrefetching[frameIndex][layerIndex] = true;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            View layer;
+            try {
+                layer = inflateLayer(frameIndex, layerIndex);
+            } catch (RuntimeException e) {
+                // Some views can only be inflated on the UI thread, inflate it when needed.
+                Log.w(TAG, "Failed to inflate preview in the background", e);
+                layer = null;
+            }
+            final View inflatedLayer = layer;
+            ThreadUtils.postOnMainThread(
+                    () -> onLayerPrefetched(frameIndex, layerIndex, inflatedLayer));
+        });
+    }
+
+    private void onLayerPrefetched(int frameIndex, int layerIndex, @Nullable View layer) {
+        mLayerPrefetching[frameIndex][layerIndex] = false;
+        if (layer == null || mLayers[frameIndex][layerIndex] != null
+                || Math.abs(layerIndex - mActiveLayerIndex) > NEIGHBOR_LAYER_COUNT) {
+            return;
+        }
+        addLayer(frameIndex, layerIndex, layer);
+        if (layerIndex == mActiveLayerIndex) {
+            setVisibility(layer, View.VISIBLE, /* animate= */ false);
+        }
+    }
+
+    private View inflateLayer(int frameIndex, int layerIndex) {
+        final int sampleIndex =
+                mIsLayoutRtl ? mPreviewSampleResIds.length - 1 - frameIndex : frameIndex;
+        return LayoutInflater.from(getConfigurationContext(layerIndex)).inflate(
+                mPreviewSampleResIds[sampleIndex], mPreviewFrames[frameIndex],
+                /* attachToRoot= */ false);
+    }
+
+    private void addLayer(int frameIndex, int layerIndex, View layer) {
+        layer.setAlpha(0.0f);
+        layer.setVisibility(View.INVISIBLE);
+        mLayers[frameIndex][layerIndex] = layer;
+        mPreviewFrames[frameIndex].addView(layer);
+    }
+
+    /**
+     * Drops the layers of a frame which are neither the new layer, its neighbors, nor the layer
+     * being hidden.
+     */
+    private void releaseLayers(int frameIndex, int newLayerIndex, int currentLayerIndex) {
+        for (int j = 0; j < mConfigurations.length; ++j) {
+            final View layer = mLayers[frameIndex][j];
+            if (layer != null && j != currentLayerIndex
+                    && Math.abs(j - newLayerIndex) > NEIGHBOR_LAYER_COUNT) {
+                layer.animate().cancel();
+                mPreviewFrames[frameIndex].removeView(layer);
+                mLayers[frameIndex][j] = null;
+            }
+        }
+    }
+
+    private Context getConfigurationContext(int layerIndex) {
+        synchronized (mConfigurationContexts) {
+            if (mConfigurationContexts[layerIndex] == null) {
+                // Create a new configuration for the specified value. It won't
+                // have any theme set, so manually apply the current theme.
+                final Context configContext =
+                        mContext.createConfigurationContext(mConfigurations[layerIndex]);
+                configContext.getTheme().setTo(mContext.getTheme());
+                mConfigurationContexts[layerIndex] = configContext;
             }
+            return mConfigurationContexts[layerIndex];
         }
     }
 
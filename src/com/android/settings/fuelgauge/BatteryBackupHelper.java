@@ -179,11 +179,13 @@ public final class BatteryBackupHelper implements BackupHelper {
         }
         int backupCount = 0;
         final StringBuilder builder = new StringBuilder();
-        final AppOpsManager appOps = mContext.getSystemService(AppOpsManager.class);
+        final BatteryOptimizeModeBatch modes =
+                BatteryOptimizeModeBatch.load(mContext.getSystemService(AppOpsManager.class));
+        final List<BatteryOptimizeHistoricalLogEntry> logEntries = new ArrayList<>();
         final SharedPreferences sharedPreferences = getSharedPreferences(mContext);
         // Converts application into the AppUsageState.
         for (ApplicationInfo info : applications) {
-            final int mode = BatteryOptimizeUtils.getMode(appOps, info.uid, info.packageName);
+            final int mode = modes.getMode(info.uid, info.packageName);
             @BatteryOptimizeUtils.OptimizationMode
             final int optimizationMode =
                     BatteryOptimizeUtils.getAppOptimizationMode(
@@ -197,13 +199,14 @@ public final class BatteryBackupHelper implements BackupHelper {
             final String packageOptimizeMode = info.packageName + DELIMITER_MODE + optimizationMode;
             builder.append(packageOptimizeMode + DELIMITER);
             Log.d(TAG, "backupOptimizationMode: " + packageOptimizeMode);
-            BatteryOptimizeLogUtils.writeLog(
-                    sharedPreferences,
-                    Action.BACKUP,
-                    info.packageName,
-                    /* actionDescription */ "mode: " + optimizationMode);
+            logEntries.add(
+                    BatteryOptimizeLogUtils.newLogEntry(
+                            Action.BACKUP,
+                            info.packageName,
+                            /* actionDescription */ "mode: " + optimizationMode));
             backupCount++;
         }
+        BatteryOptimizeLogUtils.writeLogs(sharedPreferences, logEntries);
 
         writeBackupData(data, KEY_OPTIMIZATION_LIST, builder.toString());
         Log.d(
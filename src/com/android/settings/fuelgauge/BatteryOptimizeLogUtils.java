@@ -26,6 +26,7 @@ import com.android.settings.fuelgauge.BatteryOptimizeHistoricalLogEntry.Action;
 import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 /** Writes and reads a historical log of battery related state change events. */
@@ -49,14 +50,18 @@ public final class BatteryOptimizeLogUtils {
             Action action,
             String packageName,
             String actionDescription) {
-        writeLog(
-                sharedPreferences,
-                BatteryOptimizeHistoricalLogEntry.newBuilder()
-                        .setPackageName(packageName)
-                        .setAction(action)
-                        .setActionDescription(actionDescription)
-                        .setTimestamp(System.currentTimeMillis())
-                        .build());
+        writeLog(sharedPreferences, newLogEntry(action, packageName, actionDescription));
+    }
+
+    /** Creates a log entry for battery optimization mode to be written by {@link #writeLogs}. */
+    static BatteryOptimizeHistoricalLogEntry newLogEntry(
+            Action action, String packageName, String actionDescription) {
+        return BatteryOptimizeHistoricalLogEntry.newBuilder()
+                .setPackageName(packageName)
+                .setAction(action)
+                .setActionDescription(actionDescription)
+                .setTimestamp(System.currentTimeMillis())
+                .build();
     }
 
     private static void writeLog(
@@ -75,6 +80,32 @@ public final class BatteryOptimizeLogUtils {
         sharedPreferences.edit().putString(LOGS_KEY, loggingContent).apply();
     }
 
+    /** Writes log entries for battery optimization mode with one preferences update. */
+    static void writeLogs(
+            SharedPreferences sharedPreferences, List<BatteryOptimizeHistoricalLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        BatteryOptimizeHistoricalLog existingLog =
+                parseLogFromString(sharedPreferences.getString(LOGS_KEY, ""));
+        BatteryOptimizeHistoricalLog.Builder newLogBuilder = existingLog.toBuilder();
+        newLogBuilder.addAllLogEntry(entries);
+        // Prune old entries to limit the max logging data count.
+        final int overflow = newLogBuilder.getLogEntryCount() - MAX_ENTRIES;
+        if (overflow > 0) {
+            final List<BatteryOptimizeHistoricalLogEntry> keptEntries =
+                    new ArrayList<>(
+                            newLogBuilder
+                                    .getLogEntryList()
+                                    .subList(overflow, newLogBuilder.getLogEntryCount()));
+            newLogBuilder.clearLogEntry().addAllLogEntry(keptEntries);
+        }
+
+        String loggingContent =
+                Base64.encodeToString(newLogBuilder.build().toByteArray(), Base64.DEFAULT);
+        sharedPreferences.edit().putString(LOGS_KEY, loggingContent).apply();
+    }
+
     private static BatteryOptimizeHistoricalLog parseLogFromString(String storedLogs) {
         return BatteryUtils.parseProtoFromString(
                 storedLogs, BatteryOptimizeHistoricalLog.getDefaultInstance());
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.settings.fuelgauge.BatteryOptimizeHistoricalLogEntry.Action;
+import com.android.settingslib.fuelgauge.PowerAllowlistBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and updates the {@link BatteryOptimizeUtils.OptimizationMode} of many apps at once.
+ *
+ * <p>The {@link AppOpsManager#OP_RUN_ANY_IN_BACKGROUND} modes of all packages are read with a
+ * single {@link AppOpsManager#getPackagesForOps} call instead of one call per package. Queued
+ * mode changes are applied in one pass, and if one of them fails, the ones already applied are
+ * rolled back so that the apps are not left half reset.
+ */
+final class BatteryOptimizeModeBatch {
+    private static final String TAG = "BatteryOptimizeModeBatch";
+
+    /** Callback of the progress of {@link #apply}. */
+    interface ProgressListener {
+        /** Called after {@code applied} of the {@code total} queued changes are applied. */
+        void onProgress(int applied, int total);
+    }
+
+    private final SparseArray<ArrayMap<String, Integer>> mModes = new SparseArray<>();
+    private final int mDefaultMode;
+    private final List<Update> mUpdates = new ArrayList<>();
+
+    private BatteryOptimizeModeBatch(int defaultMode) {
+        mDefaultMode = defaultMode;
+    }
+
+    /** Loads the {@link AppOpsManager#OP_RUN_ANY_IN_BACKGROUND} modes of all packages. */
+    @NonNull
+    static BatteryOptimizeModeBatch load(@NonNull AppOpsManager appOpsManager) {
+        final BatteryOptimizeModeBatch batch =
+                new BatteryOptimizeModeBatch(
+                        AppOpsManager.opToDefaultMode(AppOpsManager.OP_RUN_ANY_IN_BACKGROUND));
+        final List<AppOpsManager.PackageOps> packageOpsList =
+                appOpsManager.getPackagesForOps(
+                        new int[] {AppOpsManager.OP_RUN_ANY_IN_BACKGROUND});
+        if (packageOpsList == null) {
+            return batch;
+        }
+        for (AppOpsManager.PackageOps packageOps : packageOpsList) {
+            for (AppOpsManager.OpEntry entry : packageOps.getOps()) {
+                if (entry.getOp() == AppOpsManager.OP_RUN_ANY_IN_BACKGROUND) {
+                    batch.putMode(packageOps.getUid(), packageOps.getPackageName(),
+                            entry.getMode());
+                }
+            }
+        }
+        return batch;
+    }
+
+    /** Returns the {@link AppOpsManager#OP_RUN_ANY_IN_BACKGROUND} mode of a package. */
+    int getMode(int uid, @Nullable String packageName) {
+        final ArrayMap<String, Integer> modes = mModes.get(uid);
+        final Integer mode = modes != null ? modes.get(packageName) : null;
+        return mode != null ? mode : mDefaultMode;
+    }
+
+    /** Queues a change of the optimization mode of a package from {@code currentMode}. */
+    void add(
+            int uid,
+            @NonNull String packageName,
+            @BatteryOptimizeUtils.OptimizationMode int currentMode,
+            @BatteryOptimizeUtils.OptimizationMode int mode) {
+        if (mode == BatteryOptimizeUtils.MODE_UNKNOWN) {
+            Log.d(TAG, "ignore unknown app optimization mode for " + packageName);
+            return;
+        }
+        mUpdates.add(new Update(uid, packageName, currentMode, mode));
+    }
+
+    /**
+     * Applies the queued changes and logs them with {@code action}.
+     *
+     * @return whether all changes were applied. Otherwise the changes applied before the failing
+     *     one are reverted.
+     */
+    boolean apply(
+            @NonNull Context context,
+            @NonNull BatteryUtils batteryUtils,
+            @NonNull PowerAllowlistBackend powerAllowlistBackend,
+            @NonNull Action action,
+            @Nullable ProgressListener listener) {
+        final int total = mUpdates.size();
+        final List<BatteryOptimizeHistoricalLogEntry> logEntries = new ArrayList<>(total);
+        boolean success = true;
+        int applied = 0;
+        for (; applied < total; applied++) {
+            final Update update = mUpdates.get(applied);
+            try {
+                setMode(update, update.mMode, batteryUtils, powerAllowlistBackend);
+            } catch (Exception e) {
+                Log.e(TAG, "set OPTIMIZATION MODE failed for " + update.mPackageName, e);
+                logEntries.add(newLogEntry(update, action, /* appStandbyMode= */ -1));
+                success = false;
+                break;
+            }
+            logEntries.add(newLogEntry(update, action, getAppStandbyMode(update.mMode)));
+            if (listener != null) {
+                listener.onProgress(applied + 1, total);
+            }
+        }
+        if (!success) {
+            rollback(applied, batteryUtils, powerAllowlistBackend);
+        }
+        mUpdates.clear();
+        BatteryOptimizeLogUtils.writeLogs(
+                BatteryOptimizeLogUtils.getSharedPreferences(context), logEntries);
+        return success;
+    }
+
+    private void rollback(
+            int applied,
+            BatteryUtils batteryUtils,
+            PowerAllowlistBackend powerAllowlistBackend) {
+        Log.w(TAG, "roll back " + applied + " applied optimization modes");
+        for (int i = applied - 1; i >= 0; i--) {
+            final Update update = mUpdates.get(i);
+            if (update.mCurrentMode == BatteryOptimizeUtils.MODE_UNKNOWN) {
+                continue;
+            }
+            try {
+                setMode(update, update.mCurrentMode, batteryUtils, powerAllowlistBackend);
+            } catch (Exception e) {
+                Log.e(TAG, "roll back OPTIMIZATION MODE failed for " + update.mPackageName, e);
+            }
+        }
+    }
+
+    private void putMode(int uid, String packageName, int mode) {
+        ArrayMap<String, Integer> modes = mModes.get(uid);
+        if (modes == null) {
+            modes = new ArrayMap<>(1);
+            mModes.put(uid, modes);
+        }
+        modes.put(packageName, mode);
+    }
+
+    private static void setMode(
+            Update update,
+            @BatteryOptimizeUtils.OptimizationMode int mode,
+            BatteryUtils batteryUtils,
+            PowerAllowlistBackend powerAllowlistBackend) {
+        batteryUtils.setForceAppStandby(update.mUid, update.mPackageName, getAppStandbyMode(mode));
+        if (mode == BatteryOptimizeUtils.MODE_UNRESTRICTED) {
+            powerAllowlistBackend.addApp(update.mPackageName);
+        } else {
+            powerAllowlistBackend.removeApp(update.mPackageName);
+        }
+    }
+
+    // MODE_RESTRICTED = AppOpsManager.MODE_IGNORED + !allowListed
+    // MODE_UNRESTRICTED = AppOpsManager.MODE_ALLOWED + allowListed
+    // MODE_OPTIMIZED = AppOpsManager.MODE_ALLOWED + !allowListed
+    private static int getAppStandbyMode(@BatteryOptimizeUtils.OptimizationMode int mode) {
+        return mode == BatteryOptimizeUtils.MODE_RESTRICTED
+                ? AppOpsManager.MODE_IGNORED
+                : AppOpsManager.MODE_ALLOWED;
+    }
+
+    private static BatteryOptimizeHistoricalLogEntry newLogEntry(
+            Update update, Action action, int appStandbyMode) {
+        final boolean allowListed = update.mMode == BatteryOptimizeUtils.MODE_UNRESTRICTED;
+        return BatteryOptimizeLogUtils.newLogEntry(
+                action,
+                BatteryOptimizeLogUtils.getPackageNameWithUserId(
+                        update.mPackageName, UserHandle.myUserId()),
+                BatteryOptimizeUtils.createLogEvent(appStandbyMode, allowListed));
+    }
+
+    private static final class Update {
+        final int mUid;
+        final String mPackageName;
+        @BatteryOptimizeUtils.OptimizationMode final int mCurrentMode;
+        @BatteryOptimizeUtils.OptimizationMode final int mMode;
+
+        Update(int uid, String packageName, int currentMode, int mode) {
+            mUid = uid;
+            mPackageName = packageName;
+            mCurrentMode = currentMode;
+            mMode = mode;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import android.os.UserManager;
 import android.util.ArraySet;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
@@ -216,18 +217,35 @@ public class BatteryOptimizeUtils {
             AppOpsManager aom,
             PowerAllowlistBackend allowlistBackend,
             BatteryUtils batteryUtils) {
+        resetAppOptimizationMode(
+                context, ipm, aom, allowlistBackend, batteryUtils, /* listener= */ null);
+    }
+
+    /**
+     * Resets optimization mode for all applications as one batch, reporting the progress to
+     * {@code listener}.
+     *
+     * @return {@code false} if resetting one of the applications failed, in which case the
+     *     applications which were already reset are restored to their previous mode.
+     */
+    static boolean resetAppOptimizationMode(
+            Context context,
+            IPackageManager ipm,
+            AppOpsManager aom,
+            PowerAllowlistBackend allowlistBackend,
+            BatteryUtils batteryUtils,
+            @Nullable BatteryOptimizeModeBatch.ProgressListener listener) {
         final ArraySet<ApplicationInfo> applications = getInstalledApplications(context, ipm);
         if (applications == null || applications.isEmpty()) {
             Log.w(TAG, "no data found in the getInstalledApplications()");
-            return;
+            return true;
         }
 
+        final BatteryOptimizeModeBatch batch = BatteryOptimizeModeBatch.load(aom);
         allowlistBackend.refreshList();
         // Resets optimization mode for each application.
         for (ApplicationInfo info : applications) {
-            final int mode =
-                    aom.checkOpNoThrow(
-                            AppOpsManager.OP_RUN_ANY_IN_BACKGROUND, info.uid, info.packageName);
+            final int mode = batch.getMode(info.uid, info.packageName);
             @OptimizationMode
             final int optimizationMode =
                     getAppOptimizationMode(
@@ -241,15 +259,9 @@ public class BatteryOptimizeUtils {
             }
 
             // Resets to the default mode: MODE_OPTIMIZED.
-            setAppUsageStateInternal(
-                    context,
-                    MODE_OPTIMIZED,
-                    info.uid,
-                    info.packageName,
-                    batteryUtils,
-                    allowlistBackend,
-                    Action.RESET);
+            batch.add(info.uid, info.packageName, optimizationMode, MODE_OPTIMIZED);
         }
+        return batch.apply(context, batteryUtils, allowlistBackend, Action.RESET, listener);
     }
 
     String getPackageName() {
@@ -353,7 +365,7 @@ public class BatteryOptimizeUtils {
                 context, action, packageNameKey, createLogEvent(appStandbyMode, allowListed));
     }
 
-    private static String createLogEvent(int appStandbyMode, boolean allowListed) {
+    static String createLogEvent(int appStandbyMode, boolean allowListed) {
         return appStandbyMode < 0
                 ? "Apply optimize setting ERROR"
                 : String.format(
@@ -50,6 +50,7 @@ import com.android.settingslib.fuelgauge.PowerAllowlistBackend;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -312,11 +313,14 @@ public final class BatterySettingsStorage extends ObservableBackupRestoreStorage
             }
             int backupCount = 0;
             final StringBuilder builder = new StringBuilder();
-            final AppOpsManager appOps = mApplication.getSystemService(AppOpsManager.class);
+            final BatteryOptimizeModeBatch modes =
+                    BatteryOptimizeModeBatch.load(
+                            mApplication.getSystemService(AppOpsManager.class));
+            final List<BatteryOptimizeHistoricalLogEntry> logEntries = new ArrayList<>();
             final SharedPreferences sharedPreferences = getSharedPreferences(mApplication);
             // Converts application into the AppUsageState.
             for (ApplicationInfo info : applications) {
-                final int mode = BatteryOptimizeUtils.getMode(appOps, info.uid, info.packageName);
+                final int mode = modes.getMode(info.uid, info.packageName);
                 @BatteryOptimizeUtils.OptimizationMode
                 final int optimizationMode =
                         BatteryOptimizeUtils.getAppOptimizationMode(
@@ -331,13 +335,14 @@ public final class BatterySettingsStorage extends ObservableBackupRestoreStorage
                         info.packageName + DELIMITER_MODE + optimizationMode;
                 builder.append(packageOptimizeMode).append(DELIMITER);
                 Log.d(TAG, "backupOptimizationMode: " + packageOptimizeMode);
-                BatteryOptimizeLogUtils.writeLog(
-                        sharedPreferences,
-                        Action.BACKUP,
-                        info.packageName,
-                        /* actionDescription */ "mode: " + optimizationMode);
+                logEntries.add(
+                        BatteryOptimizeLogUtils.newLogEntry(
+                                Action.BACKUP,
+                                info.packageName,
+                                /* actionDescription */ "mode: " + optimizationMode));
                 backupCount++;
             }
+            BatteryOptimizeLogUtils.writeLogs(sharedPreferences, logEntries);
 
             outputStream.write(builder.toString().getBytes(UTF_8));
             Log.d(
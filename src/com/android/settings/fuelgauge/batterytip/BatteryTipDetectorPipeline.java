@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batterytip;
+
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the steps detecting {@link BatteryTip}s concurrently, each one within its own deadline.
+ *
+ * <p>The tips of every step are published as soon as the step finishes. A step which misses its
+ * deadline keeps running, and its tips are published once it finishes.
+ */
+public final class BatteryTipDetectorPipeline {
+    private static final String TAG = "BatteryTipPipeline";
+
+    private static BatteryTipDetectorPipeline sInstance;
+
+    /** One step of the pipeline, detecting zero or more tips. */
+    public interface Step {
+        /** Adds the detected tips into {@code tips}. */
+        void detect(List<BatteryTip> tips);
+    }
+
+    /**
+     * Listener for the tips detected so far, invoked on the thread running the step. Calls are
+     * serialized so that each one gets more tips than the previous one, and must not block.
+     */
+    public interface OnTipsDetectedListener {
+        /** Called with the sorted tips detected so far whenever a step finishes. */
+        void onTipsDetected(List<BatteryTip> tips);
+    }
+
+    private final Object mLock = new Object();
+
+    @GuardedBy("mLock")
+    private final ArrayMap<String, StepStats> mStepStats = new ArrayMap<>();
+
+    /** Returns the pipeline shared in the process. */
+    public static synchronized BatteryTipDetectorPipeline getInstance() {
+        if (sInstance == null) {
+            sInstance = new BatteryTipDetectorPipeline();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    BatteryTipDetectorPipeline() {}
+
+    /** Starts a new run of the pipeline. */
+    public Run newRun() {
+        return new Run();
+    }
+
+    /** Dumps the timing of each step. */
+    public void dump(PrintWriter writer) {
+        writer.println("Battery tip detectors:");
+        synchronized (mLock) {
+            if (mStepStats.isEmpty()) {
+                writer.println("\tnothing to dump");
+                return;
+            }
+            for (int i = 0; i < mStepStats.size(); i++) {
+                final StepStats stats = mStepStats.valueAt(i);
+                writer.println(
+                        String.format(
+                                "\t%s\tlast:%dms\tmax:%dms\truns:%d\ttimeouts:%d",
+                                mStepStats.keyAt(i),
+                                stats.mLastMillis,
+                                stats.mMaxMillis,
+                                stats.mRuns,
+                                stats.mTimeouts));
+            }
+        }
+    }
+
+    private void onStepFinished(String name, long millis) {
+        synchronized (mLock) {
+            final StepStats stats = getStepStats(name);
+            stats.mLastMillis = millis;
+            stats.mMaxMillis = Math.max(stats.mMaxMillis, millis);
+            stats.mRuns++;
+        }
+    }
+
+    private void onStepTimedOut(String name) {
+        synchronized (mLock) {
+            getStepStats(name).mTimeouts++;
+        }
+    }
+
+    @GuardedBy("mLock")
+    private StepStats getStepStats(String name) {
+        StepStats stats = mStepStats.get(name);
+        if (stats == null) {
+            stats = new StepStats();
+            mStepStats.put(name, stats);
+        }
+        return stats;
+    }
+
+    /** A run of the pipeline. */
+    public final class Run {
+        private final List<String> mNames = new ArrayList<>();
+        private final List<Long> mDeadlines = new ArrayList<>();
+        private final List<Step> mSteps = new ArrayList<>();
+
+        private Run() {}
+
+        /** Adds a step which has {@code deadlineMillis} from the start of the run to finish. */
+        public Run add(@NonNull String name, long deadlineMillis, @NonNull Step step) {
+            mNames.add(name);
+            mDeadlines.add(deadlineMillis);
+            mSteps.add(step);
+            return this;
+        }
+
+        /**
+         * Runs the steps concurrently and returns the sorted tips of the steps which finished
+         * within their deadline.
+         */
+        public List<BatteryTip> execute(@Nullable OnTipsDetectedListener listener) {
+            final long startTime = SystemClock.elapsedRealtime();
+            final List<BatteryTip> detectedTips = new ArrayList<>();
+            final List<FutureTask<Void>> tasks = new ArrayList<>(mSteps.size());
+            for (int i = 0; i < mSteps.size(); i++) {
+                final String name = mNames.get(i);
+                final Step step = mSteps.get(i);
+                final FutureTask<Void> task =
+                        new FutureTask<>(
+                                () -> runStep(name, step, detectedTips, listener),
+                                /* result= */ null);
+                tasks.add(task);
+                ThreadUtils.postOnBackgroundThread(task);
+            }
+
+            for (int i = 0; i < tasks.size(); i++) {
+                final FutureTask<Void> task = tasks.get(i);
+                final long remaining =
+                        startTime + mDeadlines.get(i) - SystemClock.elapsedRealtime();
+                try {
+                    task.get(Math.max(0L, remaining), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    Log.w(TAG, "detector " + mNames.get(i) + " missed its deadline");
+                    onStepTimedOut(mNames.get(i));
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "detector " + mNames.get(i) + " failed", e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return getSortedTips(detectedTips);
+        }
+
+        private void runStep(
+                String name,
+                Step step,
+                List<BatteryTip> detectedTips,
+                @Nullable OnTipsDetectedListener listener) {
+            final long stepStartTime = SystemClock.elapsedRealtime();
+            final List<BatteryTip> tips = new ArrayList<>();
+            step.detect(tips);
+            onStepFinished(name, SystemClock.elapsedRealtime() - stepStartTime);
+            // Adds and publishes under the same lock, otherwise a step finishing first could
+            // publish its snapshot after a newer one with more tips.
+            synchronized (detectedTips) {
+                detectedTips.addAll(tips);
+                if (listener != null) {
+                    listener.onTipsDetected(getSortedTips(detectedTips));
+                }
+            }
+        }
+    }
+
+    private static List<BatteryTip> getSortedTips(List<BatteryTip> detectedTips) {
+        final List<BatteryTip> tips;
+        synchronized (detectedTips) {
+            tips = new ArrayList<>(detectedTips);
+        }
+        tips.removeIf(Objects::isNull);
+        Collections.sort(tips);
+        return tips;
+    }
+
+    private static final class StepStats {
+        long mLastMillis;
+        long mMaxMillis;
+        int mRuns;
+        int mTimeouts;
+    }
+}
@@ -29,47 +29,100 @@ import com.android.settings.fuelgauge.batterytip.detectors.IncompatibleChargerDe
 import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.utils.AsyncLoaderCompat;
+import com.android.settingslib.utils.ThreadUtils;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Loader to compute and return a battery tip list. It will always return a full length list even
- * though some tips may have state {@code BaseBatteryTip.StateType.INVISIBLE}.
+ * though some tips may have state {@code BaseBatteryTip.StateType.INVISIBLE}, unless a detector
+ * misses its deadline. The tips of such a detector are published to the {@link
+ * OnTipsUpdatedListener} once they are ready.
  */
 public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
     private static final String TAG = "BatteryTipLoader";
 
+    /** Time given to the cheap detectors, measured from the start of loading. */
+    @VisibleForTesting static final long DETECTOR_DEADLINE_MILLIS = 500L;
+
+    /** Time given to {@link HighUsageDetector}, which parses the battery usage of every app. */
+    @VisibleForTesting static final long HIGH_USAGE_DETECTOR_DEADLINE_MILLIS = 2000L;
+
+    /** Listener for the tips detected before the load finishes, invoked on the main thread. */
+    public interface OnTipsUpdatedListener {
+        /** Called with the sorted tips detected so far. */
+        void onTipsUpdated(List<BatteryTip> tips);
+    }
+
     private BatteryUsageStats mBatteryUsageStats;
+    private OnTipsUpdatedListener mOnTipsUpdatedListener;
 
     @VisibleForTesting BatteryUtils mBatteryUtils;
+    @VisibleForTesting BatteryTipDetectorPipeline mPipeline;
 
     public BatteryTipLoader(Context context, BatteryUsageStats batteryUsageStats) {
         super(context);
         mBatteryUsageStats = batteryUsageStats;
         mBatteryUtils = BatteryUtils.getInstance(context);
+        mPipeline = BatteryTipDetectorPipeline.getInstance();
+    }
+
+    /** Sets the listener for the tips which are detected before the load finishes. */
+    public void setOnTipsUpdatedListener(OnTipsUpdatedListener listener) {
+        mOnTipsUpdatedListener = listener;
     }
 
     @Override
     public List<BatteryTip> loadInBackground() {
-        final List<BatteryTip> tips = new ArrayList<>();
         final BatteryTipPolicy batteryTipPolicy = new BatteryTipPolicy(getContext());
         final BatteryInfo batteryInfo = mBatteryUtils.getBatteryInfo(TAG);
         final Context context = getContext().getApplicationContext();
 
-        tips.add(
-                new HighUsageDetector(context, batteryTipPolicy, mBatteryUsageStats, batteryInfo)
-                        .detect());
-        tips.add(new BatteryDefenderDetector(batteryInfo, context).detect());
-        tips.add(new IncompatibleChargerDetector(context).detect());
-        FeatureFactory.getFeatureFactory()
-                .getBatterySettingsFeatureProvider()
-                .addBatteryTipDetector(context, tips, batteryInfo, batteryTipPolicy);
-        Collections.sort(tips);
-        return tips;
+        return mPipeline
+                .newRun()
+                .add(
+                        "HighUsageDetector",
+                        HIGH_USAGE_DETECTOR_DEADLINE_MILLIS,
+                        tips ->
+                                tips.add(
+                                        new HighUsageDetector(
+                                                        context,
+                                                        batteryTipPolicy,
+                                                        mBatteryUsageStats,
+                                                        batteryInfo)
+                                                .detect()))
+                .add(
+                        "BatteryDefenderDetector",
+                        DETECTOR_DEADLINE_MILLIS,
+                        tips ->
+                                tips.add(
+                                        new BatteryDefenderDetector(batteryInfo, context)
+                                                .detect()))
+                .add(
+                        "IncompatibleChargerDetector",
+                        DETECTOR_DEADLINE_MILLIS,
+                        tips -> tips.add(new IncompatibleChargerDetector(context).detect()))
+                .add(
+                        "BatterySettingsFeatureProvider",
+                        DETECTOR_DEADLINE_MILLIS,
+                        tips ->
+                                FeatureFactory.getFeatureFactory()
+                                        .getBatterySettingsFeatureProvider()
+                                        .addBatteryTipDetector(
+                                                context, tips, batteryInfo, batteryTipPolicy))
+                .execute(mOnTipsUpdatedListener == null ? null : this::publishTips);
     }
 
     @Override
     protected void onDiscardResult(List<BatteryTip> result) {}
+
+    private void publishTips(List<BatteryTip> tips) {
+        final OnTipsUpdatedListener listener = mOnTipsUpdatedListener;
+        ThreadUtils.postOnMainThread(
+                () -> {
+                    if (!isAbandoned() && !isReset()) {
+                        listener.onTipsUpdated(tips);
+                    }
+                });
+    }
 }
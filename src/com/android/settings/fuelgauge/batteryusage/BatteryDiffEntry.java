@@ -15,10 +15,15 @@
  */
 package com.android.settings.fuelgauge.batteryusage;
 
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.PackageManager.NameNotFoundException;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.UserHandle;
 import android.os.UserManager;
@@ -38,23 +43,31 @@ import com.android.settingslib.utils.StringUtil;
 import java.util.Comparator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /** A container class to carry battery data in a specific time slot. */
 public class BatteryDiffEntry {
     private static final String TAG = "BatteryDiffEntry";
-    private static final Object sResourceCacheLock = new Object();
-    private static final Object sPackageNameAndUidCacheLock = new Object();
     private static final Object sValidForRestrictionLock = new Object();
+    private static final int CACHE_STRIPE_COUNT = 4;
+    private static final int PACKAGE_UID_CACHE_MAX_ENTRIES = 512;
+    private static final int NAME_AND_ICON_OVERHEAD_BYTES = 64;
+    private static final AtomicBoolean sPackageReceiverRegistered = new AtomicBoolean();
 
     static Locale sCurrentLocale = null;
 
-    // Caches app label and icon to improve loading performance.
-    @GuardedBy("sResourceCacheLock")
-    static final Map<String, NameAndIcon> sResourceCache = new ArrayMap<>();
+    // Caches app label and icon to improve loading performance, bounded by the estimated bytes
+    // of the icons.
+    static final StripedLruCache<NameAndIcon> sResourceCache =
+            new StripedLruCache<>(
+                    CACHE_STRIPE_COUNT,
+                    (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 32),
+                    (key, nameAndIcon) -> estimateSizeInBytes(nameAndIcon));
 
     // Caches package name and uid to improve loading performance.
-    @GuardedBy("sPackageNameAndUidCacheLock")
-    static final Map<String, Integer> sPackageNameAndUidCache = new ArrayMap<>();
+    static final StripedLruCache<Integer> sPackageNameAndUidCache =
+            new StripedLruCache<>(
+                    CACHE_STRIPE_COUNT, PACKAGE_UID_CACHE_MAX_ENTRIES, (key, uid) -> 1);
 
     // Whether a specific item is valid to launch restriction page?
     @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
@@ -318,17 +331,15 @@ public class BatteryDiffEntry {
     }
 
     private int getPackageUid(String packageName) {
-        synchronized (sPackageNameAndUidCacheLock) {
-            if (sPackageNameAndUidCache.containsKey(packageName)) {
-                return sPackageNameAndUidCache.get(packageName);
-            }
+        final Integer cachedUid = sPackageNameAndUidCache.get(packageName);
+        if (cachedUid != null) {
+            return cachedUid;
         }
 
         int uid =
                 BatteryUtils.getInstance(mContext).getPackageUidAsUser(packageName, (int) mUserId);
-        synchronized (sPackageNameAndUidCacheLock) {
-            sPackageNameAndUidCache.put(packageName, uid);
-        }
+        registerPackageReceiverIfNeeded(mContext);
+        sPackageNameAndUidCache.put(packageName, uid);
         return uid;
     }
 
@@ -404,8 +415,11 @@ public class BatteryDiffEntry {
                 // Adds badge icon into app icon for work profile.
                 mAppIcon = getBadgeIconForUser(mAppIcon);
                 if (mAppLabel != null || mAppIcon != null) {
+                    registerPackageReceiverIfNeeded(mContext);
                     putResourceCache(
-                            getKey(), new NameAndIcon(mAppLabel, mAppIcon, /* iconId= */ 0));
+                            getKey(),
+                            new NameAndIcon(
+                                    mAppLabel, getPackageName(), mAppIcon, /* iconId= */ 0));
                 }
                 break;
         }
@@ -459,9 +473,7 @@ public class BatteryDiffEntry {
             sCurrentLocale = locale;
             clearCache();
         }
-        synchronized (sResourceCacheLock) {
-            return sResourceCache.get(getKey());
-        }
+        return sResourceCache.get(getKey());
     }
 
     private void loadNameAndIconForUid() {
@@ -567,21 +579,79 @@ public class BatteryDiffEntry {
 
     /** Clears all cache data. */
     public static void clearCache() {
-        synchronized (sResourceCacheLock) {
-            sResourceCache.clear();
-        }
+        sResourceCache.clear();
         synchronized (sValidForRestrictionLock) {
             sValidForRestriction.clear();
         }
-        synchronized (sPackageNameAndUidCacheLock) {
-            sPackageNameAndUidCache.clear();
+        sPackageNameAndUidCache.clear();
+    }
+
+    /** Shrinks the cache data according to the {@link ComponentCallbacks2} trim memory level. */
+    public static void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            clearCache();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            sResourceCache.trimToRatio(0.5f);
+            sPackageNameAndUidCache.trimToRatio(0.5f);
+        }
+    }
+
+    /** Drops the cache data of a package which is replaced, changed or removed. */
+    @VisibleForTesting
+    static void invalidatePackage(String packageName) {
+        sResourceCache.removeIf(
+                (key, nameAndIcon) -> TextUtils.equals(packageName, nameAndIcon.mPackageName));
+        sPackageNameAndUidCache.remove(packageName);
+        // The restriction state is cached by uid keys, which don't map back to packages.
+        synchronized (sValidForRestrictionLock) {
+            sValidForRestriction.clear();
         }
     }
 
     private static void putResourceCache(String key, NameAndIcon nameAndIcon) {
-        synchronized (sResourceCacheLock) {
-            sResourceCache.put(key, nameAndIcon);
+        sResourceCache.put(key, nameAndIcon);
+    }
+
+    private static void registerPackageReceiverIfNeeded(Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        if (applicationContext == null || sPackageReceiverRegistered.getAndSet(true)) {
+            return;
+        }
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        applicationContext.registerReceiver(
+                new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        if (intent.getData() != null) {
+                            invalidatePackage(intent.getData().getSchemeSpecificPart());
+                        }
+                    }
+                },
+                filter);
+    }
+
+    @VisibleForTesting
+    static int estimateSizeInBytes(NameAndIcon nameAndIcon) {
+        int size = NAME_AND_ICON_OVERHEAD_BYTES;
+        if (nameAndIcon.mName != null) {
+            size += nameAndIcon.mName.length() * Character.BYTES;
+        }
+        final Drawable icon = nameAndIcon.mIcon;
+        if (icon instanceof BitmapDrawable && ((BitmapDrawable) icon).getBitmap() != null) {
+            size += ((BitmapDrawable) icon).getBitmap().getAllocationByteCount();
+        } else if (icon != null) {
+            // Assumes the icon is drawn into an ARGB_8888 bitmap of its intrinsic size.
+            final int width = Math.max(0, icon.getIntrinsicWidth());
+            final int height = Math.max(0, icon.getIntrinsicHeight());
+            size += width * height * 4;
         }
+        return size;
     }
 
     private Drawable getBadgeIconForUser(Drawable icon) {
@@ -98,13 +98,18 @@ public class BatteryHistEntry {
     }
 
     public BatteryHistEntry(Cursor cursor) {
-        mUid = getLong(cursor, KEY_UID);
-        mUserId = getLong(cursor, KEY_USER_ID);
-        mPackageName = getString(cursor, KEY_PACKAGE_NAME);
-        mTimestamp = getLong(cursor, KEY_TIMESTAMP);
-        mConsumerType = getInteger(cursor, KEY_CONSUMER_TYPE);
+        this(cursor, new CursorColumns(cursor));
+    }
+
+    /** Reads the current row of {@code cursor}, whose column indices are {@code columns}. */
+    BatteryHistEntry(Cursor cursor, CursorColumns columns) {
+        mUid = getLong(cursor, columns.mUid);
+        mUserId = getLong(cursor, columns.mUserId);
+        mPackageName = getString(cursor, columns.mPackageName);
+        mTimestamp = getLong(cursor, columns.mTimestamp);
+        mConsumerType = getInteger(cursor, columns.mConsumerType);
         final BatteryInformation batteryInformation =
-                ConvertUtils.getBatteryInformation(cursor, KEY_BATTERY_INFORMATION);
+                ConvertUtils.getBatteryInformation(cursor, columns.mBatteryInformation);
         mAppLabel = batteryInformation.getAppLabel();
         mIsHidden = batteryInformation.getIsHidden();
         mBootTimestamp = batteryInformation.getBootTimestamp();
@@ -237,8 +242,7 @@ public class BatteryHistEntry {
         return 0;
     }
 
-    private int getInteger(Cursor cursor, String key) {
-        final int columnIndex = cursor.getColumnIndex(key);
+    private int getInteger(Cursor cursor, int columnIndex) {
         if (columnIndex >= 0) {
             return cursor.getInt(columnIndex);
         }
@@ -254,8 +258,7 @@ public class BatteryHistEntry {
         return 0L;
     }
 
-    private long getLong(Cursor cursor, String key) {
-        final int columnIndex = cursor.getColumnIndex(key);
+    private long getLong(Cursor cursor, int columnIndex) {
         if (columnIndex >= 0) {
             return cursor.getLong(columnIndex);
         }
@@ -271,8 +274,7 @@ public class BatteryHistEntry {
         return null;
     }
 
-    private String getString(Cursor cursor, String key) {
-        final int columnIndex = cursor.getColumnIndex(key);
+    private String getString(Cursor cursor, int columnIndex) {
         if (columnIndex >= 0) {
             return cursor.getString(columnIndex);
         }
@@ -379,4 +381,26 @@ public class BatteryHistEntry {
     private static double interpolate(double v1, double v2, double ratio) {
         return v1 + ratio * (v2 - v1);
     }
+
+    /**
+     * Column indices of a battery state {@link Cursor}, resolved once and reused for all of its
+     * rows instead of being looked up by name for every row.
+     */
+    static final class CursorColumns {
+        final int mUid;
+        final int mUserId;
+        final int mPackageName;
+        final int mTimestamp;
+        final int mConsumerType;
+        final int mBatteryInformation;
+
+        CursorColumns(Cursor cursor) {
+            mUid = cursor.getColumnIndex(KEY_UID);
+            mUserId = cursor.getColumnIndex(KEY_USER_ID);
+            mPackageName = cursor.getColumnIndex(KEY_PACKAGE_NAME);
+            mTimestamp = cursor.getColumnIndex(KEY_TIMESTAMP);
+            mConsumerType = cursor.getColumnIndex(KEY_CONSUMER_TYPE);
+            mBatteryInformation = cursor.getColumnIndex(KEY_BATTERY_INFORMATION);
+        }
+    }
 }
@@ -18,6 +18,7 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import android.content.ContentProvider;
 import android.content.ContentValues;
+import android.content.Context;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.net.Uri;
@@ -114,14 +115,29 @@ public class BatteryUsageContentProvider extends ContentProvider {
             Log.w(TAG, "do not create provider for work profile");
             return false;
         }
+        initialize(getContext());
+        Log.w(TAG, "create content provider from " + getCallingPackage());
+        return true;
+    }
+
+    /**
+     * Serves a query of the process hosting the provider directly from the database, without
+     * going through the {@link android.content.ContentResolver}.
+     */
+    @Nullable
+    static Cursor queryInProcess(Context context, Uri uri) {
+        final BatteryUsageContentProvider provider = new BatteryUsageContentProvider();
+        provider.initialize(context.getApplicationContext());
+        return provider.query(uri, null, null, null, null);
+    }
+
+    private void initialize(Context context) {
         mClock = Clock.systemUTC();
-        final BatteryStateDatabase database = BatteryStateDatabase.getInstance(getContext());
+        final BatteryStateDatabase database = BatteryStateDatabase.getInstance(context);
         mBatteryStateDao = database.batteryStateDao();
         mAppUsageEventDao = database.appUsageEventDao();
         mBatteryEventDao = database.batteryEventDao();
         mBatteryUsageSlotDao = database.batteryUsageSlotDao();
-        Log.w(TAG, "create content provider from " + getCallingPackage());
-        return true;
     }
 
     @Nullable
@@ -49,6 +49,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.function.Function;
 
 /** A utility class to convert data into another types. */
 public final class ConvertUtils {
@@ -192,8 +193,12 @@ public final class ConvertUtils {
 
     /** Gets the {@link BatteryInformation} instance from {@link Cursor}. */
     public static BatteryInformation getBatteryInformation(final Cursor cursor, final String key) {
+        return getBatteryInformation(cursor, cursor.getColumnIndex(key));
+    }
+
+    /** Gets the {@link BatteryInformation} instance from a column of {@link Cursor}. */
+    static BatteryInformation getBatteryInformation(final Cursor cursor, final int columnIndex) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
-        final int columnIndex = cursor.getColumnIndex(key);
         if (columnIndex >= 0) {
             return BatteryUtils.parseProtoFromString(
                     cursor.getString(columnIndex), defaultInstance);
@@ -274,6 +279,35 @@ public final class ConvertUtils {
         return appUsageEventBuilder.build();
     }
 
+    /**
+     * Returns a decoder of the {@link AppUsageEvent} rows of {@code cursor}, which resolves the
+     * column indices once and reuses one builder for all rows.
+     */
+    static Function<Cursor, AppUsageEvent> newAppUsageEventDecoder(final Cursor cursor) {
+        final int timestampIndex = cursor.getColumnIndex(AppUsageEventEntity.KEY_TIMESTAMP);
+        final int typeIndex = cursor.getColumnIndex(AppUsageEventEntity.KEY_APP_USAGE_EVENT_TYPE);
+        final int packageNameIndex = cursor.getColumnIndex(AppUsageEventEntity.KEY_PACKAGE_NAME);
+        final int instanceIdIndex = cursor.getColumnIndex(AppUsageEventEntity.KEY_INSTANCE_ID);
+        final int taskRootPackageNameIndex =
+                cursor.getColumnIndex(AppUsageEventEntity.KEY_TASK_ROOT_PACKAGE_NAME);
+        final int userIdIndex = cursor.getColumnIndex(AppUsageEventEntity.KEY_USER_ID);
+        final int uidIndex = cursor.getColumnIndex(AppUsageEventEntity.KEY_UID);
+        final AppUsageEvent.Builder eventBuilder = AppUsageEvent.newBuilder();
+        return row -> {
+            eventBuilder.clear();
+            eventBuilder.setTimestamp(getLongFromCursor(row, timestampIndex));
+            eventBuilder.setType(
+                    AppUsageEventType.forNumber(getIntegerFromCursor(row, typeIndex)));
+            eventBuilder.setPackageName(getStringFromCursor(row, packageNameIndex));
+            eventBuilder.setInstanceId(getIntegerFromCursor(row, instanceIdIndex));
+            eventBuilder.setTaskRootPackageName(
+                    getStringFromCursor(row, taskRootPackageNameIndex));
+            eventBuilder.setUserId(getLongFromCursor(row, userIdIndex));
+            eventBuilder.setUid(getLongFromCursor(row, uidIndex));
+            return eventBuilder.build();
+        };
+    }
+
     /** Converts from {@link Cursor} to {@link AppUsageEvent} */
     public static AppUsageEvent convertToAppUsageEvent(final Cursor cursor) {
         final AppUsageEvent.Builder eventBuilder = AppUsageEvent.newBuilder();
@@ -303,6 +337,25 @@ public final class ConvertUtils {
         return eventBuilder.build();
     }
 
+    /**
+     * Returns a decoder of the {@link BatteryEvent} rows of {@code cursor}, which resolves the
+     * column indices once and reuses one builder for all rows.
+     */
+    static Function<Cursor, BatteryEvent> newBatteryEventDecoder(final Cursor cursor) {
+        final int timestampIndex = cursor.getColumnIndex(BatteryEventEntity.KEY_TIMESTAMP);
+        final int typeIndex = cursor.getColumnIndex(BatteryEventEntity.KEY_BATTERY_EVENT_TYPE);
+        final int batteryLevelIndex = cursor.getColumnIndex(BatteryEventEntity.KEY_BATTERY_LEVEL);
+        final BatteryEvent.Builder eventBuilder = BatteryEvent.newBuilder();
+        return row -> {
+            eventBuilder.clear();
+            eventBuilder.setTimestamp(getLongFromCursor(row, timestampIndex));
+            eventBuilder.setType(
+                    BatteryEventType.forNumber(getIntegerFromCursor(row, typeIndex)));
+            eventBuilder.setBatteryLevel(getIntegerFromCursor(row, batteryLevelIndex));
+            return eventBuilder.build();
+        };
+    }
+
     /** Converts from {@link Cursor} to {@link BatteryEvent} */
     public static BatteryEvent convertToBatteryEvent(final Cursor cursor) {
         final BatteryEvent.Builder eventBuilder = BatteryEvent.newBuilder();
@@ -333,6 +386,19 @@ public final class ConvertUtils {
         return batteryEventList;
     }
 
+    /**
+     * Returns a decoder of the {@link BatteryUsageSlot} rows of {@code cursor}, which resolves the
+     * column index once for all rows.
+     */
+    static Function<Cursor, BatteryUsageSlot> newBatteryUsageSlotDecoder(final Cursor cursor) {
+        final BatteryUsageSlot defaultInstance = BatteryUsageSlot.getDefaultInstance();
+        final int columnIndex =
+                cursor.getColumnIndex(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT);
+        return row -> columnIndex < 0
+                ? defaultInstance
+                : BatteryUtils.parseProtoFromString(row.getString(columnIndex), defaultInstance);
+    }
+
     /** Converts from {@link Cursor} to {@link BatteryUsageSlot} */
     public static BatteryUsageSlot convertToBatteryUsageSlot(final Cursor cursor) {
         final BatteryUsageSlot defaultInstance = BatteryUsageSlot.getDefaultInstance();
@@ -625,7 +691,10 @@ public final class ConvertUtils {
     }
 
     private static int getIntegerFromCursor(final Cursor cursor, final String key) {
-        final int columnIndex = cursor.getColumnIndex(key);
+        return getIntegerFromCursor(cursor, cursor.getColumnIndex(key));
+    }
+
+    private static int getIntegerFromCursor(final Cursor cursor, final int columnIndex) {
         if (columnIndex >= 0) {
             return cursor.getInt(columnIndex);
         }
@@ -633,7 +702,10 @@ public final class ConvertUtils {
     }
 
     private static long getLongFromCursor(final Cursor cursor, final String key) {
-        final int columnIndex = cursor.getColumnIndex(key);
+        return getLongFromCursor(cursor, cursor.getColumnIndex(key));
+    }
+
+    private static long getLongFromCursor(final Cursor cursor, final int columnIndex) {
         if (columnIndex >= 0) {
             return cursor.getLong(columnIndex);
         }
@@ -641,7 +713,10 @@ public final class ConvertUtils {
     }
 
     private static String getStringFromCursor(final Cursor cursor, final String key) {
-        final int columnIndex = cursor.getColumnIndex(key);
+        return getStringFromCursor(cursor, cursor.getColumnIndex(key));
+    }
+
+    private static String getStringFromCursor(final Cursor cursor, final int columnIndex) {
         if (columnIndex >= 0) {
             return cursor.getString(columnIndex);
         }
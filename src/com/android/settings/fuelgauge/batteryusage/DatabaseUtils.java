@@ -20,6 +20,7 @@ import static android.content.Intent.FLAG_RECEIVER_REPLACE_PENDING;
 
 import static com.android.settings.fuelgauge.batteryusage.ConvertUtils.utcToLocalTimeForLogging;
 
+import android.app.Application;
 import android.app.usage.IUsageStatsManager;
 import android.app.usage.UsageStatsManager;
 import android.content.ContentResolver;
@@ -28,6 +29,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.AsyncTask;
@@ -37,7 +39,9 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.RemoteException;
 import android.os.SystemClock;
+import android.os.UserHandle;
 import android.os.UserManager;
+import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
@@ -160,6 +164,9 @@ public final class DatabaseUtils {
     // For testing only.
     @VisibleForTesting static Supplier<Cursor> sFakeSupplier;
 
+    // Whether the BatteryUsageContentProvider runs in the current process.
+    private static volatile Boolean sProviderInProcess;
+
     private DatabaseUtils() {}
 
     /** Returns the latest timestamp current user data in app usage event table. */
@@ -217,7 +224,7 @@ public final class DatabaseUtils {
 
         final List<AppUsageEvent> appUsageEventList =
                 loadListFromContentProvider(
-                        context, appUsageEventUri, ConvertUtils::convertToAppUsageEvent);
+                        context, appUsageEventUri, ConvertUtils::newAppUsageEventDecoder);
         Log.d(
                 TAG,
                 String.format(
@@ -255,7 +262,7 @@ public final class DatabaseUtils {
 
         final List<BatteryEvent> batteryEventList =
                 loadListFromContentProvider(
-                        context, batteryEventUri, ConvertUtils::convertToBatteryEvent);
+                        context, batteryEventUri, ConvertUtils::newBatteryEventDecoder);
         Log.d(
                 TAG,
                 String.format(
@@ -284,7 +291,7 @@ public final class DatabaseUtils {
 
         final List<BatteryUsageSlot> batteryUsageSlotList =
                 loadListFromContentProvider(
-                        context, batteryUsageSlotUri, ConvertUtils::convertToBatteryUsageSlot);
+                        context, batteryUsageSlotUri, ConvertUtils::newBatteryUsageSlotDecoder);
         Log.d(
                 TAG,
                 String.format(
@@ -358,21 +365,37 @@ public final class DatabaseUtils {
                         .appendQueryParameter(QUERY_KEY_TIMESTAMP, Long.toString(queryTimestamp))
                         .build();
 
-        final List<BatteryHistEntry> batteryHistEntryList =
-                loadListFromContentProvider(
-                        context, batteryStateUri, cursor -> new BatteryHistEntry(cursor));
-        final Map<Long, Map<String, BatteryHistEntry>> resultMap = new ArrayMap();
-        for (final BatteryHistEntry entry : batteryHistEntryList) {
-            final long timestamp = entry.mTimestamp;
-            final String key = entry.getKey();
-            Map batteryHistEntryMap = resultMap.get(timestamp);
-            // Creates new one if there is no corresponding map.
-            if (batteryHistEntryMap == null) {
-                batteryHistEntryMap = new ArrayMap();
-                resultMap.put(timestamp, batteryHistEntryMap);
-            }
-            batteryHistEntryMap.put(key, entry);
-        }
+        // Groups the rows by timestamp while reading the cursor, without an intermediate list.
+        final Map<Long, Map<String, BatteryHistEntry>> resultMap =
+                loadFromContentProvider(
+                        context,
+                        batteryStateUri,
+                        new ArrayMap<>(),
+                        cursor -> {
+                            final BatteryHistEntry.CursorColumns columns =
+                                    new BatteryHistEntry.CursorColumns(cursor);
+                            final Map<Long, Map<String, BatteryHistEntry>> historyMap =
+                                    new ArrayMap<>();
+                            Map<String, BatteryHistEntry> batteryHistEntryMap = null;
+                            long lastTimestamp = 0L;
+                            while (cursor.moveToNext()) {
+                                final BatteryHistEntry entry =
+                                        new BatteryHistEntry(cursor, columns);
+                                final long timestamp = entry.mTimestamp;
+                                // Rows are mostly sorted by timestamp, reuse the last map.
+                                if (batteryHistEntryMap == null || timestamp != lastTimestamp) {
+                                    batteryHistEntryMap = historyMap.get(timestamp);
+                                    // Creates new one if there is no corresponding map.
+                                    if (batteryHistEntryMap == null) {
+                                        batteryHistEntryMap = new ArrayMap<>();
+                                        historyMap.put(timestamp, batteryHistEntryMap);
+                                    }
+                                    lastTimestamp = timestamp;
+                                }
+                                batteryHistEntryMap.put(entry.getKey(), entry);
+                            }
+                            return historyMap;
+                        });
 
         if (resultMap == null || resultMap.isEmpty()) {
             Log.d(TAG, "getBatteryHistoryMap() returns empty or null");
@@ -851,15 +874,36 @@ public final class DatabaseUtils {
             return defaultValue;
         }
         try (Cursor cursor =
-                sFakeSupplier != null
-                        ? sFakeSupplier.get()
-                        : context.getContentResolver().query(uri, null, null, null)) {
+                sFakeSupplier != null ? sFakeSupplier.get() : query(context, uri)) {
             return (cursor == null || cursor.getCount() == 0)
                     ? defaultValue
                     : cursorReader.apply(cursor);
         }
     }
 
+    private static Cursor query(Context context, Uri uri) {
+        // Skips the ContentResolver when the provider runs in this process for the same user.
+        if (context.getUserId() == UserHandle.myUserId() && isProviderInProcess(context)) {
+            return BatteryUsageContentProvider.queryInProcess(context, uri);
+        }
+        return context.getContentResolver().query(uri, null, null, null);
+    }
+
+    private static boolean isProviderInProcess(Context context) {
+        Boolean providerInProcess = sProviderInProcess;
+        if (providerInProcess == null) {
+            final ProviderInfo providerInfo =
+                    context.getPackageManager().resolveContentProvider(AUTHORITY, /* flags= */ 0);
+            providerInProcess =
+                    providerInfo != null
+                            && TextUtils.equals(providerInfo.packageName, context.getPackageName())
+                            && TextUtils.equals(
+                                    providerInfo.processName, Application.getProcessName());
+            sProviderInProcess = providerInProcess;
+        }
+        return providerInProcess;
+    }
+
     private static void clearDataAfterTimeChangedIfNeededInternal(Context context) {
         final List<BatteryEvent> batteryLevelRecordEvents =
                 DatabaseUtils.getBatteryEvents(
@@ -904,16 +948,21 @@ public final class DatabaseUtils {
                         cursor.moveToFirst() ? cursor.getLong(/* columnIndex= */ 0) : defaultValue);
     }
 
+    /**
+     * Loads all rows of {@code uri}, decoding them with the row decoder created by {@code
+     * decoderFactory} once for the cursor.
+     */
     private static <E> List<E> loadListFromContentProvider(
-            Context context, Uri uri, Function<Cursor, E> converter) {
+            Context context, Uri uri, Function<Cursor, Function<Cursor, E>> decoderFactory) {
         return loadFromContentProvider(
                 context,
                 uri,
                 new ArrayList<>(),
                 cursor -> {
-                    final List<E> list = new ArrayList<>();
+                    final Function<Cursor, E> decoder = decoderFactory.apply(cursor);
+                    final List<E> list = new ArrayList<>(cursor.getCount());
                     while (cursor.moveToNext()) {
-                        list.add(converter.apply(cursor));
+                        list.add(decoder.apply(cursor));
                     }
                     return list;
                 });
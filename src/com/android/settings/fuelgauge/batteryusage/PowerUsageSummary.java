@@ -117,14 +117,15 @@ public class PowerUsageSummary extends PowerUsageBase
 
                 @Override
                 public Loader<List<BatteryTip>> onCreateLoader(int id, Bundle args) {
-                    return new BatteryTipLoader(getContext(), mBatteryUsageStats);
+                    final BatteryTipLoader loader =
+                            new BatteryTipLoader(getContext(), mBatteryUsageStats);
+                    loader.setOnTipsUpdatedListener(PowerUsageSummary.this::updateBatteryTips);
+                    return loader;
                 }
 
                 @Override
                 public void onLoadFinished(Loader<List<BatteryTip>> loader, List<BatteryTip> data) {
-                    mBatteryTipPreferenceController.updateBatteryTips(data);
-                    mBatteryHeaderPreferenceController.updateHeaderByBatteryTips(
-                            mBatteryTipPreferenceController.getCurrentBatteryTip(), mBatteryInfo);
+                    updateBatteryTips(data);
                 }
 
                 @Override
@@ -338,6 +339,15 @@ public class PowerUsageSummary extends PowerUsageBase
         restartBatteryTipLoader();
     }
 
+    private void updateBatteryTips(List<BatteryTip> batteryTips) {
+        if (getContext() == null) {
+            return;
+        }
+        mBatteryTipPreferenceController.updateBatteryTips(batteryTips);
+        mBatteryHeaderPreferenceController.updateHeaderByBatteryTips(
+                mBatteryTipPreferenceController.getCurrentBatteryTip(), mBatteryInfo);
+    }
+
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.power_usage_summary);
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.util.ArrayMap;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * A size-bounded LRU cache with {@link String} keys, split into stripes which are locked
+ * independently so that concurrent loaders don't contend on one lock.
+ *
+ * <p>Each stripe holds up to its share of the total size, measured by the {@link Sizer}. {@code
+ * null} keys and values are never stored.
+ */
+final class StripedLruCache<V> extends AbstractMap<String, V> {
+
+    /** Measures the size of a cache entry. */
+    interface Sizer<V> {
+        /** Returns the size of the entry, in the unit of the maximum size of the cache. */
+        int sizeOf(@NonNull String key, @NonNull V value);
+    }
+
+    private final LruCache<String, V>[] mStripes;
+    private final int mMaxStripeSize;
+
+    @SuppressWarnings("unchecked")
+    StripedLruCache(int stripeCount, int maxSize, @NonNull Sizer<V> sizer) {
+        mStripes = new LruCache[stripeCount];
+        mMaxStripeSize = Math.max(1, maxSize / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            mStripes[i] =
+                    new LruCache<String, V>(mMaxStripeSize) {
+                        @Override
+                        protected int sizeOf(String key, V value) {
+                            return sizer.sizeOf(key, value);
+                        }
+                    };
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof String ? getStripe(key).get((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        if (key == null || value == null) {
+            return null;
+        }
+        return getStripe(key).put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof String ? getStripe(key).remove((String) key) : null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (LruCache<String, V> stripe : mStripes) {
+            size += stripe.snapshot().size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (LruCache<String, V> stripe : mStripes) {
+            stripe.evictAll();
+        }
+    }
+
+    /** Returns a snapshot of the entries. */
+    @NonNull
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        final Map<String, V> snapshot = new ArrayMap<>();
+        for (LruCache<String, V> stripe : mStripes) {
+            snapshot.putAll(stripe.snapshot());
+        }
+        return Collections.unmodifiableSet(snapshot.entrySet());
+    }
+
+    /** Removes the entries matching {@code predicate}. */
+    void removeIf(@NonNull BiPredicate<String, V> predicate) {
+        for (LruCache<String, V> stripe : mStripes) {
+            for (Map.Entry<String, V> entry : stripe.snapshot().entrySet()) {
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    stripe.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /** Evicts the least recently used entries until the cache fits in {@code ratio} of its size. */
+    void trimToRatio(float ratio) {
+        final int stripeSize = (int) (mMaxStripeSize * ratio);
+        for (LruCache<String, V> stripe : mStripes) {
+            stripe.trimToSize(stripeSize);
+        }
+    }
+
+    private LruCache<String, V> getStripe(Object key) {
+        return mStripes[(key.hashCode() & Integer.MAX_VALUE) % mStripes.length];
+    }
+}
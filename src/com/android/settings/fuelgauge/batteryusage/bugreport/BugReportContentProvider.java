@@ -23,6 +23,7 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.util.Log;
 
+import com.android.settings.fuelgauge.batterytip.BatteryTipDetectorPipeline;
 import com.android.settingslib.fuelgauge.BatteryUtils;
 
 import java.io.FileDescriptor;
@@ -59,6 +60,7 @@ public final class BugReportContentProvider extends ContentProvider {
         LogUtils.dumpBatteryUsageSlotDatabaseHist(context, writer);
         LogUtils.dumpBatteryEventDatabaseHist(context, writer);
         LogUtils.dumpBatteryStateDatabaseHist(context, writer);
+        BatteryTipDetectorPipeline.getInstance().dump(writer);
     }
 
     @Override
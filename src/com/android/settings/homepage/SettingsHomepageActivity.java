@@ -33,7 +33,6 @@ import android.content.pm.PackageManager;
 import android.content.pm.PackageManager.ApplicationInfoFlags;
 import android.content.pm.UserInfo;
 import android.content.res.Configuration;
-import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Bundle;
@@ -66,7 +65,6 @@ import androidx.window.embedding.SplitInfo;
 import androidx.window.embedding.SplitRule;
 import androidx.window.java.embedding.SplitControllerCallbackAdapter;
 
-import com.android.internal.util.UserIcons;
 import com.android.settings.R;
 import com.android.settings.Settings;
 import com.android.settings.SettingsActivity;
@@ -75,12 +73,14 @@ import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
 import com.android.settings.core.CategoryMixin;
 import com.android.settings.core.FeatureFlags;
+import com.android.settings.core.instrumentation.StartupTracer;
 import com.android.settings.homepage.contextualcards.ContextualCardsFragment;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.safetycenter.SafetyCenterManagerWrapper;
+import com.android.settings.users.UserAvatarCache;
 import com.android.settingslib.Utils;
 import com.android.settingslib.core.lifecycle.HideNonSystemOverlayMixin;
-import com.android.settingslib.drawable.CircleFramedDrawable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 import com.google.android.material.appbar.AppBarLayout;
@@ -192,8 +192,17 @@ public class SettingsHomepageActivity extends FragmentActivity implements
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
+        final StartupTracer.Span span =
+                StartupTracer.beginPhase(StartupTracer.PHASE_HOMEPAGE_CREATE);
+        try {
+            super.onCreate(savedInstanceState);
+            initHomepage();
+        } finally {
+            span.end();
+        }
+    }
 
+    private void initHomepage() {
         // Ensure device is provisioned in order to access Settings home
         // TODO(b/331254029): This should later be replaced in favor of an allowlist
         boolean unprovisioned = android.provider.Settings.Global.getInt(getContentResolver(),
@@ -229,7 +238,13 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         mIsTwoPane = ActivityEmbeddingUtils.isAlreadyEmbedded(this);
 
         updateAppBarMinHeight();
-        initHomepageContainer();
+        final StartupTracer.Span containerSpan =
+                StartupTracer.beginPhase(StartupTracer.PHASE_HOMEPAGE_CONTAINER);
+        try {
+            initHomepageContainer();
+        } finally {
+            containerSpan.end();
+        }
 
         Context context = getApplicationContext();
         mUserManager = context.getSystemService(UserManager.class);
@@ -242,7 +257,7 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         avatarView = findViewById(R.id.account_avatar);
 
         if (avatarView != null) {
-          avatarView.setImageDrawable(getCircularUserIcon(getApplicationContext()));
+          updateAvatarView();
           avatarView.setVisibility(View.VISIBLE);
           avatarView.setOnClickListener(new View.OnClickListener() {
               @Override
@@ -257,7 +272,7 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         initSearchBarView();
 
         avatarView = findViewById(R.id.account_avatar);
-        avatarView.setImageDrawable(getCircularUserIcon(context));
+        updateAvatarView();
         avatarView.setVisibility(View.VISIBLE);
         avatarView.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -818,27 +833,36 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         }
     }
 
-    private Drawable getCircularUserIcon(Context context) {
-    	final UserManager mUserManager = getSystemService(UserManager.class);
-        Bitmap bitmapUserIcon = mUserManager.getUserIcon(UserHandle.myUserId());
-
-        if (bitmapUserIcon == null) {
-            // get default user icon.
-            final Drawable defaultUserIcon = UserIcons.getDefaultUserIcon(
-                    context.getResources(), UserHandle.myUserId(), false);
-            bitmapUserIcon = UserIcons.convertToBitmap(defaultUserIcon);
+    /**
+     * Shows the avatar of the current user from {@link UserAvatarCache}, which is loaded in the
+     * background the first time.
+     */
+    private void updateAvatarView() {
+        if (avatarView == null) {
+            return;
         }
-        Drawable drawableUserIcon = new CircleFramedDrawable(bitmapUserIcon,
-                (int) context.getResources().getDimension(com.android.internal.R.dimen.user_icon_size));
-
-        return drawableUserIcon;
+        final UserAvatarCache avatarCache = UserAvatarCache.getInstance(this);
+        final int userId = UserHandle.myUserId();
+        final int iconSize = getResources().getDimensionPixelSize(
+                com.android.internal.R.dimen.user_icon_size);
+        final Drawable avatar = avatarCache.getCachedAvatar(userId, iconSize);
+        if (avatar != null) {
+            avatarView.setImageDrawable(avatar);
+            return;
+        }
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Drawable loadedAvatar = avatarCache.loadAvatar(userId, iconSize);
+            ThreadUtils.postOnMainThread(() -> {
+                if (!isDestroyed() && avatarView != null) {
+                    avatarView.setImageDrawable(loadedAvatar);
+                }
+            });
+        });
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        if (avatarView != null) {
-          avatarView.setImageDrawable(getCircularUserIcon(getApplicationContext()));
-        }
+        updateAvatarView();
     }
 }
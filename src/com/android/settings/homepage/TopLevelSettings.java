@@ -58,6 +58,7 @@ import com.android.settings.Utils;
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
 import com.android.settings.core.SubSettingLauncher;
+import com.android.settings.core.instrumentation.StartupTracer;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.search.BaseSearchIndexProvider;
@@ -284,8 +285,17 @@ public class TopLevelSettings extends DashboardFragment implements SplitLayoutLi
  
      @Override
      public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
-         super.onCreatePreferences(savedInstanceState, rootKey);
+         final StartupTracer.Span span =
+                 StartupTracer.beginPhase(StartupTracer.PHASE_TOP_LEVEL_PREFERENCES);
+         try {
+             super.onCreatePreferences(savedInstanceState, rootKey);
+             initHomepagePreferences();
+         } finally {
+             span.end();
+         }
+     }
 
+     private void initHomepagePreferences() {
          final LayoutPreference batteryPreference =
                          (LayoutPreference) getPreferenceScreen().findPreference("top_level_homepage_battery");
         final LayoutPreference storagePreference =
@@ -31,6 +31,7 @@ import androidx.slice.SliceMetadata;
 import androidx.slice.SliceViewManager;
 import androidx.slice.core.SliceAction;
 
+import com.android.settings.homepage.contextualcards.slices.SliceLiveDataPool;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
@@ -103,7 +104,7 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
         mCard = card.mutate().setSlice(slice).build();
 
         if (isSliceToggleable(slice)) {
-            mCard = card.mutate().setHasInlineAction(true).build();
+            mCard = mCard.mutate().setHasInlineAction(true).build();
         }
 
         return true;
@@ -120,13 +121,19 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
 
         // Workaround of unpinning slice in the same SerialExecutor of AsyncTask as SliceCallback's
         // observer.
-        ThreadUtils.postOnMainThread(() -> AsyncTask.execute(() -> {
+        final Runnable unpin = () -> ThreadUtils.postOnMainThread(() -> AsyncTask.execute(() -> {
             try {
                 manager.unregisterSliceCallback(uri, callback);
             } catch (SecurityException e) {
                 Log.d(TAG, "No permission currently: " + e);
             }
         }));
+        if (slice == null || slice.hasHint(HINT_ERROR)) {
+            unpin.run();
+        } else {
+            // Keep the slice pinned until its card is rendered, which starts from this slice.
+            SliceLiveDataPool.getInstance(mContext).offerEligibleSlice(uri, slice, unpin);
+        }
 
         return slice;
     }
@@ -31,6 +31,7 @@ import android.text.TextUtils;
 
 import com.android.settings.R;
 import com.android.settings.Settings;
+import com.android.settings.UserProfileTopology;
 import com.android.settings.homepage.contextualcards.ContextualCard;
 
 import java.util.List;
@@ -84,6 +85,7 @@ public class WorkModeConditionController implements ConditionalCardController {
     public void onActionClick() {
         if (mUserHandle != null) {
             mUm.requestQuietModeEnabled(false, mUserHandle);
+            UserProfileTopology.invalidate();
         }
     }
 
@@ -73,6 +73,9 @@ public class SliceContextualCardRenderer implements ContextualCardRenderer, Life
     private final ControllerRendererPool mControllerRendererPool;
     private final SliceFullCardRendererHelper mFullCardHelper;
     private final SliceHalfCardRendererHelper mHalfCardHelper;
+    private final SliceLiveDataPool mSliceLiveDataPool;
+    // Error listeners of the slices acquired from the pool, which are released on destroy.
+    private final Map<Uri, SliceLiveData.OnErrorListener> mAcquiredSlices;
 
     public SliceContextualCardRenderer(Context context, LifecycleOwner lifecycleOwner,
             ControllerRendererPool controllerRendererPool) {
@@ -84,6 +87,8 @@ public class SliceContextualCardRenderer implements ContextualCardRenderer, Life
         mLifecycleOwner.getLifecycle().addObserver(this);
         mFullCardHelper = new SliceFullCardRendererHelper(context);
         mHalfCardHelper = new SliceHalfCardRendererHelper(context);
+        mSliceLiveDataPool = SliceLiveDataPool.getInstance(context);
+        mAcquiredSlices = new ArrayMap<>();
     }
 
     @Override
@@ -111,7 +116,7 @@ public class SliceContextualCardRenderer implements ContextualCardRenderer, Life
         LiveData<Slice> sliceLiveData = mSliceLiveDataMap.get(uri);
 
         if (sliceLiveData == null) {
-            sliceLiveData = SliceLiveData.fromUri(mContext, uri,
+            final SliceLiveData.OnErrorListener errorListener =
                     (int type, Throwable source) -> {
                         // onSliceError doesn't handle error Slices.
                         Log.w(TAG, "Slice may be null. uri = " + uri + ", error = " + type);
@@ -119,7 +124,10 @@ public class SliceContextualCardRenderer implements ContextualCardRenderer, Life
                                 () -> mSliceLiveDataMap.get(uri).removeObservers(mLifecycleOwner));
                         mContext.getContentResolver()
                                 .notifyChange(CardContentProvider.REFRESH_CARD_URI, null);
-                    });
+                    };
+            // The pooled slice starts with the slice bound by the eligibility check, if any.
+            sliceLiveData = mSliceLiveDataPool.acquire(uri, errorListener);
+            mAcquiredSlices.put(uri, errorListener);
             mSliceLiveDataMap.put(uri, sliceLiveData);
         }
 
@@ -204,6 +212,14 @@ public class SliceContextualCardRenderer implements ContextualCardRenderer, Life
     public void onStop() {
         mFlippedCardSet.forEach(holder -> resetCardView(holder));
         mFlippedCardSet.clear();
+        // Keep the slices pinned in case the homepage is shown again shortly.
+        mAcquiredSlices.keySet().forEach(mSliceLiveDataPool::keepPinned);
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    public void onDestroy() {
+        mAcquiredSlices.forEach(mSliceLiveDataPool::release);
+        mAcquiredSlices.clear();
     }
 
     private void resetCardView(RecyclerView.ViewHolder holder) {
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards.slices;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.ArrayMap;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+import androidx.slice.Slice;
+import androidx.slice.widget.SliceLiveData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of the slice bindings of the homepage contextual cards, shared by all the card renderers.
+ *
+ * <p>A slice which was bound to check the eligibility of its card stays pinned until the card
+ * is rendered, and is delivered as the first value of the pooled {@link LiveData}, so rendering
+ * does not wait for a second bind. Pooled slices are reference counted, and stay pinned for
+ * {@link #KEEP_PINNED_MILLIS} after the homepage stops or releases them, so coming back to the
+ * homepage shortly after does not restart the slice providers.
+ */
+public class SliceLiveDataPool {
+
+    @VisibleForTesting
+    static final long KEEP_PINNED_MILLIS = 10_000L;
+    @VisibleForTesting
+    static final long ELIGIBLE_SLICE_TIMEOUT_MILLIS = 10_000L;
+
+    private static SliceLiveDataPool sInstance;
+
+    private final Context mContext;
+    private final Handler mHandler;
+    @GuardedBy("mEligibleSlices")
+    private final Map<Uri, EligibleSlice> mEligibleSlices = new ArrayMap<>();
+    // Only accessed on the main thread.
+    private final Map<Uri, PooledSlice> mPooledSlices = new ArrayMap<>();
+
+    /** Returns the pool shared by the homepage. */
+    public static synchronized SliceLiveDataPool getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SliceLiveDataPool(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    SliceLiveDataPool(Context context) {
+        mContext = context;
+        mHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Hands over a slice bound while checking the eligibility of its card. {@code unpin} is run
+     * once the pooled binding of {@code uri} is active, or after
+     * {@link #ELIGIBLE_SLICE_TIMEOUT_MILLIS} if the card is never rendered.
+     */
+    @WorkerThread
+    public void offerEligibleSlice(@NonNull Uri uri, @NonNull Slice slice,
+            @NonNull Runnable unpin) {
+        final EligibleSlice eligibleSlice = new EligibleSlice(slice, unpin);
+        final EligibleSlice previous;
+        synchronized (mEligibleSlices) {
+            previous = mEligibleSlices.put(uri, eligibleSlice);
+        }
+        if (previous != null) {
+            previous.release();
+        }
+        mHandler.postDelayed(() -> releaseEligibleSlice(uri, eligibleSlice),
+                ELIGIBLE_SLICE_TIMEOUT_MILLIS);
+        mHandler.post(() -> {
+            final PooledSlice pooledSlice = mPooledSlices.get(uri);
+            if (pooledSlice != null && pooledSlice.hasActiveObservers()) {
+                // Already rendered, the pooled binding keeps the slice pinned.
+                releaseEligibleSlice(uri, eligibleSlice);
+            }
+        });
+    }
+
+    /**
+     * Returns the shared binding of {@code uri}, whose first value is the slice offered by
+     * {@link #offerEligibleSlice} if any. Must be balanced with {@link #release}.
+     */
+    @MainThread
+    @NonNull
+    public LiveData<Slice> acquire(@NonNull Uri uri,
+            @NonNull SliceLiveData.OnErrorListener errorListener) {
+        PooledSlice pooledSlice = mPooledSlices.get(uri);
+        if (pooledSlice == null) {
+            pooledSlice = new PooledSlice(uri);
+            mPooledSlices.put(uri, pooledSlice);
+        }
+        pooledSlice.mRefCount++;
+        pooledSlice.mErrorListeners.add(errorListener);
+        return pooledSlice;
+    }
+
+    /**
+     * Releases a binding returned by {@link #acquire}. The slice stays pinned for
+     * {@link #KEEP_PINNED_MILLIS} before it is dropped from the pool.
+     */
+    @MainThread
+    public void release(@NonNull Uri uri, @NonNull SliceLiveData.OnErrorListener errorListener) {
+        final PooledSlice pooledSlice = mPooledSlices.get(uri);
+        if (pooledSlice == null || !pooledSlice.mErrorListeners.remove(errorListener)) {
+            return;
+        }
+        pooledSlice.mRefCount--;
+        pooledSlice.keepPinned();
+    }
+
+    /**
+     * Keeps the binding of {@code uri} pinned for {@link #KEEP_PINNED_MILLIS}, even when nothing
+     * observes it, for example while the homepage is stopped.
+     */
+    @MainThread
+    public void keepPinned(@NonNull Uri uri) {
+        final PooledSlice pooledSlice = mPooledSlices.get(uri);
+        if (pooledSlice != null) {
+            pooledSlice.keepPinned();
+        }
+    }
+
+    @VisibleForTesting
+    boolean isPooled(Uri uri) {
+        return mPooledSlices.containsKey(uri);
+    }
+
+    private EligibleSlice getEligibleSlice(Uri uri) {
+        synchronized (mEligibleSlices) {
+            return mEligibleSlices.get(uri);
+        }
+    }
+
+    private void releaseEligibleSlice(Uri uri, EligibleSlice eligibleSlice) {
+        if (eligibleSlice == null) {
+            return;
+        }
+        synchronized (mEligibleSlices) {
+            if (mEligibleSlices.get(uri) == eligibleSlice) {
+                mEligibleSlices.remove(uri);
+            }
+        }
+        eligibleSlice.release();
+    }
+
+    private static class EligibleSlice {
+        final Slice mSlice;
+        private final Runnable mUnpin;
+        private final AtomicBoolean mReleased = new AtomicBoolean();
+
+        EligibleSlice(Slice slice, Runnable unpin) {
+            mSlice = slice;
+            mUnpin = unpin;
+        }
+
+        void release() {
+            if (mReleased.compareAndSet(false, true)) {
+                mUnpin.run();
+            }
+        }
+    }
+
+    private class PooledSlice extends MediatorLiveData<Slice> {
+        final Uri mUri;
+        // Error listeners may be called on a background thread.
+        final List<SliceLiveData.OnErrorListener> mErrorListeners =
+                new CopyOnWriteArrayList<>();
+        int mRefCount;
+
+        private final Observer<Slice> mKeepPinnedObserver = slice -> { };
+        private final Runnable mStopKeepingPinned = this::stopKeepingPinned;
+        private boolean mKeepingPinned;
+
+        PooledSlice(Uri uri) {
+            mUri = uri;
+            final EligibleSlice eligibleSlice = getEligibleSlice(uri);
+            if (eligibleSlice != null) {
+                setValue(eligibleSlice.mSlice);
+            }
+            addSource(SliceLiveData.fromUri(mContext, uri, this::onSliceError), this::setValue);
+        }
+
+        @Override
+        protected void onActive() {
+            super.onActive();
+            // The source has pinned the slice, the pin of the eligibility check is not needed.
+            releaseEligibleSlice(mUri, getEligibleSlice(mUri));
+        }
+
+        void keepPinned() {
+            mHandler.removeCallbacks(mStopKeepingPinned);
+            if (!mKeepingPinned) {
+                mKeepingPinned = true;
+                observeForever(mKeepPinnedObserver);
+            }
+            mHandler.postDelayed(mStopKeepingPinned, KEEP_PINNED_MILLIS);
+        }
+
+        private void stopKeepingPinned() {
+            if (mKeepingPinned) {
+                mKeepingPinned = false;
+                removeObserver(mKeepPinnedObserver);
+            }
+            if (mRefCount <= 0 && mPooledSlices.get(mUri) == this) {
+                mPooledSlices.remove(mUri);
+            }
+        }
+
+        private void onSliceError(int type, Throwable source) {
+            for (SliceLiveData.OnErrorListener listener : mErrorListeners) {
+                listener.onSliceError(type, source);
+            }
+        }
+    }
+}
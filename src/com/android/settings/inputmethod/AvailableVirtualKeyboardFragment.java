@@ -16,17 +16,22 @@
 
 package com.android.settings.inputmethod;
 
-import android.app.admin.DevicePolicyManager;
 import android.app.settings.SettingsEnums;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.res.Configuration;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.SearchIndexableResource;
+import android.util.ArrayMap;
 import android.view.inputmethod.InputMethodInfo;
 import android.view.inputmethod.InputMethodManager;
 
+import androidx.preference.PreferenceScreen;
+
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.R;
 import com.android.settings.Utils;
@@ -40,6 +45,7 @@ import com.android.settingslib.search.SearchIndexable;
 
 import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -61,6 +67,23 @@ public class AvailableVirtualKeyboardFragment extends DashboardFragment
 
     private int mUserId;
 
+    private InputMethodCatalog mInputMethodCatalog;
+
+    // The catalog entry each preference was created for, to keep the unchanged preferences.
+    private final ArrayMap<InputMethodPreference, InputMethodCatalog.Entry> mPreferenceEntries =
+            new ArrayMap<>();
+
+    // Incremented on every load, so that only the latest load is bound.
+    private int mLoadGeneration;
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            // An input method may have been installed, updated or removed.
+            updateInputMethodPreferenceViews();
+        }
+    };
+
     @Override
     public void onCreatePreferences(Bundle bundle, String s) {
         addPreferencesFromResource(R.xml.available_virtual_keyboard);
@@ -113,6 +136,7 @@ public class AvailableVirtualKeyboardFragment extends DashboardFragment
         }
         mUserId = newUserId;
         mUserAwareContext = newUserAwareContext;
+        mInputMethodCatalog = new InputMethodCatalog(context, mUserAwareContext, mUserId);
     }
 
     @Override
@@ -122,6 +146,20 @@ public class AvailableVirtualKeyboardFragment extends DashboardFragment
         // "InputMethodInfo"s and "InputMethodSubtype"s
         mInputMethodSettingValues.refreshAllInputMethodAndSubtypes();
         updateInputMethodPreferenceViews();
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        getContext().registerReceiverAsUser(
+                mPackageReceiver, UserHandle.of(mUserId), filter, null, null);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        getContext().unregisterReceiver(mPackageReceiver);
     }
 
     @Override
@@ -158,39 +196,61 @@ public class AvailableVirtualKeyboardFragment extends DashboardFragment
     @VisibleForTesting
     void updateInputMethodPreferenceViews() {
         mInputMethodSettingValues.refreshAllInputMethodAndSubtypes();
-        // Clear existing "InputMethodPreference"s
-        mInputMethodPreferenceList.clear();
-        final List<String> permittedList = mUserAwareContext.getSystemService(
-                DevicePolicyManager.class).getPermittedInputMethods();
-        final Context prefContext = getPrefContext();
         final List<InputMethodInfo> imis = mInputMethodSettingValues.getInputMethodList();
-        final List<InputMethodInfo> enabledImis = getContext().getSystemService(
-                InputMethodManager.class).getEnabledInputMethodListAsUser(UserHandle.of(mUserId));
-        final int numImis = (imis == null ? 0 : imis.size());
-        for (int i = 0; i < numImis; ++i) {
-            final InputMethodInfo imi = imis.get(i);
-            // TODO (b/182876800): Move this logic out of isAllowedByOrganization and
-            // into a new boolean.
-            // If an input method is enabled but not included in the permitted list, then set it as
-            // allowed by organization. Doing so will allow the user to disable the input method and
-            // remain complaint with the organization's policy. Once disabled, the input method
-            // cannot be re-enabled because it is not in the permitted list.
-            final boolean isAllowedByOrganization = permittedList == null
-                    || permittedList.contains(imi.getPackageName())
-                    || enabledImis.contains(imi);
-            final InputMethodPreference pref = new InputMethodPreference(prefContext, imi,
-                    isAllowedByOrganization, this, mUserId);
-            pref.setIcon(imi.loadIcon(mUserAwareContext.getPackageManager()));
+        final int generation = ++mLoadGeneration;
+        mInputMethodCatalog.load(imis == null ? Collections.emptyList() : imis, entries -> {
+            // Drop the result of a stale load, or of a load finished after the fragment is gone.
+            if (generation == mLoadGeneration && getContext() != null) {
+                bindInputMethodPreferences(entries);
+            }
+        });
+    }
+
+    /**
+     * Binds the loaded catalog to the preference list. The preferences of the input methods
+     * which didn't change are kept, so only new or updated input methods create a preference.
+     */
+    private void bindInputMethodPreferences(List<InputMethodCatalog.Entry> entries) {
+        final Context prefContext = getPrefContext();
+        final ArrayMap<String, InputMethodPreference> previousPreferences = new ArrayMap<>();
+        for (final InputMethodPreference pref : mInputMethodPreferenceList) {
+            previousPreferences.put(pref.getKey(), pref);
+        }
+        final ArrayMap<InputMethodPreference, InputMethodCatalog.Entry> preferenceEntries =
+                new ArrayMap<>(entries.size());
+        mInputMethodPreferenceList.clear();
+        for (final InputMethodCatalog.Entry entry : entries) {
+            InputMethodPreference pref = previousPreferences.remove(entry.mInfo.getId());
+            final InputMethodCatalog.Entry previousEntry =
+                    pref != null ? mPreferenceEntries.get(pref) : null;
+            if (previousEntry == null || !entry.isSameAs(previousEntry)) {
+                pref = new InputMethodPreference(prefContext, entry.mInfo,
+                        entry.mAllowedByOrganization, this, mUserId);
+                pref.setIcon(entry.mIcon);
+            }
+            preferenceEntries.put(pref, entry);
             mInputMethodPreferenceList.add(pref);
         }
+        final PreferenceScreen screen = getPreferenceScreen();
+        // Remove the preferences of the input methods which are gone or were updated.
+        for (int i = 0; i < mPreferenceEntries.size(); ++i) {
+            final InputMethodPreference pref = mPreferenceEntries.keyAt(i);
+            if (!preferenceEntries.containsKey(pref)) {
+                screen.removePreference(pref);
+            }
+        }
+        mPreferenceEntries.clear();
+        mPreferenceEntries.putAll(preferenceEntries);
+
         final Collator collator = Collator.getInstance();
         mInputMethodPreferenceList.sort((lhs, rhs) -> lhs.compareTo(rhs, collator));
-        getPreferenceScreen().removeAll();
-        for (int i = 0; i < numImis; ++i) {
+        for (int i = 0; i < mInputMethodPreferenceList.size(); ++i) {
             final InputMethodPreference pref = mInputMethodPreferenceList.get(i);
             pref.setOrder(i);
-            getPreferenceScreen().addPreference(pref);
-            InputMethodAndSubtypeUtilCompat.removeUnnecessaryNonPersistentPreference(pref);
+            if (pref.getParent() == null) {
+                screen.addPreference(pref);
+                InputMethodAndSubtypeUtilCompat.removeUnnecessaryNonPersistentPreference(pref);
+            }
             pref.updatePreferenceViews();
         }
     }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.inputmethod;
+
+import android.app.admin.DevicePolicyManager;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+import android.os.UserHandle;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.inputmethod.InputMethodInfo;
+import android.view.inputmethod.InputMethodManager;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loads the input methods shown by {@link AvailableVirtualKeyboardFragment} off the main thread,
+ * with their icons and whether the organization allows them.
+ *
+ * <p>Icons are cached per user and input method, together with the last update time of the
+ * input method package, so only the input methods installed or updated since the last load
+ * decode their icon again.
+ */
+final class InputMethodCatalog {
+    private static final String TAG = "InputMethodCatalog";
+
+    @VisibleForTesting
+    static final long VERSION_UNKNOWN = -1L;
+
+    private static final Object sIconCacheLock = new Object();
+
+    // Icons by user and input method id.
+    @GuardedBy("sIconCacheLock")
+    private static final SparseArray<ArrayMap<String, CachedIcon>> sIconCache =
+            new SparseArray<>();
+
+    private final Context mContext;
+    private final Context mUserAwareContext;
+    private final int mUserId;
+
+    /**
+     * @param context the context to get the {@link InputMethodManager} from
+     * @param userAwareContext the context of the user whose input methods are loaded
+     */
+    InputMethodCatalog(@NonNull Context context, @NonNull Context userAwareContext, int userId) {
+        mContext = context;
+        mUserAwareContext = userAwareContext;
+        mUserId = userId;
+    }
+
+    /** Loads the entries of {@code imis} in the background, and delivers them on the UI thread. */
+    void load(@NonNull List<InputMethodInfo> imis, @NonNull Consumer<List<Entry>> callback) {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<Entry> entries = loadEntries(imis);
+            ThreadUtils.postOnMainThread(() -> callback.accept(entries));
+        });
+    }
+
+    @WorkerThread
+    @VisibleForTesting
+    List<Entry> loadEntries(@NonNull List<InputMethodInfo> imis) {
+        final List<String> permittedList = mUserAwareContext.getSystemService(
+                DevicePolicyManager.class).getPermittedInputMethods();
+        final List<InputMethodInfo> enabledImis = mContext.getSystemService(
+                InputMethodManager.class).getEnabledInputMethodListAsUser(UserHandle.of(mUserId));
+        final PackageManager packageManager = mUserAwareContext.getPackageManager();
+        final ArrayMap<String, CachedIcon> cachedIcons;
+        synchronized (sIconCacheLock) {
+            final ArrayMap<String, CachedIcon> userIcons = sIconCache.get(mUserId);
+            cachedIcons = userIcons != null ? new ArrayMap<>(userIcons) : new ArrayMap<>();
+        }
+
+        final List<Entry> entries = new ArrayList<>(imis.size());
+        final ArrayMap<String, CachedIcon> loadedIcons = new ArrayMap<>(imis.size());
+        for (InputMethodInfo imi : imis) {
+            final long packageVersion = getPackageVersion(packageManager, imi.getPackageName());
+            CachedIcon icon = cachedIcons.get(imi.getId());
+            if (icon == null || icon.mPackageVersion != packageVersion
+                    || packageVersion == VERSION_UNKNOWN) {
+                icon = new CachedIcon(imi.loadIcon(packageManager), packageVersion);
+            }
+            loadedIcons.put(imi.getId(), icon);
+            // TODO (b/182876800): Move this logic out of isAllowedByOrganization and
+            // into a new boolean.
+            // If an input method is enabled but not included in the permitted list, then set it as
+            // allowed by organization. Doing so will allow the user to disable the input method and
+            // remain complaint with the organization's policy. Once disabled, the input method
+            // cannot be re-enabled because it is not in the permitted list.
+            final boolean isAllowedByOrganization = permittedList == null
+                    || permittedList.contains(imi.getPackageName())
+                    || enabledImis.contains(imi);
+            entries.add(new Entry(imi, icon.newDrawable(), packageVersion,
+                    isAllowedByOrganization));
+        }
+        // Drop the icons of the input methods which are gone.
+        synchronized (sIconCacheLock) {
+            sIconCache.put(mUserId, loadedIcons);
+        }
+        return entries;
+    }
+
+    /** Clears the icons of all users. */
+    @VisibleForTesting
+    static void clearCache() {
+        synchronized (sIconCacheLock) {
+            sIconCache.clear();
+        }
+    }
+
+    private static long getPackageVersion(PackageManager packageManager, String packageName) {
+        try {
+            return packageManager.getPackageInfo(packageName, /* flags= */ 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Input method package not found: " + packageName);
+            return VERSION_UNKNOWN;
+        }
+    }
+
+    /** An input method of the catalog. */
+    static final class Entry {
+        final InputMethodInfo mInfo;
+        final Drawable mIcon;
+        final long mPackageVersion;
+        final boolean mAllowedByOrganization;
+
+        Entry(InputMethodInfo info, Drawable icon, long packageVersion,
+                boolean allowedByOrganization) {
+            mInfo = info;
+            mIcon = icon;
+            mPackageVersion = packageVersion;
+            mAllowedByOrganization = allowedByOrganization;
+        }
+
+        /** Returns whether a preference created for {@code other} still shows this entry. */
+        boolean isSameAs(@NonNull Entry other) {
+            return TextUtils.equals(mInfo.getId(), other.mInfo.getId())
+                    && mPackageVersion != VERSION_UNKNOWN
+                    && mPackageVersion == other.mPackageVersion
+                    && mAllowedByOrganization == other.mAllowedByOrganization
+                    && mInfo.getSubtypeCount() == other.mInfo.getSubtypeCount();
+        }
+    }
+
+    private static final class CachedIcon {
+        final Drawable mIcon;
+        final long mPackageVersion;
+
+        CachedIcon(Drawable icon, long packageVersion) {
+            mIcon = icon;
+            mPackageVersion = packageVersion;
+        }
+
+        /** Returns a drawable of the icon which doesn't share its state with other views. */
+        Drawable newDrawable() {
+            final Drawable.ConstantState state = mIcon != null ? mIcon.getConstantState() : null;
+            return state != null ? state.newDrawable() : mIcon;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.applications.RecentAppOpsAccess;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the apps which recently accessed location off the main thread.
+ *
+ * <p>Results are cached for {@link #CACHE_TTL_MS}, so that the location page and its see all page
+ * share a single query of the app ops history. The cache is dropped whenever the mode of a
+ * location app op changes, and registered change listeners are told to reload.
+ */
+public class RecentLocationAccessLoader {
+    private static final String TAG = "RecentLocationLoader";
+
+    @VisibleForTesting
+    static final long CACHE_TTL_MS = 10_000L;
+
+    private static final String[] LOCATION_OPS = {
+            AppOpsManager.OPSTR_FINE_LOCATION,
+            AppOpsManager.OPSTR_COARSE_LOCATION,
+    };
+
+    /** Callback for the result of {@link #load}. */
+    public interface Callback {
+        /** Called on the main thread with the accesses sorted by recency. */
+        void onRecentAccessesLoaded(@NonNull List<RecentAppOpsAccess.Access> accesses);
+    }
+
+    private static RecentLocationAccessLoader sInstance;
+
+    private final RecentAppOpsAccess mRecentAppOpsAccess;
+    private final AppOpsManager mAppOpsManager;
+    // Indexed by whether system accesses are shown.
+    private final CachedAccesses[] mCache = new CachedAccesses[2];
+    private final List<List<Callback>> mPendingCallbacks =
+            List.of(new ArrayList<>(), new ArrayList<>());
+    private final ArraySet<Runnable> mChangeListeners = new ArraySet<>();
+    private final AppOpsManager.OnOpChangedListener mOpChangedListener =
+            (op, packageName) -> ThreadUtils.postOnMainThread(this::onLocationOpChanged);
+    private int mGeneration;
+
+    /** Returns the loader shared by all the recent location access controllers. */
+    @MainThread
+    public static RecentLocationAccessLoader getInstance(Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new RecentLocationAccessLoader(appContext,
+                    RecentAppOpsAccess.createForLocation(appContext));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    RecentLocationAccessLoader(Context context, RecentAppOpsAccess recentAppOpsAccess) {
+        mRecentAppOpsAccess = recentAppOpsAccess;
+        mAppOpsManager = context.getSystemService(AppOpsManager.class);
+    }
+
+    /**
+     * Returns the cached accesses if they are still fresh, or {@code null} if they need to be
+     * loaded.
+     */
+    @MainThread
+    @Nullable
+    public List<RecentAppOpsAccess.Access> getCachedAccesses(boolean showSystem) {
+        final CachedAccesses cached = mCache[index(showSystem)];
+        if (cached == null || cached.mGeneration != mGeneration
+                || SystemClock.elapsedRealtime() - cached.mLoadTime > CACHE_TTL_MS) {
+            return null;
+        }
+        return cached.mAccesses;
+    }
+
+    /**
+     * Loads the accesses, sorted by recency, and delivers them to {@code callback}. Fresh cached
+     * accesses are delivered immediately, and concurrent loads share one query.
+     */
+    @MainThread
+    public void load(boolean showSystem, @NonNull Callback callback) {
+        final List<RecentAppOpsAccess.Access> cached = getCachedAccesses(showSystem);
+        if (cached != null) {
+            callback.onRecentAccessesLoaded(cached);
+            return;
+        }
+        final List<Callback> pending = mPendingCallbacks.get(index(showSystem));
+        pending.add(callback);
+        if (pending.size() == 1) {
+            startLoading(showSystem);
+        }
+    }
+
+    /** Drops the cached accesses, the next {@link #load} queries them again. */
+    @MainThread
+    public void invalidate() {
+        mGeneration++;
+        mCache[0] = null;
+        mCache[1] = null;
+    }
+
+    /**
+     * Registers {@code listener} to be run on the main thread when location app ops change.
+     * Location app ops are only watched while there are listeners.
+     */
+    @MainThread
+    public void addChangeListener(@NonNull Runnable listener) {
+        if (mChangeListeners.add(listener) && mChangeListeners.size() == 1) {
+            startWatchingOps();
+        }
+    }
+
+    /** Unregisters a listener added with {@link #addChangeListener}. */
+    @MainThread
+    public void removeChangeListener(@NonNull Runnable listener) {
+        if (mChangeListeners.remove(listener) && mChangeListeners.isEmpty()) {
+            stopWatchingOps();
+        }
+    }
+
+    @VisibleForTesting
+    void onLocationOpChanged() {
+        invalidate();
+        for (Runnable listener : new ArrayList<>(mChangeListeners)) {
+            listener.run();
+        }
+    }
+
+    private void startLoading(boolean showSystem) {
+        final int generation = mGeneration;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            List<RecentAppOpsAccess.Access> accesses = null;
+            try {
+                accesses = Collections.unmodifiableList(
+                        new ArrayList<>(mRecentAppOpsAccess.getAppListSorted(showSystem)));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to load recent location accesses", e);
+            }
+            final List<RecentAppOpsAccess.Access> result = accesses;
+            ThreadUtils.postOnMainThread(() -> onLoaded(showSystem, generation, result));
+        });
+    }
+
+    private void onLoaded(boolean showSystem, int generation,
+            @Nullable List<RecentAppOpsAccess.Access> accesses) {
+        if (accesses == null) {
+            // Nothing is cached, so the next load queries again.
+            deliver(showSystem, Collections.emptyList());
+            return;
+        }
+        if (generation != mGeneration) {
+            // App ops changed while loading, the callbacks would get outdated accesses.
+            startLoading(showSystem);
+            return;
+        }
+        mCache[index(showSystem)] =
+                new CachedAccesses(accesses, generation, SystemClock.elapsedRealtime());
+        deliver(showSystem, accesses);
+    }
+
+    private void deliver(boolean showSystem, List<RecentAppOpsAccess.Access> accesses) {
+        final List<Callback> pending = mPendingCallbacks.get(index(showSystem));
+        final List<Callback> callbacks = new ArrayList<>(pending);
+        pending.clear();
+        for (Callback callback : callbacks) {
+            callback.onRecentAccessesLoaded(accesses);
+        }
+    }
+
+    private void startWatchingOps() {
+        if (mAppOpsManager == null) {
+            return;
+        }
+        try {
+            for (String op : LOCATION_OPS) {
+                mAppOpsManager.startWatchingMode(op, null /* packageName */, mOpChangedListener);
+            }
+        } catch (SecurityException e) {
+            Log.w(TAG, "Unable to watch location app ops", e);
+        }
+    }
+
+    private void stopWatchingOps() {
+        if (mAppOpsManager != null) {
+            mAppOpsManager.stopWatchingMode(mOpChangedListener);
+        }
+    }
+
+    private static int index(boolean showSystem) {
+        return showSystem ? 1 : 0;
+    }
+
+    private static class CachedAccesses {
+        final List<RecentAppOpsAccess.Access> mAccesses;
+        final int mGeneration;
+        final long mLoadTime;
+
+        CachedAccesses(List<RecentAppOpsAccess.Access> accesses, int generation, long loadTime) {
+            mAccesses = accesses;
+            mGeneration = generation;
+            mLoadTime = loadTime;
+        }
+    }
+}
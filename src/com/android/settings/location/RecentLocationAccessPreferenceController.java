@@ -33,6 +33,9 @@ import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
 import com.android.settingslib.applications.RecentAppOpsAccess;
+import com.android.settingslib.core.lifecycle.LifecycleObserver;
+import com.android.settingslib.core.lifecycle.events.OnStart;
+import com.android.settingslib.core.lifecycle.events.OnStop;
 import com.android.settingslib.utils.StringUtil;
 import com.android.settingslib.widget.AppPreference;
 
@@ -42,10 +45,13 @@ import java.util.List;
 /**
  * Preference controller that handles the display of apps that access locations.
  */
-public class RecentLocationAccessPreferenceController extends LocationBasePreferenceController {
+public class RecentLocationAccessPreferenceController extends LocationBasePreferenceController
+        implements LifecycleObserver, OnStart, OnStop {
     public static final int MAX_APPS = 3;
     @VisibleForTesting
     RecentAppOpsAccess mRecentLocationApps;
+    private final RecentLocationAccessLoader mLoader;
+    private final Runnable mOnAccessesChanged = this::loadRecentAccesses;
     private PreferenceCategory mCategoryRecentLocationRequests;
     private int mType = ProfileSelectFragment.ProfileType.ALL;
     private boolean mShowSystem = false;
@@ -76,14 +82,20 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
     }
 
     public RecentLocationAccessPreferenceController(Context context, String key) {
-        this(context, key, RecentAppOpsAccess.createForLocation(context));
+        this(context, key, RecentLocationAccessLoader.getInstance(context));
     }
 
     @VisibleForTesting
     public RecentLocationAccessPreferenceController(Context context, String key,
             RecentAppOpsAccess recentLocationApps) {
-        super(context, key);
+        this(context, key, new RecentLocationAccessLoader(context, recentLocationApps));
         mRecentLocationApps = recentLocationApps;
+    }
+
+    private RecentLocationAccessPreferenceController(Context context, String key,
+            RecentLocationAccessLoader loader) {
+        super(context, key);
+        mLoader = loader;
         mShowSystem = DeviceConfig.getBoolean(DeviceConfig.NAMESPACE_PRIVACY,
                 SystemUiDeviceConfigFlags.PROPERTY_LOCATION_INDICATORS_SMALL_ENABLED, false)
                 ? Settings.Secure.getInt(mContext.getContentResolver(),
@@ -108,12 +120,35 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
         }
     }
 
+    @Override
+    public void onStart() {
+        mLoader.addChangeListener(mOnAccessesChanged);
+    }
+
+    @Override
+    public void onStop() {
+        mLoader.removeChangeListener(mOnAccessesChanged);
+    }
+
     private void loadRecentAccesses() {
+        final boolean showSystem = mShowSystem;
+        mLoader.load(showSystem, accesses -> {
+            // Drop results of a load which was superseded by toggling system apps.
+            if (showSystem == mShowSystem) {
+                onRecentAccessesLoaded(accesses);
+            }
+        });
+    }
+
+    private void onRecentAccessesLoaded(List<RecentAppOpsAccess.Access> accesses) {
+        if (mCategoryRecentLocationRequests == null) {
+            return;
+        }
         mCategoryRecentLocationRequests.removeAll();
         final Context prefContext = mCategoryRecentLocationRequests.getContext();
         final List<RecentAppOpsAccess.Access> recentLocationAccesses = new ArrayList<>();
         final UserManager userManager = UserManager.get(mContext);
-        for (RecentAppOpsAccess.Access access : mRecentLocationApps.getAppListSorted(mShowSystem)) {
+        for (RecentAppOpsAccess.Access access : accesses) {
             if (isRequestMatchesProfileType(userManager, access, mType)) {
                 recentLocationAccesses.add(access);
                 if (recentLocationAccesses.size() == MAX_APPS) {
@@ -32,6 +32,9 @@ import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.applications.RecentAppOpsAccess;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
+import com.android.settingslib.core.lifecycle.LifecycleObserver;
+import com.android.settingslib.core.lifecycle.events.OnStart;
+import com.android.settingslib.core.lifecycle.events.OnStop;
 import com.android.settingslib.widget.AppPreference;
 
 import java.util.ArrayList;
@@ -39,9 +42,10 @@ import java.util.List;
 
 /** Preference controller for preference category displaying all recent location access (apps). */
 public class RecentLocationAccessSeeAllPreferenceController
-        extends LocationBasePreferenceController {
+        extends LocationBasePreferenceController implements LifecycleObserver, OnStart, OnStop {
 
-    private final RecentAppOpsAccess mRecentLocationAccesses;
+    private final RecentLocationAccessLoader mLoader;
+    private final Runnable mOnAccessesChanged = this::loadRecentAccesses;
 
     private PreferenceScreen mCategoryAllRecentLocationAccess;
     private MetricsFeatureProvider mMetricsFeatureProvider;
@@ -56,7 +60,7 @@ public class RecentLocationAccessSeeAllPreferenceController
             Settings.Secure.LOCATION_SHOW_SYSTEM_OPS, 0) == 1
             : false;
 
-        mRecentLocationAccesses = RecentAppOpsAccess.createForLocation(context);
+        mLoader = RecentLocationAccessLoader.getInstance(context);
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
     }
 
@@ -71,16 +75,43 @@ public class RecentLocationAccessSeeAllPreferenceController
         mCategoryAllRecentLocationAccess = screen.findPreference(getPreferenceKey());
     }
 
+    @Override
+    public void onStart() {
+        mLoader.addChangeListener(mOnAccessesChanged);
+    }
+
+    @Override
+    public void onStop() {
+        mLoader.removeChangeListener(mOnAccessesChanged);
+    }
+
     @Override
     public void updateState(Preference preference) {
-        mCategoryAllRecentLocationAccess.removeAll();
         mPreference = preference;
+        loadRecentAccesses();
+    }
+
+    private void loadRecentAccesses() {
+        if (mPreference == null) {
+            return;
+        }
+        final boolean showSystem = mShowSystem;
+        mLoader.load(showSystem, accesses -> {
+            // Drop results of a load which was superseded by toggling system apps.
+            if (showSystem == mShowSystem) {
+                onRecentAccessesLoaded(mPreference, accesses);
+            }
+        });
+    }
+
+    private void onRecentAccessesLoaded(Preference preference,
+            List<RecentAppOpsAccess.Access> accesses) {
+        mCategoryAllRecentLocationAccess.removeAll();
 
         final UserManager userManager = UserManager.get(mContext);
 
         final List<RecentAppOpsAccess.Access> recentLocationAccesses = new ArrayList<>();
-        for (RecentAppOpsAccess.Access access : mRecentLocationAccesses.getAppListSorted(
-                mShowSystem)) {
+        for (RecentAppOpsAccess.Access access : accesses) {
             if (isRequestMatchesProfileType(
                     userManager, access, ProfileSelectFragment.ProfileType.ALL)) {
                 recentLocationAccesses.add(access);
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide cache of the subscriptions shown by Settings.
+ *
+ * <p>The cache holds an immutable {@link Snapshot} which is rebuilt on first use after a
+ * subscription, carrier config, SIM slot, unique display name or locale change. Reading a valid
+ * snapshot never goes through binder, so it is cheap enough to be used from
+ * {@code updateState()} of every preference controller.
+ */
+public class SubscriptionSnapshotCache {
+    private static final String TAG = "SubscriptionSnapshot";
+
+    /** Listener callbacks only bump the version, so they can run on the binder thread. */
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private static volatile SubscriptionSnapshotCache sInstance;
+
+    private final Context mAppContext;
+    private final AtomicInteger mVersion = new AtomicInteger();
+    private final Object mLock = new Object();
+    private volatile Snapshot mSnapshot;
+    private boolean mListening;
+    // SharedPreferences only keeps weak references to its listeners.
+    private SharedPreferences.OnSharedPreferenceChangeListener mDisplayNameListener;
+
+    /**
+     * Returns the cache of the application of {@code context}, or {@code null} if the context is
+     * not attached to an application.
+     */
+    @Nullable
+    public static SubscriptionSnapshotCache getInstance(@NonNull Context context) {
+        final Context appContext = context.getApplicationContext();
+        if (appContext == null) {
+            return null;
+        }
+        SubscriptionSnapshotCache cache = sInstance;
+        if (cache == null || cache.mAppContext != appContext) {
+            synchronized (SubscriptionSnapshotCache.class) {
+                cache = sInstance;
+                if (cache == null || cache.mAppContext != appContext) {
+                    cache = new SubscriptionSnapshotCache(appContext);
+                    cache.registerListeners();
+                    sInstance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the current snapshot, building it with {@code context} if there is none. Falls
+     * back to an uncached snapshot when no cache can be associated with {@code context}.
+     */
+    @NonNull
+    public static Snapshot getSnapshot(@NonNull Context context) {
+        final SubscriptionSnapshotCache cache = getInstance(context);
+        if (cache == null) {
+            return Snapshot.create(context, Snapshot.VERSION_UNCACHED);
+        }
+        return cache.getOrCreateSnapshot(context);
+    }
+
+    /** Drops the snapshot of the current cache, if any. */
+    public static void invalidateAll() {
+        final SubscriptionSnapshotCache cache = sInstance;
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    @VisibleForTesting
+    SubscriptionSnapshotCache(Context appContext) {
+        mAppContext = appContext;
+    }
+
+    /** Forces the next {@link #getOrCreateSnapshot} to rebuild the snapshot. */
+    public void invalidate() {
+        mVersion.incrementAndGet();
+    }
+
+    @VisibleForTesting
+    int getVersion() {
+        return mVersion.get();
+    }
+
+    @VisibleForTesting
+    @NonNull
+    Snapshot getOrCreateSnapshot(@NonNull Context context) {
+        final Snapshot snapshot = mSnapshot;
+        if (snapshot != null && snapshot.getVersion() == mVersion.get()) {
+            return snapshot;
+        }
+        synchronized (mLock) {
+            final int version = mVersion.get();
+            if (mSnapshot != null && mSnapshot.getVersion() == version) {
+                return mSnapshot;
+            }
+            final Snapshot newSnapshot = Snapshot.create(context, version);
+            // Without change notifications a snapshot could never be invalidated.
+            if (mListening) {
+                mSnapshot = newSnapshot;
+            }
+            return newSnapshot;
+        }
+    }
+
+    @VisibleForTesting
+    void registerListeners() {
+        try {
+            final SubscriptionManager subscriptionManager =
+                    mAppContext.getSystemService(SubscriptionManager.class);
+            final CarrierConfigManager carrierConfigManager =
+                    mAppContext.getSystemService(CarrierConfigManager.class);
+            if (subscriptionManager == null || carrierConfigManager == null) {
+                Log.w(TAG, "Telephony unavailable, subscription snapshots are not cached");
+                return;
+            }
+            subscriptionManager.addOnSubscriptionsChangedListener(DIRECT_EXECUTOR,
+                    new SubscriptionManager.OnSubscriptionsChangedListener() {
+                        @Override
+                        public void onSubscriptionsChanged() {
+                            invalidate();
+                        }
+                    });
+            carrierConfigManager.registerCarrierConfigChangeListener(DIRECT_EXECUTOR,
+                    (slotIndex, subId, carrierId, specificCarrierId) -> invalidate());
+
+            // SIM slot changes are not reported as subscription changes, and the unique display
+            // names and formatted phone numbers depend on the locale.
+            final IntentFilter filter = new IntentFilter();
+            filter.addAction(TelephonyManager.ACTION_SIM_SLOT_STATUS_CHANGED);
+            filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+            mAppContext.registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    invalidate();
+                }
+            }, filter, Context.RECEIVER_NOT_EXPORTED);
+
+            // The unique display names are persisted by SubscriptionUtil.
+            mDisplayNameListener = (sharedPreferences, key) -> invalidate();
+            mAppContext.getSharedPreferences(
+                    SubscriptionUtil.KEY_UNIQUE_SUBSCRIPTION_DISPLAYNAME, Context.MODE_PRIVATE)
+                    .registerOnSharedPreferenceChangeListener(mDisplayNameListener);
+            mListening = true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to listen for subscription changes", e);
+        }
+    }
+
+    /**
+     * Immutable view of the subscriptions at the time it was built. Formatted phone numbers are
+     * only loaded when first asked for, and kept until the snapshot is replaced.
+     */
+    public static final class Snapshot {
+        static final int VERSION_UNCACHED = -1;
+
+        // Stands for a subscription without phone number, which the map cannot hold as null.
+        private static final String NO_PHONE_NUMBER = "";
+
+        private final int mVersion;
+        private final List<SubscriptionInfo> mAvailableSubscriptions;
+        private final List<SubscriptionInfo> mActiveSubscriptions;
+        private final Map<Integer, CharSequence> mUniqueDisplayNames;
+        private final Map<Integer, String> mFormattedPhoneNumbers = new ConcurrentHashMap<>();
+
+        @VisibleForTesting
+        Snapshot(int version, List<SubscriptionInfo> availableSubscriptions,
+                List<SubscriptionInfo> activeSubscriptions,
+                Map<Integer, CharSequence> uniqueDisplayNames) {
+            mVersion = version;
+            mAvailableSubscriptions =
+                    Collections.unmodifiableList(new ArrayList<>(availableSubscriptions));
+            mActiveSubscriptions =
+                    Collections.unmodifiableList(new ArrayList<>(activeSubscriptions));
+            mUniqueDisplayNames = Collections.unmodifiableMap(new HashMap<>(uniqueDisplayNames));
+        }
+
+        static Snapshot create(Context context, int version) {
+            final List<SubscriptionInfo> available =
+                    SubscriptionUtil.loadAvailableSubscriptions(context);
+            final List<SubscriptionInfo> active = SubscriptionUtil.getActiveSubscriptions(
+                    context.getSystemService(SubscriptionManager.class));
+            final Map<Integer, CharSequence> uniqueNames =
+                    SubscriptionUtil.computeUniqueSubscriptionDisplayNames(context, available);
+            return new Snapshot(version, available, active, uniqueNames);
+        }
+
+        /** Version of the cache this snapshot was built for. */
+        public int getVersion() {
+            return mVersion;
+        }
+
+        /** Subscriptions which are available to display to the user. */
+        @NonNull
+        public List<SubscriptionInfo> getAvailableSubscriptions() {
+            return mAvailableSubscriptions;
+        }
+
+        /** Active subscriptions which are visible to the user. */
+        @NonNull
+        public List<SubscriptionInfo> getActiveSubscriptions() {
+            return mActiveSubscriptions;
+        }
+
+        /** Map of available subscription ids to display names which are unique. */
+        @NonNull
+        public Map<Integer, CharSequence> getUniqueDisplayNames() {
+            return mUniqueDisplayNames;
+        }
+
+        /**
+         * Formatted phone number of {@code info}, or {@code null} if it has none. It is loaded
+         * with {@code context} the first time it is asked for.
+         */
+        @Nullable
+        public String getFormattedPhoneNumber(@NonNull Context context,
+                @NonNull SubscriptionInfo info) {
+            final int subId = info.getSubscriptionId();
+            String phoneNumber = mFormattedPhoneNumbers.get(subId);
+            if (phoneNumber == null) {
+                phoneNumber = SubscriptionUtil.loadFormattedPhoneNumber(context, info);
+                if (phoneNumber == null) {
+                    phoneNumber = NO_PHONE_NUMBER;
+                }
+                mFormattedPhoneNumbers.putIfAbsent(subId, phoneNumber);
+            }
+            return phoneNumber.isEmpty() ? null : phoneNumber;
+        }
+    }
+}
@@ -62,11 +62,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class SubscriptionUtil {
     private static final String TAG = "SubscriptionUtil";
@@ -84,11 +82,26 @@ public class SubscriptionUtil {
     @VisibleForTesting
     public static void setAvailableSubscriptionsForTesting(List<SubscriptionInfo> results) {
         sAvailableResultsForTesting = results;
+        SubscriptionSnapshotCache.invalidateAll();
     }
 
     @VisibleForTesting
     public static void setActiveSubscriptionsForTesting(List<SubscriptionInfo> results) {
         sActiveResultsForTesting = results;
+        SubscriptionSnapshotCache.invalidateAll();
+    }
+
+    /**
+     * Returns the current {@link SubscriptionSnapshotCache.Snapshot}, which is only rebuilt after
+     * a subscription or carrier config change.
+     */
+    @NonNull
+    public static SubscriptionSnapshotCache.Snapshot getSubscriptionSnapshot(Context context) {
+        if (sAvailableResultsForTesting != null || sActiveResultsForTesting != null) {
+            return SubscriptionSnapshotCache.Snapshot.create(context,
+                    SubscriptionSnapshotCache.Snapshot.VERSION_UNCACHED);
+        }
+        return SubscriptionSnapshotCache.getSnapshot(context);
     }
 
     public static List<SubscriptionInfo> getActiveSubscriptions(SubscriptionManager manager) {
@@ -136,6 +149,13 @@ public class SubscriptionUtil {
      * @return list of {@code SubscriptionInfo}
      */
     public static List<SubscriptionInfo> getAvailableSubscriptions(Context context) {
+        if (sAvailableResultsForTesting != null) {
+            return sAvailableResultsForTesting;
+        }
+        return new ArrayList<>(getSubscriptionSnapshot(context).getAvailableSubscriptions());
+    }
+
+    static List<SubscriptionInfo> loadAvailableSubscriptions(Context context) {
         if (sAvailableResultsForTesting != null) {
             return sAvailableResultsForTesting;
         }
@@ -287,6 +307,11 @@ public class SubscriptionUtil {
      */
     @VisibleForTesting
     public static Map<Integer, CharSequence> getUniqueSubscriptionDisplayNames(Context context) {
+        return new HashMap<>(getSubscriptionSnapshot(context).getUniqueDisplayNames());
+    }
+
+    static Map<Integer, CharSequence> computeUniqueSubscriptionDisplayNames(Context context,
+            List<SubscriptionInfo> subscriptions) {
         class DisplayInfo {
             public SubscriptionInfo subscriptionInfo;
             public CharSequence originalName;
@@ -294,36 +319,36 @@ public class SubscriptionUtil {
         }
 
         // Map of SubscriptionId to DisplayName
-        final Supplier<Stream<DisplayInfo>> originalInfos =
-                () -> getAvailableSubscriptions(context)
-                        .stream()
-                        .filter(i -> {
-                            // Filter out null values.
-                            return (i != null && i.getDisplayName() != null);
-                        })
-                        .map(i -> {
-                            DisplayInfo info = new DisplayInfo();
-                            info.subscriptionInfo = i;
-                            String displayName = i.getDisplayName().toString();
-                            info.originalName =
-                                    TextUtils.equals(displayName, PROFILE_GENERIC_DISPLAY_NAME)
-                                            ? context.getResources().getString(R.string.sim_card)
-                                            : displayName.trim();
-                            return info;
-                        });
+        final List<DisplayInfo> infos = subscriptions
+                .stream()
+                .filter(i -> {
+                    // Filter out null values.
+                    return (i != null && i.getDisplayName() != null);
+                })
+                .map(i -> {
+                    DisplayInfo info = new DisplayInfo();
+                    info.subscriptionInfo = i;
+                    String displayName = i.getDisplayName().toString();
+                    info.originalName =
+                            TextUtils.equals(displayName, PROFILE_GENERIC_DISPLAY_NAME)
+                                    ? context.getResources().getString(R.string.sim_card)
+                                    : displayName.trim();
+                    return info;
+                })
+                .collect(Collectors.toList());
 
         // TODO(goldmanj) consider using a map of DisplayName to SubscriptionInfos.
         // A Unique set of display names
         Set<CharSequence> uniqueNames = new HashSet<>();
         // Return the set of duplicate names
-        final Set<CharSequence> duplicateOriginalNames = originalInfos.get()
+        final Set<CharSequence> duplicateOriginalNames = infos.stream()
                 .filter(info -> !uniqueNames.add(info.originalName))
                 .map(info -> info.originalName)
                 .collect(Collectors.toSet());
 
         // If a display name is duplicate, append the final 4 digits of the phone number.
         // Creates a mapping of Subscription id to original display name + phone number display name
-        final Supplier<Stream<DisplayInfo>> uniqueInfos = () -> originalInfos.get().map(info -> {
+        for (DisplayInfo info : infos) {
             int infoSubId = info.subscriptionInfo.getSubscriptionId();
             String cachedDisplayName = getDisplayNameFromSharedPreference(
                     context, infoSubId);
@@ -331,7 +356,7 @@ public class SubscriptionUtil {
                 Log.d(TAG, "use cached display name : for subId : " + infoSubId
                         + "cached display name : " + cachedDisplayName);
                 info.uniqueName = cachedDisplayName;
-                return info;
+                continue;
             } else {
                 Log.d(TAG, "remove cached display name : " + infoSubId);
                 removeItemFromDisplayNameSharedPreference(context, infoSubId);
@@ -365,19 +390,18 @@ public class SubscriptionUtil {
             } else {
                 info.uniqueName = info.originalName;
             }
-            return info;
-        });
+        }
 
         // Check uniqueness a second time.
         // We might not have had permission to view the phone numbers.
         // There might also be multiple phone numbers whose last 4 digits the same.
         uniqueNames.clear();
-        final Set<CharSequence> duplicatePhoneNames = uniqueInfos.get()
+        final Set<CharSequence> duplicatePhoneNames = infos.stream()
                 .filter(info -> !uniqueNames.add(info.uniqueName))
                 .map(info -> info.uniqueName)
                 .collect(Collectors.toSet());
 
-        return uniqueInfos.get().map(info -> {
+        return infos.stream().map(info -> {
             if (duplicatePhoneNames.contains(info.uniqueName)) {
                 info.uniqueName = info.originalName + " "
                         + info.subscriptionInfo.getSubscriptionId();
@@ -402,8 +426,8 @@ public class SubscriptionUtil {
     @VisibleForTesting
     public static CharSequence getUniqueSubscriptionDisplayName(
             Integer subscriptionId, Context context) {
-        final Map<Integer, CharSequence> displayNames = getUniqueSubscriptionDisplayNames(context);
-        return displayNames.getOrDefault(subscriptionId, "");
+        return getSubscriptionSnapshot(context).getUniqueDisplayNames()
+                .getOrDefault(subscriptionId, "");
     }
 
     /**
@@ -665,7 +689,12 @@ public class SubscriptionUtil {
             Log.e(TAG, "Invalid subscription.");
             return null;
         }
+        return getSubscriptionSnapshot(context).getFormattedPhoneNumber(context,
+                subscriptionInfo);
+    }
 
+    @Nullable
+    static String loadFormattedPhoneNumber(Context context, SubscriptionInfo subscriptionInfo) {
         final SubscriptionManager subscriptionManager = context.getSystemService(
                 SubscriptionManager.class);
         String rawPhoneNumber = subscriptionManager.getPhoneNumber(
@@ -25,7 +25,9 @@ import android.app.settings.SettingsEnums;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -55,12 +57,12 @@ import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.R;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.panel.PanelLoggingContract.PanelClosedKeys;
+import com.android.settings.panel.PanelLoggingContract.PanelSliceLoadedKeys;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupdesign.DividerItemDecoration;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -105,6 +107,10 @@ public class PanelFragment extends Fragment {
     private ProgressBar mProgressBar;
 
     private final Map<Uri, LiveData<Slice>> mSliceLiveData = new LinkedHashMap<>();
+    // Adapter position of each Slice, built when the adapter is created.
+    private final Map<Uri, Integer> mSliceIndex = new ArrayMap<>();
+    // Elapsed realtime at which each Slice started binding.
+    private final Map<Uri, Long> mSliceBindStartTimes = new ArrayMap<>();
 
     @VisibleForTesting
     PanelSlicesLoaderCountdownLatch mPanelSlicesLoaderCountdownLatch;
@@ -328,25 +334,41 @@ public class PanelFragment extends Fragment {
 
     private void loadAllSlices() {
         mSliceLiveData.clear();
+        mSliceIndex.clear();
+        mSliceBindStartTimes.clear();
         final List<Uri> sliceUris = mPanel.getSlices();
         mPanelSlicesLoaderCountdownLatch = new PanelSlicesLoaderCountdownLatch(sliceUris.size());
+        final PanelSlicePreloader preloader = PanelSlicePreloader.getInstance();
 
         for (Uri uri : sliceUris) {
-            final LiveData<Slice> sliceLiveData = SliceLiveData.fromUri(getActivity(), uri,
-                    (int type, Throwable source)-> {
-                            removeSliceLiveData(uri);
-                            mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
-                    });
+            final SliceLiveData.OnErrorListener errorListener = (int type, Throwable source) -> {
+                removeSliceLiveData(uri);
+                markSliceLoaded(uri);
+            };
+            // Reuse the binding started when the panel intent was received, if any.
+            final PanelSlicePreloader.PreloadedSlice preloadedSlice = preloader.take(uri);
+            final LiveData<Slice> sliceLiveData;
+            if (preloadedSlice != null) {
+                sliceLiveData = preloadedSlice.getLiveData();
+                mSliceBindStartTimes.put(uri, preloadedSlice.getStartTime());
+            } else {
+                sliceLiveData = SliceLiveData.fromUri(getActivity(), uri, errorListener);
+                mSliceBindStartTimes.put(uri, SystemClock.elapsedRealtime());
+            }
 
             // Add slice first to make it in order.  Will remove it later if there's an error.
             mSliceLiveData.put(uri, sliceLiveData);
+            if (preloadedSlice != null) {
+                // After the Slice is added, so that an error of the preloaded Slice removes it.
+                preloadedSlice.setErrorListener(errorListener);
+            }
 
             sliceLiveData.observe(getViewLifecycleOwner(), slice -> {
 
                 // If the Slice has already loaded, refresh list with slice data.
                 if (mPanelSlicesLoaderCountdownLatch.isSliceLoaded(uri)) {
-                    if (mAdapter != null) {
-                        int itemIndex = (new ArrayList<>(mSliceLiveData.keySet())).indexOf(uri);
+                    final Integer itemIndex = mSliceIndex.get(uri);
+                    if (mAdapter != null && itemIndex != null) {
                         mAdapter.notifyItemChanged(itemIndex);
                     }
                     return;
@@ -370,20 +392,47 @@ public class PanelFragment extends Fragment {
                 final SliceMetadata metadata = SliceMetadata.from(getActivity(), slice);
                 if (slice == null || metadata.isErrorSlice()) {
                     removeSliceLiveData(uri);
-                    mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+                    markSliceLoaded(uri);
                 } else if (metadata.getLoadingState() == SliceMetadata.LOADED_ALL) {
-                    mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+                    markSliceLoaded(uri);
                 } else {
                     Handler handler = new Handler();
                     handler.postDelayed(() -> {
-                        mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+                        markSliceLoaded(uri);
                         loadPanelWhenReady();
                     }, DURATION_SLICE_BINDING_TIMEOUT_MS);
                 }
 
                 loadPanelWhenReady();
             });
+
+            if (preloadedSlice != null) {
+                // The panel is observing the Slice now, the preloader can let go of it.
+                preloadedSlice.detach();
+            }
+        }
+    }
+
+    /**
+     * Marks the Slice as loaded, and reports how long it took to bind the first time it loads.
+     */
+    private void markSliceLoaded(Uri uri) {
+        if (mPanelSlicesLoaderCountdownLatch.isSliceLoaded(uri)) {
+            return;
         }
+        mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+
+        final Long startTime = mSliceBindStartTimes.get(uri);
+        if (startTime == null || mMetricsProvider == null) {
+            return;
+        }
+        // Logged under its own key, SettingsSliceProvider already counts the Slice requests.
+        mMetricsProvider.action(
+                mPanel.getMetricsCategory() /* attribution */,
+                SettingsEnums.ACTION_PANEL_INTERACTION,
+                mPanel.getMetricsCategory(),
+                PanelSliceLoadedKeys.KEY_PREFIX_SLICE_LOADED + uri.getLastPathSegment() /* key */,
+                (int) (SystemClock.elapsedRealtime() - startTime) /* value */);
     }
 
     private void removeSliceLiveData(Uri uri) {
@@ -404,6 +453,11 @@ public class PanelFragment extends Fragment {
      */
     private void loadPanelWhenReady() {
         if (mPanelSlicesLoaderCountdownLatch.isPanelReadyToLoad()) {
+            mSliceIndex.clear();
+            int index = 0;
+            for (Uri uri : mSliceLiveData.keySet()) {
+                mSliceIndex.put(uri, index++);
+            }
             mAdapter = new PanelSlicesAdapter(
                     this, mSliceLiveData, mPanel.getMetricsCategory());
             mPanelSlices.setAdapter(mAdapter);
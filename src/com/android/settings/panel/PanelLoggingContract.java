@@ -44,4 +44,15 @@ public class PanelLoggingContract {
          */
         String KEY_OTHERS = "others";
     }
+
+    /**
+     * Keys tracking how long the Slices of a Panel took to load, logged with
+     * {@code ACTION_PANEL_INTERACTION} and the load time in milliseconds as the value.
+     */
+    interface PanelSliceLoadedKeys {
+        /**
+         * Prefix of the key, followed by the last path segment of the Slice Uri.
+         */
+        String KEY_PREFIX_SLICE_LOADED = "slice_loaded_";
+    }
 }
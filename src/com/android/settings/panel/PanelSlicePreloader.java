@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.panel;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.FeatureFlagUtils;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.slice.Slice;
+import androidx.slice.widget.SliceLiveData;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts binding the {@link Slice Slices} of a Panel as soon as the panel intent is received, so
+ * that {@link PanelFragment} observes Slices which are already loading instead of starting every
+ * bind after inflation.
+ * <p>
+ *     Preloaded Slices are kept alive until {@link PanelFragment} takes them over with
+ *     {@link #take(Uri)}, or until {@link #PRELOAD_EXPIRY_MS} has passed.
+ */
+@MainThread
+public class PanelSlicePreloader {
+
+    private static final String TAG = "PanelSlicePreloader";
+
+    /**
+     * Time after which preloaded Slices which were not taken over by a Panel are released, in
+     * milliseconds.
+     */
+    @VisibleForTesting
+    static final long PRELOAD_EXPIRY_MS = 5000L;
+
+    private static PanelSlicePreloader sInstance;
+
+    private final Map<Uri, PreloadedSlice> mPreloadedSlices = new ArrayMap<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mExpireRunnable = this::clear;
+
+    /**
+     * Returns the singleton instance of {@link PanelSlicePreloader}.
+     */
+    public static PanelSlicePreloader getInstance() {
+        if (sInstance == null) {
+            sInstance = new PanelSlicePreloader();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    PanelSlicePreloader() {
+    }
+
+    /**
+     * Starts binding the Slices of the Panel requested by {@code panelType}. Only the Wi-Fi,
+     * Volume and NFC panels are preloaded; other panel types are ignored.
+     */
+    public void preload(Context context, String panelType) {
+        final List<Uri> sliceUris = getPreloadableSlices(context, panelType);
+        if (sliceUris == null) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        for (Uri uri : sliceUris) {
+            if (mPreloadedSlices.containsKey(uri)) {
+                continue;
+            }
+            Log.d(TAG, "Preloading slice: " + uri);
+            mPreloadedSlices.put(uri, new PreloadedSlice(appContext, uri));
+        }
+        mHandler.removeCallbacks(mExpireRunnable);
+        mHandler.postDelayed(mExpireRunnable, PRELOAD_EXPIRY_MS);
+    }
+
+    /**
+     * Hands the preloaded Slice for {@code uri} over to the caller, or returns {@code null} if the
+     * Slice was not preloaded. Errors of the Slice are held until the caller sets its listener
+     * with {@link PreloadedSlice#setErrorListener(SliceLiveData.OnErrorListener)}.
+     * <p>
+     *     The caller must start observing {@link PreloadedSlice#getLiveData()} before calling
+     *     {@link PreloadedSlice#detach()}, so that the binding is not dropped in between.
+     */
+    @Nullable
+    public PreloadedSlice take(Uri uri) {
+        return mPreloadedSlices.remove(uri);
+    }
+
+    /**
+     * Releases all preloaded Slices which have not been taken over.
+     */
+    public void clear() {
+        mHandler.removeCallbacks(mExpireRunnable);
+        for (PreloadedSlice preloadedSlice : mPreloadedSlices.values()) {
+            preloadedSlice.detach();
+        }
+        mPreloadedSlices.clear();
+    }
+
+    @VisibleForTesting
+    boolean isPreloaded(Uri uri) {
+        return mPreloadedSlices.containsKey(uri);
+    }
+
+    @VisibleForTesting
+    @Nullable
+    List<Uri> getPreloadableSlices(Context context, String panelType) {
+        if (panelType == null) {
+            return null;
+        }
+        switch (panelType) {
+            case Settings.Panel.ACTION_WIFI:
+                return WifiPanel.create(context).getSlices();
+            case Settings.Panel.ACTION_NFC:
+                return NfcPanel.create(context).getSlices();
+            case Settings.Panel.ACTION_VOLUME:
+                if (FeatureFlagUtils.isEnabled(context,
+                        FeatureFlagUtils.SETTINGS_VOLUME_PANEL_IN_SYSTEMUI)) {
+                    // The volume panel is shown by SystemUI, there is nothing to preload.
+                    return null;
+                }
+                return VolumePanel.create(context).getSlices();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * A {@link Slice} whose binding started before its Panel was inflated.
+     */
+    public static class PreloadedSlice {
+
+        private final LiveData<Slice> mLiveData;
+        private final long mStartTime;
+        private final Observer<Slice> mKeepAliveObserver = slice -> { };
+
+        private SliceLiveData.OnErrorListener mErrorListener;
+        private boolean mHasPendingError;
+        private int mPendingErrorType;
+        private Throwable mPendingErrorSource;
+
+        PreloadedSlice(Context context, Uri uri) {
+            mStartTime = SystemClock.elapsedRealtime();
+            mLiveData = SliceLiveData.fromUri(context, uri, this::onSliceError);
+            // Observe the Slice to start binding it right away.
+            mLiveData.observeForever(mKeepAliveObserver);
+        }
+
+        /**
+         * @return the {@link LiveData} of the preloaded Slice
+         */
+        public LiveData<Slice> getLiveData() {
+            return mLiveData;
+        }
+
+        /**
+         * @return the {@link SystemClock#elapsedRealtime()} when the binding started
+         */
+        public long getStartTime() {
+            return mStartTime;
+        }
+
+        /**
+         * Stops keeping the Slice alive on behalf of the Panel.
+         */
+        public void detach() {
+            mLiveData.removeObserver(mKeepAliveObserver);
+        }
+
+        /**
+         * Reports the errors of the Slice to {@code errorListener} from now on. An error which
+         * happened before is reported right away, so the caller must be ready to handle it.
+         */
+        public void setErrorListener(SliceLiveData.OnErrorListener errorListener) {
+            mErrorListener = errorListener;
+            if (mHasPendingError) {
+                mHasPendingError = false;
+                errorListener.onSliceError(mPendingErrorType, mPendingErrorSource);
+                mPendingErrorSource = null;
+            }
+        }
+
+        private void onSliceError(int type, Throwable source) {
+            if (mErrorListener != null) {
+                mErrorListener.onSliceError(type, source);
+                return;
+            }
+            mHasPendingError = true;
+            mPendingErrorType = type;
+            mPendingErrorSource = source;
+        }
+    }
+}
@@ -137,9 +137,12 @@ public class SettingsPanelActivity extends FragmentActivity {
                 return;
             }
 
+            // Start binding the panel Slices before the panel is inflated.
+            PanelSlicePreloader.getInstance().preload(this, action);
             mPanelFragment.setArguments(new Bundle(mBundle));
             mPanelFragment.updatePanelWithAnimation();
         } else {
+            PanelSlicePreloader.getInstance().preload(this, action);
             setContentView(R.layout.settings_panel);
 
             // Move the window to the bottom of screen, and make it take up the entire screen width.
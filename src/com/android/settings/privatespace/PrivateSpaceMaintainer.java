@@ -41,6 +41,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.internal.annotations.GuardedBy;
+import com.android.settings.UserProfileTopology;
 
 import java.util.List;
 
@@ -101,6 +102,7 @@ public class PrivateSpaceMaintainer {
                 Log.e(TAG, "Failed to create private space");
                 return false;
             }
+            UserProfileTopology.invalidate();
 
             IActivityManager am = ActivityManager.getService();
             try {
@@ -133,6 +135,7 @@ public class PrivateSpaceMaintainer {
             if (mUserManager.removeUser(mUserHandle)) {
                 Log.i(TAG, "Private space deleted");
                 mUserHandle = null;
+                UserProfileTopology.invalidate();
 
                 return ErrorDeletingPrivateSpace.DELETE_PS_ERROR_NONE;
             } else {
@@ -267,7 +270,10 @@ public class PrivateSpaceMaintainer {
     public synchronized boolean lockPrivateSpace() {
         if (isPrivateProfileRunning()) {
             Log.d(TAG, "Calling requestQuietModeEnabled to enableQuietMode");
-            return mUserManager.requestQuietModeEnabled(true, mUserHandle);
+            final boolean quietModeEnabled =
+                    mUserManager.requestQuietModeEnabled(true, mUserHandle);
+            UserProfileTopology.invalidate();
+            return quietModeEnabled;
         }
         return false;
     }
@@ -281,6 +287,7 @@ public class PrivateSpaceMaintainer {
         if (mUserHandle != null) {
             Log.d(TAG, "Calling requestQuietModeEnabled to disableQuietMode");
             mUserManager.requestQuietModeEnabled(false, mUserHandle, intentSender);
+            UserProfileTopology.invalidate();
         }
     }
 
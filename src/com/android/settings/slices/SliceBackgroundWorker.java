@@ -17,7 +17,9 @@
 package com.android.settings.slices;
 
 import android.annotation.MainThread;
+import android.content.ContentResolver;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.HandlerThread;
@@ -35,9 +37,10 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The Slice background worker is used to make Settings Slices be able to work with data that is
@@ -58,11 +61,23 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
     private static final long SLICE_UPDATE_THROTTLE_INTERVAL = 300L;
 
+    /**
+     * Upper bound of the adaptive throttle, used when the client is slow to rebind after being
+     * notified.
+     */
+    @VisibleForTesting
+    static final long MAX_SLICE_UPDATE_THROTTLE_INTERVAL = 1200L;
+
+    // Guarded by itself, it is accessed from the main thread and from the binder threads binding
+    // Slices.
     private static final Map<Uri, SliceBackgroundWorker> LIVE_WORKERS = new ArrayMap<>();
 
     private final Context mContext;
     private final Uri mUri;
 
+    private final AtomicLong mSuppressedUpdateCount = new AtomicLong();
+    private final AtomicLong mDeliveredUpdateCount = new AtomicLong();
+
     private List<E> mCachedResults;
 
     protected SliceBackgroundWorker(Context context, Uri uri) {
@@ -85,7 +100,9 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
     @Nullable
     @SuppressWarnings("TypeParameterUnusedInFormals")
     public static <T extends SliceBackgroundWorker> T getInstance(Uri uri) {
-        return (T) LIVE_WORKERS.get(uri);
+        synchronized (LIVE_WORKERS) {
+            return (T) LIVE_WORKERS.get(uri);
+        }
     }
 
     /**
@@ -93,14 +110,16 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
      * CustomSliceable}
      */
     static SliceBackgroundWorker getInstance(Context context, Sliceable sliceable, Uri uri) {
-        SliceBackgroundWorker worker = getInstance(uri);
-        if (worker == null) {
-            final Class<? extends SliceBackgroundWorker> workerClass =
-                    sliceable.getBackgroundWorkerClass();
-            worker = createInstance(context.getApplicationContext(), uri, workerClass);
-            LIVE_WORKERS.put(uri, worker);
+        synchronized (LIVE_WORKERS) {
+            SliceBackgroundWorker worker = LIVE_WORKERS.get(uri);
+            if (worker == null) {
+                final Class<? extends SliceBackgroundWorker> workerClass =
+                        sliceable.getBackgroundWorkerClass();
+                worker = createInstance(context.getApplicationContext(), uri, workerClass);
+                LIVE_WORKERS.put(uri, worker);
+            }
+            return worker;
         }
-        return worker;
     }
 
     private static SliceBackgroundWorker createInstance(Context context, Uri uri,
@@ -116,14 +135,18 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
     }
 
     static void shutdown() {
-        for (SliceBackgroundWorker worker : LIVE_WORKERS.values()) {
+        final List<SliceBackgroundWorker> workers;
+        synchronized (LIVE_WORKERS) {
+            workers = new ArrayList<>(LIVE_WORKERS.values());
+            LIVE_WORKERS.clear();
+        }
+        for (SliceBackgroundWorker worker : workers) {
             try {
                 worker.close();
             } catch (IOException e) {
                 Log.w(TAG, "Shutting down worker failed", e);
             }
         }
-        LIVE_WORKERS.clear();
     }
 
     /**
@@ -164,9 +187,26 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
         if (needNotify) {
             mCachedResults = results;
             notifySliceChange();
+        } else {
+            mSuppressedUpdateCount.incrementAndGet();
         }
     }
 
+    /**
+     * @return the number of updates which did not reach the client, either because the results
+     * were unchanged or because they were merged into an already scheduled notification
+     */
+    public final long getSuppressedUpdateCount() {
+        return mSuppressedUpdateCount.get();
+    }
+
+    /**
+     * @return the number of change notifications delivered to the client for this Slice
+     */
+    public final long getDeliveredUpdateCount() {
+        return mDeliveredUpdateCount.get();
+    }
+
     protected boolean areListsTheSame(List<E> a, List<E> b) {
         return a.equals(b);
     }
@@ -179,6 +219,26 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
         NotifySliceChangeHandler.getInstance().updateSlice(this);
     }
 
+    /**
+     * Called when a Slice is bound, so that the update throttle can follow how fast the client
+     * rebinds after being notified.
+     */
+    static void onSliceBound(Uri uri) {
+        if (getInstance(uri) != null) {
+            NotifySliceChangeHandler.getInstance().onSliceBound(uri);
+        }
+    }
+
+    /**
+     * Returns the throttle interval for a Slice whose client takes {@code bindLatency}
+     * milliseconds on average to rebind after a change notification.
+     */
+    @VisibleForTesting
+    static long computeThrottleInterval(long bindLatency) {
+        return Math.max(SLICE_UPDATE_THROTTLE_INTERVAL,
+                Math.min(MAX_SLICE_UPDATE_THROTTLE_INTERVAL, bindLatency * 2));
+    }
+
     void pin() {
         onSlicePinned();
     }
@@ -190,14 +250,25 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
     private static class NotifySliceChangeHandler extends Handler {
 
-        private static final int MSG_UPDATE_SLICE = 1000;
+        private static final int MSG_FLUSH_SLICE_UPDATES = 1000;
+
+        /**
+         * Updates that become due within one display frame of each other are delivered together
+         * with a single {@link ContentResolver#notifyChange(Collection, ContentObserver, int)}.
+         */
+        private static final long BATCH_WINDOW_MS = 16L;
 
         private static NotifySliceChangeHandler sHandler;
 
-        private final Map<Uri, Long> mLastUpdateTimeLookup = Collections.synchronizedMap(
-                new ArrayMap<>());
+        private final Object mLock = new Object();
 
-        private static NotifySliceChangeHandler getInstance() {
+        // The following maps are guarded by mLock.
+        private final ArrayMap<SliceBackgroundWorker, Long> mPendingUpdates = new ArrayMap<>();
+        private final Map<Uri, Long> mLastUpdateTimeLookup = new ArrayMap<>();
+        private final Map<Uri, Long> mAwaitingBindLookup = new ArrayMap<>();
+        private final Map<Uri, Long> mBindLatencyLookup = new ArrayMap<>();
+
+        private static synchronized NotifySliceChangeHandler getInstance() {
             if (sHandler == null) {
                 final HandlerThread workerThread = new HandlerThread("NotifySliceChangeHandler",
                         Process.THREAD_PRIORITY_BACKGROUND);
@@ -213,39 +284,96 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
         @Override
         public void handleMessage(Message msg) {
-            if (msg.what != MSG_UPDATE_SLICE) {
+            if (msg.what != MSG_FLUSH_SLICE_UPDATES) {
                 return;
             }
 
-            final SliceBackgroundWorker worker = (SliceBackgroundWorker) msg.obj;
-            final Uri uri = worker.getUri();
-            final Context context = worker.getContext();
-            mLastUpdateTimeLookup.put(uri, SystemClock.uptimeMillis());
-            context.getContentResolver().notifyChange(uri, null);
+            final long now = SystemClock.uptimeMillis();
+            final Map<ContentResolver, List<Uri>> batches = new ArrayMap<>();
+            synchronized (mLock) {
+                for (int i = mPendingUpdates.size() - 1; i >= 0; i--) {
+                    if (mPendingUpdates.valueAt(i) > now + BATCH_WINDOW_MS) {
+                        continue;
+                    }
+                    final SliceBackgroundWorker worker = mPendingUpdates.keyAt(i);
+                    mPendingUpdates.removeAt(i);
+                    final Uri uri = worker.getUri();
+                    mLastUpdateTimeLookup.put(uri, now);
+                    mAwaitingBindLookup.put(uri, now);
+                    worker.mDeliveredUpdateCount.incrementAndGet();
+                    batches.computeIfAbsent(worker.getContext().getContentResolver(),
+                            k -> new ArrayList<>()).add(uri);
+                }
+                scheduleFlushLocked();
+            }
+
+            for (Map.Entry<ContentResolver, List<Uri>> batch : batches.entrySet()) {
+                batch.getKey().notifyChange(batch.getValue(), null /* observer */, 0 /* flags */);
+            }
         }
 
         private void updateSlice(SliceBackgroundWorker worker) {
-            if (hasMessages(MSG_UPDATE_SLICE, worker)) {
-                return;
+            synchronized (mLock) {
+                if (mPendingUpdates.containsKey(worker)) {
+                    // An update is already scheduled and will pick up the latest results.
+                    worker.mSuppressedUpdateCount.incrementAndGet();
+                    return;
+                }
+
+                final Uri uri = worker.getUri();
+                final long now = SystemClock.uptimeMillis();
+                final long lastUpdateTime = mLastUpdateTimeLookup.getOrDefault(uri, 0L);
+                final long dueTime;
+                if (lastUpdateTime == 0L) {
+                    // Postpone the first update triggering by onSlicePinned() to avoid being too
+                    // close to the first Slice bind.
+                    dueTime = now + SLICE_UPDATE_THROTTLE_INTERVAL;
+                } else {
+                    dueTime = Math.max(now, lastUpdateTime + getThrottleIntervalLocked(uri));
+                }
+                mPendingUpdates.put(worker, dueTime);
+                scheduleFlushLocked();
             }
+        }
 
-            final Message message = obtainMessage(MSG_UPDATE_SLICE, worker);
-            final long lastUpdateTime = mLastUpdateTimeLookup.getOrDefault(worker.getUri(), 0L);
-            if (lastUpdateTime == 0L) {
-                // Postpone the first update triggering by onSlicePinned() to avoid being too close
-                // to the first Slice bind.
-                sendMessageDelayed(message, SLICE_UPDATE_THROTTLE_INTERVAL);
-            } else if (SystemClock.uptimeMillis() - lastUpdateTime
-                    > SLICE_UPDATE_THROTTLE_INTERVAL) {
-                sendMessage(message);
-            } else {
-                sendMessageAtTime(message, lastUpdateTime + SLICE_UPDATE_THROTTLE_INTERVAL);
+        private void cancelSliceUpdate(SliceBackgroundWorker worker) {
+            synchronized (mLock) {
+                final Uri uri = worker.getUri();
+                mPendingUpdates.remove(worker);
+                mLastUpdateTimeLookup.remove(uri);
+                mAwaitingBindLookup.remove(uri);
+                mBindLatencyLookup.remove(uri);
+                scheduleFlushLocked();
             }
         }
 
-        private void cancelSliceUpdate(SliceBackgroundWorker worker) {
-            removeMessages(MSG_UPDATE_SLICE, worker);
-            mLastUpdateTimeLookup.remove(worker.getUri());
+        private void onSliceBound(Uri uri) {
+            synchronized (mLock) {
+                final Long notifyTime = mAwaitingBindLookup.remove(uri);
+                if (notifyTime == null) {
+                    return;
+                }
+                final long latency = SystemClock.uptimeMillis() - notifyTime;
+                final Long smoothedLatency = mBindLatencyLookup.get(uri);
+                mBindLatencyLookup.put(uri, smoothedLatency == null
+                        ? latency : (smoothedLatency * 3 + latency) / 4);
+            }
+        }
+
+        private long getThrottleIntervalLocked(Uri uri) {
+            return computeThrottleInterval(mBindLatencyLookup.getOrDefault(uri, 0L));
+        }
+
+        private void scheduleFlushLocked() {
+            removeMessages(MSG_FLUSH_SLICE_UPDATES);
+            if (mPendingUpdates.isEmpty()) {
+                return;
+            }
+            long earliestDueTime = Long.MAX_VALUE;
+            for (int i = 0; i < mPendingUpdates.size(); i++) {
+                earliestDueTime = Math.min(earliestDueTime, mPendingUpdates.valueAt(i));
+            }
+            sendEmptyMessageAtTime(MSG_FLUSH_SLICE_UPDATES, earliestDueTime);
         }
     };
 }
@@ -47,6 +47,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settings.accessibility.AccessibilityServiceCatalog;
 import com.android.settings.accessibility.AccessibilitySettings;
 import com.android.settings.accessibility.AccessibilitySlicePreferenceController;
 import com.android.settings.core.BasePreferenceController;
@@ -268,6 +269,8 @@ class SliceDataConverter {
                 .getStringArray(R.array.config_settings_slices_accessibility_components));
         final List<AccessibilityServiceInfo> installedServices = getAccessibilityServiceInfoList();
         final PackageManager packageManager = mContext.getPackageManager();
+        final AccessibilityServiceCatalog catalog =
+                AccessibilityServiceCatalog.getInstance(mContext);
 
         for (AccessibilityServiceInfo a11yServiceInfo : installedServices) {
             final ResolveInfo resolveInfo = a11yServiceInfo.getResolveInfo();
@@ -280,7 +283,11 @@ class SliceDataConverter {
                 continue;
             }
 
-            final String title = resolveInfo.loadLabel(packageManager).toString();
+            // Reuse the label loaded for the accessibility settings if it is still valid.
+            final AccessibilityServiceCatalog.Entry entry =
+                    catalog.getCachedServiceEntry(a11yServiceInfo);
+            final String title = (entry != null
+                    ? entry.getLabel() : resolveInfo.loadLabel(packageManager)).toString();
             int iconResource = resolveInfo.getIconResource();
             if (iconResource == 0) {
                 iconResource = R.drawable.ic_accessibility_generic;
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.LruCache;
+import android.util.SparseIntArray;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.internal.util.UserIcons;
+import com.android.settingslib.drawable.CircleFramedDrawable;
+
+/**
+ * Process-wide cache of the encircled user avatars, so that the user surfaces don't decode and
+ * frame the same icon again.
+ *
+ * <p>Avatars are cached by user ID, icon version and size. The icon version of a user is bumped
+ * when {@link Intent#ACTION_USER_INFO_CHANGED} is received for it, so an avatar loaded before the
+ * change is never returned after it.
+ */
+public class UserAvatarCache {
+    private static final String KEY_DEFAULT = "default";
+    private static final String KEY_GUEST = "guest";
+
+    private static volatile UserAvatarCache sInstance;
+
+    private final Context mContext;
+    private final UserManager mUserManager;
+    private final Object mLock = new Object();
+
+    @GuardedBy("mLock")
+    private final SparseIntArray mIconVersions = new SparseIntArray();
+
+    private final LruCache<String, Bitmap> mAvatars;
+
+    /** Returns the cache of the process, registering for user changes on first use. */
+    @NonNull
+    public static UserAvatarCache getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            synchronized (UserAvatarCache.class) {
+                if (sInstance == null) {
+                    final UserAvatarCache cache =
+                            new UserAvatarCache(context.getApplicationContext());
+                    cache.registerUserChangeReceiver();
+                    sInstance = cache;
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    UserAvatarCache(@NonNull Context context) {
+        mContext = context;
+        mUserManager = context.getSystemService(UserManager.class);
+        mAvatars = new LruCache<>(
+                (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 64)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Returns the avatar of the user if it's already loaded at this size, or {@code null}
+     * otherwise. It never decodes, so it can be called on the main thread.
+     */
+    @Nullable
+    public Drawable getCachedAvatar(int userId, int sizePx) {
+        final Bitmap avatar = mAvatars.get(getAvatarKey(userId, getIconVersion(userId), sizePx));
+        return avatar != null ? toDrawable(avatar) : null;
+    }
+
+    /**
+     * Returns the avatar of the user, decoding and encircling its icon on a cache miss. The
+     * default avatar of the user is returned when the user has no icon.
+     */
+    @WorkerThread
+    @NonNull
+    public Drawable loadAvatar(int userId, int sizePx) {
+        final int iconVersion = getIconVersion(userId);
+        final String key = getAvatarKey(userId, iconVersion, sizePx);
+        Bitmap avatar = mAvatars.get(key);
+        if (avatar == null) {
+            final Bitmap icon = mUserManager.getUserIcon(userId);
+            avatar = icon != null
+                    ? encircle(icon, sizePx)
+                    : getDefaultAvatarBitmap(userId, sizePx);
+            // The icon may have changed while it was decoded, it's loaded again next time.
+            if (iconVersion == getIconVersion(userId)) {
+                mAvatars.put(key, avatar);
+            }
+        }
+        return toDrawable(avatar);
+    }
+
+    /**
+     * Returns the encircled default avatar of the user, or the one which isn't specific to a
+     * user for {@link UserHandle#USER_NULL}, if it's already loaded at this size, or {@code null}
+     * otherwise. It never decodes, so it can be called on the main thread.
+     */
+    @Nullable
+    public Drawable getCachedDefaultAvatar(int userId, int sizePx) {
+        final Bitmap avatar = mAvatars.get(getDefaultAvatarKey(userId, sizePx));
+        return avatar != null ? toDrawable(avatar) : null;
+    }
+
+    /**
+     * Returns the encircled default avatar of the user, or the one which isn't specific to a
+     * user for {@link UserHandle#USER_NULL}, decoding it on a cache miss.
+     */
+    @WorkerThread
+    @NonNull
+    public Drawable loadDefaultAvatar(int userId, int sizePx) {
+        return toDrawable(getDefaultAvatarBitmap(userId, sizePx));
+    }
+
+    /**
+     * Returns the encircled avatar of the guest, tinted with {@code tint}, if it's already loaded
+     * at this size, or {@code null} otherwise. It never decodes, so it can be called on the main
+     * thread.
+     */
+    @Nullable
+    public Drawable getCachedGuestAvatar(int sizePx, @ColorInt int tint) {
+        final Bitmap avatar = mAvatars.get(getGuestAvatarKey(sizePx, tint));
+        return avatar != null ? toDrawable(avatar) : null;
+    }
+
+    /**
+     * Returns the encircled avatar of the guest, tinted with {@code tint}, decoding it on a cache
+     * miss.
+     */
+    @WorkerThread
+    @NonNull
+    public Drawable loadGuestAvatar(int sizePx, @ColorInt int tint) {
+        final String key = getGuestAvatarKey(sizePx, tint);
+        Bitmap avatar = mAvatars.get(key);
+        if (avatar == null) {
+            final Drawable icon = mContext.getDrawable(
+                    com.android.settingslib.R.drawable.ic_account_circle_outline).mutate();
+            icon.setTint(tint);
+            avatar = encircle(UserIcons.convertToBitmapAtUserIconSize(
+                    mContext.getResources(), icon), sizePx);
+            mAvatars.put(key, avatar);
+        }
+        return toDrawable(avatar);
+    }
+
+    /** Drops the avatars of the user, whose icon has changed or who was removed. */
+    public void invalidate(int userId) {
+        synchronized (mLock) {
+            mIconVersions.put(userId, mIconVersions.get(userId) + 1);
+        }
+        final String prefix = userId + ":";
+        for (String key : mAvatars.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mAvatars.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Shrinks the cache of the process, if it was created, according to the
+     * {@link ComponentCallbacks2} trim memory level.
+     */
+    public static void onTrimMemory(int level) {
+        final UserAvatarCache cache = sInstance;
+        if (cache != null) {
+            cache.trimMemory(level);
+        }
+    }
+
+    @VisibleForTesting
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            mAvatars.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mAvatars.trimToSize(mAvatars.size() / 2);
+        }
+    }
+
+    private Bitmap getDefaultAvatarBitmap(int userId, int sizePx) {
+        final String key = getDefaultAvatarKey(userId, sizePx);
+        Bitmap avatar = mAvatars.get(key);
+        if (avatar == null) {
+            final Resources resources = mContext.getResources();
+            avatar = encircle(UserIcons.convertToBitmapAtUserIconSize(resources,
+                    UserIcons.getDefaultUserIcon(resources, userId, false)), sizePx);
+            mAvatars.put(key, avatar);
+        }
+        return avatar;
+    }
+
+    private Drawable toDrawable(Bitmap avatar) {
+        return new BitmapDrawable(mContext.getResources(), avatar);
+    }
+
+    private int getIconVersion(int userId) {
+        synchronized (mLock) {
+            return mIconVersions.get(userId);
+        }
+    }
+
+    private void registerUserChangeReceiver() {
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_USER_INFO_CHANGED);
+        filter.addAction(Intent.ACTION_USER_REMOVED);
+        mContext.registerReceiverAsUser(
+                new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        final int userId = intent.getIntExtra(
+                                Intent.EXTRA_USER_HANDLE, UserHandle.USER_NULL);
+                        if (userId != UserHandle.USER_NULL) {
+                            invalidate(userId);
+                        }
+                    }
+                },
+                UserHandle.ALL, filter, null, null, Context.RECEIVER_NOT_EXPORTED);
+    }
+
+    private static String getAvatarKey(int userId, int iconVersion, int sizePx) {
+        return userId + ":" + iconVersion + ":" + sizePx;
+    }
+
+    private static String getDefaultAvatarKey(int userId, int sizePx) {
+        return KEY_DEFAULT + ":" + userId + ":" + sizePx;
+    }
+
+    private static String getGuestAvatarKey(int sizePx, @ColorInt int tint) {
+        return KEY_GUEST + ":" + Integer.toHexString(tint) + ":" + sizePx;
+    }
+
+    private static Bitmap encircle(Bitmap icon, int sizePx) {
+        final CircleFramedDrawable drawable = new CircleFramedDrawable(icon, sizePx);
+        final Bitmap avatar = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        drawable.setBounds(0, 0, sizePx, sizePx);
+        drawable.draw(new Canvas(avatar));
+        return avatar;
+    }
+}
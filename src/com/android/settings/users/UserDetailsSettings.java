@@ -36,6 +36,7 @@ import androidx.preference.TwoStatePreference;
 
 import com.android.settings.R;
 import com.android.settings.SettingsPreferenceFragment;
+import com.android.settings.UserProfileTopology;
 import com.android.settings.Utils;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settingslib.RestrictedLockUtils;
@@ -321,6 +322,7 @@ public class UserDetailsSettings extends SettingsPreferenceFragment
                 SettingsEnums.ACTION_USER_GUEST_EXIT_CONFIRMED);
 
         mUserManager.removeUser(mUserInfo.id);
+        UserProfileTopology.invalidate();
         setResult(UserSettings.RESULT_GUEST_REMOVED);
         finishFragment();
     }
@@ -500,6 +502,7 @@ public class UserDetailsSettings extends SettingsPreferenceFragment
 
     private void removeUser() {
         mUserManager.removeUser(mUserInfo.id);
+        UserProfileTopology.invalidate();
         finishFragment();
     }
 
@@ -59,6 +59,7 @@ import android.view.WindowManagerGlobal;
 import android.widget.SimpleAdapter;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.appcompat.app.AlertDialog;
@@ -71,6 +72,7 @@ import com.android.internal.widget.LockPatternUtils;
 import com.android.settings.R;
 import com.android.settings.SettingsActivity;
 import com.android.settings.SettingsPreferenceFragment;
+import com.android.settings.UserProfileTopology;
 import com.android.settings.Utils;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.password.ChooseLockGeneric;
@@ -203,7 +205,8 @@ public class UserSettings extends SettingsPreferenceFragment
     @VisibleForTesting
     RestrictedPreference mAddSupervisedUser;
     @VisibleForTesting
-    SparseArray<Bitmap> mUserIcons = new SparseArray<>();
+    UserAvatarCache mAvatarCache;
+    private boolean mLoadingDefaultIcons;
     private int mRemovingUserId = -1;
     private boolean mAddingUser;
     private boolean mGuestUserAutoCreated;
@@ -236,9 +239,6 @@ public class UserSettings extends SettingsPreferenceFragment
     private Drawable mPendingUserIcon;
     private boolean mPendingUserIsAdmin;
 
-    // A place to cache the generated default avatar
-    private Drawable mDefaultIconDrawable;
-
     // TODO:   Replace current Handler solution to something that doesn't leak memory and works
     // TODO:   during a configuration change
     private Handler mHandler = new Handler() {
@@ -266,7 +266,7 @@ public class UserSettings extends SettingsPreferenceFragment
             } else if (intent.getAction().equals(Intent.ACTION_USER_INFO_CHANGED)) {
                 int userHandle = intent.getIntExtra(Intent.EXTRA_USER_HANDLE, -1);
                 if (userHandle != -1) {
-                    mUserIcons.remove(userHandle);
+                    getAvatarCache().invalidate(userHandle);
                 }
             }
             mHandler.sendEmptyMessage(MESSAGE_UPDATE_LIST);
@@ -518,6 +518,8 @@ public class UserSettings extends SettingsPreferenceFragment
             return;
         }
 
+        final UserAvatarCache avatarCache = getAvatarCache();
+        final int iconSize = getUserIconSize();
         new AsyncTask<Void, Void, String>() {
             @Override
             protected void onPostExecute(String result) {
@@ -531,6 +533,8 @@ public class UserSettings extends SettingsPreferenceFragment
                     // Assign profile photo.
                     copyMeProfilePhoto(getActivity(), user);
                 }
+                // Decode the avatar here, finishLoadProfile only reads it from the cache.
+                avatarCache.loadAvatar(user.id, iconSize);
                 return user.name;
             }
         }.execute();
@@ -541,11 +545,10 @@ public class UserSettings extends SettingsPreferenceFragment
             return;
         }
         mMePreference.setTitle(getString(R.string.user_you, profileName));
-        int myUserId = UserHandle.myUserId();
-        Bitmap b = mUserManager.getUserIcon(myUserId);
-        if (b != null) {
-            mMePreference.setIcon(encircleUserIcon(b));
-            mUserIcons.put(myUserId, b);
+        final Drawable avatar =
+                getAvatarCache().getCachedAvatar(UserHandle.myUserId(), getUserIconSize());
+        if (avatar != null) {
+            mMePreference.setIcon(avatar);
         }
     }
 
@@ -617,6 +620,7 @@ public class UserSettings extends SettingsPreferenceFragment
             Trace.beginSection("UserSettings.addGuest");
             final UserInfo guest = mUserManager.createGuest(context);
             Trace.endSection();
+            UserProfileTopology.invalidate();
 
             ThreadUtils.postOnMainThread(() -> {
                 guestCreatingDialog.dismiss();
@@ -976,6 +980,7 @@ public class UserSettings extends SettingsPreferenceFragment
                 public void run() {
                     synchronized (mUserLock) {
                         mUserManager.removeUser(mRemovingUserId);
+                        UserProfileTopology.invalidate();
                         mHandler.sendEmptyMessage(MESSAGE_UPDATE_LIST);
                     }
                 }
@@ -1045,6 +1050,7 @@ public class UserSettings extends SettingsPreferenceFragment
             } else {
                 user = mUserManager.createRestrictedProfile(userName);
             }
+            UserProfileTopology.invalidate();
 
             ThreadUtils.postOnMainThread(() -> {
                 if (user == null) {
@@ -1127,6 +1133,7 @@ public class UserSettings extends SettingsPreferenceFragment
             Log.e(TAG, "Couldn't create guest, most likely because there already exists one");
             return UserHandle.USER_NULL;
         }
+        UserProfileTopology.invalidate();
         return guest.id;
     }
 
@@ -1177,6 +1184,7 @@ public class UserSettings extends SettingsPreferenceFragment
             mHandler.sendEmptyMessage(MESSAGE_UPDATE_LIST);
             mExecutor.execute(() -> {
                 UserInfo guest = mUserManager.createGuest(getContext());
+                UserProfileTopology.invalidate();
                 mGuestCreationScheduled.set(false);
                 if (guest == null) {
                     Log.e(TAG, "Unable to automatically recreate guest user");
@@ -1212,6 +1220,7 @@ public class UserSettings extends SettingsPreferenceFragment
 
         final ArrayList<Integer> missingIcons = new ArrayList<>();
         final ArrayList<UserPreference> userPreferences = new ArrayList<>();
+        final int iconSize = getUserIconSize();
 
         // mMePreference shows a icon for current user. However when current user is a guest, we
         // don't show the guest user icon, instead we show two preferences for guest user to
@@ -1262,12 +1271,13 @@ public class UserSettings extends SettingsPreferenceFragment
                 pref.setSummary(R.string.user_summary_restricted_profile);
             }
             if (user.iconPath != null) {
-                if (mUserIcons.get(user.id) == null) {
+                final Drawable avatar = getAvatarCache().getCachedAvatar(user.id, iconSize);
+                if (avatar == null) {
                     // Icon not loaded yet, print a placeholder
                     missingIcons.add(user.id);
                     pref.setIcon(getEncircledDefaultIcon());
                 } else {
-                    setPhotoId(pref, user);
+                    pref.setIcon(avatar);
                 }
             } else {
                 // Icon not available yet, print a placeholder
@@ -1407,13 +1417,7 @@ public class UserSettings extends SettingsPreferenceFragment
             pref.setOnPreferenceClickListener(this);
             pref.setEnabled(canOpenUserDetails);
             pref.setSelectable(true);
-            Drawable icon = getContext().getDrawable(
-                    com.android.settingslib.R.drawable.ic_account_circle_outline);
-            icon.setTint(
-                    getColorAttrDefaultColor(getContext(), android.R.attr.colorControlNormal));
-            pref.setIcon(encircleUserIcon(
-                    UserIcons.convertToBitmapAtUserIconSize(
-                            getContext().getResources(), icon)));
+            pref.setIcon(getEncircledGuestIcon());
             pref.setKey(KEY_USER_GUEST);
             pref.setOrder(Preference.DEFAULT_ORDER);
             if (mUserCaps.mDisallowSwitchUser) {
@@ -1548,6 +1552,8 @@ public class UserSettings extends SettingsPreferenceFragment
     }
 
     private void loadIconsAsync(List<Integer> missingIcons) {
+        final UserAvatarCache avatarCache = getAvatarCache();
+        final int iconSize = getUserIconSize();
         new AsyncTask<List<Integer>, Void, Void>() {
             @Override
             protected void onPostExecute(Void result) {
@@ -1557,30 +1563,83 @@ public class UserSettings extends SettingsPreferenceFragment
             @Override
             protected Void doInBackground(List<Integer>... values) {
                 for (int userId : values[0]) {
-                    Bitmap bitmap = mUserManager.getUserIcon(userId);
-                    if (bitmap == null) {
-                        bitmap = getDefaultUserIconAsBitmap(getContext().getResources(), userId);
-                    }
-                    mUserIcons.append(userId, bitmap);
+                    avatarCache.loadAvatar(userId, iconSize);
                 }
                 return null;
             }
         }.execute(missingIcons);
     }
 
+    /**
+     * Returns the encircled default icon, or {@code null} while it is loaded in the background.
+     */
+    @Nullable
     private Drawable getEncircledDefaultIcon() {
-        if (mDefaultIconDrawable == null) {
-            mDefaultIconDrawable = encircleUserIcon(
-                    getDefaultUserIconAsBitmap(getContext().getResources(), UserHandle.USER_NULL));
+        final Drawable icon =
+                getAvatarCache().getCachedDefaultAvatar(UserHandle.USER_NULL, getUserIconSize());
+        if (icon == null) {
+            loadDefaultIconsAsync();
+        }
+        return icon;
+    }
+
+    /**
+     * Returns the encircled guest icon, or {@code null} while it is loaded in the background.
+     */
+    @Nullable
+    private Drawable getEncircledGuestIcon() {
+        final Drawable icon =
+                getAvatarCache().getCachedGuestAvatar(getUserIconSize(), getGuestIconTint());
+        if (icon == null) {
+            loadDefaultIconsAsync();
+        }
+        return icon;
+    }
+
+    private void loadDefaultIconsAsync() {
+        if (mLoadingDefaultIcons) {
+            return;
         }
-        return mDefaultIconDrawable;
+        mLoadingDefaultIcons = true;
+        final UserAvatarCache avatarCache = getAvatarCache();
+        final int iconSize = getUserIconSize();
+        final int guestIconTint = getGuestIconTint();
+        new AsyncTask<Void, Void, Void>() {
+            @Override
+            protected void onPostExecute(Void result) {
+                mLoadingDefaultIcons = false;
+                if (getActivity() == null) {
+                    return;
+                }
+                if (isCurrentUserGuest()) {
+                    mMePreference.setIcon(getEncircledDefaultIcon());
+                }
+                updateUserList();
+            }
+
+            @Override
+            protected Void doInBackground(Void... values) {
+                avatarCache.loadDefaultAvatar(UserHandle.USER_NULL, iconSize);
+                avatarCache.loadGuestAvatar(iconSize, guestIconTint);
+                return null;
+            }
+        }.execute();
+    }
+
+    private int getGuestIconTint() {
+        return getColorAttrDefaultColor(getContext(), android.R.attr.colorControlNormal);
     }
 
-    private void setPhotoId(Preference pref, UserInfo user) {
-        Bitmap bitmap = mUserIcons.get(user.id);
-        if (bitmap != null) {
-            pref.setIcon(encircleUserIcon(bitmap));
+    private UserAvatarCache getAvatarCache() {
+        if (mAvatarCache == null) {
+            mAvatarCache = UserAvatarCache.getInstance(getContext());
         }
+        return mAvatarCache;
+    }
+
+    private int getUserIconSize() {
+        return getContext().getResources().getDimensionPixelSize(
+                R.dimen.multiple_users_user_icon_size);
     }
 
     @Override
@@ -1633,13 +1692,6 @@ public class UserSettings extends SettingsPreferenceFragment
         return false;
     }
 
-    private Drawable encircleUserIcon(Bitmap icon) {
-        return new CircleFramedDrawable(
-                icon,
-                getActivity().getResources().getDimensionPixelSize(
-                        R.dimen.multiple_users_user_icon_size));
-    }
-
     @Override
     public void onDismiss(DialogInterface dialog) {
         synchronized (mUserLock) {
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.android.settings.applications.manageapplications.ManageApplications.LIST_TYPE_STORAGE;
+import static com.android.settings.applications.manageapplications.ManageApplications.STORAGE_TYPE_DEFAULT;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
+import com.android.settings.testutils.perf.BenchmarkRule;
+import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+import com.android.settingslib.applications.ApplicationsState.AppFilter;
+import com.android.settingslib.applications.ApplicationsState.CompoundFilter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures filtering and sorting the app list of {@link ManageApplications}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ManageApplicationsBenchmark {
+
+    private static final int APP_COUNT = 1000;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private List<AppEntry> mEntries;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mEntries = new ArrayList<>(APP_COUNT);
+        for (int i = 0; i < APP_COUNT; i++) {
+            final ApplicationInfo info = new ApplicationInfo();
+            info.packageName = "com.example.app" + i;
+            info.sourceDir = "/data/app/" + info.packageName;
+            info.uid = 10000 + i;
+            info.flags = ApplicationInfo.FLAG_INSTALLED;
+            if (i % 4 == 0) {
+                info.flags |= ApplicationInfo.FLAG_SYSTEM;
+            }
+            info.category = i % 10 == 0 ? ApplicationInfo.CATEGORY_GAME
+                    : ApplicationInfo.CATEGORY_UNDEFINED;
+            final AppEntry entry = new AppEntry(context, info, i);
+            // Shuffle the labels so that sorting has real work to do.
+            entry.label = "App " + ((i * 7919) % APP_COUNT);
+            entry.size = (i * 104729L) % (512L * 1024 * 1024);
+            entry.internalSize = entry.size;
+            entry.externalSize = entry.size / 2;
+            entry.hasLauncherEntry = i % 3 != 0;
+            mEntries.add(entry);
+        }
+    }
+
+    @Test
+    public void filterStorageApps() {
+        final AppFilter filter = new CompoundFilter(
+                new CompoundFilter(ApplicationsState.FILTER_EVERYTHING,
+                        ManageApplications.getCompositeFilter(LIST_TYPE_STORAGE,
+                                STORAGE_TYPE_DEFAULT, null /* volumeUuid */)),
+                ApplicationsState.FILTER_DOWNLOADED_AND_LAUNCHER);
+        mBenchmarkRule.measure(() -> {
+            filter.init();
+            final List<AppEntry> filtered = new ArrayList<>();
+            for (AppEntry entry : mEntries) {
+                if (filter.filterApp(entry)) {
+                    filtered.add(entry);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void sortByLabel() {
+        mBenchmarkRule.measure(() -> new ArrayList<>(mEntries),
+                entries -> Collections.sort(entries, ApplicationsState.ALPHA_COMPARATOR));
+    }
+
+    @Test
+    public void sortBySize() {
+        mBenchmarkRule.measure(() -> new ArrayList<>(mEntries),
+                entries -> Collections.sort(entries, ApplicationsState.SIZE_COMPARATOR));
+    }
+}
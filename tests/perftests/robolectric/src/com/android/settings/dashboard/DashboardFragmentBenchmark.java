@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.app.settings.SettingsEnums;
+import android.content.Context;
+
+import androidx.preference.Preference;
+import androidx.preference.PreferenceCategory;
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.core.instrumentation.StartupTracer;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.perf.BenchmarkRule;
+import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.core.instrumentation.VisibilityLoggerMixin;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class DashboardFragmentBenchmark {
+
+    private static final int CONTROLLER_COUNT = 200;
+    private static final int CATEGORY_COUNT = 10;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        FakeFeatureFactory.setupForTest();
+        StartupTracer.reset();
+    }
+
+    @After
+    public void tearDown() {
+        StartupTracer.reset();
+    }
+
+    @Test
+    public void onAttach_createControllers() {
+        mBenchmarkRule.measure(() -> new BenchmarkFragment(mContext),
+                fragment -> fragment.onAttach(mContext));
+    }
+
+    @Test
+    public void onAttach_recordsStartupControllerCount() {
+        new BenchmarkFragment(mContext).onAttach(mContext);
+
+        // The placeholder controller for the dashboard tiles is created too.
+        assertThat(StartupTracer.getSnapshot()
+                .getCounter(StartupTracer.COUNTER_CONTROLLERS_CREATED))
+                .isEqualTo(CONTROLLER_COUNT + 1);
+    }
+
+    @Test
+    public void updatePreferenceStates() {
+        final BenchmarkFragment fragment = new BenchmarkFragment(mContext);
+        fragment.onAttach(mContext);
+
+        mBenchmarkRule.measure(fragment::updatePreferenceStates);
+    }
+
+    @Test
+    public void forceUpdatePreferences() {
+        final BenchmarkFragment fragment = new BenchmarkFragment(mContext);
+        fragment.onAttach(mContext);
+
+        mBenchmarkRule.measure(fragment::forceUpdatePreferences);
+    }
+
+    /**
+     * Fragment with {@link #CONTROLLER_COUNT} controllers, whose preferences are spread over
+     * {@link #CATEGORY_COUNT} categories.
+     */
+    private static class BenchmarkFragment extends DashboardFragment {
+
+        private final Context mContext;
+        private final PreferenceManager mPreferenceManager;
+        private final PreferenceScreen mScreen;
+
+        BenchmarkFragment(Context context) {
+            mContext = context;
+            mPreferenceManager = new PreferenceManager(context);
+            mScreen = mPreferenceManager.createPreferenceScreen(context);
+            final List<PreferenceCategory> categories = new ArrayList<>();
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                final PreferenceCategory category = new PreferenceCategory(context);
+                category.setKey("category_" + i);
+                mScreen.addPreference(category);
+                categories.add(category);
+            }
+            for (int i = 0; i < CONTROLLER_COUNT; i++) {
+                final Preference preference = new Preference(context);
+                preference.setKey(getPreferenceKey(i));
+                categories.get(i % CATEGORY_COUNT).addPreference(preference);
+            }
+            ReflectionHelpers.setField(
+                    this, "mVisibilityLoggerMixin", mock(VisibilityLoggerMixin.class));
+        }
+
+        @Override
+        public Context getContext() {
+            return mContext;
+        }
+
+        @Override
+        public int getMetricsCategory() {
+            return SettingsEnums.PAGE_UNKNOWN;
+        }
+
+        @Override
+        public PreferenceScreen getPreferenceScreen() {
+            return mScreen;
+        }
+
+        @Override
+        public PreferenceManager getPreferenceManager() {
+            return mPreferenceManager;
+        }
+
+        @Override
+        protected String getLogTag() {
+            return "BenchmarkFragment";
+        }
+
+        @Override
+        protected int getPreferenceScreenResId() {
+            return 0;
+        }
+
+        @Override
+        protected List<AbstractPreferenceController> createPreferenceControllers(Context context) {
+            final List<AbstractPreferenceController> controllers = new ArrayList<>();
+            for (int i = 0; i < CONTROLLER_COUNT; i++) {
+                controllers.add(new SummaryController(context, getPreferenceKey(i)));
+            }
+            return controllers;
+        }
+
+        private static String getPreferenceKey(int index) {
+            return "preference_" + index;
+        }
+    }
+
+    private static class SummaryController extends BasePreferenceController {
+
+        SummaryController(Context context, String key) {
+            super(context, key);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return AVAILABLE;
+        }
+
+        @Override
+        public CharSequence getSummary() {
+            return getPreferenceKey();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.TextView;
+
+import com.android.settings.testutils.perf.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures one frame of {@link BatteryChartView#draw(Canvas)} on a laid out chart. The allocated
+ * bytes per operation are the allocations per frame, which should stay at zero once the chart
+ * geometry is computed by the first frame.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class BatteryChartViewBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    private static final int HOURLY_SLOTS = 12;
+    private static final int DAILY_SLOTS = 7;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void draw_hourlyChart() {
+        final BatteryChartView chartView = createChartView(
+                createViewModel(HOURLY_SLOTS + 1,
+                        BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS));
+
+        mBenchmarkRule.measure(() -> chartView.draw(mCanvas));
+    }
+
+    @Test
+    public void draw_dailyChart() {
+        final BatteryChartView chartView = createChartView(
+                createViewModel(DAILY_SLOTS + 1,
+                        BatteryChartViewModel.AxisLabelPosition.CENTER_OF_TRAPEZOIDS));
+
+        mBenchmarkRule.measure(() -> chartView.draw(mCanvas));
+    }
+
+    private BatteryChartView createChartView(BatteryChartViewModel viewModel) {
+        final BatteryChartView chartView =
+                new BatteryChartView(mContext, Robolectric.buildAttributeSet().build());
+        chartView.setCompanionTextView(new TextView(mContext));
+        chartView.setViewModel(viewModel);
+        chartView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        chartView.layout(0, 0, WIDTH, HEIGHT);
+        return chartView;
+    }
+
+    private static BatteryChartViewModel createViewModel(
+            int size, BatteryChartViewModel.AxisLabelPosition axisLabelPosition) {
+        final List<Integer> levels = new ArrayList<>(size);
+        final List<Long> timestamps = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            levels.add(100 - index * 5);
+            timestamps.add(index * 3_600_000L);
+        }
+        final BatteryChartViewModel viewModel =
+                new BatteryChartViewModel(
+                        levels,
+                        timestamps,
+                        axisLabelPosition,
+                        new BatteryChartViewModel.LabelTextGenerator() {
+                            @Override
+                            public String generateText(List<Long> timestamps, int index) {
+                                return index + "h";
+                            }
+
+                            @Override
+                            public String generateFullText(List<Long> timestamps, int index) {
+                                return index + " hours";
+                            }
+
+                            @Override
+                            public String generateSlotBatteryLevelText(
+                                    List<Integer> levels, int index) {
+                                return levels.get(index) + "%";
+                            }
+                        });
+        viewModel.setSelectedIndex(size / 2);
+        viewModel.setHighlightSlotIndex(1);
+        return viewModel;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.perf.BenchmarkRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Measures the battery usage processing done by
+ * {@link DataProcessor#getBatteryUsageData(Context, Map)} on a synthetic week of hourly history,
+ * without the read of the current data from the battery stats service.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DataProcessorBenchmark {
+
+    // 2022-01-01 00:05:00 GMT+8
+    private static final long START_TIMESTAMP = 1640966700000L;
+    private static final int HISTORY_HOURS = 7 * 24;
+    private static final int APP_COUNT = 60;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+    private Map<String, BatteryHistEntry> mCurrentBatteryHistoryMap;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT+8"));
+        mContext = RuntimeEnvironment.application;
+        FakeFeatureFactory.setupForTest();
+        DataProcessor.sTestSystemAppsPackageNames = Set.of();
+
+        mBatteryHistoryMap = new ArrayMap<>();
+        for (int hour = 0; hour <= HISTORY_HOURS; hour++) {
+            // Take snapshots a few minutes after each hour, like the periodic job does.
+            final long timestamp = START_TIMESTAMP + hour * DateUtils.HOUR_IN_MILLIS
+                    + (hour % 7) * DateUtils.MINUTE_IN_MILLIS;
+            final int batteryLevel = 100 - (hour % 24) * 3;
+            final Map<String, BatteryHistEntry> entries = new ArrayMap<>();
+            for (int app = 0; app < APP_COUNT; app++) {
+                final BatteryHistEntry entry = createBatteryHistEntry(app, hour, batteryLevel);
+                entries.put(entry.getKey(), entry);
+            }
+            mBatteryHistoryMap.put(timestamp, entries);
+            mCurrentBatteryHistoryMap = entries;
+        }
+        DataProcessor.sTestCurrentTimeMillis = START_TIMESTAMP
+                + (HISTORY_HOURS + 1) * DateUtils.HOUR_IN_MILLIS;
+    }
+
+    @After
+    public void tearDown() {
+        DataProcessor.sTestCurrentTimeMillis = 0;
+        DataProcessor.sTestSystemAppsPackageNames = null;
+    }
+
+    @Test
+    public void getBatteryUsageData() {
+        mBenchmarkRule.measure(() -> {
+            final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
+                    DataProcessor.getHistoryMapWithExpectedTimestamps(
+                            mContext, mBatteryHistoryMap);
+            final BatteryLevelData batteryLevelData =
+                    DataProcessor.getLevelDataThroughProcessedHistoryMap(
+                            mContext, processedBatteryHistoryMap);
+            for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
+                    processedBatteryHistoryMap.entrySet()) {
+                if (mapEntry.getValue().containsKey(
+                        DataProcessor.CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
+                    mapEntry.setValue(mCurrentBatteryHistoryMap);
+                }
+            }
+            DataProcessor.generateBatteryUsageMap(
+                    mContext,
+                    DataProcessor.getBatteryDiffDataMap(
+                            mContext,
+                            batteryLevelData.getHourlyBatteryLevelsPerDay(),
+                            processedBatteryHistoryMap,
+                            /* appUsagePeriodMap= */ null,
+                            Set.of(),
+                            Set.of()),
+                    batteryLevelData);
+        });
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(int app, int hour, int batteryLevel) {
+        // Usage grows over time, so that every hourly slot has a positive diff.
+        final double consumePower = (app + 1) * (hour + 1) * 0.5;
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setAppLabel("App " + app)
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageConsumePower(consumePower * 0.6)
+                        .setBackgroundUsageConsumePower(consumePower * 0.4)
+                        .setForegroundUsageTimeInMs((app + 1) * (hour + 1) * 1000L)
+                        .setBackgroundUsageTimeInMs((app + 1) * (hour + 1) * 500L)
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder()
+                                        .setBatteryLevel(batteryLevel)
+                                        .build())
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, "com.android.test.app" + app);
+        values.put(BatteryHistEntry.KEY_UID, 10000L + app);
+        values.put(BatteryHistEntry.KEY_USER_ID, 0L);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(
+                BatteryHistEntry.KEY_BATTERY_INFORMATION,
+                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+        return new BatteryHistEntry(values);
+    }
+}
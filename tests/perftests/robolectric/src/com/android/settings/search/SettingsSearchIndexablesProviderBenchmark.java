@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static org.mockito.Mockito.mock;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.ProviderInfo;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.SearchIndexableResource;
+import android.provider.SearchIndexablesContract;
+
+import com.android.settings.R;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.perf.BenchmarkRule;
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SettingsSearchIndexablesProviderBenchmark {
+
+    private static final String PACKAGE_NAME = "com.android.settings";
+    private static final String BASE_AUTHORITY = "content://" + PACKAGE_NAME + "/";
+    private static final int PROVIDER_COUNT = 100;
+    private static final int RAW_DATA_PER_PROVIDER = 10;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private SettingsSearchIndexablesProvider mProvider;
+    private FakeFeatureFactory mFakeFeatureFactory;
+
+    @Before
+    public void setUp() {
+        mProvider = new SettingsSearchIndexablesProvider();
+        final ProviderInfo info = new ProviderInfo();
+        info.exported = true;
+        info.grantUriPermissions = true;
+        info.authority = PACKAGE_NAME;
+        info.readPermission = Manifest.permission.READ_SEARCH_INDEXABLES;
+        mProvider.attachInfo(RuntimeEnvironment.application, info);
+
+        final SearchFeatureProvider featureProvider = new SearchFeatureProviderImpl();
+        featureProvider.getSearchIndexableResources().getProviderValues().clear();
+        for (int i = 0; i < PROVIDER_COUNT; i++) {
+            featureProvider.getSearchIndexableResources().getProviderValues()
+                    .add(new SearchIndexableData(SettingsSearchIndexablesProviderBenchmark.class,
+                            SEARCH_INDEX_DATA_PROVIDER));
+        }
+        mFakeFeatureFactory = FakeFeatureFactory.setupForTest();
+        mFakeFeatureFactory.searchFeatureProvider = featureProvider;
+    }
+
+    @After
+    public void tearDown() {
+        mFakeFeatureFactory.searchFeatureProvider = mock(SearchFeatureProvider.class);
+    }
+
+    @Test
+    public void queryXmlResources() {
+        measureQuery(SearchIndexablesContract.INDEXABLES_XML_RES_PATH,
+                SearchIndexablesContract.INDEXABLES_XML_RES_COLUMNS);
+    }
+
+    @Test
+    public void queryRawData() {
+        measureQuery(SearchIndexablesContract.INDEXABLES_RAW_PATH,
+                SearchIndexablesContract.INDEXABLES_RAW_COLUMNS);
+    }
+
+    @Test
+    public void queryNonIndexableKeys() {
+        measureQuery(SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH,
+                SearchIndexablesContract.NON_INDEXABLES_KEYS_COLUMNS);
+    }
+
+    private void measureQuery(String path, String[] projection) {
+        final Uri uri = Uri.parse(BASE_AUTHORITY + path);
+        mBenchmarkRule.measure(() -> {
+            try (Cursor cursor = mProvider.query(uri, projection, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    cursor.getString(0);
+                }
+            }
+        });
+    }
+
+    private static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
+            new BaseSearchIndexProvider(R.xml.display_settings) {
+                @Override
+                public List<SearchIndexableRaw> getRawDataToIndex(Context context,
+                        boolean enabled) {
+                    final List<SearchIndexableRaw> result = new ArrayList<>();
+                    for (int i = 0; i < RAW_DATA_PER_PROVIDER; i++) {
+                        final SearchIndexableRaw data = new SearchIndexableRaw(context);
+                        data.key = "raw_key_" + i;
+                        data.title = "Raw title " + i;
+                        data.summaryOn = "Raw summary " + i;
+                        data.keywords = "keyword, other keyword";
+                        data.screenTitle = "Raw screen title";
+                        result.add(data);
+                    }
+                    return result;
+                }
+
+                @Override
+                public List<SearchIndexableResource> getXmlResourcesToIndex(Context context,
+                        boolean enabled) {
+                    return super.getXmlResourcesToIndex(context, enabled);
+                }
+            };
+}
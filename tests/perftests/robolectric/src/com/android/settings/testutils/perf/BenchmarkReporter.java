@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.testutils.perf;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Collects {@link BenchmarkResult BenchmarkResults}, writes them as JSON, and provides the
+ * baseline they are compared against.
+ */
+public class BenchmarkReporter {
+
+    /**
+     * Relative slowdown over the baseline which fails a benchmark, once the baseline is scaled
+     * to the speed of the host.
+     */
+    static final double TIME_REGRESSION_TOLERANCE = 0.5;
+
+    /** Relative allocation growth over the baseline which fails a benchmark. */
+    static final double ALLOCATION_REGRESSION_TOLERANCE = 0.25;
+
+    /** Allocation growth always tolerated, to absorb JVM noise on tiny benchmarks. */
+    static final long ALLOCATION_SLACK_BYTES = 1024L;
+
+    private static final String PROPERTY_OUTPUT = "settings.perf.output";
+    private static final String PROPERTY_IGNORE_BASELINE = "settings.perf.ignore_baseline";
+    private static final String DEFAULT_OUTPUT_FILE = "SettingsRoboPerfTests.json";
+    private static final String BASELINE_RESOURCE = "/settings_perf_baseline.json";
+
+    /** Name of the fixed workload which measures the speed of the host. */
+    static final String CALIBRATION_NAME = "BenchmarkReporter#calibration";
+    private static final int CALIBRATION_SIZE = 100_000;
+    private static final int CALIBRATION_WARMUP_ITERATIONS = 5;
+    private static final int CALIBRATION_MEASURED_ITERATIONS = 11;
+
+    private static BenchmarkReporter sInstance;
+
+    private final Map<String, BenchmarkResult> mResults = new LinkedHashMap<>();
+    private final Map<String, BenchmarkResult> mBaseline = new LinkedHashMap<>();
+    private final File mOutputFile;
+    private BenchmarkResult mCalibration;
+
+    public static synchronized BenchmarkReporter getInstance() {
+        if (sInstance == null) {
+            sInstance = new BenchmarkReporter();
+        }
+        return sInstance;
+    }
+
+    private BenchmarkReporter() {
+        final String output = System.getProperty(PROPERTY_OUTPUT);
+        mOutputFile = output != null
+                ? new File(output)
+                : new File(System.getProperty("java.io.tmpdir"), DEFAULT_OUTPUT_FILE);
+        loadBaseline();
+    }
+
+    /**
+     * Records {@code result} and rewrites the results file, so that results survive a crash of a
+     * later benchmark.
+     */
+    public synchronized void record(BenchmarkResult result) {
+        // The calibration is recorded with the results, so that it is copied into the baseline.
+        getCalibration();
+        mResults.put(result.getName(), result);
+        try (Writer writer = new FileWriter(mOutputFile, StandardCharsets.UTF_8)) {
+            final JSONObject json = new JSONObject();
+            for (BenchmarkResult entry : mResults.values()) {
+                json.put(entry.getName(), entry.toJson());
+            }
+            writer.write(json.toString(2));
+        } catch (IOException | JSONException e) {
+            throw new IllegalStateException("Cannot write benchmark results to " + mOutputFile,
+                    e);
+        }
+    }
+
+    /**
+     * @return the baseline recorded for {@code name}, or {@code null} if there is none
+     */
+    public synchronized BenchmarkResult getBaseline(String name) {
+        return mBaseline.get(name);
+    }
+
+    /**
+     * Returns how much slower this host is than the one which recorded the baseline, measured by
+     * running the same fixed workload on both. The wall time of the baseline is multiplied by
+     * this factor before being compared, so that it doesn't depend on the speed of the host.
+     */
+    synchronized double getHostSlowdown() {
+        final BenchmarkResult baseline = mBaseline.get(CALIBRATION_NAME);
+        if (baseline == null) {
+            throw new AssertionError("No " + CALIBRATION_NAME + " entry in " + BASELINE_RESOURCE
+                    + ", record the baseline again");
+        }
+        return (double) getCalibration().getMedianNanos() / baseline.getMedianNanos();
+    }
+
+    private BenchmarkResult getCalibration() {
+        if (mCalibration == null) {
+            mCalibration = calibrate();
+            mResults.put(CALIBRATION_NAME, mCalibration);
+        }
+        return mCalibration;
+    }
+
+    boolean isBaselineIgnored() {
+        return Boolean.getBoolean(PROPERTY_IGNORE_BASELINE);
+    }
+
+    /** Sorts the same pseudo-random numbers repeatedly, to measure the speed of the host. */
+    private static BenchmarkResult calibrate() {
+        final long[] durations = new long[CALIBRATION_MEASURED_ITERATIONS];
+        for (int i = -CALIBRATION_WARMUP_ITERATIONS; i < durations.length; i++) {
+            final int[] values = new Random(CALIBRATION_SIZE).ints(CALIBRATION_SIZE).toArray();
+            final long startTime = System.nanoTime();
+            Arrays.sort(values);
+            if (i >= 0) {
+                durations[i] = System.nanoTime() - startTime;
+            }
+        }
+        Arrays.sort(durations);
+        return new BenchmarkResult(CALIBRATION_NAME, durations.length,
+                durations[durations.length / 2], durations[0],
+                durations[(int) (durations.length * 0.9)], /* allocatedBytes= */ -1L);
+    }
+
+    private void loadBaseline() {
+        try (InputStream in = BenchmarkReporter.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            if (in == null) {
+                return;
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            final JSONObject json = new JSONObject(out.toString(StandardCharsets.UTF_8));
+            final Iterator<String> names = json.keys();
+            while (names.hasNext()) {
+                final String name = names.next();
+                mBaseline.put(name, BenchmarkResult.fromJson(name, json.getJSONObject(name)));
+            }
+        } catch (IOException | JSONException e) {
+            throw new IllegalStateException("Invalid benchmark baseline " + BASELINE_RESOURCE, e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.testutils.perf;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Result of one benchmark, as recorded by {@link BenchmarkRule}.
+ */
+public class BenchmarkResult {
+
+    static final String KEY_ITERATIONS = "iterations";
+    static final String KEY_MEDIAN_NS = "median_ns";
+    static final String KEY_MIN_NS = "min_ns";
+    static final String KEY_P90_NS = "p90_ns";
+    static final String KEY_ALLOCATED_BYTES = "allocated_bytes";
+
+    private final String mName;
+    private final int mIterations;
+    private final long mMedianNanos;
+    private final long mMinNanos;
+    private final long mP90Nanos;
+    private final long mAllocatedBytes;
+
+    public BenchmarkResult(String name, int iterations, long medianNanos, long minNanos,
+            long p90Nanos, long allocatedBytes) {
+        mName = name;
+        mIterations = iterations;
+        mMedianNanos = medianNanos;
+        mMinNanos = minNanos;
+        mP90Nanos = p90Nanos;
+        mAllocatedBytes = allocatedBytes;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public long getMedianNanos() {
+        return mMedianNanos;
+    }
+
+    public long getMinNanos() {
+        return mMinNanos;
+    }
+
+    public long getP90Nanos() {
+        return mP90Nanos;
+    }
+
+    /**
+     * @return the median number of bytes allocated per operation, or -1 if unknown
+     */
+    public long getAllocatedBytes() {
+        return mAllocatedBytes;
+    }
+
+    JSONObject toJson() throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put(KEY_ITERATIONS, mIterations);
+        json.put(KEY_MEDIAN_NS, mMedianNanos);
+        json.put(KEY_MIN_NS, mMinNanos);
+        json.put(KEY_P90_NS, mP90Nanos);
+        json.put(KEY_ALLOCATED_BYTES, mAllocatedBytes);
+        return json;
+    }
+
+    static BenchmarkResult fromJson(String name, JSONObject json) {
+        return new BenchmarkResult(name,
+                json.optInt(KEY_ITERATIONS),
+                json.optLong(KEY_MEDIAN_NS, Long.MAX_VALUE),
+                json.optLong(KEY_MIN_NS),
+                json.optLong(KEY_P90_NS),
+                json.optLong(KEY_ALLOCATED_BYTES, -1L));
+    }
+
+    @Override
+    public String toString() {
+        return mName + " {median=" + mMedianNanos + "ns, min=" + mMinNanos + "ns, p90="
+                + mP90Nanos + "ns, allocated=" + mAllocatedBytes + "B}";
+    }
+}
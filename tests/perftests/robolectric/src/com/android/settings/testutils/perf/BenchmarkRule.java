@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.testutils.perf;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Measures code on the host JVM, records the result with {@link BenchmarkReporter} and checks it
+ * against the recorded baseline.
+ *
+ * <pre>
+ * &#64;Rule
+ * public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+ *
+ * &#64;Test
+ * public void updateState() {
+ *     mBenchmarkRule.measure(() -> mController.updateState(mPreference));
+ * }
+ * </pre>
+ */
+public class BenchmarkRule implements TestRule {
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    private static final int DEFAULT_MEASURED_ITERATIONS = 20;
+
+    private final int mWarmupIterations;
+    private final int mMeasuredIterations;
+    private String mName;
+
+    public BenchmarkRule() {
+        this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASURED_ITERATIONS);
+    }
+
+    public BenchmarkRule(int warmupIterations, int measuredIterations) {
+        mWarmupIterations = warmupIterations;
+        mMeasuredIterations = measuredIterations;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        mName = description.getTestClass().getSimpleName() + "#" + description.getMethodName();
+        return base;
+    }
+
+    /**
+     * Measures {@code operation} under the name of the running test.
+     */
+    public BenchmarkResult measure(Runnable operation) {
+        return measure(mName, () -> null, unused -> operation.run());
+    }
+
+    /**
+     * Measures {@code operation} under the name of the running test. {@code setUp} runs before
+     * every iteration and is not measured.
+     */
+    public <T> BenchmarkResult measure(Callable<T> setUp, Consumer<T> operation) {
+        return measure(mName, setUp, operation);
+    }
+
+    /**
+     * Measures {@code operation} under {@code name}. {@code setUp} runs before every iteration
+     * and is not measured.
+     */
+    public <T> BenchmarkResult measure(String name, Callable<T> setUp, Consumer<T> operation) {
+        for (int i = 0; i < mWarmupIterations; i++) {
+            operation.accept(call(setUp));
+        }
+
+        final long[] durations = new long[mMeasuredIterations];
+        final long[] allocations = new long[mMeasuredIterations];
+        for (int i = 0; i < mMeasuredIterations; i++) {
+            final T input = call(setUp);
+            final long startAllocation = getAllocatedBytes();
+            final long startTime = System.nanoTime();
+            operation.accept(input);
+            durations[i] = System.nanoTime() - startTime;
+            final long endAllocation = getAllocatedBytes();
+            allocations[i] = startAllocation >= 0 && endAllocation >= 0
+                    ? endAllocation - startAllocation : -1L;
+        }
+        Arrays.sort(durations);
+        Arrays.sort(allocations);
+
+        final BenchmarkResult result = new BenchmarkResult(name, mMeasuredIterations,
+                durations[durations.length / 2],
+                durations[0],
+                durations[(int) Math.min(durations.length - 1, durations.length * 0.9)],
+                allocations[allocations.length / 2]);
+        BenchmarkReporter.getInstance().record(result);
+        checkBaseline(result);
+        return result;
+    }
+
+    private static void checkBaseline(BenchmarkResult result) {
+        final BenchmarkReporter reporter = BenchmarkReporter.getInstance();
+        if (reporter.isBaselineIgnored()) {
+            return;
+        }
+        final BenchmarkResult baseline = reporter.getBaseline(result.getName());
+        // The result is still recorded, so that it can be copied into the baseline file.
+        assumeTrue("No baseline for " + result + ", record it with "
+                + "-Dsettings.perf.ignore_baseline=true and add it to the baseline file",
+                baseline != null);
+        final double expectedNanos = baseline.getMedianNanos() * reporter.getHostSlowdown();
+        assertWithMessage("Median time of " + result + " regressed from " + baseline
+                + " scaled to " + (long) expectedNanos + "ns on this host")
+                .that((double) result.getMedianNanos())
+                .isAtMost(expectedNanos * (1 + BenchmarkReporter.TIME_REGRESSION_TOLERANCE));
+        if (result.getAllocatedBytes() >= 0 && baseline.getAllocatedBytes() >= 0) {
+            assertWithMessage("Allocations of " + result + " regressed from " + baseline)
+                    .that((double) result.getAllocatedBytes())
+                    .isAtMost(baseline.getAllocatedBytes()
+                            * (1 + BenchmarkReporter.ALLOCATION_REGRESSION_TOLERANCE)
+                            + BenchmarkReporter.ALLOCATION_SLACK_BYTES);
+        }
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if not supported by the JVM
+     */
+    public static long getAllocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1L;
+        }
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()
+                || !threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return -1L;
+        }
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static <T> T call(Callable<T> callable) {
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            throw new IllegalStateException("Benchmark set up failed", e);
+        }
+    }
+}
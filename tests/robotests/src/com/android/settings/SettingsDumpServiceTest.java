@@ -29,6 +29,7 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -92,6 +93,34 @@ public class SettingsDumpServiceTest {
                 .contains("{\"" + SettingsDumpService.KEY_SERVICE + "\":");
     }
 
+    @Test
+    public void testDump_printSectionTiming() throws Exception {
+        mResolveInfo.activityInfo = new ActivityInfo();
+        mResolveInfo.activityInfo.packageName = PACKAGE_BROWSER;
+        StringWriter stringWriter = new StringWriter();
+
+        mTestService.dumpSections(stringWriter);
+
+        final JSONObject dump = new JSONObject(stringWriter.toString());
+        assertThat(dump.getString(SettingsDumpService.KEY_DEFAULT_BROWSER_APP))
+                .isEqualTo(PACKAGE_BROWSER);
+        assertThat(dump.getJSONObject(SettingsDumpService.KEY_SECTION_TIMING)
+                .has(SettingsDumpService.KEY_DEFAULT_BROWSER_APP)).isTrue();
+    }
+
+    @Test
+    public void testDumpSections_printStartup() throws Exception {
+        mResolveInfo.activityInfo = new ActivityInfo();
+        mResolveInfo.activityInfo.packageName = PACKAGE_BROWSER;
+        StringWriter stringWriter = new StringWriter();
+
+        mTestService.dumpSections(stringWriter);
+
+        final JSONObject dump = new JSONObject(stringWriter.toString());
+        assertThat(dump.getJSONObject(SettingsDumpService.KEY_STARTUP)
+                .has("main_thread_in_phases_ms")).isTrue();
+    }
+
     /**
      * Test service used to pass in the mock {@link PackageManager}
      */
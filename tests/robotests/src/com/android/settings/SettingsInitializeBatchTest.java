@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import com.android.settings.Settings.CreateShortcutActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SettingsInitializeBatchTest {
+
+    private Context mContext;
+    private PackageManager mPackageManager;
+    private ComponentName mSettingsComponent;
+    private ComponentName mShortcutComponent;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPackageManager = mContext.getPackageManager();
+        mSettingsComponent = new ComponentName(mContext, Settings.class);
+        mShortcutComponent = new ComponentName(mContext, CreateShortcutActivity.class);
+    }
+
+    @Test
+    public void apply_setsComponentStates() {
+        final SettingsInitializeBatch batch = new SettingsInitializeBatch(mContext);
+        batch.setComponentEnabledSetting(mSettingsComponent,
+                PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
+        batch.setComponentEnabledSetting(mShortcutComponent,
+                PackageManager.COMPONENT_ENABLED_STATE_ENABLED);
+
+        batch.apply();
+
+        assertThat(mPackageManager.getComponentEnabledSetting(mSettingsComponent))
+                .isEqualTo(PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
+        assertThat(mPackageManager.getComponentEnabledSetting(mShortcutComponent))
+                .isEqualTo(PackageManager.COMPONENT_ENABLED_STATE_ENABLED);
+    }
+
+    @Test
+    public void apply_sameStateAgain_appliesComponentAgain() {
+        applyComponentState(mSettingsComponent, PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
+        mPackageManager.setComponentEnabledSetting(mSettingsComponent,
+                PackageManager.COMPONENT_ENABLED_STATE_DEFAULT, PackageManager.DONT_KILL_APP);
+
+        applyComponentState(mSettingsComponent, PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
+
+        assertThat(mPackageManager.getComponentEnabledSetting(mSettingsComponent))
+                .isEqualTo(PackageManager.COMPONENT_ENABLED_STATE_DISABLED);
+    }
+
+    private void applyComponentState(ComponentName componentName, int state) {
+        final SettingsInitializeBatch batch = new SettingsInitializeBatch(mContext);
+        batch.setComponentEnabledSetting(componentName, state);
+        batch.apply();
+    }
+}
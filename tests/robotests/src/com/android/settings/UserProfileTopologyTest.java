@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.UserInfo;
+import android.os.UserHandle;
+import android.os.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserProfileTopologyTest {
+    private static final int MANAGED_PROFILE_ID = 10;
+
+    @Mock
+    private UserManager mUserManager;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        final int userId = UserHandle.myUserId();
+        final UserInfo owner = new UserInfo(userId, "owner", UserInfo.FLAG_PRIMARY);
+        owner.profileGroupId = userId;
+        final UserInfo managed = new UserInfo(MANAGED_PROFILE_ID, "work",
+                UserInfo.FLAG_MANAGED_PROFILE | UserInfo.FLAG_QUIET_MODE);
+        managed.profileGroupId = userId;
+        final List<UserInfo> profiles = Arrays.asList(owner, managed);
+
+        when(mUserManager.getProcessUserId()).thenReturn(userId);
+        when(mUserManager.getUserProfiles()).thenReturn(
+                Arrays.asList(UserHandle.of(userId), UserHandle.of(MANAGED_PROFILE_ID)));
+        when(mUserManager.getProfiles(userId)).thenReturn(profiles);
+        when(mUserManager.getUsers()).thenReturn(profiles);
+        UserProfileTopology.setTrackingForTesting();
+    }
+
+    @After
+    public void tearDown() {
+        UserProfileTopology.stopTrackingForTesting();
+    }
+
+    @Test
+    public void get_notTracking_returnsNull() {
+        UserProfileTopology.stopTrackingForTesting();
+
+        assertThat(UserProfileTopology.get(mUserManager)).isNull();
+    }
+
+    @Test
+    public void get_otherUserManager_returnsNull() {
+        when(mUserManager.getProcessUserId()).thenReturn(UserHandle.myUserId() + 1);
+
+        assertThat(UserProfileTopology.get(mUserManager)).isNull();
+    }
+
+    @Test
+    public void get_twice_queriesUserManagerOnce() {
+        final UserProfileTopology topology = UserProfileTopology.get(mUserManager);
+
+        assertThat(UserProfileTopology.get(mUserManager)).isSameInstanceAs(topology);
+        verify(mUserManager, times(1)).getUserProfiles();
+        verify(mUserManager, times(1)).getProfiles(UserHandle.myUserId());
+    }
+
+    @Test
+    public void get_afterInvalidate_queriesUserManagerAgain() {
+        UserProfileTopology.get(mUserManager);
+
+        UserProfileTopology.invalidate();
+        UserProfileTopology.get(mUserManager);
+
+        verify(mUserManager, times(2)).getUserProfiles();
+    }
+
+    @Test
+    public void get_describesProfiles() {
+        final UserProfileTopology topology = UserProfileTopology.get(mUserManager);
+
+        assertThat(topology.getUserId()).isEqualTo(UserHandle.myUserId());
+        assertThat(topology.getEnabledProfiles()).hasSize(2);
+        assertThat(topology.getProfile(MANAGED_PROFILE_ID).isManagedProfile()).isTrue();
+        assertThat(topology.isQuietModeEnabled(MANAGED_PROFILE_ID)).isTrue();
+        assertThat(topology.getProfileParentId(MANAGED_PROFILE_ID))
+                .isEqualTo(UserHandle.myUserId());
+        assertThat(topology.getProfileParentId(UserHandle.myUserId()))
+                .isEqualTo(UserHandle.USER_NULL);
+        assertThat(topology.getUserCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getProfile_returnsCopy() {
+        final UserProfileTopology topology = UserProfileTopology.get(mUserManager);
+
+        topology.getProfile(MANAGED_PROFILE_ID).flags = 0;
+        topology.getProfiles().get(1).flags = 0;
+
+        assertThat(topology.getProfile(MANAGED_PROFILE_ID).isManagedProfile()).isTrue();
+        assertThat(topology.getProfiles().get(1).isManagedProfile()).isTrue();
+        assertThat(topology.isQuietModeEnabled(MANAGED_PROFILE_ID)).isTrue();
+    }
+
+    @Test
+    public void getManagedProfile_usesTopology() {
+        assertThat(Utils.getManagedProfile(mUserManager))
+                .isEqualTo(UserHandle.of(MANAGED_PROFILE_ID));
+        assertThat(Utils.getManagedProfile(mUserManager))
+                .isEqualTo(UserHandle.of(MANAGED_PROFILE_ID));
+
+        verify(mUserManager, times(1)).getUserProfiles();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import static java.util.Collections.singletonList;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ResolveInfo;
+import android.content.pm.ServiceInfo;
+import android.view.accessibility.AccessibilityManager;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowAccessibilityManager;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tests for {@link AccessibilityServiceCatalog}. */
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityServiceCatalogTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final ComponentName COMPONENT_NAME =
+            new ComponentName(PACKAGE_NAME, PACKAGE_NAME + ".test_a11y_service");
+    private static final String LABEL = "test label";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private ShadowAccessibilityManager mShadowAccessibilityManager;
+    private AccessibilityServiceInfo mServiceInfo;
+    private AccessibilityServiceCatalog mCatalog;
+
+    @Before
+    public void setUp() {
+        mShadowAccessibilityManager = Shadows.shadowOf(
+                mContext.getSystemService(AccessibilityManager.class));
+        mServiceInfo = createAccessibilityServiceInfo(COMPONENT_NAME);
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        mCatalog = new AccessibilityServiceCatalog(mContext);
+    }
+
+    @Test
+    public void load_containsInstalledServiceWithLabel() {
+        final AccessibilityServiceCatalog.Snapshot snapshot = mCatalog.load();
+
+        assertThat(snapshot.getServices()).containsExactly(mServiceInfo);
+        assertThat(snapshot.getServiceEntry(COMPONENT_NAME).getLabel().toString())
+                .isEqualTo(LABEL);
+        assertThat(snapshot.getServiceEntry(COMPONENT_NAME).getIcon()).isNotNull();
+    }
+
+    @Test
+    public void load_twice_reusesEntry() {
+        final AccessibilityServiceCatalog.Entry entry =
+                mCatalog.load().getServiceEntry(COMPONENT_NAME);
+
+        assertThat(mCatalog.load().getServiceEntry(COMPONENT_NAME)).isSameInstanceAs(entry);
+        assertThat(mCatalog.getCachedServiceEntry(mServiceInfo)).isSameInstanceAs(entry);
+    }
+
+    @Test
+    public void load_packageUpdated_reloadsEntry() {
+        final AccessibilityServiceCatalog.Entry entry =
+                mCatalog.load().getServiceEntry(COMPONENT_NAME);
+
+        mServiceInfo.getResolveInfo().serviceInfo.applicationInfo.longVersionCode++;
+
+        assertThat(mCatalog.getCachedServiceEntry(mServiceInfo)).isNull();
+        assertThat(mCatalog.load().getServiceEntry(COMPONENT_NAME)).isNotSameInstanceAs(entry);
+    }
+
+    @Test
+    public void invalidatePackage_reloadsEntry() {
+        final AccessibilityServiceCatalog.Entry entry =
+                mCatalog.load().getServiceEntry(COMPONENT_NAME);
+
+        mCatalog.invalidatePackage(PACKAGE_NAME);
+
+        assertThat(mCatalog.load().getServiceEntry(COMPONENT_NAME)).isNotSameInstanceAs(entry);
+    }
+
+    @Test
+    public void load_serviceUninstalled_dropsEntry() {
+        mCatalog.load();
+
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(new ArrayList<>());
+        final AccessibilityServiceCatalog.Snapshot snapshot = mCatalog.load();
+
+        assertThat(snapshot.getServices()).isEmpty();
+        assertThat(snapshot.getServiceEntry(COMPONENT_NAME)).isNull();
+        assertThat(mCatalog.getCachedServiceEntry(mServiceInfo)).isNull();
+    }
+
+    @Test
+    public void loadAsync_deliversAndCachesSnapshot() {
+        final List<AccessibilityServiceCatalog.Snapshot> delivered = new ArrayList<>();
+
+        mCatalog.loadAsync(delivered::add);
+
+        assertThat(delivered).hasSize(1);
+        assertThat(mCatalog.getCachedSnapshot()).isSameInstanceAs(delivered.get(0));
+    }
+
+    @Test
+    public void loadAsync_loadFailed_nextLoadAsyncLoadsAgain() {
+        final AccessibilityServiceCatalog catalog = spy(mCatalog);
+        doThrow(new IllegalStateException()).doCallRealMethod().when(catalog).load();
+        final List<AccessibilityServiceCatalog.Snapshot> delivered = new ArrayList<>();
+
+        catalog.loadAsync(delivered::add);
+        assertThat(delivered).isEmpty();
+
+        catalog.loadAsync(delivered::add);
+        assertThat(delivered).hasSize(1);
+    }
+
+    private AccessibilityServiceInfo createAccessibilityServiceInfo(ComponentName componentName) {
+        final ApplicationInfo applicationInfo = new ApplicationInfo();
+        applicationInfo.packageName = componentName.getPackageName();
+        final ServiceInfo serviceInfo = new ServiceInfo();
+        serviceInfo.packageName = componentName.getPackageName();
+        serviceInfo.name = componentName.getClassName();
+        serviceInfo.nonLocalizedLabel = LABEL;
+        serviceInfo.applicationInfo = applicationInfo;
+
+        final ResolveInfo resolveInfo = new ResolveInfo();
+        resolveInfo.serviceInfo = serviceInfo;
+        try {
+            final AccessibilityServiceInfo info = new AccessibilityServiceInfo(resolveInfo,
+                    mContext);
+            info.setComponentName(componentName);
+            return info;
+        } catch (XmlPullParserException | IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
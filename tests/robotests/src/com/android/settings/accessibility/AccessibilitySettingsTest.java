@@ -38,6 +38,7 @@ import android.content.pm.ResolveInfo;
 import android.content.pm.ServiceInfo;
 import android.database.ContentObserver;
 import android.os.Build;
+import android.os.Looper;
 import android.provider.Settings;
 import android.view.accessibility.AccessibilityManager;
 
@@ -53,6 +54,7 @@ import com.android.settings.testutils.shadow.ShadowApplicationPackageManager;
 import com.android.settings.testutils.shadow.ShadowBluetoothAdapter;
 import com.android.settings.testutils.shadow.ShadowBluetoothUtils;
 import com.android.settings.testutils.shadow.ShadowRestrictedLockUtilsInternal;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settings.testutils.shadow.ShadowUserManager;
 import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.bluetooth.LocalBluetoothManager;
@@ -89,6 +91,7 @@ import java.util.List;
         ShadowColorDisplayManager.class,
         ShadowApplicationPackageManager.class,
         ShadowRestrictedLockUtilsInternal.class,
+        ShadowThreadUtils.class,
 })
 public class AccessibilitySettingsTest {
     private static final String PACKAGE_NAME = "com.android.test";
@@ -382,6 +385,8 @@ public class AccessibilitySettingsTest {
                 singletonList(mServiceInfo));
 
         mFragment.onContentChanged();
+        // The service rows are added once the catalog delivers its snapshot.
+        shadowOf(Looper.getMainLooper()).idle();
 
         RestrictedPreference preference = mFragment.getPreferenceScreen().findPreference(
                 COMPONENT_NAME.flattenToString());
@@ -401,6 +406,7 @@ public class AccessibilitySettingsTest {
 
         mFragment.onContentChanged();
         mFragment.onStart();
+        shadowOf(Looper.getMainLooper()).idle();
 
         RestrictedPreference preference = mFragment.getPreferenceScreen().findPreference(
                 COMPONENT_NAME.flattenToString());
@@ -415,9 +421,11 @@ public class AccessibilitySettingsTest {
                 List.of(getMockAccessibilityServiceInfo(
                         AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM)));
         setupFragment();
+        shadowOf(Looper.getMainLooper()).idle();
 
         final RestrictedPreference pref = mFragment.getPreferenceScreen().findPreference(
                 AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM.flattenToString());
+        assertThat(pref).isNotNull();
         final String prefCategory = mFragment.mServicePreferenceToPreferenceCategoryMap.get(
                 pref).getKey();
         assertThat(prefCategory).isEqualTo(AccessibilitySettings.CATEGORY_INTERACTION_CONTROL);
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    private static AppSearchIndex<String[]> createIndex(String[]... apps) {
+        return new AppSearchIndex<>(Arrays.asList(apps), app -> app[0], app -> app[1]);
+    }
+
+    private static String[] app(String label, String packageName) {
+        return new String[] {label, packageName};
+    }
+
+    private static List<String> labels(List<String[]> apps) {
+        return apps.stream().map(app -> app[0]).collect(Collectors.toList());
+    }
+
+    @Test
+    public void search_emptyQuery_returnsAllInOrder() {
+        final AppSearchIndex<String[]> index = createIndex(
+                app("Maps", "com.example.maps"), app("Camera", "com.example.camera"));
+
+        assertThat(labels(index.search(""))).containsExactly("Maps", "Camera").inOrder();
+    }
+
+    @Test
+    public void search_ranksPrefixThenWordStartThenSubstringThenPackage() {
+        final AppSearchIndex<String[]> index = createIndex(
+                app("Dreamcam", "com.example.dream"),
+                app("Photo Camera", "com.example.photo"),
+                app("Camera", "com.example.camera"),
+                app("Gallery", "com.example.cam.gallery"));
+
+        assertThat(labels(index.search("cam")))
+                .containsExactly("Camera", "Photo Camera", "Dreamcam", "Gallery").inOrder();
+    }
+
+    @Test
+    public void search_ignoresCaseAndAccents() {
+        final AppSearchIndex<String[]> index = createIndex(
+                app("Café Finder", "com.example.cafe"), app("Maps", "com.example.maps"));
+
+        assertThat(labels(index.search("CAFE"))).containsExactly("Café Finder");
+        assertThat(labels(index.search("café"))).containsExactly("Café Finder");
+    }
+
+    @Test
+    public void search_matchesTransliteratedLabel() {
+        final AppSearchIndex<String[]> index = createIndex(
+                app("Почта", "com.example.mail"), app("Maps", "com.example.maps"));
+
+        assertThat(labels(index.search("poc"))).containsExactly("Почта");
+        assertThat(labels(index.search("поч"))).containsExactly("Почта");
+    }
+
+    @Test
+    public void search_longerThenShorterQuery_returnsAllMatches() {
+        final AppSearchIndex<String[]> index = createIndex(
+                app("Banana", "com.example.banana"), app("Bandit", "com.example.bandit"));
+
+        assertThat(labels(index.search("bana"))).containsExactly("Banana");
+        assertThat(labels(index.search("banan"))).containsExactly("Banana");
+        assertThat(labels(index.search("ban"))).containsExactly("Banana", "Bandit").inOrder();
+    }
+
+    @Test
+    public void normalize_stripsAccentsAndWhitespace() {
+        assertThat(AppSearchIndex.normalize("  Ünïcödé ")).isEqualTo("unicode");
+        assertThat(AppSearchIndex.normalize(null)).isEmpty();
+    }
+}
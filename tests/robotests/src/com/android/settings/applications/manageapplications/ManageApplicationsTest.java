@@ -72,6 +72,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 import org.robolectric.fakes.RoboMenuItem;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
@@ -314,6 +315,33 @@ public class ManageApplicationsTest {
         verify(adapter).filterSearch(query);
     }
 
+    @Test
+    public void onPackageSizeChanged_onlyNotifiesRowsOfPackage() {
+        ReflectionHelpers.setField(mFragment, "mRecyclerView", mock(RecyclerView.class));
+        ReflectionHelpers.setField(mFragment, "mEmptyView", mock(View.class));
+        ReflectionHelpers.setField(mFragment, "mLoadingContainer", mock(View.class));
+        ReflectionHelpers.setField(
+                mFragment, "mFilterAdapter", mock(ManageApplications.FilterSpinnerAdapter.class));
+        final ArrayList<AppEntry> appList = new ArrayList<>();
+        appList.add(createAppEntry("com.example.a", 0));
+        appList.add(createAppEntry("com.example.b", 1));
+        appList.add(createAppEntry("com.example.b", 2));
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL),
+                        null /* savedInstanceState */);
+        adapter.onRebuildComplete(appList);
+        adapter.mOnScrollListener =
+                mock(ManageApplications.ApplicationsAdapter.OnScrollListener.class);
+
+        adapter.onPackageSizeChanged("com.example.b");
+
+        assertThat(adapter.getPackagePositions("com.example.b")).containsExactly(1, 2);
+        verify(adapter.mOnScrollListener, never()).postNotifyItemChange(0);
+        verify(adapter.mOnScrollListener).postNotifyItemChange(1);
+        verify(adapter.mOnScrollListener).postNotifyItemChange(2);
+    }
+
     @Ignore("b/313583754")
     @Test
     public void notifyItemChange_recyclerViewIdle_shouldNotify() {
@@ -325,8 +353,11 @@ public class ManageApplicationsTest {
         adapter.onAttachedToRecyclerView(recyclerView);
         adapter.mOnScrollListener.onScrollStateChanged(recyclerView, SCROLL_STATE_IDLE);
         adapter.mOnScrollListener.postNotifyItemChange(0 /* index */);
+        adapter.mOnScrollListener.postNotifyItemChange(1 /* index */);
+        ShadowLooper.idleMainLooper();
 
-        verify(adapter).notifyItemChanged(0);
+        verify(adapter).notifyItemRangeChanged(0, 2,
+                ManageApplications.ApplicationsAdapter.PAYLOAD_SIZE_CHANGED);
     }
 
     @Ignore("b/313583754")
@@ -341,11 +372,13 @@ public class ManageApplicationsTest {
         adapter.mOnScrollListener.onScrollStateChanged(recyclerView, SCROLL_STATE_DRAGGING);
         adapter.mOnScrollListener.postNotifyItemChange(0 /* index */);
 
-        verify(adapter, never()).notifyItemChanged(0);
+        verify(adapter, never()).notifyItemRangeChanged(anyInt(), anyInt(), any());
         verify(adapter, never()).notifyDataSetChanged();
 
         adapter.mOnScrollListener.onScrollStateChanged(recyclerView, SCROLL_STATE_IDLE);
-        verify(adapter).notifyDataSetChanged();
+        verify(adapter).notifyItemRangeChanged(0, 1,
+                ManageApplications.ApplicationsAdapter.PAYLOAD_SIZE_CHANGED);
+        verify(adapter, never()).notifyDataSetChanged();
     }
 
     @Test
@@ -637,6 +670,13 @@ public class ManageApplicationsTest {
         return appList;
     }
 
+    private AppEntry createAppEntry(String packageName, long id) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = packageName;
+        info.sourceDir = "abc";
+        return new AppEntry(mContext, info, id);
+    }
+
     private AppEntry createPowerAllowListApp(boolean isPowerAllowListed) {
         final ApplicationInfo info = new ApplicationInfo();
         info.sourceDir = "abc";
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupTracerTest {
+    private static final String PHASE_OUTER = "outer";
+    private static final String PHASE_INNER = "inner";
+    private static final String COUNTER = "counter";
+
+    @Before
+    public void setUp() {
+        StartupTracer.reset();
+    }
+
+    @After
+    public void tearDown() {
+        StartupTracer.reset();
+    }
+
+    @Test
+    public void beginPhase_end_recordsPhaseTime() {
+        final StartupTracer.Span span = StartupTracer.beginPhase(PHASE_OUTER);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(30));
+        span.end();
+        span.end();
+
+        final StartupTracer.Snapshot snapshot = StartupTracer.getSnapshot();
+        assertThat(snapshot.hasPhase(PHASE_OUTER)).isTrue();
+        assertThat(snapshot.getPhaseMillis(PHASE_OUTER)).isEqualTo(30);
+        assertThat(snapshot.getMainThreadInPhasesMillis()).isEqualTo(30);
+    }
+
+    @Test
+    public void nestedPhases_countMainThreadInPhasesOnce() {
+        final StartupTracer.Span outer = StartupTracer.beginPhase(PHASE_OUTER);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(10));
+        final StartupTracer.Span inner = StartupTracer.beginPhase(PHASE_INNER);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(20));
+        inner.end();
+        outer.end();
+
+        final StartupTracer.Snapshot snapshot = StartupTracer.getSnapshot();
+        assertThat(snapshot.getPhaseMillis(PHASE_INNER)).isEqualTo(20);
+        assertThat(snapshot.getPhaseMillis(PHASE_OUTER)).isEqualTo(30);
+        assertThat(snapshot.getMainThreadInPhasesMillis()).isEqualTo(30);
+    }
+
+    @Test
+    public void phaseThrows_spanEndedInFinally_countsNextPhaseInMainThreadTime() {
+        try {
+            final StartupTracer.Span span = StartupTracer.beginPhase(PHASE_OUTER);
+            try {
+                ShadowSystemClock.advanceBy(Duration.ofMillis(10));
+                throw new IllegalStateException();
+            } finally {
+                span.end();
+            }
+        } catch (IllegalStateException expected) {
+        }
+        final StartupTracer.Span span = StartupTracer.beginPhase(PHASE_INNER);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(20));
+        span.end();
+
+        assertThat(StartupTracer.getSnapshot().getMainThreadInPhasesMillis()).isEqualTo(30);
+    }
+
+    @Test
+    public void incrementCounter_addsCounts() {
+        StartupTracer.incrementCounter(COUNTER, 2);
+        StartupTracer.incrementCounter(COUNTER, 3);
+
+        assertThat(StartupTracer.getSnapshot().getCounter(COUNTER)).isEqualTo(5);
+    }
+
+    @Test
+    public void markFullyDrawn_stopsRecording() {
+        final StartupTracer.Span span = StartupTracer.beginPhase(PHASE_OUTER);
+        StartupTracer.markFullyDrawn();
+        span.end();
+        StartupTracer.beginPhase(PHASE_INNER).end();
+        StartupTracer.incrementCounter(COUNTER, 1);
+
+        final StartupTracer.Snapshot snapshot = StartupTracer.getSnapshot();
+        assertThat(snapshot.getFullyDrawnMillis()).isAtLeast(0);
+        assertThat(snapshot.hasPhase(PHASE_OUTER)).isTrue();
+        assertThat(snapshot.hasPhase(PHASE_INNER)).isFalse();
+        assertThat(snapshot.getCounter(COUNTER)).isEqualTo(0);
+    }
+
+    @Test
+    public void dumpToJson_containsRecord() throws Exception {
+        final StartupTracer.Span span = StartupTracer.beginPhase(PHASE_OUTER);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(5));
+        span.end();
+        StartupTracer.incrementCounter(COUNTER, 1);
+
+        final JSONObject json = StartupTracer.dumpToJson();
+
+        assertThat(json.getJSONObject(StartupTracer.KEY_PHASES).getLong(PHASE_OUTER))
+                .isEqualTo(5);
+        assertThat(json.getJSONObject(StartupTracer.KEY_COUNTERS).getLong(COUNTER))
+                .isEqualTo(1);
+        assertThat(json.getLong(StartupTracer.KEY_MAIN_THREAD_IN_PHASES)).isEqualTo(5);
+        assertThat(json.getLong(StartupTracer.KEY_FULLY_DRAWN)).isEqualTo(-1);
+    }
+}
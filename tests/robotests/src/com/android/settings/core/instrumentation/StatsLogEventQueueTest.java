@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class StatsLogEventQueueTest {
+    private StatsLogEventQueue mQueue;
+    private List<String> mWrittenKeys;
+
+    @Before
+    public void setUp() {
+        mQueue = new StatsLogEventQueue(4);
+        mWrittenKeys = new ArrayList<>();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_capacityNotPowerOfTwo_shouldThrow() {
+        new StatsLogEventQueue(3);
+    }
+
+    @Test
+    public void drain_shouldWriteEventsInOrder() {
+        mQueue.offer(1, 2, 3, "a", 4, 5L);
+        mQueue.offer(1, 2, 3, "b", 4, 5L);
+
+        assertThat(mQueue.drain(this::recordKey)).isEqualTo(2);
+        assertThat(mWrittenKeys).containsExactly("a", "b").inOrder();
+        assertThat(mQueue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void offer_queueFull_shouldDropAndCount() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(mQueue.offer(0, 0, 0, "key" + i, i, 0L)).isTrue();
+        }
+
+        assertThat(mQueue.offer(0, 0, 0, "dropped", 0, 0L)).isFalse();
+        assertThat(mQueue.getDroppedCount()).isEqualTo(1L);
+        mQueue.drain(this::recordKey);
+        assertThat(mWrittenKeys).doesNotContain("dropped");
+    }
+
+    @Test
+    public void offer_afterDrain_shouldReuseSlots() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                mQueue.offer(0, 0, 0, round + ":" + i, i, 0L);
+            }
+            mQueue.drain(this::recordKey);
+        }
+
+        assertThat(mWrittenKeys).hasSize(12);
+        assertThat(mWrittenKeys.get(11)).isEqualTo("2:3");
+        assertThat(mQueue.getDroppedCount()).isEqualTo(0L);
+    }
+
+    private void recordKey(int attribution, int action, int pageId, String key, int value,
+            long timestamp) {
+        mWrittenKeys.add(key);
+    }
+}
@@ -41,6 +41,7 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.ProviderInfo;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.preference.PreferenceManager.OnActivityResultListener;
 
@@ -54,9 +55,11 @@ import androidx.test.core.app.ApplicationProvider;
 
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.slices.BlockingSlicePrefController;
 import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -84,6 +87,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(RobolectricTestRunner.class)
 public class DashboardFragmentTest {
@@ -325,6 +330,92 @@ public class DashboardFragmentTest {
         verify(mockController2).getPreferenceKey();
     }
 
+    @Test
+    public void updatePreferenceStates_availabilityQueriedOncePerPass() {
+        final CountingPreferenceController controller1 =
+                new CountingPreferenceController(mContext, "key1");
+        final CountingPreferenceController controller2 =
+                new CountingPreferenceController(mContext, "key2");
+        mTestFragment.addPreferenceController(controller1);
+        mTestFragment.addPreferenceController(controller2);
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(controller1.mAvailabilityQueries).isEqualTo(1);
+        assertThat(controller2.mAvailabilityQueries).isEqualTo(1);
+    }
+
+    @Test
+    public void updatePreferenceVisibility_afterPass_queriesAvailabilityAgain() {
+        final CountingPreferenceController controller =
+                new CountingPreferenceController(mContext, "key1");
+        when(mTestFragment.mScreen.findPreference("key1")).thenReturn(mock(Preference.class));
+        mTestFragment.addPreferenceController(controller);
+        mTestFragment.mBlockerController = new UiBlockerController(Arrays.asList());
+        mTestFragment.updatePreferenceStates();
+
+        final Map<Class, List<AbstractPreferenceController>> prefControllers = new HashMap<>();
+        prefControllers.put(CountingPreferenceController.class, Arrays.asList(controller));
+        mTestFragment.updatePreferenceVisibility(prefControllers);
+
+        assertThat(controller.mAvailabilityQueries).isEqualTo(2);
+    }
+
+    @Test
+    public void updatePreferenceStates_newPass_queriesAvailabilityAgain() {
+        final CountingPreferenceController controller =
+                new CountingPreferenceController(mContext, "key1");
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStates();
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(controller.mAvailabilityQueries).isEqualTo(2);
+    }
+
+    @Test
+    public void updatePreferenceStates_recordsControllerCost() {
+        final CountingPreferenceController controller =
+                new CountingPreferenceController(mContext, "key1");
+        mTestFragment.addPreferenceController(controller);
+        controller.mAvailabilityCostMillis = 5;
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(mTestFragment.getControllerCostNanos(controller))
+                .isAtLeast(TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void updatePreferenceStates_threadSafeAvailability_appliedOnceComputed() {
+        final ThreadSafePreferenceController controller =
+                new ThreadSafePreferenceController(mContext, "key1");
+        when(mTestFragment.mScreen.findPreference("key1")).thenReturn(mock(Preference.class));
+        mTestFragment.addPreferenceController(controller);
+        // The state isn't updated while the availability is computed.
+        controller.mOnQuery = () -> assertThat(controller.mStateUpdates).isEqualTo(0);
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(controller.mStateUpdates).isEqualTo(1);
+        assertThat(controller.mQueries.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void updatePreferenceStates_availabilityPending_notQueriedConcurrently() {
+        final ThreadSafePreferenceController controller =
+                new ThreadSafePreferenceController(mContext, "key1");
+        mTestFragment.addPreferenceController(controller);
+        // A new pass starts while the availability of the previous one is computed.
+        controller.mOnQuery = mTestFragment::updatePreferenceStates;
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(controller.mMaxActiveQueries).isEqualTo(1);
+        assertThat(controller.mQueries.get()).isEqualTo(2);
+    }
+
     @Test
     public void onExpandButtonClick_shouldLogAdvancedButtonExpand() {
         final MetricsFeatureProvider metricsFeatureProvider
@@ -515,6 +606,55 @@ public class DashboardFragmentTest {
         }
     }
 
+    private static class CountingPreferenceController extends BasePreferenceController {
+        private int mAvailabilityQueries;
+        private long mAvailabilityCostMillis;
+
+        private CountingPreferenceController(Context context, String key) {
+            super(context, key);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            mAvailabilityQueries++;
+            if (mAvailabilityCostMillis > 0) {
+                SystemClock.sleep(mAvailabilityCostMillis);
+            }
+            return AVAILABLE;
+        }
+    }
+
+    private static class ThreadSafePreferenceController extends BasePreferenceController
+            implements BasePreferenceController.ThreadSafeAvailability {
+        private final AtomicInteger mQueries = new AtomicInteger();
+        private final AtomicInteger mActiveQueries = new AtomicInteger();
+        private volatile int mMaxActiveQueries;
+        private volatile Runnable mOnQuery;
+        private int mStateUpdates;
+
+        private ThreadSafePreferenceController(Context context, String key) {
+            super(context, key);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            mQueries.incrementAndGet();
+            mMaxActiveQueries = Math.max(mMaxActiveQueries, mActiveQueries.incrementAndGet());
+            final Runnable onQuery = mOnQuery;
+            mOnQuery = null;
+            if (onQuery != null) {
+                onQuery.run();
+            }
+            mActiveQueries.decrementAndGet();
+            return AVAILABLE;
+        }
+
+        @Override
+        public void updateState(Preference preference) {
+            mStateUpdates++;
+        }
+    }
+
     public static class SubTestPreferenceController extends TestPreferenceController {
 
         private SubTestPreferenceController(Context context) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+
+import androidx.preference.Preference;
+import androidx.preference.PreferenceCategory;
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceKeyIndexTest {
+    private Context mContext;
+    private PreferenceScreen mScreen;
+    private PreferenceCategory mCategory;
+    private Preference mChild;
+    private PreferenceKeyIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mScreen = spy(new PreferenceManager(mContext).createPreferenceScreen(mContext));
+        mCategory = new PreferenceCategory(mContext);
+        mCategory.setKey("category");
+        mScreen.addPreference(mCategory);
+        mChild = createPreference("child");
+        mCategory.addPreference(mChild);
+        mIndex = new PreferenceKeyIndex();
+    }
+
+    @Test
+    public void find_indexedPreference_doesNotWalkTree() {
+        mIndex.rebuild(mScreen);
+
+        assertThat(mIndex.find(mScreen, "child")).isSameInstanceAs(mChild);
+        assertThat(mIndex.find(mScreen, "category")).isSameInstanceAs(mCategory);
+        verify(mScreen, never()).findPreference("child");
+    }
+
+    @Test
+    public void find_newRoot_rebuildsIndex() {
+        assertThat(mIndex.find(mScreen, "child")).isSameInstanceAs(mChild);
+        assertThat(mIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void find_preferenceAddedOutsideIndex_isFound() {
+        mIndex.rebuild(mScreen);
+        final Preference added = createPreference("added");
+        mCategory.addPreference(added);
+
+        assertThat(mIndex.find(mScreen, "added")).isSameInstanceAs(added);
+    }
+
+    @Test
+    public void find_preferenceRemovedOutsideIndex_returnsNull() {
+        mIndex.rebuild(mScreen);
+        mCategory.removePreference(mChild);
+
+        assertThat(mIndex.find(mScreen, "child")).isNull();
+    }
+
+    @Test
+    public void find_preferenceRekeyed_returnsNull() {
+        mIndex.rebuild(mScreen);
+        mChild.setKey("other");
+
+        assertThat(mIndex.find(mScreen, "child")).isNull();
+        assertThat(mIndex.find(mScreen, "other")).isSameInstanceAs(mChild);
+    }
+
+    @Test
+    public void remove_group_removesDescendants() {
+        mIndex.rebuild(mScreen);
+
+        mIndex.remove(mCategory);
+
+        assertThat(mIndex.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void find_emptyKey_returnsNull() {
+        assertThat(mIndex.find(mScreen, "")).isNull();
+        assertThat(mIndex.find(mScreen, null)).isNull();
+    }
+
+    private Preference createPreference(String key) {
+        final Preference preference = new Preference(mContext);
+        preference.setKey(key);
+        return preference;
+    }
+}
@@ -52,6 +52,22 @@ public class BaseTimeZoneAdapterTest {
         assertSearch(adapter, "kon", HK);
         assertSearch(adapter, "brit", UK);
         assertSearch(adapter, "sec", secretCountry);
+        assertSearch(adapter, "great b", UK);
+        assertSearch(adapter, "nited");
+    }
+
+    @Test
+    public void testFilter_searchIndexPrepared() throws InterruptedException {
+        TestItem US = new TestItem("United States");
+        TestItem UK = new TestItem("United Kingdom");
+        List<TestItem> items = new ArrayList<>();
+        items.add(US);
+        items.add(UK);
+
+        TestTimeZoneAdapter adapter = new TestTimeZoneAdapter(items);
+        adapter.prepareSearchIndex();
+        assertSearch(adapter, "king", UK);
+        assertSearch(adapter, "u", US, UK);
     }
 
     private void assertSearch(TestTimeZoneAdapter adapter , String searchText, TestItem... items)
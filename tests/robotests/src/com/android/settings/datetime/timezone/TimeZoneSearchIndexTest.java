@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datetime.timezone;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class TimeZoneSearchIndexTest {
+
+    private TimeZoneSearchIndex mSearchIndex;
+
+    @Before
+    public void setUp() {
+        mSearchIndex = TimeZoneSearchIndex.build(
+                List.of(
+                        new TestItem("United States", "America/New_York"),
+                        new TestItem("Hong Kong"),
+                        new TestItem("United Kingdom", "Great Britain"),
+                        new TestItem("Guinea-Bissau")),
+                Locale.US);
+    }
+
+    @Test
+    public void search_wordStart_returnsMatchesInOrder() {
+        assertThat(mSearchIndex.search("unit")).asList().containsExactly(0, 2).inOrder();
+        assertThat(mSearchIndex.search("KON")).asList().containsExactly(1);
+        assertThat(mSearchIndex.search("brit")).asList().containsExactly(2);
+    }
+
+    @Test
+    public void search_acrossWords_matchesFromWordStart() {
+        assertThat(mSearchIndex.search("united k")).asList().containsExactly(2);
+        assertThat(mSearchIndex.search("new_y")).asList().containsExactly(0);
+        assertThat(mSearchIndex.search("biss")).asList().containsExactly(3);
+    }
+
+    @Test
+    public void search_middleOfWord_returnsNothing() {
+        assertThat(mSearchIndex.search("nited")).isEmpty();
+        assertThat(mSearchIndex.search("zzz")).isEmpty();
+    }
+
+    @Test
+    public void search_keyMatchedByManyTokens_returnsItemOnce() {
+        assertThat(mSearchIndex.search("u")).asList().containsExactly(0, 2).inOrder();
+    }
+
+    private static class TestItem implements BaseTimeZoneAdapter.AdapterItem {
+
+        private final String[] mSearchKeys;
+
+        TestItem(String... searchKeys) {
+            mSearchKeys = searchKeys;
+        }
+
+        @Override
+        public CharSequence getTitle() {
+            return mSearchKeys[0];
+        }
+
+        @Override
+        public CharSequence getSummary() {
+            return null;
+        }
+
+        @Override
+        public String getIconText() {
+            return null;
+        }
+
+        @Override
+        public String getCurrentTime() {
+            return null;
+        }
+
+        @Override
+        public long getItemId() {
+            return 0;
+        }
+
+        @Override
+        public String[] getSearchKeys() {
+            return mSearchKeys;
+        }
+    }
+}
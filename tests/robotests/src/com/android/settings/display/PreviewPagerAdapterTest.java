@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.display;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreviewPagerAdapterTest {
+    private static final int SAMPLE_COUNT = 2;
+    private static final int LAYER_COUNT = 6;
+    private static final int CURRENT_FRAME = 0;
+
+    private PreviewPagerAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        final int[] previewSamples = new int[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            previewSamples[i] = android.R.layout.simple_list_item_1;
+        }
+        final Configuration[] configurations = new Configuration[LAYER_COUNT];
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            configurations[i] = new Configuration();
+        }
+        mAdapter = new PreviewPagerAdapter(context, /* isLayoutRtl= */ false, previewSamples,
+                configurations);
+    }
+
+    @Test
+    public void newAdapter_inflatesNoLayer() {
+        for (int frame = 0; frame < SAMPLE_COUNT; frame++) {
+            for (int layer = 0; layer < LAYER_COUNT; layer++) {
+                assertThat(mAdapter.getLayer(frame, layer)).isNull();
+            }
+        }
+    }
+
+    @Test
+    public void setPreviewLayer_inflatesOnlyCurrentAndNeighborLayers() {
+        mAdapter.setPreviewLayer(/* newLayerIndex= */ 2, /* currentLayerIndex= */ -1,
+                CURRENT_FRAME, /* animate= */ false);
+
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 0)).isNull();
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 1).getVisibility())
+                .isEqualTo(View.INVISIBLE);
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 2).getVisibility()).isEqualTo(View.VISIBLE);
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 3).getVisibility())
+                .isEqualTo(View.INVISIBLE);
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 4)).isNull();
+        assertThat(mAdapter.getLayer(/* frameIndex= */ 1, 2).getVisibility())
+                .isEqualTo(View.VISIBLE);
+        assertThat(mAdapter.getLayer(/* frameIndex= */ 1, 3)).isNull();
+    }
+
+    @Test
+    public void setPreviewLayer_farLayer_releasesPreviousNeighbors() {
+        mAdapter.setPreviewLayer(/* newLayerIndex= */ 1, /* currentLayerIndex= */ -1,
+                CURRENT_FRAME, /* animate= */ false);
+
+        mAdapter.setPreviewLayer(/* newLayerIndex= */ 4, /* currentLayerIndex= */ 1,
+                CURRENT_FRAME, /* animate= */ false);
+
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 0)).isNull();
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 1).getVisibility())
+                .isEqualTo(View.INVISIBLE);
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 2)).isNull();
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 4).getVisibility()).isEqualTo(View.VISIBLE);
+        assertThat(mAdapter.getLayer(CURRENT_FRAME, 5)).isNotNull();
+    }
+}
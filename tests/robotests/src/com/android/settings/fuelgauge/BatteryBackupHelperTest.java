@@ -76,6 +76,7 @@ import org.robolectric.annotation.Resetter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -381,6 +382,15 @@ public final class BatteryBackupHelperTest {
         assertThat(mStringWriter.toString().contains(expectedResult)).isTrue();
     }
 
+    private static AppOpsManager.PackageOps createPackageOps(
+            ApplicationInfo applicationInfo, int mode) {
+        final AppOpsManager.OpEntry opEntry =
+                new AppOpsManager.OpEntry(
+                        AppOpsManager.OP_RUN_ANY_IN_BACKGROUND, mode, Collections.emptyMap());
+        return new AppOpsManager.PackageOps(
+                applicationInfo.packageName, applicationInfo.uid, Arrays.asList(opEntry));
+    }
+
     private void verifyBackupData(String expectedResult) throws Exception {
         final byte[] expectedBytes = expectedResult.getBytes();
         final ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
@@ -423,19 +433,13 @@ public final class BatteryBackupHelperTest {
                                         applicationInfo1, applicationInfo2, applicationInfo3)))
                 .when(mIPackageManager)
                 .getInstalledApplications(anyLong(), anyInt());
-        // Sets the AppOpsManager for checkOpNoThrow() method.
-        doReturn(AppOpsManager.MODE_ALLOWED)
-                .when(mAppOpsManager)
-                .checkOpNoThrow(
-                        AppOpsManager.OP_RUN_ANY_IN_BACKGROUND,
-                        applicationInfo1.uid,
-                        applicationInfo1.packageName);
-        doReturn(AppOpsManager.MODE_IGNORED)
+        // Sets the AppOpsManager for getPackagesForOps() method.
+        doReturn(
+                        Arrays.asList(
+                                createPackageOps(applicationInfo1, AppOpsManager.MODE_ALLOWED),
+                                createPackageOps(applicationInfo2, AppOpsManager.MODE_IGNORED)))
                 .when(mAppOpsManager)
-                .checkOpNoThrow(
-                        AppOpsManager.OP_RUN_ANY_IN_BACKGROUND,
-                        applicationInfo2.uid,
-                        applicationInfo2.packageName);
+                .getPackagesForOps(any(int[].class));
         mBatteryBackupHelper.mTestApplicationInfoList =
                 new ArraySet<>(Arrays.asList(applicationInfo1, applicationInfo2, applicationInfo3));
     }
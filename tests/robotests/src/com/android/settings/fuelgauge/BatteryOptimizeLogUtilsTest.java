@@ -31,6 +31,8 @@ import org.robolectric.RobolectricTestRunner;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
 public final class BatteryOptimizeLogUtilsTest {
@@ -81,6 +83,22 @@ public final class BatteryOptimizeLogUtilsTest {
         assertActionCount("RESET", BatteryOptimizeLogUtils.MAX_ENTRIES);
     }
 
+    @Test
+    public void writeLogs_overMaxEntriesLogs_keepsLatestLogs() {
+        BatteryOptimizeLogUtils.writeLog(mContext, Action.LEAVE, "pkg", "logs");
+        final List<BatteryOptimizeHistoricalLogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < BatteryOptimizeLogUtils.MAX_ENTRIES; i++) {
+            entries.add(BatteryOptimizeLogUtils.newLogEntry(Action.RESET, "pkg" + i, "logs"));
+        }
+
+        BatteryOptimizeLogUtils.writeLogs(
+                BatteryOptimizeLogUtils.getSharedPreferences(mContext), entries);
+        BatteryOptimizeLogUtils.printBatteryOptimizeHistoricalLog(mContext, mTestPrintWriter);
+
+        assertActionCount("LEAVE", 0);
+        assertActionCount("RESET", BatteryOptimizeLogUtils.MAX_ENTRIES);
+    }
+
     private void assertActionCount(String token, int count) {
         final String dumpResults = mTestStringWriter.toString();
         assertThat(dumpResults.split(token).length).isEqualTo(count + 1);
@@ -25,11 +25,14 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -60,7 +63,10 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @RunWith(RobolectricTestRunner.class)
@@ -310,6 +316,56 @@ public class BatteryOptimizeUtilsTest {
         verifySetAppOptimizationMode(AppOpsManager.MODE_ALLOWED, /* allowListed */ false);
     }
 
+    @Test
+    public void testResetAppOptimizationMode_failure_rollsBackAppliedApps() throws Exception {
+        final String packageName2 = "com.android.app2";
+        final int uid2 = UID + 1;
+        final UserInfo userInfo =
+                new UserInfo(/* userId= */ 0, /* userName= */ "google", /* flag= */ 0);
+        doReturn(Arrays.asList(userInfo)).when(mMockUserManager).getProfiles(anyInt());
+        final ApplicationInfo applicationInfo1 = new ApplicationInfo();
+        applicationInfo1.uid = UID;
+        applicationInfo1.packageName = PACKAGE_NAME;
+        applicationInfo1.enabled = true;
+        final ApplicationInfo applicationInfo2 = new ApplicationInfo();
+        applicationInfo2.uid = uid2;
+        applicationInfo2.packageName = packageName2;
+        applicationInfo2.enabled = true;
+        doReturn(
+                        new ParceledListSlice<ApplicationInfo>(
+                                Arrays.asList(applicationInfo1, applicationInfo2)))
+                .when(mMockIPackageManager)
+                .getInstalledApplications(anyLong(), anyInt());
+        doReturn(
+                        Arrays.asList(
+                                createPackageOps(UID, PACKAGE_NAME, AppOpsManager.MODE_IGNORED),
+                                createPackageOps(
+                                        uid2, packageName2, AppOpsManager.MODE_IGNORED)))
+                .when(mMockAppOpsManager)
+                .getPackagesForOps(any(int[].class));
+        // Resetting the first app succeeds and the second one fails.
+        doNothing()
+                .doThrow(new RuntimeException())
+                .when(mMockBatteryUtils)
+                .setForceAppStandby(anyInt(), anyString(), eq(AppOpsManager.MODE_ALLOWED));
+        final List<Integer> progress = new ArrayList<>();
+
+        final boolean success =
+                BatteryOptimizeUtils.resetAppOptimizationMode(
+                        mContext,
+                        mMockIPackageManager,
+                        mMockAppOpsManager,
+                        mMockBackend,
+                        mMockBatteryUtils,
+                        (applied, total) -> progress.add(applied));
+
+        assertFalse(success);
+        assertThat(progress).containsExactly(1);
+        // The first app is restored to MODE_RESTRICTED.
+        verify(mMockBatteryUtils)
+                .setForceAppStandby(anyInt(), anyString(), eq(AppOpsManager.MODE_IGNORED));
+    }
+
     private void runTestForResetWithMode(
             int appStandbyMode, boolean allowListed, boolean isSystemOrDefaultApp)
             throws Exception {
@@ -324,9 +380,9 @@ public class BatteryOptimizeUtilsTest {
                 .when(mMockIPackageManager)
                 .getInstalledApplications(anyLong(), anyInt());
 
-        doReturn(appStandbyMode)
+        doReturn(Arrays.asList(createPackageOps(UID, PACKAGE_NAME, appStandbyMode)))
                 .when(mMockAppOpsManager)
-                .checkOpNoThrow(anyInt(), anyInt(), anyString());
+                .getPackagesForOps(any(int[].class));
         doReturn(allowListed).when(mMockBackend).isAllowlisted(anyString(), anyInt());
         doReturn(isSystemOrDefaultApp).when(mMockBackend).isSysAllowlisted(anyString());
         doReturn(isSystemOrDefaultApp).when(mMockBackend).isDefaultActiveApp(anyString(), anyInt());
@@ -340,6 +396,14 @@ public class BatteryOptimizeUtilsTest {
         TimeUnit.SECONDS.sleep(1);
     }
 
+    private static AppOpsManager.PackageOps createPackageOps(
+            int uid, String packageName, int mode) {
+        final AppOpsManager.OpEntry opEntry =
+                new AppOpsManager.OpEntry(
+                        AppOpsManager.OP_RUN_ANY_IN_BACKGROUND, mode, Collections.emptyMap());
+        return new AppOpsManager.PackageOps(packageName, uid, Arrays.asList(opEntry));
+    }
+
     private void verifySetAppOptimizationMode(int appStandbyMode, boolean allowListed) {
         verify(mMockBatteryUtils).setForceAppStandby(UID, PACKAGE_NAME, appStandbyMode);
         if (allowListed) {
@@ -44,6 +44,8 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.util.ReflectionHelpers;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
@@ -77,6 +79,7 @@ public class BatteryTipLoaderTest {
         doReturn(mBatteryInfo).when(mBatteryUtils).getBatteryInfo(any());
         mBatteryTipLoader = new BatteryTipLoader(mContext, mBatteryUsageStats);
         mBatteryTipLoader.mBatteryUtils = mBatteryUtils;
+        mBatteryTipLoader.mPipeline = new BatteryTipDetectorPipeline();
     }
 
     @After
@@ -94,4 +97,27 @@ public class BatteryTipLoaderTest {
             assertThat(batteryTips.get(i).getType()).isEqualTo(TIP_ORDER[i]);
         }
     }
+
+    @Test
+    public void testLoadBackground_reload_returnsNewTips() {
+        final List<BatteryTip> batteryTips = mBatteryTipLoader.loadInBackground();
+
+        final List<BatteryTip> reloadedTips = mBatteryTipLoader.loadInBackground();
+
+        assertThat(reloadedTips).hasSize(batteryTips.size());
+        for (int i = 0, size = batteryTips.size(); i < size; i++) {
+            assertThat(reloadedTips.get(i)).isNotSameInstanceAs(batteryTips.get(i));
+        }
+    }
+
+    @Test
+    public void testLoadBackground_dumpsDetectorTiming() {
+        mBatteryTipLoader.loadInBackground();
+        final StringWriter stringWriter = new StringWriter();
+
+        mBatteryTipLoader.mPipeline.dump(new PrintWriter(stringWriter));
+
+        assertThat(stringWriter.toString()).contains("HighUsageDetector");
+        assertThat(stringWriter.toString()).contains("IncompatibleChargerDetector");
+    }
 }
@@ -23,6 +23,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.spy;
 
+import android.content.ComponentCallbacks2;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
@@ -370,6 +371,45 @@ public final class BatteryDiffEntryTest {
         assertThat(BatteryDiffEntry.sPackageNameAndUidCache).isEmpty();
     }
 
+    @Test
+    public void testInvalidatePackage_clearDataForPackage() {
+        BatteryDiffEntry.sResourceCache.put(
+                "fake application key",
+                new BatteryEntry.NameAndIcon("app label", PACKAGE_NAME, null, /* iconId= */ 0));
+        BatteryDiffEntry.sResourceCache.put(
+                "other application key",
+                new BatteryEntry.NameAndIcon("other label", "other.package", null, 0));
+        BatteryDiffEntry.sPackageNameAndUidCache.put(PACKAGE_NAME, UID);
+
+        BatteryDiffEntry.invalidatePackage(PACKAGE_NAME);
+
+        assertThat(BatteryDiffEntry.sResourceCache.keySet())
+                .containsExactly("other application key");
+        assertThat(BatteryDiffEntry.sPackageNameAndUidCache).isEmpty();
+    }
+
+    @Test
+    public void testOnTrimMemory_moderate_clearDataForAllCaches() {
+        BatteryDiffEntry.sResourceCache.put(
+                "fake application key",
+                new BatteryEntry.NameAndIcon("app label", null, /* iconId= */ 0));
+        BatteryDiffEntry.sPackageNameAndUidCache.put(PACKAGE_NAME, UID);
+
+        BatteryDiffEntry.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+        assertThat(BatteryDiffEntry.sResourceCache).isEmpty();
+        assertThat(BatteryDiffEntry.sPackageNameAndUidCache).isEmpty();
+    }
+
+    @Test
+    public void testOnTrimMemory_uiHidden_keepsCaches() {
+        BatteryDiffEntry.sPackageNameAndUidCache.put(PACKAGE_NAME, UID);
+
+        BatteryDiffEntry.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertThat(BatteryDiffEntry.sPackageNameAndUidCache).hasSize(1);
+    }
+
     @Test
     public void testClearCache_switchLocale_clearCacheIconAndLabel() throws Exception {
         final int userId = UserHandle.getUserId(1001);
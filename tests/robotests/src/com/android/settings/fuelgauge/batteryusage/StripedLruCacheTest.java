@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public final class StripedLruCacheTest {
+
+    @Test
+    public void put_overMaxSize_evictsLeastRecentlyUsed() {
+        final StripedLruCache<String> cache =
+                new StripedLruCache<>(/* stripeCount= */ 1, /* maxSize= */ 10,
+                        (key, value) -> value.length());
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        cache.get("a");
+
+        cache.put("c", "12345");
+
+        assertThat(cache.keySet()).containsExactly("a", "c");
+    }
+
+    @Test
+    public void put_nullKeyOrValue_ignored() {
+        final StripedLruCache<String> cache =
+                new StripedLruCache<>(/* stripeCount= */ 4, /* maxSize= */ 100, (key, value) -> 1);
+
+        cache.put(null, "value");
+        cache.put("key", null);
+
+        assertThat(cache).isEmpty();
+        assertThat(cache.get(null)).isNull();
+    }
+
+    @Test
+    public void trimToRatio_evictsEntriesOverRatio() {
+        final StripedLruCache<String> cache =
+                new StripedLruCache<>(/* stripeCount= */ 1, /* maxSize= */ 4, (key, value) -> 1);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.put("d", "4");
+
+        cache.trimToRatio(0.5f);
+
+        assertThat(cache.keySet()).containsExactly("c", "d");
+    }
+
+    @Test
+    public void removeIf_removesMatchingEntries() {
+        final StripedLruCache<String> cache =
+                new StripedLruCache<>(/* stripeCount= */ 4, /* maxSize= */ 100, (key, value) -> 1);
+        cache.put("a", "keep");
+        cache.put("b", "drop");
+
+        cache.removeIf((key, value) -> value.equals("drop"));
+
+        assertThat(cache.keySet()).containsExactly("a");
+    }
+}
@@ -82,6 +82,16 @@ public class EligibleCardCheckerTest {
         assertThat(mEligibleCardChecker.mCard.hasInlineAction()).isTrue();
     }
 
+    @Test
+    public void isCardEligibleToDisplay_toggleSlice_keepsSliceForRendering() {
+        final Slice slice = buildSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        assertThat(mEligibleCardChecker.mCard.getSlice()).isSameInstanceAs(slice);
+    }
+
     @Test
     public void isCardEligibleToDisplay_invalidScheme_returnFalse() {
         final Uri invalidUri = Uri.parse("contet://com.android.settings.slices/action/flashlight");
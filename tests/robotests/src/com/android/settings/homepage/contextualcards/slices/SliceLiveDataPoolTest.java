@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.slice.Slice;
+import androidx.slice.SliceProvider;
+import androidx.slice.widget.SliceLiveData;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceLiveDataPoolTest {
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+
+    private final SliceLiveData.OnErrorListener mErrorListener = (type, source) -> { };
+
+    private SliceLiveDataPool mPool;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        SliceProvider.setSpecs(SliceLiveData.SUPPORTED_SPECS);
+        mPool = new SliceLiveDataPool(context);
+    }
+
+    @Test
+    public void acquire_sameUri_sharesLiveData() {
+        final LiveData<Slice> first = mPool.acquire(TEST_SLICE_URI, mErrorListener);
+        final LiveData<Slice> second = mPool.acquire(TEST_SLICE_URI, (type, source) -> { });
+
+        assertThat(second).isSameInstanceAs(first);
+    }
+
+    @Test
+    public void acquire_eligibleSlice_isFirstValue() {
+        final Slice slice = new Slice.Builder(TEST_SLICE_URI).build();
+        mPool.offerEligibleSlice(TEST_SLICE_URI, slice, mock(Runnable.class));
+
+        final LiveData<Slice> liveData = mPool.acquire(TEST_SLICE_URI, mErrorListener);
+
+        assertThat(liveData.getValue()).isSameInstanceAs(slice);
+    }
+
+    @Test
+    public void observe_eligibleSlice_unpinsEligibilityBinding() {
+        final Runnable unpin = mock(Runnable.class);
+        mPool.offerEligibleSlice(TEST_SLICE_URI,
+                new Slice.Builder(TEST_SLICE_URI).build(), unpin);
+        final LiveData<Slice> liveData = mPool.acquire(TEST_SLICE_URI, mErrorListener);
+        verify(unpin, never()).run();
+
+        liveData.observeForever(mock(Observer.class));
+
+        verify(unpin).run();
+    }
+
+    @Test
+    public void offerEligibleSlice_neverRendered_unpinsAfterTimeout() {
+        final Runnable unpin = mock(Runnable.class);
+        mPool.offerEligibleSlice(TEST_SLICE_URI,
+                new Slice.Builder(TEST_SLICE_URI).build(), unpin);
+
+        ShadowLooper.idleMainLooper(SliceLiveDataPool.ELIGIBLE_SLICE_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS);
+
+        verify(unpin).run();
+    }
+
+    @Test
+    public void release_lastReference_keptPinnedThenDropped() {
+        final LiveData<Slice> liveData = mPool.acquire(TEST_SLICE_URI, mErrorListener);
+
+        mPool.release(TEST_SLICE_URI, mErrorListener);
+
+        assertThat(liveData.hasActiveObservers()).isTrue();
+        assertThat(mPool.isPooled(TEST_SLICE_URI)).isTrue();
+
+        ShadowLooper.idleMainLooper(SliceLiveDataPool.KEEP_PINNED_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertThat(liveData.hasActiveObservers()).isFalse();
+        assertThat(mPool.isPooled(TEST_SLICE_URI)).isFalse();
+    }
+
+    @Test
+    public void keepPinned_stillReferenced_staysPooled() {
+        mPool.acquire(TEST_SLICE_URI, mErrorListener);
+
+        mPool.keepPinned(TEST_SLICE_URI);
+        ShadowLooper.idleMainLooper(SliceLiveDataPool.KEEP_PINNED_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertThat(mPool.isPooled(TEST_SLICE_URI)).isTrue();
+    }
+}
@@ -28,9 +28,11 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
 
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.ResolveInfo;
 import android.content.pm.ServiceInfo;
 import android.os.Bundle;
@@ -48,6 +50,7 @@ import com.android.settings.R;
 import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
 import com.android.settings.testutils.shadow.ShadowInputMethodManagerWithMethodList;
 import com.android.settings.testutils.shadow.ShadowSecureSettings;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.inputmethod.InputMethodPreference;
 import com.android.settingslib.inputmethod.InputMethodSettingValuesWrapper;
 
@@ -67,7 +70,8 @@ import java.util.List;
 @RunWith(RobolectricTestRunner.class)
 @Config(shadows = {
         ShadowSecureSettings.class,
-        ShadowInputMethodManagerWithMethodList.class
+        ShadowInputMethodManagerWithMethodList.class,
+        ShadowThreadUtils.class
 })
 public class AvailableVirtualKeyboardFragmentTest {
 
@@ -85,11 +89,13 @@ public class AvailableVirtualKeyboardFragmentTest {
     private InputMethodPreference mInputMethodPreference;
     private Context mContext;
     private AvailableVirtualKeyboardFragment mFragment;
+    private PackageInfo mImePackageInfo;
 
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         mContext = spy(RuntimeEnvironment.application);
+        InputMethodCatalog.clearCache();
         initFragment();
         initMock();
     }
@@ -174,6 +180,42 @@ public class AvailableVirtualKeyboardFragmentTest {
         assertThat(mFragment.mInputMethodPreferenceList).hasSize(inputMethodNums);
     }
 
+    @Test
+    public void updateInputMethodPreferenceViews_unchanged_keepsPreferences() {
+        installImePackage(/* lastUpdateTime= */ 1L);
+        useRealPreferenceScreen();
+        mFragment.onAttach(mContext);
+        when(mValuesWrapper.getInputMethodList()).thenReturn(createFakeInputMethodInfoList(
+                "test", /* num= */ 1));
+        mFragment.updateInputMethodPreferenceViews();
+        final InputMethodPreference pref = mFragment.mInputMethodPreferenceList.get(0);
+
+        mFragment.updateInputMethodPreferenceViews();
+
+        assertThat(mFragment.mInputMethodPreferenceList).containsExactly(pref);
+        assertThat(mFragment.getPreferenceScreen().getPreferenceCount()).isEqualTo(1);
+        assertThat(mFragment.getPreferenceScreen().getPreference(0)).isSameInstanceAs(pref);
+    }
+
+    @Test
+    public void updateInputMethodPreferenceViews_packageUpdated_replacesPreference() {
+        installImePackage(/* lastUpdateTime= */ 1L);
+        useRealPreferenceScreen();
+        mFragment.onAttach(mContext);
+        when(mValuesWrapper.getInputMethodList()).thenReturn(createFakeInputMethodInfoList(
+                "test", /* num= */ 1));
+        mFragment.updateInputMethodPreferenceViews();
+        final InputMethodPreference pref = mFragment.mInputMethodPreferenceList.get(0);
+
+        installImePackage(/* lastUpdateTime= */ 2L);
+        mFragment.updateInputMethodPreferenceViews();
+
+        assertThat(mFragment.mInputMethodPreferenceList).hasSize(1);
+        assertThat(mFragment.mInputMethodPreferenceList.get(0)).isNotSameInstanceAs(pref);
+        assertThat(mFragment.getPreferenceScreen().getPreferenceCount()).isEqualTo(1);
+        assertThat(pref.getParent()).isNull();
+    }
+
     @Test
     public void searchIndexProvider_shouldIndexResource() {
         final List<SearchIndexableResource> indexRes =
@@ -201,6 +243,23 @@ public class AvailableVirtualKeyboardFragmentTest {
         when(mContext.getSystemService(UserManager.class)).thenReturn(mUserManager);
     }
 
+    private void useRealPreferenceScreen() {
+        final PreferenceScreen screen =
+                new PreferenceManager(mContext).createPreferenceScreen(mContext);
+        doReturn(screen).when(mFragment).getPreferenceScreen();
+    }
+
+    private void installImePackage(long lastUpdateTime) {
+        if (mImePackageInfo == null) {
+            mImePackageInfo = new PackageInfo();
+            mImePackageInfo.packageName = "com.android.ime";
+            mImePackageInfo.applicationInfo = new ApplicationInfo();
+            mImePackageInfo.applicationInfo.packageName = "com.android.ime";
+        }
+        mImePackageInfo.lastUpdateTime = lastUpdateTime;
+        shadowOf(mContext.getPackageManager()).installPackage(mImePackageInfo);
+    }
+
     private List<InputMethodInfo> createFakeInputMethodInfoList(final String name, int num) {
         List<InputMethodSubtype> subtypes = new ArrayList<>();
 
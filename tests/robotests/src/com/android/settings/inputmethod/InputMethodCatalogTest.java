@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.inputmethod;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.ResolveInfo;
+import android.content.pm.ServiceInfo;
+import android.os.UserHandle;
+import android.view.inputmethod.InputMethodInfo;
+import android.view.inputmethod.InputMethodManager;
+import android.view.inputmethod.InputMethodSubtype;
+
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowThreadUtils.class)
+public class InputMethodCatalogTest {
+    private static final String PACKAGE_NAME = "com.android.ime";
+
+    @Mock
+    private InputMethodManager mInputMethodManager;
+
+    private Context mContext;
+    private InputMethodCatalog mCatalog;
+    private PackageInfo mPackageInfo;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mInputMethodManager).when(mContext).getSystemService(InputMethodManager.class);
+        InputMethodCatalog.clearCache();
+        mCatalog = new InputMethodCatalog(mContext, mContext, UserHandle.myUserId());
+    }
+
+    @After
+    public void tearDown() {
+        InputMethodCatalog.clearCache();
+    }
+
+    @Test
+    public void load_deliversEntryPerInputMethod() {
+        final List<InputMethodCatalog.Entry> loadedEntries = new ArrayList<>();
+
+        mCatalog.load(List.of(createInputMethodInfo("first"), createInputMethodInfo("second")),
+                loadedEntries::addAll);
+
+        assertThat(loadedEntries).hasSize(2);
+        assertThat(loadedEntries.get(0).mInfo.getServiceName()).isEqualTo("first");
+        assertThat(loadedEntries.get(0).mAllowedByOrganization).isTrue();
+        assertThat(loadedEntries.get(1).mInfo.getServiceName()).isEqualTo("second");
+    }
+
+    @Test
+    public void loadEntries_packageNotFound_entryIsNeverSame() {
+        final InputMethodInfo imi = createInputMethodInfo("test");
+
+        final InputMethodCatalog.Entry entry = mCatalog.loadEntries(List.of(imi)).get(0);
+
+        assertThat(entry.mPackageVersion).isEqualTo(InputMethodCatalog.VERSION_UNKNOWN);
+        assertThat(mCatalog.loadEntries(List.of(imi)).get(0).isSameAs(entry)).isFalse();
+    }
+
+    @Test
+    public void loadEntries_samePackageVersion_entryIsSame() {
+        installPackage(/* lastUpdateTime= */ 1L);
+        final InputMethodInfo imi = createInputMethodInfo("test");
+
+        final InputMethodCatalog.Entry entry = mCatalog.loadEntries(List.of(imi)).get(0);
+
+        assertThat(entry.mPackageVersion).isEqualTo(1L);
+        assertThat(entry.mIcon).isNotNull();
+        assertThat(mCatalog.loadEntries(List.of(imi)).get(0).isSameAs(entry)).isTrue();
+    }
+
+    @Test
+    public void loadEntries_packageUpdated_entryIsNotSame() {
+        installPackage(/* lastUpdateTime= */ 1L);
+        final InputMethodInfo imi = createInputMethodInfo("test");
+        final InputMethodCatalog.Entry entry = mCatalog.loadEntries(List.of(imi)).get(0);
+
+        installPackage(/* lastUpdateTime= */ 2L);
+
+        assertThat(mCatalog.loadEntries(List.of(imi)).get(0).isSameAs(entry)).isFalse();
+    }
+
+    private void installPackage(long lastUpdateTime) {
+        if (mPackageInfo == null) {
+            mPackageInfo = new PackageInfo();
+            mPackageInfo.packageName = PACKAGE_NAME;
+            mPackageInfo.applicationInfo = new ApplicationInfo();
+            mPackageInfo.applicationInfo.packageName = PACKAGE_NAME;
+        }
+        mPackageInfo.lastUpdateTime = lastUpdateTime;
+        shadowOf(mContext.getPackageManager()).installPackage(mPackageInfo);
+    }
+
+    private static InputMethodInfo createInputMethodInfo(String name) {
+        final List<InputMethodSubtype> subtypes = new ArrayList<>();
+        subtypes.add(new InputMethodSubtype.InputMethodSubtypeBuilder().build());
+
+        final ResolveInfo resolveInfo = new ResolveInfo();
+        resolveInfo.serviceInfo = new ServiceInfo();
+        resolveInfo.serviceInfo.packageName = PACKAGE_NAME;
+        resolveInfo.serviceInfo.name = name;
+        resolveInfo.serviceInfo.applicationInfo = new ApplicationInfo();
+        resolveInfo.serviceInfo.applicationInfo.enabled = true;
+        return new InputMethodInfo(
+                resolveInfo,
+                false /* isAuxIme */,
+                "TestSettingsActivity",
+                subtypes,
+                0 /* isDefaultResId */,
+                true /* forceDefault */);
+    }
+}
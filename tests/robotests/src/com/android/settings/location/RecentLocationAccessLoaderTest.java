@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.os.UserHandle;
+
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+import com.android.settingslib.applications.RecentAppOpsAccess;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = {ShadowThreadUtils.class})
+public class RecentLocationAccessLoaderTest {
+    @Mock
+    private RecentAppOpsAccess mRecentAppOpsAccess;
+
+    private RecentLocationAccessLoader mLoader;
+    private final List<RecentAppOpsAccess.Access> mAccesses = ImmutableList.of(
+            new RecentAppOpsAccess.Access("app", UserHandle.CURRENT, null, "app", "", 0));
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(mAccesses).when(mRecentAppOpsAccess).getAppListSorted(false);
+        doReturn(new ArrayList<>()).when(mRecentAppOpsAccess).getAppListSorted(true);
+        mLoader = new RecentLocationAccessLoader(RuntimeEnvironment.application,
+                mRecentAppOpsAccess);
+    }
+
+    @Test
+    public void load_twice_queriesOnce() {
+        final List<List<RecentAppOpsAccess.Access>> results = new ArrayList<>();
+
+        mLoader.load(false, results::add);
+        mLoader.load(false, results::add);
+
+        assertThat(results).containsExactly(mAccesses, mAccesses);
+        verify(mRecentAppOpsAccess, times(1)).getAppListSorted(false);
+    }
+
+    @Test
+    public void load_showSystem_cachedSeparately() {
+        mLoader.load(false, accesses -> { });
+        mLoader.load(true, accesses -> assertThat(accesses).isEmpty());
+
+        verify(mRecentAppOpsAccess, times(1)).getAppListSorted(false);
+        verify(mRecentAppOpsAccess, times(1)).getAppListSorted(true);
+    }
+
+    @Test
+    public void load_cacheExpired_queriesAgain() {
+        mLoader.load(false, accesses -> { });
+
+        ShadowSystemClock.advanceBy(
+                Duration.ofMillis(RecentLocationAccessLoader.CACHE_TTL_MS + 1));
+        assertThat(mLoader.getCachedAccesses(false)).isNull();
+        mLoader.load(false, accesses -> { });
+
+        verify(mRecentAppOpsAccess, times(2)).getAppListSorted(false);
+    }
+
+    @Test
+    public void load_queryFailed_deliversEmptyListAndQueriesAgain() {
+        doThrow(new IllegalStateException()).doReturn(mAccesses)
+                .when(mRecentAppOpsAccess).getAppListSorted(false);
+        final List<List<RecentAppOpsAccess.Access>> results = new ArrayList<>();
+
+        mLoader.load(false, results::add);
+        assertThat(mLoader.getCachedAccesses(false)).isNull();
+        mLoader.load(false, results::add);
+
+        assertThat(results).containsExactly(List.of(), mAccesses).inOrder();
+        verify(mRecentAppOpsAccess, times(2)).getAppListSorted(false);
+    }
+
+    @Test
+    public void onLocationOpChanged_invalidatesAndNotifiesListeners() {
+        final Runnable listener = mock(Runnable.class);
+        mLoader.addChangeListener(listener);
+        mLoader.load(false, accesses -> { });
+
+        mLoader.onLocationOpChanged();
+
+        verify(listener).run();
+        assertThat(mLoader.getCachedAccesses(false)).isNull();
+    }
+
+    @Test
+    public void onLocationOpChanged_removedListener_notNotified() {
+        final Runnable listener = mock(Runnable.class);
+        mLoader.addChangeListener(listener);
+        mLoader.removeChangeListener(listener);
+
+        mLoader.onLocationOpChanged();
+
+        verify(listener, never()).run();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+@RunWith(RobolectricTestRunner.class)
+public class SubscriptionSnapshotCacheTest {
+    private static final int SUBID_1 = 1;
+    private static final int SUBID_2 = 2;
+    private static final CharSequence CARRIER_1 = "carrier1";
+    private static final CharSequence CARRIER_2 = "carrier2";
+
+    @Mock
+    private SubscriptionManager mSubscriptionManager;
+    @Mock
+    private CarrierConfigManager mCarrierConfigManager;
+    @Mock
+    private SubscriptionInfo mInfo1;
+    @Mock
+    private SubscriptionInfo mInfo2;
+
+    private Context mContext;
+    private SubscriptionSnapshotCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(ApplicationProvider.getApplicationContext());
+        when(mContext.getSystemService(SubscriptionManager.class))
+                .thenReturn(mSubscriptionManager);
+        when(mContext.getSystemService(CarrierConfigManager.class))
+                .thenReturn(mCarrierConfigManager);
+        when(mInfo1.getSubscriptionId()).thenReturn(SUBID_1);
+        when(mInfo1.getDisplayName()).thenReturn(CARRIER_1);
+        when(mInfo2.getSubscriptionId()).thenReturn(SUBID_2);
+        when(mInfo2.getDisplayName()).thenReturn(CARRIER_2);
+        when(mSubscriptionManager.getAvailableSubscriptionInfoList())
+                .thenReturn(Arrays.asList(mInfo1));
+
+        mCache = new SubscriptionSnapshotCache(mContext);
+        mCache.registerListeners();
+    }
+
+    @Test
+    public void getOrCreateSnapshot_calledTwice_queriesSubscriptionsOnce() {
+        final SubscriptionSnapshotCache.Snapshot first = mCache.getOrCreateSnapshot(mContext);
+        final SubscriptionSnapshotCache.Snapshot second = mCache.getOrCreateSnapshot(mContext);
+
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(first.getUniqueDisplayNames()).containsExactly(SUBID_1, CARRIER_1);
+        verify(mSubscriptionManager, times(1)).getAvailableSubscriptionInfoList();
+    }
+
+    @Test
+    public void onSubscriptionsChanged_rebuildsSnapshot() {
+        final ArgumentCaptor<SubscriptionManager.OnSubscriptionsChangedListener> captor =
+                ArgumentCaptor.forClass(SubscriptionManager.OnSubscriptionsChangedListener.class);
+        verify(mSubscriptionManager).addOnSubscriptionsChangedListener(any(), captor.capture());
+        final SubscriptionSnapshotCache.Snapshot first = mCache.getOrCreateSnapshot(mContext);
+
+        when(mSubscriptionManager.getAvailableSubscriptionInfoList())
+                .thenReturn(Arrays.asList(mInfo1, mInfo2));
+        captor.getValue().onSubscriptionsChanged();
+        final SubscriptionSnapshotCache.Snapshot second = mCache.getOrCreateSnapshot(mContext);
+
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(second.getAvailableSubscriptions()).containsExactly(mInfo1, mInfo2);
+        assertThat(second.getUniqueDisplayNames()).containsExactly(
+                SUBID_1, CARRIER_1, SUBID_2, CARRIER_2);
+    }
+
+    @Test
+    public void onCarrierConfigChanged_rebuildsSnapshot() {
+        final ArgumentCaptor<CarrierConfigManager.CarrierConfigChangeListener> captor =
+                ArgumentCaptor.forClass(CarrierConfigManager.CarrierConfigChangeListener.class);
+        verify(mCarrierConfigManager).registerCarrierConfigChangeListener(any(),
+                captor.capture());
+        final SubscriptionSnapshotCache.Snapshot first = mCache.getOrCreateSnapshot(mContext);
+
+        captor.getValue().onCarrierConfigChanged(0 /* slotIndex */, SUBID_1,
+                0 /* carrierId */, 0 /* specificCarrierId */);
+
+        assertThat(mCache.getOrCreateSnapshot(mContext)).isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void getOrCreateSnapshot_notListening_doesNotCache() {
+        final SubscriptionSnapshotCache cache = new SubscriptionSnapshotCache(mContext);
+
+        final SubscriptionSnapshotCache.Snapshot first = cache.getOrCreateSnapshot(mContext);
+
+        assertThat(cache.getOrCreateSnapshot(mContext)).isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void onSimSlotStatusChanged_rebuildsSnapshot() {
+        final SubscriptionSnapshotCache.Snapshot first = mCache.getOrCreateSnapshot(mContext);
+
+        mContext.sendBroadcast(new Intent(TelephonyManager.ACTION_SIM_SLOT_STATUS_CHANGED));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mCache.getOrCreateSnapshot(mContext)).isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void onLocaleChanged_rebuildsSnapshot() {
+        final SubscriptionSnapshotCache.Snapshot first = mCache.getOrCreateSnapshot(mContext);
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_LOCALE_CHANGED));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mCache.getOrCreateSnapshot(mContext)).isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void onUniqueDisplayNameChanged_rebuildsSnapshot() {
+        final SubscriptionSnapshotCache.Snapshot first = mCache.getOrCreateSnapshot(mContext);
+
+        mContext.getSharedPreferences(SubscriptionUtil.KEY_UNIQUE_SUBSCRIPTION_DISPLAYNAME,
+                Context.MODE_PRIVATE).edit().putString("key", "new name").commit();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mCache.getOrCreateSnapshot(mContext)).isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void getOrCreateSnapshot_doesNotLoadPhoneNumbers() {
+        mCache.getOrCreateSnapshot(mContext);
+
+        verify(mSubscriptionManager, never()).getPhoneNumber(anyInt());
+    }
+
+    @Test
+    public void getFormattedPhoneNumber_noPhoneNumber_loadedOnceAsNull() {
+        when(mSubscriptionManager.getPhoneNumber(SUBID_1)).thenReturn("");
+        final SubscriptionSnapshotCache.Snapshot snapshot = mCache.getOrCreateSnapshot(mContext);
+
+        assertThat(snapshot.getFormattedPhoneNumber(mContext, mInfo1)).isNull();
+        assertThat(snapshot.getFormattedPhoneNumber(mContext, mInfo1)).isNull();
+
+        verify(mSubscriptionManager, times(1)).getPhoneNumber(SUBID_1);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.panel;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.provider.Settings;
+
+import com.android.settings.slices.CustomSliceRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class PanelSlicePreloaderTest {
+
+    private Context mContext;
+    private PanelSlicePreloader mPreloader;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPreloader = new PanelSlicePreloader();
+    }
+
+    @Test
+    public void getPreloadableSlices_wifiPanel_returnsWifiSlice() {
+        assertThat(mPreloader.getPreloadableSlices(mContext, Settings.Panel.ACTION_WIFI))
+                .containsExactly(CustomSliceRegistry.WIFI_SLICE_URI);
+    }
+
+    @Test
+    public void getPreloadableSlices_nfcPanel_returnsNfcSlice() {
+        assertThat(mPreloader.getPreloadableSlices(mContext, Settings.Panel.ACTION_NFC))
+                .containsExactly(CustomSliceRegistry.NFC_SLICE_URI);
+    }
+
+    @Test
+    public void getPreloadableSlices_otherPanel_returnsNull() {
+        assertThat(mPreloader.getPreloadableSlices(mContext,
+                Settings.Panel.ACTION_INTERNET_CONNECTIVITY)).isNull();
+        assertThat(mPreloader.getPreloadableSlices(mContext, null)).isNull();
+    }
+
+    @Test
+    public void take_notPreloaded_returnsNull() {
+        assertThat(mPreloader.take(CustomSliceRegistry.WIFI_SLICE_URI)).isNull();
+        assertThat(mPreloader.isPreloaded(CustomSliceRegistry.WIFI_SLICE_URI)).isFalse();
+    }
+}
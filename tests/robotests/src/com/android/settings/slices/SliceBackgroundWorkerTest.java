@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.android.settings.slices.SliceBackgroundWorker.MAX_SLICE_UPDATE_THROTTLE_INTERVAL;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceBackgroundWorkerTest {
+
+    private static final Uri URI = Uri.parse("content://com.android.settings.slices/test");
+
+    private TestWorker mWorker;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mWorker = new TestWorker(context, URI);
+    }
+
+    @After
+    public void tearDown() {
+        // Drops the pending update and the last update time of the Slice.
+        mWorker.unpin();
+    }
+
+    @Test
+    public void updateResults_sameResults_countsSuppressedUpdate() {
+        mWorker.update(Arrays.asList("a", "b"));
+        mWorker.update(Arrays.asList("a", "b"));
+
+        assertThat(mWorker.getSuppressedUpdateCount()).isEqualTo(1);
+        assertThat(mWorker.getResults()).containsExactly("a", "b");
+    }
+
+    @Test
+    public void updateResults_differentResults_doesNotCountSuppressedUpdate() {
+        mWorker.update(Arrays.asList("a"));
+        mWorker.update(Arrays.asList("a", "b"));
+
+        assertThat(mWorker.getSuppressedUpdateCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void notifySliceChange_severalTimesWithinThrottle_notifiesOnce() {
+        mWorker.notifySliceChange();
+        mWorker.notifySliceChange();
+        mWorker.notifySliceChange();
+
+        final ShadowLooper handlerLooper = getNotifySliceChangeLooper();
+        handlerLooper.idleFor(Duration.ofMillis(100));
+        assertThat(mWorker.getDeliveredUpdateCount()).isEqualTo(0);
+
+        handlerLooper.idleFor(Duration.ofMillis(250));
+        assertThat(mWorker.getDeliveredUpdateCount()).isEqualTo(1);
+        assertThat(mWorker.getSuppressedUpdateCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void notifySliceChange_afterDelivery_waitsForThrottleInterval() {
+        mWorker.notifySliceChange();
+        final ShadowLooper handlerLooper = getNotifySliceChangeLooper();
+        handlerLooper.idleFor(Duration.ofMillis(350));
+        assertThat(mWorker.getDeliveredUpdateCount()).isEqualTo(1);
+
+        mWorker.notifySliceChange();
+        mWorker.notifySliceChange();
+        handlerLooper.idleFor(Duration.ofMillis(100));
+        assertThat(mWorker.getDeliveredUpdateCount()).isEqualTo(1);
+
+        handlerLooper.idleFor(Duration.ofMillis(250));
+        assertThat(mWorker.getDeliveredUpdateCount()).isEqualTo(2);
+        assertThat(mWorker.getSuppressedUpdateCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void computeThrottleInterval_fastClient_usesDefaultInterval() {
+        assertThat(SliceBackgroundWorker.computeThrottleInterval(0L)).isEqualTo(300L);
+        assertThat(SliceBackgroundWorker.computeThrottleInterval(50L)).isEqualTo(300L);
+    }
+
+    @Test
+    public void computeThrottleInterval_slowClient_followsBindLatency() {
+        assertThat(SliceBackgroundWorker.computeThrottleInterval(400L)).isEqualTo(800L);
+    }
+
+    @Test
+    public void computeThrottleInterval_verySlowClient_isBounded() {
+        assertThat(SliceBackgroundWorker.computeThrottleInterval(5000L))
+                .isEqualTo(MAX_SLICE_UPDATE_THROTTLE_INTERVAL);
+    }
+
+    private static ShadowLooper getNotifySliceChangeLooper() {
+        for (Looper looper : ShadowLooper.getAllLoopers()) {
+            if ("NotifySliceChangeHandler".equals(looper.getThread().getName())) {
+                return shadowOf(looper);
+            }
+        }
+        throw new AssertionError("NotifySliceChangeHandler thread not started");
+    }
+
+    private static class TestWorker extends SliceBackgroundWorker<String> {
+
+        TestWorker(Context context, Uri uri) {
+            super(context, uri);
+        }
+
+        @Override
+        protected void onSlicePinned() {
+        }
+
+        @Override
+        protected void onSliceUnpinned() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void update(List<String> results) {
+            updateResults(results);
+        }
+    }
+}
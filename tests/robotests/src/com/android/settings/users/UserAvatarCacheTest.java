@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.UserHandle;
+import android.os.UserManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserAvatarCacheTest {
+    private static final int USER_ID = 10;
+    private static final int ICON_SIZE = 48;
+
+    @Mock
+    private UserManager mUserManager;
+
+    private UserAvatarCache mAvatarCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        final Context context = spy(RuntimeEnvironment.application);
+        doReturn(mUserManager).when(context).getSystemService(UserManager.class);
+        doReturn(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888))
+                .when(mUserManager).getUserIcon(USER_ID);
+        mAvatarCache = new UserAvatarCache(context);
+    }
+
+    @Test
+    public void getCachedAvatar_notLoaded_returnsNull() {
+        assertThat(mAvatarCache.getCachedAvatar(USER_ID, ICON_SIZE)).isNull();
+    }
+
+    @Test
+    public void loadAvatar_returnsEncircledAvatarAtSize() {
+        final Drawable avatar = mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+
+        assertThat(((BitmapDrawable) avatar).getBitmap().getWidth()).isEqualTo(ICON_SIZE);
+        assertThat(mAvatarCache.getCachedAvatar(USER_ID, ICON_SIZE)).isNotNull();
+        assertThat(mAvatarCache.getCachedAvatar(USER_ID, ICON_SIZE * 2)).isNull();
+    }
+
+    @Test
+    public void loadAvatar_twice_decodesOnce() {
+        mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+        mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+
+        verify(mUserManager, times(1)).getUserIcon(USER_ID);
+    }
+
+    @Test
+    public void loadAvatar_noUserIcon_returnsDefaultAvatar() {
+        doReturn(null).when(mUserManager).getUserIcon(USER_ID);
+
+        final Drawable avatar = mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+
+        assertThat(((BitmapDrawable) avatar).getBitmap().getWidth()).isEqualTo(ICON_SIZE);
+    }
+
+    @Test
+    public void getCachedDefaultAvatar_loaded_returnsAvatarAtSize() {
+        assertThat(mAvatarCache.getCachedDefaultAvatar(UserHandle.USER_NULL, ICON_SIZE))
+                .isNull();
+
+        mAvatarCache.loadDefaultAvatar(UserHandle.USER_NULL, ICON_SIZE);
+
+        final Drawable avatar = mAvatarCache.getCachedDefaultAvatar(UserHandle.USER_NULL,
+                ICON_SIZE);
+        assertThat(((BitmapDrawable) avatar).getBitmap().getWidth()).isEqualTo(ICON_SIZE);
+    }
+
+    @Test
+    public void getCachedGuestAvatar_loaded_returnsAvatarOfSameTint() {
+        assertThat(mAvatarCache.getCachedGuestAvatar(ICON_SIZE, Color.GRAY)).isNull();
+
+        mAvatarCache.loadGuestAvatar(ICON_SIZE, Color.GRAY);
+
+        final Drawable avatar = mAvatarCache.getCachedGuestAvatar(ICON_SIZE, Color.GRAY);
+        assertThat(((BitmapDrawable) avatar).getBitmap().getWidth()).isEqualTo(ICON_SIZE);
+        assertThat(mAvatarCache.getCachedGuestAvatar(ICON_SIZE, Color.WHITE)).isNull();
+    }
+
+    @Test
+    public void invalidate_loadsAvatarAgain() {
+        mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+
+        mAvatarCache.invalidate(USER_ID);
+
+        assertThat(mAvatarCache.getCachedAvatar(USER_ID, ICON_SIZE)).isNull();
+        mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+        verify(mUserManager, times(2)).getUserIcon(USER_ID);
+    }
+
+    @Test
+    public void invalidate_otherUser_keepsAvatar() {
+        mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+
+        mAvatarCache.invalidate(USER_ID + 1);
+
+        assertThat(mAvatarCache.getCachedAvatar(USER_ID, ICON_SIZE)).isNotNull();
+    }
+
+    @Test
+    public void trimMemory_complete_dropsAvatars() {
+        mAvatarCache.loadAvatar(USER_ID, ICON_SIZE);
+
+        mAvatarCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+        assertThat(mAvatarCache.getCachedAvatar(USER_ID, ICON_SIZE)).isNull();
+    }
+}
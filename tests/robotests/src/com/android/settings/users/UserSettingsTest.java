@@ -120,6 +120,8 @@ public class UserSettingsTest {
     @Mock
     private Drawable mDefaultIconDrawable;
     @Mock
+    private UserAvatarCache mAvatarCache;
+    @Mock
     private PreferenceManager mMockPreferenceManager;
     @Mock
     private UserPreference mMePreference;
@@ -158,7 +160,11 @@ public class UserSettingsTest {
                 mock(MultiUserTopIntroPreferenceController.class));
         ReflectionHelpers.setField(mFragment, "mUserManager", mUserManager);
         ReflectionHelpers.setField(mFragment, "mUserCaps", mUserCapabilities);
-        ReflectionHelpers.setField(mFragment, "mDefaultIconDrawable", mDefaultIconDrawable);
+        mFragment.mAvatarCache = mAvatarCache;
+        doReturn(mDefaultIconDrawable).when(mAvatarCache)
+                .getCachedDefaultAvatar(anyInt(), anyInt());
+        doReturn(mDefaultIconDrawable).when(mAvatarCache)
+                .getCachedGuestAvatar(anyInt(), anyInt());
         ReflectionHelpers.setField(mFragment, "mAddingUser", false);
         ReflectionHelpers.setField(mFragment, "mMetricsFeatureProvider", mMetricsFeatureProvider);
         ReflectionHelpers.setField(mFragment, "mRemoveGuestOnExitPreferenceController",
@@ -700,31 +706,40 @@ public class UserSettingsTest {
         UserInfo currentUser = getAdminUser(true);
         currentUser.iconPath = "/data/system/users/0/photo.png";
         givenUsers(currentUser);
-        mFragment.mUserIcons.put(ACTIVE_USER_ID,
-                Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888));
+        doReturn(mock(Drawable.class)).when(mAvatarCache)
+                .getCachedAvatar(eq(ACTIVE_USER_ID), anyInt());
 
         mFragment.updateUserList();
 
+        verify(mAvatarCache, never()).loadAvatar(anyInt(), anyInt());
         verify(mUserManager, never()).getUserIcon(anyInt());
         // updateUserList should be called only once
         verify(mUserManager).getAliveUsers();
     }
 
+    @Test
+    public void updateUserList_defaultIconsCached_shouldNotLoadDefaultIcons() {
+        givenUsers(getAdminUser(true), getGuest(false));
+
+        mFragment.updateUserList();
+
+        verify(mAvatarCache, never()).loadDefaultAvatar(anyInt(), anyInt());
+        verify(mAvatarCache, never()).loadGuestAvatar(anyInt(), anyInt());
+    }
+
     @Ignore
     @Test
     public void updateUserList_userIconMissing_shouldLoadIcon() {
         UserInfo currentUser = getAdminUser(true);
         currentUser.iconPath = "/data/system/users/0/photo.png";
         givenUsers(currentUser);
-        // create a non-empty sparsearray
-        mFragment.mUserIcons.put(5, Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888));
-        Bitmap userIcon = Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888);
-        doReturn(userIcon).when(mUserManager).getUserIcon(ACTIVE_USER_ID);
+        // only another user's avatar is cached
+        doReturn(mock(Drawable.class)).when(mAvatarCache).getCachedAvatar(eq(5), anyInt());
 
         mFragment.updateUserList();
         shadowOf(Looper.getMainLooper()).idle();
 
-        verify(mUserManager).getUserIcon(ACTIVE_USER_ID);
+        verify(mAvatarCache).loadAvatar(eq(ACTIVE_USER_ID), anyInt());
         // updateUserList should be called another time after loading the icons
         verify(mUserManager, times(2)).getAliveUsers();
     }
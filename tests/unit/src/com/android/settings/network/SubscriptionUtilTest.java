@@ -85,6 +85,7 @@ public class SubscriptionUtilTest {
         when(mContext.getSystemService(TelephonyManager.class)).thenReturn(mTelMgr);
         when(mContext.getSystemService(ConnectivityManager.class)).thenReturn(mConnectivityManager);
         when(mTelMgr.getUiccSlotsInfo()).thenReturn(null);
+        SubscriptionSnapshotCache.invalidateAll();
     }
 
     @Ignore